@@ -7,8 +7,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
+import nl.ramsolutions.sw.magik.api.MagikKeyword;
+import nl.ramsolutions.sw.magik.api.MagikOperator;
+import nl.ramsolutions.sw.magik.api.MagikPunctuator;
 import nl.ramsolutions.sw.magik.checks.DisabledByDefault;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
 import nl.ramsolutions.sw.magik.parser.MagikCommentExtractor;
@@ -27,6 +33,28 @@ public class CommentedCodeCheck extends MagikCheck {
   private static final String MESSAGE = "Remove commented code.";
 
   private static final int DEFAULT_MIN_LINES = 3;
+  private static final int MAX_CACHE_SIZE = 10_000;
+
+  private static final Set<String> KEYWORDS = Set.of(MagikKeyword.keywordValues());
+  private static final List<String> CODE_MARKERS =
+      Stream.concat(
+              Stream.of(MagikOperator.values())
+                  .map(MagikOperator::getValue)
+                  .filter(value -> value.length() > 1 || value.equals("=")),
+              Stream.of(
+                      MagikPunctuator.PAREN_L,
+                      MagikPunctuator.SQUARE_L,
+                      MagikPunctuator.BRACE_L,
+                      MagikPunctuator.EMIT,
+                      MagikPunctuator.DOLLAR)
+                  .map(MagikPunctuator::getValue))
+          .toList();
+
+  /** Shared parser per thread, constructing the grammar is expensive. */
+  private static final ThreadLocal<MagikParser> PARSER = ThreadLocal.withInitial(MagikParser::new);
+
+  /** Memoized results of parsing comments, by (bare) comment text. */
+  private static final Map<String, Boolean> COMMENTED_CODE_CACHE = new ConcurrentHashMap<>();
 
   /** Minimum number of lines before flagging. */
   @RuleProperty(
@@ -110,7 +138,31 @@ public class CommentedCodeCheck extends MagikCheck {
 
   private boolean isCommentedCode(final String comment) {
     final String bareComment = comment.replaceAll("^#", "").replace("\n#", "\n");
-    final MagikParser parser = new MagikParser();
+    if (!CommentedCodeCheck.looksLikeCode(bareComment)) {
+      return false;
+    }
+
+    final Boolean cached = CommentedCodeCheck.COMMENTED_CODE_CACHE.get(bareComment);
+    if (cached != null) {
+      return cached;
+    }
+
+    final boolean isCommentedCode = CommentedCodeCheck.parsesAsCode(bareComment);
+    if (CommentedCodeCheck.COMMENTED_CODE_CACHE.size() >= MAX_CACHE_SIZE) {
+      CommentedCodeCheck.COMMENTED_CODE_CACHE.clear();
+    }
+    CommentedCodeCheck.COMMENTED_CODE_CACHE.put(bareComment, isCommentedCode);
+    return isCommentedCode;
+  }
+
+  /**
+   * Test if a comment parses as Magik code, without syntax errors.
+   *
+   * @param bareComment Comment, without the leading `#`s.
+   * @return True if the comment is code, false otherwise.
+   */
+  static boolean parsesAsCode(final String bareComment) {
+    final MagikParser parser = CommentedCodeCheck.PARSER.get();
     try {
       final AstNode magikNode = parser.parseSafe(bareComment);
       return magikNode.getChildren().stream().allMatch(node -> !node.is(MagikGrammar.SYNTAX_ERROR));
@@ -118,4 +170,57 @@ public class CommentedCodeCheck extends MagikCheck {
       return false;
     }
   }
+
+  /**
+   * Cheap test if a comment might be code: at least half of the non-empty lines contain a keyword,
+   * an operator or a punctuator which is not common in prose.
+   *
+   * @param bareComment Comment, without the leading `#`s.
+   * @return True if the comment might be code, false if it surely is prose.
+   */
+  static boolean looksLikeCode(final String bareComment) {
+    int lineCount = 0;
+    int codeLineCount = 0;
+    for (final String line : bareComment.split("\n")) {
+      if (line.isBlank()) {
+        continue;
+      }
+
+      lineCount++;
+      if (CommentedCodeCheck.lineLooksLikeCode(line)) {
+        codeLineCount++;
+      }
+    }
+    return codeLineCount * 2 >= lineCount;
+  }
+
+  private static boolean lineLooksLikeCode(final String line) {
+    if (CODE_MARKERS.stream().anyMatch(line::contains)) {
+      return true;
+    }
+
+    final int length = line.length();
+    for (int i = 0; i < length; ++i) {
+      final char chr = line.charAt(i);
+      if (chr == '_') {
+        // Keyword, such as `_local`.
+        int end = i + 1;
+        while (end < length && Character.isLetter(line.charAt(end))) {
+          end++;
+        }
+        if (end > i + 1 && KEYWORDS.contains(line.substring(i, end).toLowerCase())) {
+          return true;
+        }
+        i = end - 1;
+      } else if (chr == '.'
+          && i > 0
+          && i < length - 1
+          && Character.isLetterOrDigit(line.charAt(i - 1))
+          && Character.isLetter(line.charAt(i + 1))) {
+        // Method invocation or slot access, such as `a.b`.
+        return true;
+      }
+    }
+    return false;
+  }
 }
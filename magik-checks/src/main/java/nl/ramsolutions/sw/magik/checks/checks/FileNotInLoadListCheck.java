@@ -1,13 +1,12 @@
 package nl.ramsolutions.sw.magik.checks.checks;
 
 import com.sonar.sslr.api.AstNode;
-import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
+import nl.ramsolutions.sw.moduledef.LoadList;
+import nl.ramsolutions.sw.moduledef.LoadListIndex;
 import org.sonar.check.Rule;
 
 /** Check if file is in load_list.txt. */
@@ -27,26 +26,16 @@ public class FileNotInLoadListCheck extends MagikCheck {
       return;
     }
 
-    final Path loadListPath = path.resolveSibling("load_list.txt");
-    final File loadListFile = loadListPath.toFile();
-    if (!loadListFile.exists()) {
-      return;
-    }
-
-    final List<String> lines;
+    final LoadList loadList;
     try {
-      lines = Files.readAllLines(loadListPath);
+      loadList = LoadListIndex.getLoadListForFile(path);
     } catch (IOException ex) {
       // silently ignore this
       return;
     }
 
-    // strip .extension
-    final String filename = path.getFileName().toString().replaceFirst("[.][^.]+$", "");
-    for (final String line : lines) {
-      if (line.trim().equals(filename)) {
-        return;
-      }
+    if (loadList == null || loadList.containsFile(path)) {
+      return;
     }
 
     this.addFileIssue(MESSAGE);
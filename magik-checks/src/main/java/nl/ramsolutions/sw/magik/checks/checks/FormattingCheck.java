@@ -8,6 +8,7 @@ import com.sonar.sslr.api.Trivia;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import nl.ramsolutions.sw.magik.LineTable;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
 import org.sonar.check.Rule;
@@ -27,6 +28,8 @@ public class FormattingCheck extends MagikCheck {
   private static final int DEFAULT_TAB_WIDTH = 4;
   private static final boolean DEFAULT_WHITESPACE_AROUND_BRACKETS = true;
 
+  private static final Pattern SPACE_INDENT_PATTERN = Pattern.compile("^(\t).*", Pattern.MULTILINE);
+
   private static final Set<String> AUGMENTED_ASSIGNMENT_TOKENS =
       Set.of(
           "_is", "_isnt", "_andif", "_and", "_orif", "_or", "_xor", "_div", "_mod", "_cf", "+", "-",
@@ -57,7 +60,9 @@ public class FormattingCheck extends MagikCheck {
       type = "BOOLEAN")
   public Boolean whitespaceAroundBrackets = DEFAULT_WHITESPACE_AROUND_BRACKETS;
 
-  private String[] lines;
+  private LineTable lineTable;
+  private Pattern indentPattern;
+  private int indentPatternTabWidth;
   private Token previousToken;
   private Token currentToken;
   private Token nextToken;
@@ -65,20 +70,14 @@ public class FormattingCheck extends MagikCheck {
   @Override
   protected void walkPreMagik(final AstNode node) {
     final MagikFile magikFile = this.getMagikFile();
-    this.lines = magikFile.getSourceLines();
-    if (this.lines == null) {
-      this.lines = new String[] {};
-    }
+    this.lineTable = magikFile.getLineTable();
 
-    int lineNo = 1;
     final char indentChar = this.getIndentChar();
-    final Pattern pattern =
-        indentChar == '\t'
-            ? Pattern.compile("^( +\t+)\\S+|( {" + this.tabWidth + "}).*", Pattern.MULTILINE)
-            : Pattern.compile("^(\t).*", Pattern.MULTILINE);
+    final Pattern pattern = this.getIndentPattern(indentChar);
     final String msg =
         indentChar == '\t' ? "Line must start with tabs" : "Line must start with spaces";
-    for (final String line : this.lines) {
+    for (int lineNo = 1; lineNo <= this.lineTable.getLineCount(); ++lineNo) {
+      final CharSequence line = this.lineTable.getLine(lineNo);
       final Matcher matcher = pattern.matcher(line);
       if (matcher.matches()) {
         final String message = String.format(MESSAGE, msg);
@@ -87,9 +86,21 @@ public class FormattingCheck extends MagikCheck {
         final int endColumn = group.length();
         this.addIssue(lineNo, 1, lineNo, endColumn, message);
       }
+    }
+  }
 
-      lineNo += 1;
+  private Pattern getIndentPattern(final char indentChar) {
+    if (indentChar != '\t') {
+      return SPACE_INDENT_PATTERN;
     }
+
+    if (this.indentPattern == null || this.indentPatternTabWidth != this.tabWidth) {
+      this.indentPattern =
+          Pattern.compile("^( +\t+)\\S+|( {" + this.tabWidth + "}).*", Pattern.MULTILINE);
+      this.indentPatternTabWidth = this.tabWidth;
+    }
+
+    return this.indentPattern;
   }
 
   @Override
@@ -196,13 +207,35 @@ public class FormattingCheck extends MagikCheck {
   }
 
   private boolean isPragmaLine(final Token token) {
-    final String line = this.getLineFor(token).trim();
-    return line.startsWith("_pragma");
+    final CharSequence line = this.getLineFor(token);
+    final int start = FormattingCheck.skipWhitespace(line, 0);
+    return FormattingCheck.startsWith(line, start, "_pragma");
   }
 
-  private String getLineFor(final Token token) {
+  private CharSequence getLineFor(final Token token) {
     final int lineNo = token.getLine();
-    return this.lines[lineNo - 1];
+    return this.lineTable.getLine(lineNo);
+  }
+
+  private static int skipWhitespace(final CharSequence line, final int start) {
+    int index = start;
+    while (index < line.length() && Character.isWhitespace(line.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  private static boolean startsWith(final CharSequence line, final int start, final String prefix) {
+    if (start + prefix.length() > line.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < prefix.length(); ++i) {
+      if (line.charAt(start + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   private Character charBefore(final Token token) {
@@ -210,7 +243,7 @@ public class FormattingCheck extends MagikCheck {
       return null;
     }
 
-    final String line = this.getLineFor(token);
+    final CharSequence line = this.getLineFor(token);
     int prevColumn = token.getColumn() - 1;
     // Special case: `% `, cheat by getting the `%`.
     if (this.previousToken.getValue().equals("% ")) {
@@ -224,7 +257,7 @@ public class FormattingCheck extends MagikCheck {
   }
 
   private Character charAfter(final Token token) {
-    final String line = this.getLineFor(token);
+    final CharSequence line = this.getLineFor(token);
     final int nextColumn = token.getColumn() + token.getValue().length();
     if (line.length() <= nextColumn) {
       return null;
@@ -272,10 +305,10 @@ public class FormattingCheck extends MagikCheck {
    */
   private void requireNonWhitespaceAfter(final Token token) {
     // Do allow comments after this token.
-    final String line = this.getLineFor(token);
+    final CharSequence line = this.getLineFor(token);
     final int lineOffset = token.getColumn() + token.getOriginalValue().length();
-    final String restLine = line.substring(lineOffset).trim();
-    if (restLine.startsWith("#")) {
+    final int restStart = FormattingCheck.skipWhitespace(line, lineOffset);
+    if (FormattingCheck.startsWith(line, restStart, "#")) {
       return;
     }
 
@@ -307,7 +340,7 @@ public class FormattingCheck extends MagikCheck {
   private void requireEmptyLineAfter(final Token token) {
     if (this.nextToken != null
         && this.nextToken.getType() != GenericTokenType.EOF
-        && this.getLineFor(token).startsWith("$")
+        && FormattingCheck.startsWith(this.getLineFor(token), 0, "$")
         && token.getLine() + 1 == this.nextToken.getLine()) {
       final String msg = String.format(MESSAGE, "empty line after required");
       this.addIssue(token, msg);
@@ -2,6 +2,7 @@ package nl.ramsolutions.sw.magik.checks.checks;
 
 import com.sonar.sslr.api.AstNode;
 import java.net.URI;
+import nl.ramsolutions.sw.magik.LineTable;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.Position;
@@ -33,13 +34,9 @@ public class LineLengthCheck extends MagikCheck {
   @Override
   protected void walkPreMagik(final AstNode node) {
     final MagikFile magikFile = this.getMagikFile();
-    String[] lines = magikFile.getSourceLines();
-    if (lines == null) {
-      lines = new String[] {};
-    }
-
-    int lineNo = 1;
-    for (final String line : lines) {
+    final LineTable lineTable = magikFile.getLineTable();
+    for (int lineNo = 1; lineNo <= lineTable.getLineCount(); ++lineNo) {
+      final CharSequence line = lineTable.getLine(lineNo);
       int columnNo = 0;
       int issueColumnNo = 0;
       for (int i = 0; i < line.length(); ++i) {
@@ -65,8 +62,6 @@ public class LineLengthCheck extends MagikCheck {
         final String message = String.format(MESSAGE, columnNo, this.maxLineLength);
         this.addIssue(location, message);
       }
-
-      ++lineNo;
     }
   }
 }
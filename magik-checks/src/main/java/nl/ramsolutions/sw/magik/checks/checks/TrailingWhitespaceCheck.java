@@ -1,6 +1,7 @@
 package nl.ramsolutions.sw.magik.checks.checks;
 
 import com.sonar.sslr.api.AstNode;
+import nl.ramsolutions.sw.magik.LineTable;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
 import org.sonar.check.Rule;
 
@@ -15,24 +16,19 @@ public class TrailingWhitespaceCheck extends MagikCheck {
 
   @Override
   protected void walkPreMagik(final AstNode node) {
-    String[] lines = this.getMagikFile().getSourceLines();
-    if (lines == null) {
-      lines = new String[] {};
-    }
-
-    int lineNo = 1;
-    for (final String line : lines) {
-      final String trimmedLine =
-          line.endsWith("\r")
-              ? line.substring(0, line.length() - 1) // Strip \r.
-              : line;
-
-      if (trimmedLine.endsWith(" ") || trimmedLine.endsWith("\t")) {
-        final String strippedLine = trimmedLine.stripTrailing();
-        this.addIssue(lineNo, strippedLine.length(), lineNo, trimmedLine.length(), MESSAGE);
+    final LineTable lineTable = this.getMagikFile().getLineTable();
+    for (int lineNo = 1; lineNo <= lineTable.getLineCount(); ++lineNo) {
+      final CharSequence line = lineTable.getLine(lineNo);
+      final int length = line.length();
+      int strippedLength = length;
+      while (strippedLength > 0 && Character.isWhitespace(line.charAt(strippedLength - 1))) {
+        strippedLength--;
       }
 
-      lineNo += 1;
+      final char lastChr = length > 0 ? line.charAt(length - 1) : '\0';
+      if (lastChr == ' ' || lastChr == '\t') {
+        this.addIssue(lineNo, strippedLength, lineNo, length, MESSAGE);
+      }
     }
   }
 }
@@ -142,4 +142,62 @@ class CommentedCodeCheckTest extends MagikCheckTestBase {
     final List<MagikIssue> issues = this.runCheck(code, check);
     assertThat(issues).hasSize(2);
   }
+
+  @Test
+  void testProseReachingParse() {
+    // Parentheses and `e.g.` look like code, parsing rejects the prose.
+    final String bareComment =
+        """
+         See the manual (chapter 3) for details
+         e.g. the examples in the appendix
+         Use with care.""";
+    assertThat(CommentedCodeCheck.looksLikeCode(bareComment)).isTrue();
+    assertThat(CommentedCodeCheck.parsesAsCode(bareComment)).isFalse();
+
+    final MagikCheck check = new CommentedCodeCheck();
+    final String code =
+        """
+        _method a.b
+            # See the manual (chapter 3) for details
+            # e.g. the examples in the appendix
+            # Use with care.
+        _endmethod""";
+    final List<MagikIssue> issues = this.runCheck(code, check);
+    assertThat(issues).isEmpty();
+  }
+
+  @Test
+  void testProseRejectedBeforeParse() {
+    final String bareComment =
+        """
+         This is
+         just a
+         message, no code.""";
+    assertThat(CommentedCodeCheck.looksLikeCode(bareComment)).isFalse();
+  }
+
+  @Test
+  void testSparseMarkersNotFlagged() {
+    // Known false negative: valid code, but fewer than half of the lines contain a code marker.
+    final String bareComment =
+        """
+        a
+        b
+        c
+        write(a)""";
+    assertThat(CommentedCodeCheck.parsesAsCode(bareComment)).isTrue();
+    assertThat(CommentedCodeCheck.looksLikeCode(bareComment)).isFalse();
+
+    final MagikCheck check = new CommentedCodeCheck();
+    final String code =
+        """
+        _method a.b
+            #a
+            #b
+            #c
+            #write(a)
+        _endmethod""";
+    final List<MagikIssue> issues = this.runCheck(code, check);
+    assertThat(issues).isEmpty();
+  }
 }
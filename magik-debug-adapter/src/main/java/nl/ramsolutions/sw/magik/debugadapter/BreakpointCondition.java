@@ -0,0 +1,262 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled condition, hit condition and log message of a breakpoint.
+ *
+ * <p>The expressions to evaluate in the session are built once, when compiling. A hit of a
+ * breakpoint is decided with at most one evaluation: a hit condition is tested locally, and a
+ * condition together with a log message is combined into a single expression.
+ */
+final class BreakpointCondition {
+
+  /** Decision for a hit of a breakpoint. */
+  record Decision(boolean stop, @Nullable String output) {
+
+    static final Decision STOP = new Decision(true, null);
+    static final Decision CONTINUE = new Decision(false, null);
+  }
+
+  /** Nothing to test, always stop. */
+  static final BreakpointCondition NONE = new BreakpointCondition(null, null, null);
+
+  private static final String SW_TRUE = "True";
+  private static final String PASSED_MARKER = "+";
+  private static final String FAILED_MARKER = "-";
+  private static final Pattern HIT_CONDITION_PATTERN =
+      Pattern.compile("^(==|!=|>=|<=|>|<|%)?\\s*(\\d+)$");
+
+  private final @Nullable String conditionExpression;
+  private final @Nullable LongPredicate hitPredicate;
+  private final @Nullable String messageExpression;
+  private final @Nullable String combinedExpression;
+  private final @Nullable String error;
+
+  private BreakpointCondition(
+      final @Nullable String condition,
+      final @Nullable String hitCondition,
+      final @Nullable String logMessage) {
+    final String trimmedCondition = BreakpointCondition.trimToNull(condition);
+    final String trimmedHitCondition = BreakpointCondition.trimToNull(hitCondition);
+    final String trimmedLogMessage = BreakpointCondition.trimToNull(logMessage);
+
+    this.conditionExpression = trimmedCondition;
+    this.hitPredicate =
+        trimmedHitCondition != null
+            ? BreakpointCondition.compileHitCondition(trimmedHitCondition)
+            : null;
+    this.error =
+        trimmedHitCondition != null && this.hitPredicate == null
+            ? "Invalid hit condition: " + trimmedHitCondition
+            : null;
+    this.messageExpression =
+        trimmedLogMessage != null ? BreakpointCondition.compileLogMessage(trimmedLogMessage) : null;
+    this.combinedExpression =
+        this.conditionExpression != null
+                && this.messageExpression != null
+                && this.hitPredicate == null
+            ? "_if "
+                + this.conditionExpression
+                + " _then >> write_string(\""
+                + PASSED_MARKER
+                + "\", "
+                + this.messageExpression
+                + ") _else >> \""
+                + FAILED_MARKER
+                + "\" _endif"
+            : null;
+  }
+
+  /**
+   * Compile a condition, hit condition and log message.
+   *
+   * @param condition Magik expression which needs to be true, if any.
+   * @param hitCondition Hit condition, such as {@code >= 10} or {@code % 5}, if any.
+   * @param logMessage Log message, with Magik expressions between braces, if any.
+   * @return Compiled {@link BreakpointCondition}.
+   */
+  static BreakpointCondition compile(
+      final @Nullable String condition,
+      final @Nullable String hitCondition,
+      final @Nullable String logMessage) {
+    final BreakpointCondition breakpointCondition =
+        new BreakpointCondition(condition, hitCondition, logMessage);
+    if (breakpointCondition.isEmpty() && breakpointCondition.error == null) {
+      return NONE;
+    }
+    return breakpointCondition;
+  }
+
+  /**
+   * Test if there is nothing to test, i.e., every hit stops.
+   *
+   * @return True if nothing to test.
+   */
+  boolean isEmpty() {
+    return this.conditionExpression == null
+        && this.hitPredicate == null
+        && this.messageExpression == null;
+  }
+
+  /**
+   * Get the error from compiling, such as an invalid hit condition.
+   *
+   * @return Error, or null if compiled fine.
+   */
+  @CheckForNull
+  String getError() {
+    return this.error;
+  }
+
+  /**
+   * Decide what to do with a hit of the breakpoint. Does not block, any evaluation is chained.
+   *
+   * @param evaluator Evaluator of an expression in the stopped thread.
+   * @param hitCounter Counter of hits, invoked once each time the condition holds.
+   * @return Future with the {@link Decision}.
+   */
+  CompletableFuture<Decision> decide(
+      final Function<String, CompletableFuture<String>> evaluator, final LongSupplier hitCounter) {
+    if (this.combinedExpression != null) {
+      return evaluator
+          .apply(this.combinedExpression)
+          .thenApply(
+              result -> {
+                if (!result.startsWith(PASSED_MARKER)) {
+                  return Decision.CONTINUE;
+                }
+                hitCounter.getAsLong();
+                return new Decision(false, result.substring(PASSED_MARKER.length()));
+              });
+    }
+
+    final CompletableFuture<Boolean> conditionFuture =
+        this.conditionExpression != null
+            ? evaluator.apply(this.conditionExpression).thenApply(SW_TRUE::equals)
+            : CompletableFuture.completedFuture(true);
+    return conditionFuture.thenCompose(
+        passed -> {
+          if (!passed) {
+            return CompletableFuture.completedFuture(Decision.CONTINUE);
+          }
+
+          final long hits = hitCounter.getAsLong();
+          if (this.hitPredicate != null && !this.hitPredicate.test(hits)) {
+            return CompletableFuture.completedFuture(Decision.CONTINUE);
+          }
+
+          if (this.messageExpression != null) {
+            return evaluator
+                .apply(this.messageExpression)
+                .thenApply(message -> new Decision(false, message));
+          }
+
+          return CompletableFuture.completedFuture(Decision.STOP);
+        });
+  }
+
+  @CheckForNull
+  private static String trimToNull(final @Nullable String value) {
+    if (value == null) {
+      return null;
+    }
+    final String trimmed = value.trim();
+    return trimmed.isEmpty() ? null : trimmed;
+  }
+
+  /**
+   * Compile a hit condition. A plain number means: break when hit at least that many times.
+   *
+   * @param hitCondition Hit condition.
+   * @return Predicate on the hit count, or null if the hit condition is invalid.
+   */
+  @CheckForNull
+  static LongPredicate compileHitCondition(final String hitCondition) {
+    final Matcher matcher = HIT_CONDITION_PATTERN.matcher(hitCondition.trim());
+    if (!matcher.matches()) {
+      return null;
+    }
+
+    final String operator = matcher.group(1) != null ? matcher.group(1) : ">=";
+    final long value;
+    try {
+      value = Long.parseLong(matcher.group(2));
+    } catch (final NumberFormatException exception) {
+      return null;
+    }
+    return switch (operator) {
+      case "==" -> hits -> hits == value;
+      case "!=" -> hits -> hits != value;
+      case ">" -> hits -> hits > value;
+      case "<" -> hits -> hits < value;
+      case "<=" -> hits -> hits <= value;
+      case "%" -> value != 0 ? hits -> hits % value == 0 : null;
+      default -> hits -> hits >= value;
+    };
+  }
+
+  /**
+   * Compile a log message to a Magik expression. Parts between braces are Magik expressions, the
+   * other parts are literal text.
+   *
+   * @param logMessage Log message.
+   * @return Magik expression resulting in the message.
+   */
+  static String compileLogMessage(final String logMessage) {
+    final List<String> parts = new ArrayList<>();
+    int index = 0;
+    while (index < logMessage.length()) {
+      final int open = logMessage.indexOf('{', index);
+      final int close = open != -1 ? logMessage.indexOf('}', open + 1) : -1;
+      if (open == -1 || close == -1) {
+        BreakpointCondition.addLiteral(parts, logMessage.substring(index));
+        break;
+      }
+
+      BreakpointCondition.addLiteral(parts, logMessage.substring(index, open));
+      final String expression = logMessage.substring(open + 1, close).trim();
+      if (!expression.isEmpty()) {
+        parts.add("(" + expression + ")");
+      }
+      index = close + 1;
+    }
+
+    if (parts.isEmpty()) {
+      return "\"\"";
+    }
+    return "write_string(" + parts.stream().collect(Collectors.joining(", ")) + ")";
+  }
+
+  /**
+   * Add literal text as Magik string literals. Magik strings have no escapes, so double quotes and
+   * newlines are added as character literals.
+   */
+  private static void addLiteral(final List<String> parts, final String literal) {
+    final StringBuilder builder = new StringBuilder();
+    for (final char chr : literal.toCharArray()) {
+      if (chr == '"' || chr == '\n') {
+        if (!builder.isEmpty()) {
+          parts.add("\"" + builder + "\"");
+          builder.setLength(0);
+        }
+        parts.add(chr == '"' ? "%\"" : "%newline");
+      } else {
+        builder.append(chr);
+      }
+    }
+    if (!builder.isEmpty()) {
+      parts.add("\"" + builder + "\"");
+    }
+  }
+}
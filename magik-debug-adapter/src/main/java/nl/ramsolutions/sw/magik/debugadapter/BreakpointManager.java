@@ -1,6 +1,5 @@
 package nl.ramsolutions.sw.magik.debugadapter;
 
-import com.sonar.sslr.api.AstNode;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
@@ -8,24 +7,25 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
-import nl.ramsolutions.sw.magik.Position;
-import nl.ramsolutions.sw.magik.analysis.AstQuery;
-import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
-import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapProtocol;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.SlapErrorException;
 import nl.ramsolutions.sw.magik.debugadapter.slap.events.BreakpointEvent;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.BreakpointSetResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
-import nl.ramsolutions.sw.magik.parser.MagikParser;
 import org.eclipse.lsp4j.debug.ExceptionBreakpointsFilter;
 import org.eclipse.lsp4j.debug.FunctionBreakpoint;
+import org.eclipse.lsp4j.debug.OutputEventArguments;
+import org.eclipse.lsp4j.debug.OutputEventArgumentsCategory;
 import org.eclipse.lsp4j.debug.Source;
 import org.eclipse.lsp4j.debug.SourceBreakpoint;
 import org.eclipse.lsp4j.debug.StoppedEventArguments;
@@ -39,7 +39,6 @@ class BreakpointManager {
 
   static final ExceptionBreakpointsFilter[] EXCEPTION_BREAKPOINTS_FILTERS;
   private static final String CONDITION_BREAKPOINT_METHOD = "sw:condition.invoke()";
-  private static final String SW_TRUE = "True";
 
   /** Magik breakpoint. */
   static class MagikBreakpoint {
@@ -48,7 +47,16 @@ class BreakpointManager {
     private final String methodName;
     private final int methodLine;
     private String condition;
+    private final String hitCondition;
+    private final String logMessage;
+    private volatile BreakpointCondition compiledCondition = BreakpointCondition.NONE;
     private String message;
+    private final AtomicLong hits = new AtomicLong();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder stops = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder decisionNanos = new LongAdder();
+    private final AtomicLong maxDecisionNanos = new AtomicLong();
 
     /**
      * Contructor.
@@ -57,11 +65,7 @@ class BreakpointManager {
      * @param methodLine Line in method.
      */
     MagikBreakpoint(final String methodName, final int methodLine) {
-      this.methodName = methodName;
-      this.methodLine = methodLine;
-      this.condition = null;
-
-      this.setBreakpointId(ISlapProtocol.INVALID_BREAKPOINT_ID);
+      this(methodName, methodLine, null, null, null);
     }
 
     /**
@@ -72,9 +76,29 @@ class BreakpointManager {
      * @param condition Condition.
      */
     MagikBreakpoint(final String methodName, final int methodLine, final String condition) {
+      this(methodName, methodLine, condition, null, null);
+    }
+
+    /**
+     * Contructor.
+     *
+     * @param methodName Name of method.
+     * @param methodLine Line in method.
+     * @param condition Condition.
+     * @param hitCondition Hit condition.
+     * @param logMessage Log message, makes this a log point.
+     */
+    MagikBreakpoint(
+        final String methodName,
+        final int methodLine,
+        final @Nullable String condition,
+        final @Nullable String hitCondition,
+        final @Nullable String logMessage) {
       this.methodName = methodName;
       this.methodLine = methodLine;
       this.condition = condition;
+      this.hitCondition = hitCondition;
+      this.logMessage = logMessage;
 
       this.setBreakpointId(ISlapProtocol.INVALID_BREAKPOINT_ID);
     }
@@ -96,6 +120,24 @@ class BreakpointManager {
       this.condition = condition;
     }
 
+    @CheckForNull
+    String getHitCondition() {
+      return this.hitCondition;
+    }
+
+    @CheckForNull
+    String getLogMessage() {
+      return this.logMessage;
+    }
+
+    BreakpointCondition getCompiledCondition() {
+      return this.compiledCondition;
+    }
+
+    void setCompiledCondition(final BreakpointCondition compiledCondition) {
+      this.compiledCondition = compiledCondition;
+    }
+
     void setMessage(final String message) {
       this.message = message;
     }
@@ -116,6 +158,44 @@ class BreakpointManager {
       return this.breakpointId != ISlapProtocol.INVALID_BREAKPOINT_ID;
     }
 
+    /**
+     * Count a hit, i.e., an event for which the condition held.
+     *
+     * @return Number of hits, including this one.
+     */
+    long hit() {
+      return this.hits.incrementAndGet();
+    }
+
+    void countEvaluation() {
+      this.evaluations.increment();
+    }
+
+    void countDecision(final boolean stopped, final long nanos) {
+      this.events.increment();
+      if (stopped) {
+        this.stops.increment();
+      }
+      this.decisionNanos.add(nanos);
+      this.maxDecisionNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    BreakpointStatistics getStatistics() {
+      return new BreakpointStatistics(
+          this.breakpointId,
+          this.methodName,
+          this.methodLine,
+          this.condition,
+          this.hitCondition,
+          this.logMessage,
+          this.events.sum(),
+          this.hits.get(),
+          this.stops.sum(),
+          this.evaluations.sum(),
+          this.decisionNanos.sum(),
+          this.maxDecisionNanos.get());
+    }
+
     @Override
     public String toString() {
       return String.format(
@@ -143,6 +223,13 @@ class BreakpointManager {
   private final Map<Source, List<MagikBreakpoint>> sourceBreakpoints = new HashMap<>();
   private MagikBreakpoint conditionBreakpoint;
   private final Map<Long, MagikBreakpoint> breakpointIds = new HashMap<>();
+  private final MethodLineTableCache methodLineTables = new MethodLineTableCache();
+  private final Map<ConditionKey, BreakpointCondition> compiledConditions =
+      new ConcurrentHashMap<>();
+
+  /** Key of a compiled condition. */
+  private record ConditionKey(
+      @Nullable String condition, @Nullable String hitCondition, @Nullable String logMessage) {}
 
   BreakpointManager(final ISlapProtocol slapProtocol, final IDebugProtocolClient debugClient) {
     this.slapProtocol = slapProtocol;
@@ -173,8 +260,12 @@ class BreakpointManager {
         Arrays.stream(newSourceBreakpoints)
             .filter(breakpoint -> !magikBreakpointLines.contains(breakpoint.getLine()))
             .toList();
+
+    // Send all requests first, then wait for the responses.
+    final Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> addFutures = new LinkedHashMap<>();
     for (final SourceBreakpoint sourceBreakpoint : addedBreakpoints) {
-      this.addBreakpoint(source, sourceBreakpoint);
+      final MagikBreakpoint magikBreakpoint = this.toMagikBreakpoint(source, sourceBreakpoint);
+      addFutures.put(magikBreakpoint, this.sendSetBreakpoint(magikBreakpoint));
     }
 
     // Remove old breakpoints.
@@ -185,9 +276,16 @@ class BreakpointManager {
             .filter(
                 magikBreakpoint -> !sourceBreakpointLines.contains(magikBreakpoint.getMethodLine()))
             .toList();
-    for (final MagikBreakpoint magikBreakpoint : removedBreakpoints) {
-      this.removeBreakpoint(source, magikBreakpoint);
+    final Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> removeFutures =
+        this.sendDeleteBreakpoints(removedBreakpoints);
+
+    for (final Map.Entry<MagikBreakpoint, CompletableFuture<ISlapResponse>> entry :
+        addFutures.entrySet()) {
+      final MagikBreakpoint magikBreakpoint = entry.getKey();
+      this.awaitSetBreakpoint(magikBreakpoint, entry.getValue());
+      this.registerBreakpoint(source, magikBreakpoint);
     }
+    this.awaitDeleteBreakpoints(source, removeFutures);
 
     // breakpoints gets updated through addBreakpoint/removeBreakpoint.
     return breakpoints;
@@ -205,34 +303,18 @@ class BreakpointManager {
    */
   MagikBreakpoint addBreakpoint(final Source source, final SourceBreakpoint sourceBreakpoint)
       throws IOException, InterruptedException, ExecutionException {
-    int line = sourceBreakpoint.getLine();
-    final AstNode methodNode = this.getNode(source, line);
-    final String method;
-    if (methodNode == null) {
-      method = "<not_in_method>";
-    } else {
-      final MethodDefinitionNodeHelper helper = new MethodDefinitionNodeHelper(methodNode);
-      method = helper.getFullExemplarMethodName();
-      final int methodLine = methodNode.getTokenLine();
-      if (methodLine == line) {
-        line = 0;
-      }
-    }
-    final String condition = sourceBreakpoint.getCondition();
-    return this.createBreakpoint(source, method, line, condition);
+    final MagikBreakpoint magikBreakpoint = this.toMagikBreakpoint(source, sourceBreakpoint);
+    this.awaitSetBreakpoint(magikBreakpoint, this.sendSetBreakpoint(magikBreakpoint));
+    this.registerBreakpoint(source, magikBreakpoint);
+    return magikBreakpoint;
   }
 
   /** Remove breakpoint. */
   void removeBreakpoint(final @Nullable Source source, final MagikBreakpoint magikBreakpoint)
       throws IOException, InterruptedException, ExecutionException {
-    this.sendDeleteBreakpoint(magikBreakpoint);
-
-    final long breakpointId = magikBreakpoint.getBreakpointId();
-    this.breakpointIds.remove(breakpointId);
-
-    final List<MagikBreakpoint> breakpoints =
-        this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>());
-    breakpoints.remove(magikBreakpoint);
+    final Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> removeFutures =
+        this.sendDeleteBreakpoints(List.of(magikBreakpoint));
+    this.awaitDeleteBreakpoints(source, removeFutures);
   }
 
   // endregion
@@ -243,10 +325,10 @@ class BreakpointManager {
     final Source source = null; // A function breakpoint has no source.
 
     final List<MagikBreakpoint> magikBreakpoints =
-        this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>());
-    for (final MagikBreakpoint magikBreakpoint : magikBreakpoints) {
-      this.removeBreakpoint(source, magikBreakpoint);
-    }
+        List.copyOf(this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>()));
+    final Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> removeFutures =
+        this.sendDeleteBreakpoints(magikBreakpoints);
+    this.awaitDeleteBreakpoints(source, removeFutures);
   }
 
   /**
@@ -260,9 +342,21 @@ class BreakpointManager {
    */
   List<MagikBreakpoint> addFunctionBreakpoints(final FunctionBreakpoint[] functionBreakpoints)
       throws IOException, InterruptedException, ExecutionException {
-    final List<MagikBreakpoint> breakpoints = new ArrayList<>();
+    final Source source = null; // A function breakpoint has no source.
+
+    // Send all requests first, then wait for the responses.
+    final Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> addFutures = new LinkedHashMap<>();
     for (final FunctionBreakpoint functionBreakpoint : functionBreakpoints) {
-      final MagikBreakpoint magikBreakpoint = this.addFunctionBreakpoint(functionBreakpoint);
+      final MagikBreakpoint magikBreakpoint = this.toMagikBreakpoint(functionBreakpoint);
+      addFutures.put(magikBreakpoint, this.sendSetBreakpoint(magikBreakpoint));
+    }
+
+    final List<MagikBreakpoint> breakpoints = new ArrayList<>();
+    for (final Map.Entry<MagikBreakpoint, CompletableFuture<ISlapResponse>> entry :
+        addFutures.entrySet()) {
+      final MagikBreakpoint magikBreakpoint = entry.getKey();
+      this.awaitSetBreakpoint(magikBreakpoint, entry.getValue());
+      this.registerBreakpoint(source, magikBreakpoint);
       breakpoints.add(magikBreakpoint);
     }
     return breakpoints;
@@ -280,10 +374,10 @@ class BreakpointManager {
   MagikBreakpoint addFunctionBreakpoint(final FunctionBreakpoint functionBreakpoint)
       throws IOException, InterruptedException, ExecutionException {
     final Source source = null;
-    final String methodName = functionBreakpoint.getName();
-    final int methodLine = 0;
-    final String condition = functionBreakpoint.getCondition();
-    return this.createBreakpoint(source, methodName, methodLine, condition);
+    final MagikBreakpoint magikBreakpoint = this.toMagikBreakpoint(functionBreakpoint);
+    this.awaitSetBreakpoint(magikBreakpoint, this.sendSetBreakpoint(magikBreakpoint));
+    this.registerBreakpoint(source, magikBreakpoint);
+    return magikBreakpoint;
   }
 
   // endregion
@@ -326,7 +420,9 @@ class BreakpointManager {
 
     // Ensure there is a breakpoint.
     if (this.conditionBreakpoint == null && filters.length != 0) {
-      this.conditionBreakpoint = this.sendSetBreakpoint(CONDITION_BREAKPOINT_METHOD, 0);
+      final MagikBreakpoint magikBreakpoint = new MagikBreakpoint(CONDITION_BREAKPOINT_METHOD, 0);
+      this.awaitSetBreakpoint(magikBreakpoint, this.sendSetBreakpoint(magikBreakpoint));
+      this.conditionBreakpoint = magikBreakpoint;
     }
 
     // Set condition for breakpoint.
@@ -337,6 +433,7 @@ class BreakpointManager {
       } else {
         this.conditionBreakpoint.setCondition(null);
       }
+      this.compile(this.conditionBreakpoint);
     }
 
     return this.conditionBreakpoint;
@@ -359,36 +456,117 @@ class BreakpointManager {
     return this.breakpointIds.get(breakpointId);
   }
 
+  /**
+   * Get the statistics of all breakpoints.
+   *
+   * @return Statistics of breakpoints.
+   */
+  List<BreakpointStatistics> getStatistics() {
+    final List<BreakpointStatistics> statistics = new ArrayList<>();
+    if (this.conditionBreakpoint != null) {
+      statistics.add(this.conditionBreakpoint.getStatistics());
+    }
+    this.breakpointIds.values().stream()
+        .map(MagikBreakpoint::getStatistics)
+        .forEach(statistics::add);
+    return statistics;
+  }
+
+  /** Clear the cached method line tables of source files. */
+  void clearCaches() {
+    this.methodLineTables.clear();
+  }
+
   // region: Event handling
   /**
    * Handle a {@link BreakpointEvent}.
    *
+   * <p>Does not block: the (compiled) condition is evaluated asynchronously, after which the thread
+   * is either reported as stopped or resumed.
+   *
    * @param breakpointEvent event.
+   * @return Future which completes when the event is handled.
    */
-  void handleBreakpointEvent(final BreakpointEvent breakpointEvent) {
+  CompletableFuture<Void> handleBreakpointEvent(final BreakpointEvent breakpointEvent) {
     final long threadId = breakpointEvent.getThreadId();
-
-    // If conditional breakpoint, then test condition and optionally continue.
     final long breakpointId = breakpointEvent.getBreakpointId();
     final MagikBreakpoint magikBreakpoint = this.getBreakpoint(breakpointId);
-    final String condition = magikBreakpoint.getCondition();
-    if (condition != null) {
-      try {
-        final EvalResponse eval =
-            (EvalResponse) this.slapProtocol.evaluate(threadId, 0, condition).get();
-        final String result = eval.getResult();
-        if (!result.equals(SW_TRUE)) {
-          this.slapProtocol.resumeThread(threadId).get();
-          return;
-        }
-      } catch (InterruptedException exception) {
-        LOGGER.warn("Interrupted!", exception);
-        Thread.currentThread().interrupt();
-      } catch (ExecutionException | IOException exception) {
-        // Could not execute, pretend nothing happened.
-      }
+    if (magikBreakpoint == null) {
+      this.sendStopped(threadId);
+      return CompletableFuture.completedFuture(null);
     }
 
+    // If conditional breakpoint, then test condition and optionally continue.
+    final long start = System.nanoTime();
+    final BreakpointCondition condition = magikBreakpoint.getCompiledCondition();
+    return condition
+        .decide(
+            expression -> this.evaluate(magikBreakpoint, threadId, expression),
+            magikBreakpoint::hit)
+        .exceptionally(
+            exception -> {
+              // Could not evaluate, pretend nothing happened.
+              LOGGER.debug("Unable to evaluate condition of: {}", magikBreakpoint, exception);
+              return BreakpointCondition.Decision.STOP;
+            })
+        .thenAccept(
+            decision -> {
+              final long nanos = System.nanoTime() - start;
+              magikBreakpoint.countDecision(decision.stop(), nanos);
+              LOGGER.trace(
+                  "Breakpoint: {}, thread: {}, stop: {}, took: {} ns",
+                  magikBreakpoint,
+                  threadId,
+                  decision.stop(),
+                  nanos);
+
+              final String output = decision.output();
+              if (output != null) {
+                this.sendOutput(output);
+              }
+
+              if (decision.stop()) {
+                this.sendStopped(threadId);
+              } else {
+                this.resumeThread(threadId);
+              }
+            });
+  }
+
+  private CompletableFuture<String> evaluate(
+      final MagikBreakpoint magikBreakpoint, final long threadId, final String expression) {
+    magikBreakpoint.countEvaluation();
+    try {
+      return this.slapProtocol
+          .evaluate(threadId, 0, expression)
+          .thenApply(response -> ((EvalResponse) response).getResult());
+    } catch (final IOException exception) {
+      return CompletableFuture.failedFuture(exception);
+    }
+  }
+
+  private void resumeThread(final long threadId) {
+    try {
+      this.slapProtocol
+          .resumeThread(threadId)
+          .exceptionally(
+              exception -> {
+                LOGGER.warn("Unable to resume thread: {}", threadId, exception);
+                return null;
+              });
+    } catch (final IOException exception) {
+      LOGGER.warn("Unable to resume thread: {}", threadId, exception);
+    }
+  }
+
+  private void sendOutput(final String output) {
+    final OutputEventArguments args = new OutputEventArguments();
+    args.setCategory(OutputEventArgumentsCategory.CONSOLE);
+    args.setOutput(output + System.lineSeparator());
+    this.debugClient.output(args);
+  }
+
+  private void sendStopped(final long threadId) {
     final StoppedEventArguments args = new StoppedEventArguments();
     args.setThreadId((int) threadId);
     args.setReason(StoppedEventArgumentsReason.BREAKPOINT);
@@ -398,23 +576,69 @@ class BreakpointManager {
   // endergion
 
   // region: Internals
-  private AstNode getNode(final Source source, final int line) {
+  private MagikBreakpoint toMagikBreakpoint(
+      final Source source, final SourceBreakpoint sourceBreakpoint) {
+    int line = sourceBreakpoint.getLine();
     final Path path = Path.of(source.getPath());
-    final MagikParser parser = new MagikParser();
-    final AstNode node = parser.parseSafe(path);
-    return AstQuery.nodeSurrounding(node, new Position(line, 0), MagikGrammar.METHOD_DEFINITION);
+    final MethodLineTable.MethodLine methodLine = this.methodLineTables.get(path).find(line);
+    final String method;
+    if (methodLine == null) {
+      method = "<not_in_method>";
+    } else {
+      method = methodLine.methodName();
+      if (methodLine.methodLine() == line) {
+        line = 0;
+      }
+    }
+    final MagikBreakpoint magikBreakpoint =
+        new MagikBreakpoint(
+            method,
+            line,
+            sourceBreakpoint.getCondition(),
+            sourceBreakpoint.getHitCondition(),
+            sourceBreakpoint.getLogMessage());
+    this.compile(magikBreakpoint);
+    return magikBreakpoint;
   }
 
-  private MagikBreakpoint createBreakpoint(
-      final @Nullable Source source,
-      final String method,
-      final int line,
-      final @Nullable String condition)
-      throws IOException, InterruptedException, ExecutionException {
-    // Send breakpoint to debugger.
-    final MagikBreakpoint magikBreakpoint = this.sendSetBreakpoint(method, line);
-    magikBreakpoint.setCondition(condition);
+  private MagikBreakpoint toMagikBreakpoint(final FunctionBreakpoint functionBreakpoint) {
+    final String methodName = functionBreakpoint.getName();
+    final int methodLine = 0;
+    final MagikBreakpoint magikBreakpoint =
+        new MagikBreakpoint(
+            methodName,
+            methodLine,
+            functionBreakpoint.getCondition(),
+            functionBreakpoint.getHitCondition(),
+            null);
+    this.compile(magikBreakpoint);
+    return magikBreakpoint;
+  }
+
+  /**
+   * Compile the condition of a breakpoint, reusing an earlier compiled equal condition.
+   *
+   * @param magikBreakpoint Breakpoint to compile the condition for.
+   */
+  private void compile(final MagikBreakpoint magikBreakpoint) {
+    final ConditionKey key =
+        new ConditionKey(
+            magikBreakpoint.getCondition(),
+            magikBreakpoint.getHitCondition(),
+            magikBreakpoint.getLogMessage());
+    final BreakpointCondition compiledCondition =
+        this.compiledConditions.computeIfAbsent(
+            key, k -> BreakpointCondition.compile(k.condition(), k.hitCondition(), k.logMessage()));
+    magikBreakpoint.setCompiledCondition(compiledCondition);
+
+    final String error = compiledCondition.getError();
+    if (error != null) {
+      magikBreakpoint.setMessage(error);
+    }
+  }
 
+  private void registerBreakpoint(
+      final @Nullable Source source, final MagikBreakpoint magikBreakpoint) {
     // Register breakpoint id, if successful.
     final long breakpointId = magikBreakpoint.getBreakpointId();
     if (breakpointId != ISlapProtocol.INVALID_BREAKPOINT_ID) {
@@ -425,19 +649,21 @@ class BreakpointManager {
     final List<MagikBreakpoint> breakpoints =
         this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>());
     breakpoints.add(magikBreakpoint);
-
-    return magikBreakpoint;
   }
 
-  private MagikBreakpoint sendSetBreakpoint(final String method, final int line)
-      throws IOException, InterruptedException, ExecutionException {
+  private CompletableFuture<ISlapResponse> sendSetBreakpoint(final MagikBreakpoint magikBreakpoint)
+      throws IOException {
+    final String method = magikBreakpoint.getMethodName();
+    final int line = magikBreakpoint.getMethodLine();
     LOGGER.trace("Send set breakpoint: method: {}, line: {}", method, line);
+    return this.slapProtocol.setBreakpoint(method, line);
+  }
 
-    final MagikBreakpoint magikBreakpoint = new MagikBreakpoint(method, line);
-
+  private void awaitSetBreakpoint(
+      final MagikBreakpoint magikBreakpoint,
+      final CompletableFuture<ISlapResponse> breakpointSetFuture)
+      throws InterruptedException, ExecutionException {
     try {
-      final CompletableFuture<ISlapResponse> breakpointSetFuture =
-          this.slapProtocol.setBreakpoint(method, line);
       final BreakpointSetResponse breakpointSet = (BreakpointSetResponse) breakpointSetFuture.get();
       final long breakpointId = breakpointSet.getBreakpointId();
       magikBreakpoint.setBreakpointId(breakpointId);
@@ -455,21 +681,39 @@ class BreakpointManager {
         throw exception;
       }
     }
-
-    return magikBreakpoint;
   }
 
-  private void sendDeleteBreakpoint(final MagikBreakpoint magikBreakpoint)
-      throws IOException, InterruptedException, ExecutionException {
-    LOGGER.trace(
-        "Send delete breakpoint: method: {}, line: {}",
-        magikBreakpoint.getMethodName(),
-        magikBreakpoint.getMethodLine());
+  private Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> sendDeleteBreakpoints(
+      final List<MagikBreakpoint> magikBreakpoints) throws IOException {
+    final Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> futures = new LinkedHashMap<>();
+    for (final MagikBreakpoint magikBreakpoint : magikBreakpoints) {
+      LOGGER.trace(
+          "Send delete breakpoint: method: {}, line: {}",
+          magikBreakpoint.getMethodName(),
+          magikBreakpoint.getMethodLine());
 
-    final long breakpointId = magikBreakpoint.getBreakpointId();
-    this.slapProtocol.deleteBreakpoint(breakpointId).get();
+      final long breakpointId = magikBreakpoint.getBreakpointId();
+      futures.put(magikBreakpoint, this.slapProtocol.deleteBreakpoint(breakpointId));
+    }
+    return futures;
+  }
 
-    LOGGER.trace("Deleted breakpoint: {}", magikBreakpoint);
+  private void awaitDeleteBreakpoints(
+      final @Nullable Source source,
+      final Map<MagikBreakpoint, CompletableFuture<ISlapResponse>> futures)
+      throws InterruptedException, ExecutionException {
+    final List<MagikBreakpoint> breakpoints =
+        this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>());
+    for (final Map.Entry<MagikBreakpoint, CompletableFuture<ISlapResponse>> entry :
+        futures.entrySet()) {
+      final MagikBreakpoint magikBreakpoint = entry.getKey();
+      entry.getValue().get();
+      LOGGER.trace("Deleted breakpoint: {}", magikBreakpoint);
+
+      final long breakpointId = magikBreakpoint.getBreakpointId();
+      this.breakpointIds.remove(breakpointId);
+      breakpoints.remove(magikBreakpoint);
+    }
   }
   // endregion
 
@@ -0,0 +1,135 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * Statistics of a breakpoint: how often it was hit, how often it stopped and what it cost to
+ * decide.
+ */
+public final class BreakpointStatistics {
+
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private final long breakpointId;
+  private final String methodName;
+  private final int methodLine;
+  private final @Nullable String condition;
+  private final @Nullable String hitCondition;
+  private final @Nullable String logMessage;
+  private final long events;
+  private final long hits;
+  private final long stops;
+  private final long evaluations;
+  private final double averageDecisionMillis;
+  private final double maxDecisionMillis;
+
+  /**
+   * Constructor.
+   *
+   * @param breakpointId Breakpoint ID.
+   * @param methodName Method name.
+   * @param methodLine Method line.
+   * @param condition Condition, if any.
+   * @param hitCondition Hit condition, if any.
+   * @param logMessage Log message, if any.
+   * @param events Number of breakpoint events.
+   * @param hits Number of events for which the condition held.
+   * @param stops Number of events which stopped the thread.
+   * @param evaluations Number of evaluations done to decide.
+   * @param totalDecisionNanos Total time spent deciding, in nanoseconds.
+   * @param maxDecisionNanos Maximum time spent deciding a single event, in nanoseconds.
+   */
+  @SuppressWarnings("checkstyle:ParameterNumber")
+  BreakpointStatistics(
+      final long breakpointId,
+      final String methodName,
+      final int methodLine,
+      final @Nullable String condition,
+      final @Nullable String hitCondition,
+      final @Nullable String logMessage,
+      final long events,
+      final long hits,
+      final long stops,
+      final long evaluations,
+      final long totalDecisionNanos,
+      final long maxDecisionNanos) {
+    this.breakpointId = breakpointId;
+    this.methodName = methodName;
+    this.methodLine = methodLine;
+    this.condition = condition;
+    this.hitCondition = hitCondition;
+    this.logMessage = logMessage;
+    this.events = events;
+    this.hits = hits;
+    this.stops = stops;
+    this.evaluations = evaluations;
+    this.averageDecisionMillis = events != 0 ? totalDecisionNanos / NANOS_PER_MILLI / events : 0.0;
+    this.maxDecisionMillis = maxDecisionNanos / NANOS_PER_MILLI;
+  }
+
+  public long getBreakpointId() {
+    return this.breakpointId;
+  }
+
+  public String getMethodName() {
+    return this.methodName;
+  }
+
+  public int getMethodLine() {
+    return this.methodLine;
+  }
+
+  @Nullable
+  public String getCondition() {
+    return this.condition;
+  }
+
+  @Nullable
+  public String getHitCondition() {
+    return this.hitCondition;
+  }
+
+  @Nullable
+  public String getLogMessage() {
+    return this.logMessage;
+  }
+
+  public long getEvents() {
+    return this.events;
+  }
+
+  public long getHits() {
+    return this.hits;
+  }
+
+  public long getStops() {
+    return this.stops;
+  }
+
+  public long getEvaluations() {
+    return this.evaluations;
+  }
+
+  public double getAverageDecisionMillis() {
+    return this.averageDecisionMillis;
+  }
+
+  public double getMaxDecisionMillis() {
+    return this.maxDecisionMillis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s(%s, %s, events: %d, hits: %d, stops: %d, evaluations: %d, avg: %.3f ms, max: %.3f ms)",
+        this.getClass().getSimpleName(),
+        this.methodName,
+        this.methodLine,
+        this.events,
+        this.hits,
+        this.stops,
+        this.evaluations,
+        this.averageDecisionMillis,
+        this.maxDecisionMillis);
+  }
+}
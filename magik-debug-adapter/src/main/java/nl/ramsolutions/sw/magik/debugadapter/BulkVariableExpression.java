@@ -0,0 +1,143 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds a single Magik expression to expand a variable, and decodes its result.
+ *
+ * <p>The expression determines the kind of the object and gathers the print strings of all its
+ * slots, or the requested range of its elements, in one evaluation. The result is a sequence of
+ * length prefixed fields: {@code <length>:<text>}, where the length is the number of characters of
+ * the text. This way, no delimiter can clash with the contents of a print string.
+ *
+ * <p>Fields of the result:
+ *
+ * <ul>
+ *   <li>Kind: {@code :enumerated_format_mixin}, {@code :indexed_format_mixin}, {@code
+ *       :slotted_format_mixin}, or the class name of the object.
+ *   <li>For indexed objects: the size of the object, followed by the value and indexed size of each
+ *       requested element.
+ *   <li>For slotted objects: the name, value and indexed size of each slot.
+ * </ul>
+ *
+ * <p>The indexed size of a value is {@code -1} if the value is not indexed.
+ *
+ * <p>A separate expression gets only the indexed sizes of a number of values, such as the locals of
+ * a stack frame, in one evaluation. Its result has one field per value.
+ */
+final class BulkVariableExpression {
+
+  static final String KIND_ENUMERATED = ":enumerated_format_mixin";
+  static final String KIND_INDEXED = ":indexed_format_mixin";
+  static final String KIND_SLOTTED = ":slotted_format_mixin";
+  static final int NOT_INDEXED = -1;
+
+  private static final String TEMPLATE =
+      ""
+          + "_block "
+          + "_local o << (%s) ; "
+          + "_local s << internal_text_output_stream.new() ; "
+          + "_local w << _proc(t) _import s ; s.write(t.size, %%:, t) _endproc ; "
+          + "_local z << _proc(v) "
+          + "_if v.is_kind_of?(sw:indexed_format_mixin) _then _return v.sys!size.write_string _endif ; "
+          + "_return \"-1\" _endproc ; "
+          + "_if o.is_kind_of?(sw:enumerated_format_mixin) "
+          + "_then w(\""
+          + KIND_ENUMERATED
+          + "\") "
+          + "_elif o.is_kind_of?(sw:indexed_format_mixin) "
+          + "_then w(\""
+          + KIND_INDEXED
+          + "\") ; "
+          + "_local n << o.sys!size ; "
+          + "w(n.write_string) ; "
+          + "_for i _over %d.upto(%s - 1) "
+          + "_loop _local v << o.sys!at0(i) ; w(v.print_string) ; w(z(v)) _endloop "
+          + "_elif o.is_kind_of?(sw:slotted_format_mixin) "
+          + "_then w(\""
+          + KIND_SLOTTED
+          + "\") ; "
+          + "_for sn _over o.sys!all_slot_names().fast_elements() "
+          + "_loop _local nm << sn.subseq(sn.index_of(%%!) + 1) ; "
+          + "_local v << o.sys!slot(nm.as_symbol()) ; "
+          + "w(nm) ; w(v.print_string) ; w(z(v)) _endloop "
+          + "_else w(o.class_name.write_string) "
+          + "_endif ; "
+          + ">> s.string "
+          + "_endblock";
+
+  private static final String SIZES_TEMPLATE =
+      ""
+          + "_block "
+          + "_local o << simple_vector.new_with(%s) ; "
+          + "_local s << internal_text_output_stream.new() ; "
+          + "_local w << _proc(t) _import s ; s.write(t.size, %%:, t) _endproc ; "
+          + "_for v _over o.fast_elements() "
+          + "_loop _if v.is_kind_of?(sw:indexed_format_mixin) "
+          + "_then w(v.sys!size.write_string) "
+          + "_else w(\"-1\") "
+          + "_endif _endloop ; "
+          + ">> s.string "
+          + "_endblock";
+
+  private BulkVariableExpression() {}
+
+  /**
+   * Build the expression to expand {@code expression}.
+   *
+   * @param expression Expression of variable to expand.
+   * @param start Index of first element to get, for indexed objects.
+   * @param count Number of elements to get, for indexed objects, or {@code null} for all.
+   * @return Magik expression.
+   */
+  static String build(final String expression, final int start, final @Nullable Integer count) {
+    final String end = count != null ? "(" + (start + count) + ").min(n)" : "n";
+    return String.format(TEMPLATE, expression, start, end);
+  }
+
+  /**
+   * Build the expression to get the indexed sizes of {@code expressions}.
+   *
+   * @param expressions Expressions of variables.
+   * @return Magik expression.
+   */
+  static String buildSizes(final List<String> expressions) {
+    final String values =
+        expressions.stream()
+            .map(expression -> "(" + expression + ")")
+            .collect(Collectors.joining(", "));
+    return String.format(SIZES_TEMPLATE, values);
+  }
+
+  /**
+   * Decode the result of the expression.
+   *
+   * @param payload Result of the expression.
+   * @return Fields.
+   * @throws IllegalArgumentException If payload is malformed.
+   */
+  static List<String> decode(final String payload) {
+    final List<String> fields = new ArrayList<>();
+    int index = 0;
+    while (index < payload.length()) {
+      final int separatorIndex = payload.indexOf(':', index);
+      if (separatorIndex == -1) {
+        throw new IllegalArgumentException("Malformed payload at: " + index);
+      }
+
+      try {
+        final int length = Integer.parseInt(payload.substring(index, separatorIndex));
+        final int start = separatorIndex + 1;
+        final int end = payload.offsetByCodePoints(start, length);
+        fields.add(payload.substring(start, end));
+        index = end;
+      } catch (final NumberFormatException | IndexOutOfBoundsException exception) {
+        throw new IllegalArgumentException("Malformed payload at: " + index, exception);
+      }
+    }
+    return fields;
+  }
+}
@@ -111,6 +111,10 @@ public final class Lsp4jConversion {
               variable.setName(magikVariable.getName());
               variable.setValue(magikVariable.getValue());
               variable.setEvaluateName(magikVariable.getExpression());
+              if (magikVariable.getIndexedSize() != BulkVariableExpression.NOT_INDEXED) {
+                // Let the client page through the elements.
+                variable.setIndexedVariables(magikVariable.getIndexedSize());
+              }
               return variable;
             })
         .toArray(size -> new Variable[size]);
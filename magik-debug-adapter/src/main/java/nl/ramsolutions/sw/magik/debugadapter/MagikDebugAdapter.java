@@ -11,6 +11,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.debugadapter.BreakpointManager.MagikBreakpoint;
 import nl.ramsolutions.sw.magik.debugadapter.VariableManager.MagikVariable;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapEvent;
@@ -29,6 +30,7 @@ import org.eclipse.lsp4j.debug.ContinueArguments;
 import org.eclipse.lsp4j.debug.ContinueResponse;
 import org.eclipse.lsp4j.debug.DisconnectArguments;
 import org.eclipse.lsp4j.debug.EvaluateArguments;
+import org.eclipse.lsp4j.debug.EvaluateArgumentsContext;
 import org.eclipse.lsp4j.debug.EvaluateResponse;
 import org.eclipse.lsp4j.debug.FunctionBreakpoint;
 import org.eclipse.lsp4j.debug.InitializeRequestArguments;
@@ -64,6 +66,7 @@ import org.eclipse.lsp4j.debug.VariablesArguments;
 import org.eclipse.lsp4j.debug.VariablesResponse;
 import org.eclipse.lsp4j.debug.services.IDebugProtocolClient;
 import org.eclipse.lsp4j.debug.services.IDebugProtocolServer;
+import org.eclipse.lsp4j.jsonrpc.services.JsonRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -104,6 +107,9 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
 
     final Capabilities capabilities = new Capabilities();
     capabilities.setSupportsFunctionBreakpoints(true);
+    capabilities.setSupportsConditionalBreakpoints(true);
+    capabilities.setSupportsHitConditionalBreakpoints(true);
+    capabilities.setSupportsLogPoints(true);
     capabilities.setExceptionBreakpointFilters(BreakpointManager.EXCEPTION_BREAKPOINTS_FILTERS);
     return CompletableFuture.completedFuture(capabilities);
   }
@@ -225,6 +231,12 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
             this.slapProtocol = null;
           }
 
+          if (this.breakpointManager != null && LOGGER.isDebugEnabled()) {
+            this.breakpointManager
+                .getStatistics()
+                .forEach(statistics -> LOGGER.debug("Breakpoint statistics: {}", statistics));
+          }
+
           this.threadManager = null;
           this.variableManager = null;
           this.breakpointManager = null;
@@ -305,7 +317,8 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
         () -> {
           final int reference = args.getVariablesReference();
           try {
-            final List<MagikVariable> magikVariables = this.variableManager.getVariables(reference);
+            final List<MagikVariable> magikVariables =
+                this.variableManager.getVariables(reference, args.getStart(), args.getCount());
 
             // Return response.
             final VariablesResponse response = new VariablesResponse();
@@ -526,6 +539,10 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
           try {
             // Evaluate in thread/frame.
             final String result = this.threadManager.evaluate(frameId, expression);
+            if (EvaluateArgumentsContext.REPL.equals(args.getContext())) {
+              // Code might have been (re)loaded, methods might have moved.
+              this.threadManager.clearCaches();
+            }
 
             // Return response.
             final EvaluateResponse response = new EvaluateResponse();
@@ -554,7 +571,7 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
           final SourceResponse sourceResponse = new SourceResponse();
           if (Files.exists(mappedPath)) {
             try {
-              final String content = Files.readString(mappedPath);
+              final String content = SourceFileLoader.readString(mappedPath);
               sourceResponse.setContent(content);
             } catch (final IOException exception) {
               LOGGER.error("Error reading file: " + pathStr, exception);
@@ -568,6 +585,44 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
         });
   }
 
+  /**
+   * Clear any cached information about the session, such as exemplar packages, method source files
+   * and method line tables. Use this after (re)loading code in the session.
+   *
+   * @return CompletableFuture.
+   */
+  @JsonRequest(value = "custom/clearCaches")
+  public CompletableFuture<Void> clearCaches() {
+    LOGGER.trace("clearCaches");
+
+    return CompletableFuture.runAsync(
+        () -> {
+          if (this.threadManager != null) {
+            this.threadManager.clearCaches();
+          }
+          if (this.breakpointManager != null) {
+            this.breakpointManager.clearCaches();
+          }
+        });
+  }
+
+  /**
+   * Get the statistics of all breakpoints, such as the number of hits and the time spent on
+   * evaluating their conditions.
+   *
+   * @return Statistics of all breakpoints.
+   */
+  @JsonRequest(value = "custom/breakpointStatistics")
+  public CompletableFuture<List<BreakpointStatistics>> breakpointStatistics() {
+    LOGGER.trace("breakpointStatistics");
+
+    final BreakpointManager currentBreakpointManager = this.breakpointManager;
+    if (currentBreakpointManager == null) {
+      return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+    return CompletableFuture.supplyAsync(currentBreakpointManager::getStatistics);
+  }
+
   @Override
   public void handleEvent(final ISlapEvent event) {
     LOGGER.trace("Got event: {}", event);
@@ -590,17 +645,29 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
    * @param event Event to process.
    */
   void processEvent(final ISlapEvent event) {
+    // Events might still be arriving while disconnecting.
+    final BreakpointManager currentBreakpointManager = this.breakpointManager;
+    final ThreadManager currentThreadManager = this.threadManager;
+    final VariableManager currentVariableManager = this.variableManager;
+    if (!(event instanceof DisconnectedEvent)
+        && (currentBreakpointManager == null
+            || currentThreadManager == null
+            || currentVariableManager == null)) {
+      LOGGER.debug("Ignoring event, not attached: {}", event);
+      return;
+    }
+
     if (event instanceof BreakpointEvent breakpointEvent) {
-      this.breakpointManager.handleBreakpointEvent(breakpointEvent);
-      this.threadManager.handleBreakpointEvent(breakpointEvent);
-      this.variableManager.handleBreakpointEvent(breakpointEvent);
+      currentBreakpointManager.handleBreakpointEvent(breakpointEvent);
+      currentThreadManager.handleBreakpointEvent(breakpointEvent);
+      currentVariableManager.handleBreakpointEvent(breakpointEvent);
     } else if (event instanceof ThreadStartedEvent threadStartedEvent) {
-      this.threadManager.handleThreadStartedEvent(threadStartedEvent);
+      currentThreadManager.handleThreadStartedEvent(threadStartedEvent);
     } else if (event instanceof ThreadEndedEvent threadEndedEvent) {
-      this.threadManager.handleThreadEndedEvent(threadEndedEvent);
+      currentThreadManager.handleThreadEndedEvent(threadEndedEvent);
     } else if (event instanceof StepCompletedEvent stepCompletedEvent) {
-      this.threadManager.handleStepCompletedEvent(stepCompletedEvent);
-      this.variableManager.handleStepCompletedEvent(stepCompletedEvent);
+      currentThreadManager.handleStepCompletedEvent(stepCompletedEvent);
+      currentVariableManager.handleStepCompletedEvent(stepCompletedEvent);
     } else if (event instanceof DisconnectedEvent) {
       final TerminatedEventArguments args = new TerminatedEventArguments();
       this.debugClient.terminated(args);
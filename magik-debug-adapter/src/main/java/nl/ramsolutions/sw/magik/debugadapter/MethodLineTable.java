@@ -0,0 +1,108 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+
+/**
+ * Line ranges of the methods in a source file, sorted by line.
+ *
+ * <p>Built from a single parse of the file, used to resolve a breakpoint line to the method
+ * containing it with a binary search.
+ */
+final class MethodLineTable {
+
+  /**
+   * Method containing a line.
+   *
+   * @param methodName Full exemplar method name, e.g. {@code user:bpt.t()}.
+   * @param methodLine Line of the method definition.
+   */
+  record MethodLine(String methodName, int methodLine) {}
+
+  static final MethodLineTable EMPTY = new MethodLineTable(List.of());
+
+  // Lines from which a line is contained by a method: the line of the method definition, if the
+  // definition starts at the first column, or the line after it.
+  private final int[] firstLines;
+  private final int[] lastLines;
+  private final MethodLine[] methodLines;
+
+  private MethodLineTable(final List<AstNode> methodNodes) {
+    final int size = methodNodes.size();
+    this.firstLines = new int[size];
+    this.lastLines = new int[size];
+    this.methodLines = new MethodLine[size];
+    for (int i = 0; i < size; ++i) {
+      final AstNode methodNode = methodNodes.get(i);
+      final Token firstToken = methodNode.getToken();
+      final Token lastToken = methodNode.getLastToken();
+      this.firstLines[i] =
+          firstToken.getColumn() == 0 ? firstToken.getLine() : firstToken.getLine() + 1;
+      this.lastLines[i] = lastToken.getLine();
+
+      final MethodDefinitionNodeHelper helper = new MethodDefinitionNodeHelper(methodNode);
+      final String methodName = helper.getFullExemplarMethodName();
+      this.methodLines[i] = new MethodLine(methodName, methodNode.getTokenLine());
+    }
+  }
+
+  /**
+   * Build the table from a parsed file.
+   *
+   * @param topNode Top node of the file.
+   * @return Table of all outermost method definitions.
+   */
+  static MethodLineTable of(final AstNode topNode) {
+    final List<AstNode> methodNodes = new ArrayList<>();
+    MethodLineTable.collectMethodNodes(topNode, methodNodes);
+    return new MethodLineTable(methodNodes);
+  }
+
+  private static void collectMethodNodes(final AstNode node, final List<AstNode> methodNodes) {
+    for (final AstNode childNode : node.getChildren()) {
+      if (childNode.is(MagikGrammar.METHOD_DEFINITION)) {
+        if (childNode.getToken() != null && childNode.getLastToken() != null) {
+          methodNodes.add(childNode);
+        }
+      } else {
+        MethodLineTable.collectMethodNodes(childNode, methodNodes);
+      }
+    }
+  }
+
+  /**
+   * Find the method containing {@code line}.
+   *
+   * @param line Line to look at.
+   * @return Method containing line, or null if line is not in a method.
+   */
+  @CheckForNull
+  MethodLine find(final int line) {
+    // Find the last method starting at or before line.
+    int index = Arrays.binarySearch(this.firstLines, line);
+    if (index < 0) {
+      index = -index - 2;
+    } else {
+      // Multiple methods might start on the same line, the first one wins.
+      while (index > 0 && this.firstLines[index - 1] == line) {
+        index -= 1;
+      }
+    }
+
+    if (index < 0 || line > this.lastLines[index]) {
+      return null;
+    }
+
+    return this.methodLines[index];
+  }
+
+  int size() {
+    return this.methodLines.length;
+  }
+}
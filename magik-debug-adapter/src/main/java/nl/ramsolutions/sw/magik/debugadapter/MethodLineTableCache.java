@@ -0,0 +1,70 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import com.sonar.sslr.api.AstNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.ramsolutions.sw.magik.parser.MagikParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of {@link MethodLineTable}s per file, invalidated when the modification time or size of the
+ * file changes.
+ */
+class MethodLineTableCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MethodLineTableCache.class);
+
+  /** Cached table, with the file attributes it was built from. */
+  private record Entry(FileTime lastModifiedTime, long size, MethodLineTable table) {}
+
+  private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Get the {@link MethodLineTable} for a file, parsing the file if needed.
+   *
+   * @param path Path to file.
+   * @return Table, empty if the file could not be read.
+   */
+  MethodLineTable get(final Path path) {
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (final IOException exception) {
+      LOGGER.debug("Unable to read attributes of: {}", path, exception);
+      this.entries.remove(path);
+      return MethodLineTable.EMPTY;
+    }
+
+    final FileTime lastModifiedTime = attributes.lastModifiedTime();
+    final long size = attributes.size();
+    final Entry entry = this.entries.get(path);
+    if (entry != null
+        && entry.lastModifiedTime().equals(lastModifiedTime)
+        && entry.size() == size) {
+      return entry.table();
+    }
+
+    final MagikParser parser = new MagikParser();
+    final AstNode node = parser.parseSafe(path);
+    if (node == null) {
+      this.entries.remove(path);
+      return MethodLineTable.EMPTY;
+    }
+
+    final MethodLineTable table = MethodLineTable.of(node);
+    LOGGER.debug("Parsed: {}, methods: {}", path, table.size());
+    this.entries.put(path, new Entry(lastModifiedTime, size, table));
+    return table;
+  }
+
+  /** Clear the cache. */
+  void clear() {
+    this.entries.clear();
+  }
+}
@@ -1,11 +1,16 @@
 package nl.ramsolutions.sw.magik.debugadapter;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ErrorMessage;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapProtocol;
@@ -46,6 +51,8 @@ class ThreadManager {
   private final ISlapProtocol slapProtocol;
   private final IDebugProtocolClient debugClient;
   private final PathMapper pathMapper;
+  private final Map<String, String> exemplarPackages = new ConcurrentHashMap<>();
+  private final Map<String, Optional<Path>> methodPaths = new ConcurrentHashMap<>();
   private boolean stepCompletedEventReceived;
   private BreakpointEvent breakpointEvent;
 
@@ -78,13 +85,15 @@ class ThreadManager {
     final CompletableFuture<ISlapResponse> futureThreadList = this.slapProtocol.getThreadList();
     final ThreadListResponse threadList = (ThreadListResponse) futureThreadList.get();
 
-    // Get all thread info for each received thread ID.
+    // Get all thread info for each received thread ID, sending all requests at once.
+    final Map<Long, CompletableFuture<ISlapResponse>> threadInfoFutures =
+        this.slapProtocol.getThreadInfos(threadList.getThreadIds());
     final List<Thread> threads = new ArrayList<>();
-    for (long threadId : threadList.getThreadIds()) {
-      final CompletableFuture<ISlapResponse> threadInfoFuture =
-          this.slapProtocol.getThreadInfo(threadId);
+    for (final Map.Entry<Long, CompletableFuture<ISlapResponse>> entry :
+        threadInfoFutures.entrySet()) {
+      final long threadId = entry.getKey();
       try {
-        final ThreadInfoResponse threadInfo = (ThreadInfoResponse) threadInfoFuture.get();
+        final ThreadInfoResponse threadInfo = (ThreadInfoResponse) entry.getValue().get();
         LOGGER.trace("Got thread, id: {}, thread info: {}", threadId, threadInfo);
 
         final Thread thread = Lsp4jConversion.toLsp4j(threadId, threadInfo);
@@ -96,8 +105,7 @@ class ThreadManager {
             exception.getMessage());
 
         // If not ErrorMessage.UNKNOWN_ERROR, then re-throw.
-        if (exception.getCause() instanceof SlapErrorException slapErrorException
-            && slapErrorException.getError().getErrorMessage() != ErrorMessage.UNKNOWN_ERROR) {
+        if (ThreadManager.isOtherSlapError(exception, ErrorMessage.UNKNOWN_ERROR)) {
           throw exception;
         }
       }
@@ -121,10 +129,57 @@ class ThreadManager {
         this.slapProtocol.getThreadStack(threadId);
     final ThreadStackResponse threadStack = (ThreadStackResponse) threadStackFuture.get();
 
+    // Don't mess with non-Magik stack frames.
+    final List<ThreadStackResponse.StackElement> stackElements =
+        threadStack.getStackFrames().stream()
+            .filter(stackElement -> stackElement.getLanguage().equals(LANGUAGE_MAGIK))
+            .toList();
+
+    // Send requests for the packages of exemplars not seen before, then for the source files of
+    // methods not seen before, and only then wait for the source files.
+    final Map<String, String> packageNames = new HashMap<>();
+    final Map<String, CompletableFuture<ISlapResponse>> packageFutures = new HashMap<>();
+    for (final ThreadStackResponse.StackElement stackElement : stackElements) {
+      final String exemplarName = ThreadManager.getUnqualifiedExemplarName(stackElement.getName());
+      if (exemplarName == null
+          || packageNames.containsKey(exemplarName)
+          || packageFutures.containsKey(exemplarName)) {
+        continue;
+      }
+
+      final String packageName = this.exemplarPackages.get(exemplarName);
+      if (packageName != null) {
+        packageNames.put(exemplarName, packageName);
+      } else {
+        final CompletableFuture<ISlapResponse> packageFuture =
+            this.requestExemplarPackage(threadId, stackElement.getLevel(), exemplarName);
+        packageFutures.put(exemplarName, packageFuture);
+      }
+    }
+
+    final List<String> methods = new ArrayList<>();
+    final Map<String, Optional<Path>> paths = new HashMap<>();
+    final Map<String, CompletableFuture<ISlapResponse>> sourceFileFutures = new HashMap<>();
+    for (final ThreadStackResponse.StackElement stackElement : stackElements) {
+      final String method = this.qualifyMethod(stackElement, packageNames, packageFutures);
+      methods.add(method);
+      if (method == null || paths.containsKey(method) || sourceFileFutures.containsKey(method)) {
+        continue;
+      }
+
+      final Optional<Path> path = this.methodPaths.get(method);
+      if (path != null) {
+        paths.put(method, path);
+      } else {
+        sourceFileFutures.put(method, this.slapProtocol.getSourceFile(method));
+      }
+    }
+
     // Do conversion here due to filtering on language + getting source,
     // instead of Lsp4jConversion.
     final List<StackFrame> stackFrames = new ArrayList<>();
-    for (final ThreadStackResponse.StackElement stackElement : threadStack.getStackFrames()) {
+    for (int i = 0; i < stackElements.size(); ++i) {
+      final ThreadStackResponse.StackElement stackElement = stackElements.get(i);
       LOGGER.trace(
           "Stack element, level: {}, language: {}, name: '{}', offset: {}",
           stackElement.getLevel(),
@@ -132,13 +187,10 @@ class ThreadManager {
           stackElement.getName(),
           stackElement.getOffset());
 
-      // Don't mess with non-Magik stack frames.
-      if (!stackElement.getLanguage().equals(LANGUAGE_MAGIK)) {
-        continue;
-      }
-
       // This sets the frameId to the given stack frames.
-      final Path path = this.determinePath(threadId, stackElement);
+      final String method = methods.get(i);
+      final Path path =
+          method != null ? this.determinePath(method, paths, sourceFileFutures) : null;
       final StackFrame stackFrame = Lsp4jConversion.toLsp4j(threadId, stackElement, path);
       stackFrames.add(stackFrame);
     }
@@ -146,49 +198,131 @@ class ThreadManager {
     return stackFrames;
   }
 
-  private Path determinePath(
-      final long threadId, final ThreadStackResponse.StackElement stackElement)
-      throws InterruptedException, ExecutionException, IOException {
-    try {
-      String method = stackElement.getName();
-      if (!method.equals(UNNAMED_PROC) && !method.equals(LOOPBODY)) {
-        final int indexDot = method.indexOf('.');
-        final int indexBracket = method.indexOf('[');
-        final int index = indexDot != -1 ? indexDot + 1 : indexBracket;
-        if (!method.contains(":") && index != -1) {
-          // Do some extra work to determine package.
-          final int level = stackElement.getLevel();
-
-          final String exemplarName = ":|" + method.substring(0, index - 1) + "|";
-          final String expr = String.format(EVAL_EXEMPLAR_PACKAGE, exemplarName);
-          LOGGER.debug("Eval expression: '{}'", expr);
-          final EvalResponse eval =
-              (EvalResponse) this.slapProtocol.evaluate(threadId, level, expr).get();
-          method = eval.getResult() + ":" + method;
-
-          // Bonus: update exemplar name with package.
-          stackElement.setName(method);
-        }
+  /**
+   * Clear the cached exemplar packages and method source files. Call this when code might have been
+   * (re)loaded in the session.
+   */
+  void clearCaches() {
+    LOGGER.debug(
+        "Clearing caches, exemplar packages: {}, method paths: {}",
+        this.exemplarPackages.size(),
+        this.methodPaths.size());
+    this.exemplarPackages.clear();
+    this.methodPaths.clear();
+  }
 
-        // Clear any spaces (before `<<`/`^<<`). Lazy approach...
-        method = method.replace(" ", "");
+  /**
+   * Get the exemplar name of an unqualified method name.
+   *
+   * @param method Method name from stack.
+   * @return Exemplar name, or null if method is already qualified or not a method.
+   */
+  @CheckForNull
+  private static String getUnqualifiedExemplarName(final String method) {
+    if (method.equals(UNNAMED_PROC) || method.equals(LOOPBODY)) {
+      return null;
+    }
 
-        // Get source file for method.
-        final CompletableFuture<ISlapResponse> sourceFileFuture =
-            this.slapProtocol.getSourceFile(method);
-        final SourceFileResponse sourceFile = (SourceFileResponse) sourceFileFuture.get();
-        final String filename = sourceFile.getFilename();
-        final Path daPath = Path.of(filename);
-        return this.pathMapper.applyMapping(daPath);
+    final int indexDot = method.indexOf('.');
+    final int indexBracket = method.indexOf('[');
+    final int index = indexDot != -1 ? indexDot + 1 : indexBracket;
+    if (method.contains(":") || index == -1) {
+      return null;
+    }
+
+    return method.substring(0, index - 1);
+  }
+
+  private CompletableFuture<ISlapResponse> requestExemplarPackage(
+      final long threadId, final int level, final String exemplarName) throws IOException {
+    final String expr = String.format(EVAL_EXEMPLAR_PACKAGE, ":|" + exemplarName + "|");
+    LOGGER.debug("Eval expression: '{}'", expr);
+    return this.slapProtocol.evaluate(threadId, level, expr);
+  }
+
+  /**
+   * Get the package qualified method name of a stack element.
+   *
+   * @param stackElement Stack element, its name is updated with the package.
+   * @param packageNames Known exemplar packages.
+   * @param packageFutures Pending requests for exemplar packages.
+   * @return Qualified method name, or null if not a method or the package could not be determined.
+   */
+  @CheckForNull
+  private String qualifyMethod(
+      final ThreadStackResponse.StackElement stackElement,
+      final Map<String, String> packageNames,
+      final Map<String, CompletableFuture<ISlapResponse>> packageFutures)
+      throws InterruptedException, ExecutionException {
+    String method = stackElement.getName();
+    if (method.equals(UNNAMED_PROC) || method.equals(LOOPBODY)) {
+      return null;
+    }
+
+    final String exemplarName = ThreadManager.getUnqualifiedExemplarName(method);
+    if (exemplarName != null) {
+      String packageName = packageNames.get(exemplarName);
+      if (packageName == null) {
+        try {
+          final EvalResponse eval = (EvalResponse) packageFutures.get(exemplarName).get();
+          packageName = eval.getResult();
+          packageNames.put(exemplarName, packageName);
+          this.exemplarPackages.put(exemplarName, packageName);
+        } catch (final ExecutionException exception) {
+          if (ThreadManager.isOtherSlapError(exception, ErrorMessage.METHOD_NOT_FOUND)) {
+            throw exception;
+          }
+
+          return null;
+        }
       }
+      method = packageName + ":" + method;
+
+      // Bonus: update exemplar name with package.
+      stackElement.setName(method);
+    }
+
+    // Clear any spaces (before `<<`/`^<<`). Lazy approach...
+    return method.replace(" ", "");
+  }
+
+  @CheckForNull
+  private Path determinePath(
+      final String method,
+      final Map<String, Optional<Path>> paths,
+      final Map<String, CompletableFuture<ISlapResponse>> sourceFileFutures)
+      throws InterruptedException, ExecutionException {
+    final Optional<Path> knownPath = paths.get(method);
+    if (knownPath != null) {
+      return knownPath.orElse(null);
+    }
+
+    Optional<Path> path = Optional.empty();
+    try {
+      final SourceFileResponse sourceFile =
+          (SourceFileResponse) sourceFileFutures.get(method).get();
+      final String filename = sourceFile.getFilename();
+      final Path daPath = Path.of(filename);
+      path = Optional.of(this.pathMapper.applyMapping(daPath));
     } catch (final ExecutionException exception) {
-      if (exception.getCause() instanceof SlapErrorException slapErrorException
-          && slapErrorException.getError().getErrorMessage() != ErrorMessage.METHOD_NOT_FOUND) {
+      if (ThreadManager.isOtherSlapError(exception, ErrorMessage.METHOD_NOT_FOUND)) {
         throw exception;
       }
     }
 
-    return null;
+    paths.put(method, path);
+    this.methodPaths.put(method, path);
+    return path.orElse(null);
+  }
+
+  /**
+   * Test if {@code exception} is caused by a {@link SlapErrorException} with an error other than
+   * {@code errorMessage}.
+   */
+  private static boolean isOtherSlapError(
+      final ExecutionException exception, final ErrorMessage errorMessage) {
+    return exception.getCause() instanceof SlapErrorException slapErrorException
+        && slapErrorException.getError().getErrorMessage() != errorMessage;
   }
 
   /**
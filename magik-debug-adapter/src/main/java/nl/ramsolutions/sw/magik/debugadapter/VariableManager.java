@@ -1,5 +1,6 @@
 package nl.ramsolutions.sw.magik.debugadapter;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -32,6 +33,7 @@ class VariableManager {
     private final String name;
     private final String value;
     private final String expression;
+    private final int indexedSize;
 
     /**
      * Constructor.
@@ -48,11 +50,32 @@ class VariableManager {
         final String name,
         final String value,
         final String expression) {
+      this(id, frameId, name, value, expression, BulkVariableExpression.NOT_INDEXED);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param id Variable ID.
+     * @param frameId Frame ID.
+     * @param name Name of variable.
+     * @param value Value of variable.
+     * @param expression Expression for varaible.
+     * @param indexedSize Number of elements, if value is indexed, or -1 if not.
+     */
+    MagikVariable(
+        final int id,
+        final int frameId,
+        final String name,
+        final String value,
+        final String expression,
+        final int indexedSize) {
       this.id = id;
       this.frameId = frameId;
       this.name = name;
       this.value = value;
       this.expression = expression;
+      this.indexedSize = indexedSize;
     }
 
     int getId() {
@@ -74,6 +97,15 @@ class VariableManager {
     String getExpression() {
       return this.expression;
     }
+
+    /**
+     * Get the number of elements, if the value is indexed.
+     *
+     * @return Number of elements, or -1 if the value is not indexed or unknown.
+     */
+    int getIndexedSize() {
+      return this.indexedSize;
+    }
   }
 
   /** Scope type. */
@@ -173,10 +205,30 @@ class VariableManager {
    */
   private MagikVariable addVariable(
       final int frameId, final String name, final String value, final String expression) {
+    return this.addVariable(frameId, name, value, expression, BulkVariableExpression.NOT_INDEXED);
+  }
+
+  /**
+   * Add a new variable to be tracked.
+   *
+   * @param frameId Frame ID.
+   * @param name Variable name.
+   * @param value Variable value.
+   * @param expression Expression to get variable.
+   * @param indexedSize Number of elements, if value is indexed, or -1 if not.
+   * @return New variable.
+   */
+  private MagikVariable addVariable(
+      final int frameId,
+      final String name,
+      final String value,
+      final String expression,
+      final int indexedSize) {
     final int id = ++this.lastId;
     this.frameIds.put(id, frameId);
 
-    final MagikVariable variable = new MagikVariable(id, frameId, name, value, expression);
+    final MagikVariable variable =
+        new MagikVariable(id, frameId, name, value, expression, indexedSize);
     this.variables.put(id, variable);
     return variable;
   }
@@ -186,12 +238,13 @@ class VariableManager {
    *
    * @param frameId Frame ID.
    * @param local Local to convert.
+   * @param indexedSize Number of elements, if value is indexed, or -1 if not.
    * @return New variable.
    */
-  private MagikVariable addVariable(final int frameId, final Local local) {
+  private MagikVariable addVariable(final int frameId, final Local local, final int indexedSize) {
     final String name = local.getName();
     final String value = local.getValue();
-    return addVariable(frameId, name, value, name);
+    return addVariable(frameId, name, value, name, indexedSize);
   }
 
   /**
@@ -201,14 +254,16 @@ class VariableManager {
    * @param name Name of variable.
    * @param value Value of variable.
    * @param expression Expression to get variable.
+   * @param indexedSize Number of elements, if value is indexed, or -1 if not.
    * @return New variable.
    */
   private MagikVariable addVariable(
       final MagikVariable variable,
       final String name,
       final String value,
-      final String expression) {
-    return this.addVariable(variable.getFrameId(), name, value, expression);
+      final String expression,
+      final int indexedSize) {
+    return this.addVariable(variable.getFrameId(), name, value, expression, indexedSize);
   }
 
   /**
@@ -229,11 +284,25 @@ class VariableManager {
    */
   List<MagikVariable> getVariables(final int reference)
       throws IOException, InterruptedException, ExecutionException {
-    final List<MagikVariable> magikVariables = new ArrayList<>();
+    return this.getVariables(reference, null, null);
+  }
 
+  /**
+   * Get variables.
+   *
+   * @param reference Reference to use.
+   * @param start Index of first element to get, for indexed variables.
+   * @param count Number of elements to get, for indexed variables, or all if {@code null} or 0.
+   * @return Variables.
+   * @throws IOException If the result of expanding a variable is malformed, or on a protocol error.
+   */
+  List<MagikVariable> getVariables(
+      final int reference, final @Nullable Integer start, final @Nullable Integer count)
+      throws IOException, InterruptedException, ExecutionException {
     // Call into debugger to get variables.
     final Scope scope = this.getScope(reference);
-    MagikVariable variable = this.getVariable(reference);
+    final MagikVariable variable = this.getVariable(reference);
+    final Comparator<MagikVariable> byName = Comparator.comparing(MagikVariable::getName);
     if (scope != null) {
       final int scopeId = scope.getVariablesReference();
       final int frameId = this.getFrameId(scopeId);
@@ -241,146 +310,136 @@ class VariableManager {
       final int level = Lsp4jConversion.frameIdToLevel(frameId);
       final StackFrameLocalsResponse stackFrameLocals =
           (StackFrameLocalsResponse) this.slapProtocol.getStackFrameLocals(threadId, level).get();
-
-      stackFrameLocals.getLocals().stream()
-          .filter(local -> !local.getVariableTypes().contains(VariableType.SLOT))
-          .map(local -> this.addVariable(frameId, local))
-          .forEach(magikVariables::add);
+      final List<Local> locals =
+          stackFrameLocals.getLocals().stream()
+              .filter(local -> !local.getVariableTypes().contains(VariableType.SLOT))
+              .toList();
+
+      // Get the sizes of indexed locals in one go, so the client pages through these.
+      final List<Integer> indexedSizes = this.getIndexedSizes(threadId, level, locals);
+      final List<MagikVariable> magikVariables = new ArrayList<>();
+      for (int i = 0; i < locals.size(); i++) {
+        magikVariables.add(this.addVariable(frameId, locals.get(i), indexedSizes.get(i)));
+      }
+      return magikVariables.stream().sorted(byName).toList();
     } else if (variable != null) {
       final int frameId = variable.getFrameId();
       final long threadId = Lsp4jConversion.frameIdToThreadId(frameId);
       final int level = Lsp4jConversion.frameIdToLevel(frameId);
       final String expression = variable.getExpression();
 
-      // Determine type:
-      // - sw:enumerated_format_mixin
-      // - sw:indexed_format_mixin
-      // - sw:slotted_format_mixin
-      final String typeExpression =
-          ""
-              + "_if "
-              + expression
-              + ".is_kind_of?(sw:enumerated_format_mixin) "
-              + "_then >> :enumerated_format_mixin "
-              + "_elif "
-              + expression
-              + ".is_kind_of?(sw:indexed_format_mixin) "
-              + "_then >> :indexed_format_mixin "
-              + "_elif "
-              + expression
-              + ".is_kind_of?(sw:slotted_format_mixin) "
-              + "_then >> :slotted_format_mixin "
-              + "_else >> expression.class_name "
-              + "_endif";
-      final EvalResponse typeEvalResponse =
-          (EvalResponse) this.slapProtocol.evaluate(threadId, level, typeExpression).get();
-      List<MagikVariable> subVariables = null;
-      switch (typeEvalResponse.getResult()) {
-        case ":enumerated_format_mixin":
-          subVariables = this.variablesFromEnumerated(variable);
-          break;
-
-        case ":indexed_format_mixin":
-          subVariables = this.variablesFromIndexed(variable);
-          break;
-
-        case ":slotted_format_mixin":
-          subVariables = this.variablesFromSlotted(variable);
-          break;
-
-        default:
-          LOGGER.warn(
-              "Unknown type for expression: {}, class: {}",
-              expression,
-              typeEvalResponse.getResult());
-          subVariables = new ArrayList<>();
-          break;
+      // Determine type and get all contents in one go.
+      final int startIndex = start != null ? start : 0;
+      final Integer elementCount = count != null && count > 0 ? count : null;
+      final String bulkExpression =
+          BulkVariableExpression.build(expression, startIndex, elementCount);
+      final EvalResponse evalResponse =
+          (EvalResponse) this.slapProtocol.evaluate(threadId, level, bulkExpression).get();
+      final String result = evalResponse.getResult();
+      try {
+        final List<String> fields = BulkVariableExpression.decode(result);
+        final String kind = !fields.isEmpty() ? fields.get(0) : "";
+        switch (kind) {
+          case BulkVariableExpression.KIND_ENUMERATED:
+            return Collections.emptyList();
+
+          case BulkVariableExpression.KIND_INDEXED:
+            // Keep elements in index order, the client pages through these.
+            return this.variablesFromIndexed(variable, fields, startIndex);
+
+          case BulkVariableExpression.KIND_SLOTTED:
+            return this.variablesFromSlotted(variable, fields).stream().sorted(byName).toList();
+
+          default:
+            LOGGER.warn("Unknown type for expression: {}, class: {}", expression, kind);
+            return Collections.emptyList();
+        }
+      } catch (final IllegalArgumentException exception) {
+        // Includes NumberFormatException, e.g. when the result is a Magik error. Report it to the
+        // client, instead of showing no variables.
+        LOGGER.warn("Unexpected result for expression: {}, result: {}", expression, result);
+        throw new IOException("Unable to expand: " + expression + ", result: " + result, exception);
       }
-      magikVariables.addAll(subVariables);
     }
 
-    // Sort variables.
-    final Comparator<MagikVariable> byName = Comparator.comparing(MagikVariable::getName);
-    return magikVariables.stream().sorted(byName).toList();
+    return Collections.emptyList();
   }
 
   // endregion
 
-  private List<MagikVariable> variablesFromSlotted(final MagikVariable variable)
-      throws InterruptedException, ExecutionException, IOException {
-    final int frameId = variable.getFrameId();
-    final long threadId = Lsp4jConversion.frameIdToThreadId(frameId);
-    final int level = Lsp4jConversion.frameIdToLevel(frameId);
-    final String expression = variable.getExpression();
+  /**
+   * Get the indexed sizes of {@code locals}, using a single evaluation.
+   *
+   * @param threadId Thread ID.
+   * @param level Level of frame.
+   * @param locals Locals to get the sizes of.
+   * @return Number of elements per local, or -1 if not indexed or unknown.
+   */
+  private List<Integer> getIndexedSizes(
+      final long threadId, final int level, final List<Local> locals)
+      throws IOException, InterruptedException {
+    final List<Integer> unknownSizes =
+        Collections.nCopies(locals.size(), BulkVariableExpression.NOT_INDEXED);
+    if (locals.isEmpty()) {
+      return unknownSizes;
+    }
 
-    // Get slots.
-    final String slotsExpression =
-        ""
-            + expression
-            + ".sys!all_slot_names()"
-            + ".map(_proc(sn) _return sn.subseq(sn.index_of(%!) + 1) _endproc)"
-            + ".join_as_strings(%,)";
-    final EvalResponse slotsEvalResponse =
-        (EvalResponse) this.slapProtocol.evaluate(threadId, level, slotsExpression).get();
-    final String slotNames = slotsEvalResponse.getResult();
-
-    // For each slot, get contents
-    final List<MagikVariable> magikVariables = new ArrayList<>();
-    for (final String slotName : slotNames.split(",")) {
-      if ("".equals(slotName)) {
-        continue;
+    final List<String> expressions = locals.stream().map(Local::getName).toList();
+    final String sizesExpression = BulkVariableExpression.buildSizes(expressions);
+    String result = null;
+    try {
+      final EvalResponse evalResponse =
+          (EvalResponse) this.slapProtocol.evaluate(threadId, level, sizesExpression).get();
+      result = evalResponse.getResult();
+      final List<Integer> sizes =
+          BulkVariableExpression.decode(result).stream().map(Integer::parseInt).toList();
+      if (sizes.size() != locals.size()) {
+        LOGGER.debug("Unexpected number of sizes for locals: {}, result: {}", expressions, result);
+        return unknownSizes;
       }
 
-      final String slotValueExpression = expression + ".sys!slot(:" + slotName + ")";
-      final EvalResponse slotValueResponse =
-          (EvalResponse)
-              this.slapProtocol
-                  .evaluate(threadId, level, slotValueExpression + ".print_string")
-                  .get();
-      final String slotValue = slotValueResponse.getResult();
-
-      final MagikVariable slotVariable =
-          this.addVariable(variable, slotName, slotValue, slotValueExpression);
-      magikVariables.add(slotVariable);
+      return sizes;
+    } catch (final ExecutionException | IllegalArgumentException exception) {
+      // Includes NumberFormatException, e.g. when the result is a Magik error.
+      LOGGER.warn("Unable to get sizes for locals: {}, result: {}", expressions, result);
+      return unknownSizes;
     }
-    return magikVariables;
   }
 
-  private List<MagikVariable> variablesFromIndexed(final MagikVariable variable)
-      throws InterruptedException, ExecutionException, IOException {
-    final int frameId = variable.getFrameId();
-    final long threadId = Lsp4jConversion.frameIdToThreadId(frameId);
-    final int level = Lsp4jConversion.frameIdToLevel(frameId);
+  private List<MagikVariable> variablesFromSlotted(
+      final MagikVariable variable, final List<String> fields) {
+    // Fields: kind, then per slot: name, value, indexed size.
     final String expression = variable.getExpression();
-
-    // Get size.
-    final String sizeExpression = expression + ".sys!size";
-    final EvalResponse sizeEvalResponse =
-        (EvalResponse) this.slapProtocol.evaluate(threadId, level, sizeExpression).get();
-    final int size = Integer.parseInt(sizeEvalResponse.getResult());
-
-    // Get contents.
     final List<MagikVariable> magikVariables = new ArrayList<>();
-    for (int i = 0; i < size; ++i) {
-      final String itemValueExpression = expression + ".sys!at0(" + i + ")";
-      final EvalResponse itemValueResponse =
-          (EvalResponse)
-              this.slapProtocol
-                  .evaluate(threadId, level, itemValueExpression + ".print_string")
-                  .get();
-      final String itemValue = itemValueResponse.getResult();
-
+    for (int i = 1; i + 2 < fields.size(); i += 3) {
+      final String slotName = fields.get(i);
+      final String slotValue = fields.get(i + 1);
+      final int indexedSize = Integer.parseInt(fields.get(i + 2));
+      final String slotValueExpression = expression + ".sys!slot(:" + slotName + ")";
       final MagikVariable slotVariable =
-          this.addVariable(variable, Integer.toString(i), itemValue, itemValueExpression);
+          this.addVariable(variable, slotName, slotValue, slotValueExpression, indexedSize);
       magikVariables.add(slotVariable);
     }
-
     return magikVariables;
   }
 
-  @SuppressWarnings("java:S1172")
-  private List<MagikVariable> variablesFromEnumerated(final MagikVariable variable) {
-    return Collections.emptyList();
+  private List<MagikVariable> variablesFromIndexed(
+      final MagikVariable variable, final List<String> fields, final int startIndex) {
+    // Fields: kind, size, then per element: value, indexed size.
+    final String expression = variable.getExpression();
+    final List<MagikVariable> magikVariables = new ArrayList<>();
+    int index = startIndex;
+    for (int i = 2; i + 1 < fields.size(); i += 2) {
+      final String itemValue = fields.get(i);
+      final int indexedSize = Integer.parseInt(fields.get(i + 1));
+      final String itemValueExpression = expression + ".sys!at0(" + index + ")";
+      final MagikVariable itemVariable =
+          this.addVariable(
+              variable, Integer.toString(index), itemValue, itemValueExpression, indexedSize);
+      magikVariables.add(itemVariable);
+      index += 1;
+    }
+    return magikVariables;
   }
 
   /**
@@ -1,6 +1,9 @@
 package nl.ramsolutions.sw.magik.debugadapter.slap;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /** Slap protocol. */
@@ -96,6 +99,22 @@ public interface ISlapProtocol {
    */
   CompletableFuture<ISlapResponse> getThreadInfo(long threadId) throws IOException;
 
+  /**
+   * Get information about multiple threads. All requests are sent before any response is awaited.
+   *
+   * @param threadIds Threads to get information from.
+   * @return Response of request, per thread ID, in the order of {@code threadIds}.
+   * @throws IOException -
+   */
+  default Map<Long, CompletableFuture<ISlapResponse>> getThreadInfos(
+      final Collection<Long> threadIds) throws IOException {
+    final Map<Long, CompletableFuture<ISlapResponse>> futures = new LinkedHashMap<>();
+    for (final long threadId : threadIds) {
+      futures.put(threadId, this.getThreadInfo(threadId));
+    }
+    return futures;
+  }
+
   /**
    * Get the stack of a thread.
    *
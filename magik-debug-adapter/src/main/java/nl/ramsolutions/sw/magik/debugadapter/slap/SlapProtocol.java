@@ -1,17 +1,24 @@
 package nl.ramsolutions.sw.magik.debugadapter.slap;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 import nl.ramsolutions.sw.magik.debugadapter.slap.events.BreakpointEvent;
 import nl.ramsolutions.sw.magik.debugadapter.slap.events.DisconnectedEvent;
 import nl.ramsolutions.sw.magik.debugadapter.slap.events.StepCompletedEvent;
@@ -40,6 +47,7 @@ public class SlapProtocol implements ISlapProtocol {
   static class RequestFuture {
     private final RequestType requestType;
     private final CompletableFuture<ISlapResponse> future;
+    private long sentNanos;
 
     RequestFuture(final RequestType requestType, final CompletableFuture<ISlapResponse> future) {
       this.requestType = requestType;
@@ -54,8 +62,14 @@ public class SlapProtocol implements ISlapProtocol {
     }
   }
 
+  /** Encoded requests of a single type, waiting to be written. */
+  private record PendingWrite(
+      RequestType requestType, ByteBuffer buffer, List<RequestFuture> requestFutures) {}
+
   private static final Logger LOGGER = LoggerFactory.getLogger(SlapProtocol.class);
 
+  private static final int INITIAL_INPUT_BUFFER_SIZE = 65536;
+
   private static final String DEBUG_CLIENT_ID = "DuckOnATricycle\0";
   private static final String DEBUG_AGENT_ID = "SwanOnAUnicycle\0";
 
@@ -78,13 +92,19 @@ public class SlapProtocol implements ISlapProtocol {
   private final InetSocketAddress inetSocketAddress;
   private final SlapEventListener listener;
   private SocketChannel socketChannel;
-  private final ByteBuffer inputBuffer = ByteBuffer.allocate(65536);
+  // Only touched by the receiver thread, after the handshake.
+  private ByteBuffer inputBuffer = ByteBuffer.allocateDirect(INITIAL_INPUT_BUFFER_SIZE);
   private ByteOrder byteOrder = ByteOrder.nativeOrder();
   private State state;
   private RequestType multiResponseRequestType;
   private long version;
-  private final List<RequestFuture> requestFutures =
-      Collections.synchronizedList(new ArrayList<>());
+  // Responses arrive in request order per request type, so each type has its own FIFO queue of
+  // requests awaiting a response. Filled by the writer thread, drained by the receiver thread.
+  private final Map<RequestType, Queue<RequestFuture>> requestFutures =
+      new EnumMap<>(RequestType.class);
+  private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+  private final SlapProtocolMetrics metrics = new SlapProtocolMetrics();
+  private Thread writerThread;
   private final List<ISlapResponse> subResponses = new ArrayList<>();
 
   /**
@@ -100,6 +120,10 @@ public class SlapProtocol implements ISlapProtocol {
 
     this.state = State.WAITING;
     this.version = -1;
+
+    for (final RequestType requestType : RequestType.values()) {
+      this.requestFutures.put(requestType, new ConcurrentLinkedQueue<>());
+    }
   }
 
   /**
@@ -110,9 +134,12 @@ public class SlapProtocol implements ISlapProtocol {
    */
   public void connect() throws IOException, SlapException {
     this.socketChannel = SocketChannel.open();
+    // Requests and replies are small and often sent back-to-back, don't let Nagle delay these.
+    this.socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
     this.socketChannel.connect(this.inetSocketAddress);
 
     this.doHandshake();
+    this.startWriterThread();
     this.startReceiverThread();
   }
 
@@ -136,6 +163,11 @@ public class SlapProtocol implements ISlapProtocol {
                   LOGGER.error(exception.getMessage(), exception);
                 }
               }
+              // No more responses will arrive, fail anyone still waiting.
+              protocol.failFutureRequests(new IOException("Disconnected"));
+              LockSupport.unpark(protocol.writerThread);
+              LOGGER.debug("Disconnected, metrics: {}", protocol.metrics);
+
               final DisconnectedEvent event = new DisconnectedEvent();
               protocol.listener.handleEvent(event);
             });
@@ -145,6 +177,69 @@ public class SlapProtocol implements ISlapProtocol {
     LOGGER.debug("Started received thread: {}", receiverThread);
   }
 
+  /**
+   * Start the writer thread. Requests are written by this thread only, so senders never block on
+   * the socket and never contend on a lock.
+   */
+  private void startWriterThread() {
+    final SlapProtocol protocol = this;
+    this.writerThread =
+        new Thread(
+            () -> {
+              while (true) { // NOSONAR
+                final PendingWrite pendingWrite = protocol.pendingWrites.poll();
+                if (pendingWrite != null) {
+                  protocol.write(pendingWrite);
+                } else if (protocol.isConnected()) {
+                  // Sleep until a request is queued. A permit from an earlier unpark() prevents
+                  // missing a request queued after the poll above.
+                  LockSupport.park(protocol);
+                } else {
+                  break;
+                }
+              }
+              protocol.failPendingWrites(new IOException("Disconnected"));
+            });
+    this.writerThread.setName("slap-protocol-writer");
+    this.writerThread.setDaemon(true);
+    this.writerThread.start();
+
+    LOGGER.debug("Started writer thread: {}", this.writerThread);
+  }
+
+  /**
+   * Write requests to the socket. The request futures are registered right before writing, so the
+   * order of each request type queue equals the order of the requests on the wire.
+   *
+   * @param pendingWrite Requests to write.
+   */
+  private void write(final PendingWrite pendingWrite) {
+    final RequestType requestType = pendingWrite.requestType();
+    final Queue<RequestFuture> queue = this.requestFutures.get(requestType);
+    final long now = System.nanoTime();
+    for (final RequestFuture requestFuture : pendingWrite.requestFutures()) {
+      requestFuture.sentNanos = now;
+      queue.add(requestFuture);
+      this.metrics.requestSent(requestType);
+    }
+
+    final ByteBuffer buffer = pendingWrite.buffer();
+    try {
+      while (buffer.hasRemaining()) {
+        this.socketChannel.write(buffer);
+      }
+    } catch (final IOException exception) {
+      // Requests are (partially) lost, no responses will arrive for these futures.
+      LOGGER.error(exception.getMessage(), exception);
+      for (final RequestFuture requestFuture : pendingWrite.requestFutures()) {
+        if (queue.remove(requestFuture)) {
+          this.metrics.requestFailed(requestType, true);
+          requestFuture.future.completeExceptionally(exception);
+        }
+      }
+    }
+  }
+
   private void doHandshake() throws IOException, SlapException {
     // Send our secret password.
     final ByteBuffer handshakeMessage =
@@ -191,7 +286,17 @@ public class SlapProtocol implements ISlapProtocol {
    */
   public void close() throws IOException {
     this.socketChannel.close();
-    // Receiver thread will end on its own.
+    // Receiver thread will end on its own, writer thread ends when woken.
+    LockSupport.unpark(this.writerThread);
+  }
+
+  /**
+   * Get the metrics of this protocol.
+   *
+   * @return Metrics.
+   */
+  public SlapProtocolMetrics getMetrics() {
+    return this.metrics;
   }
 
   /**
@@ -258,35 +363,83 @@ public class SlapProtocol implements ISlapProtocol {
       throws IOException {
     final ByteBuffer buffer = ByteBuffer.allocate(16 + data.length);
     buffer.order(this.byteOrder);
+    this.encodeRequest(buffer, requestType, param0, param1, data);
+    buffer.flip();
+
+    LOGGER.trace(
+        "Thread: {}, Sending, type: {}, param0: {}, param1: {}",
+        Thread.currentThread().getName(),
+        requestType,
+        param0,
+        param1);
+    final CompletableFuture<ISlapResponse> future =
+        this.sendRequests(requestType, 1, buffer).get(0);
+    LOGGER.trace(
+        "Thread: {}, Sent, type: {}, param0: {}, param1: {}",
+        Thread.currentThread().getName(),
+        requestType,
+        param0,
+        param1);
+    return future;
+  }
 
-    final int requestLength = buffer.limit();
+  /**
+   * Send multiple requests of the same type, without waiting for any response in between.
+   *
+   * <p>The requests are queued for the writer thread, this never blocks on the socket. Responses
+   * are matched to requests by request type and order, see {@link #write(PendingWrite)}.
+   *
+   * @param requestType Request type of all requests.
+   * @param count Number of requests in {@code buffer}.
+   * @param buffer Encoded requests.
+   * @return Response of each request, in order.
+   * @throws IOException If not connected.
+   */
+  private List<CompletableFuture<ISlapResponse>> sendRequests(
+      final RequestType requestType, final int count, final ByteBuffer buffer) throws IOException {
+    if (!this.isConnected()) {
+      throw new IOException("Not connected");
+    }
+
+    final List<RequestFuture> pendingRequestFutures = new ArrayList<>(count);
+    final List<CompletableFuture<ISlapResponse>> futures = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final CompletableFuture<ISlapResponse> future = new CompletableFuture<>();
+      pendingRequestFutures.add(new RequestFuture(requestType, future));
+      futures.add(future);
+    }
+
+    this.pendingWrites.add(new PendingWrite(requestType, buffer, pendingRequestFutures));
+    LockSupport.unpark(this.writerThread);
+    if (!this.isConnected()) {
+      // Disconnected while queueing, the writer thread might be gone already.
+      this.failPendingWrites(new IOException("Disconnected"));
+    }
+    return futures;
+  }
+
+  /**
+   * Encode a request into {@code buffer}.
+   *
+   * @param buffer Buffer to write to.
+   * @param requestType Request type to send.
+   * @param param0 Parameter 0.
+   * @param param1 Parameter 1.
+   * @param data Additional data to send.
+   */
+  private void encodeRequest(
+      final ByteBuffer buffer,
+      final RequestType requestType,
+      final long param0,
+      final long param1,
+      final byte[] data) {
+    final int requestLength = 16 + data.length;
     final int requestVal = requestType.getVal();
     ByteBufferHelper.writeUInt32(buffer, requestLength);
     ByteBufferHelper.writeUInt32(buffer, requestVal);
     ByteBufferHelper.writeUInt32(buffer, param0);
     ByteBufferHelper.writeUInt32(buffer, param1);
     buffer.put(data);
-    buffer.flip();
-
-    // Try to keep these future-bookkeeping and socket in order.
-    synchronized (this) {
-      LOGGER.trace(
-          "Thread: {}, Sending, type: {}, param0: {}, param1: {}",
-          Thread.currentThread().getName(),
-          requestType,
-          param0,
-          param1);
-      final CompletableFuture<ISlapResponse> future = this.addFutureRequest(requestType);
-
-      this.socketChannel.write(buffer);
-      LOGGER.trace(
-          "Thread: {}, Sent, type: {}, param0: {}, param1: {}",
-          Thread.currentThread().getName(),
-          requestType,
-          param0,
-          param1);
-      return future;
-    }
   }
 
   // endregion
@@ -295,37 +448,41 @@ public class SlapProtocol implements ISlapProtocol {
   /** Handle incoming data. Call this regularly. */
   private void handleData() throws IOException {
     // Read from socket.
+    final int count;
     try {
-      this.socketChannel.read(this.inputBuffer);
+      count = this.socketChannel.read(this.inputBuffer);
     } catch (final AsynchronousCloseException ex) {
       // Channel has reached end-of-stream.
       this.socketChannel.close();
       return;
     }
+    if (count == -1) {
+      // Debuggee closed the connection.
+      this.socketChannel.close();
+      return;
+    }
+    this.metrics.dataRead(count, this.inputBuffer.capacity());
     this.inputBuffer.flip();
 
     final int limit = this.inputBuffer.limit();
     LOGGER.trace("Received data, byte count: {}", limit);
 
-    while (this.inputBuffer.hasRemaining()) {
+    int pendingMessageLength = 0;
+    while (this.inputBuffer.remaining() >= 4) {
       final int startPosition = this.inputBuffer.position();
       final int bufferLength = this.inputBuffer.limit() - startPosition;
       final int messageLength = (int) ByteBufferHelper.peekUInt32(this.inputBuffer); // byte: 0-4
       LOGGER.trace("Message length: {}, buffer size: {}", messageLength, bufferLength);
       if (bufferLength < messageLength) {
         // Did not receive enough data (yet), wait for more data.
+        pendingMessageLength = messageLength;
         break;
       }
 
-      // Rewind, decode message from data.
+      // Decode message from a read-only view on the data, without copying.
       final ByteOrder order = this.inputBuffer.order();
       final ByteBuffer messageBuffer =
-          this.inputBuffer
-              .position(startPosition)
-              .slice()
-              .limit(messageLength)
-              .asReadOnlyBuffer()
-              .order(order);
+          this.inputBuffer.slice(startPosition, messageLength).asReadOnlyBuffer().order(order);
       this.handleMessage(messageBuffer);
 
       // Skip past message.
@@ -333,6 +490,24 @@ public class SlapProtocol implements ISlapProtocol {
     }
 
     this.inputBuffer.compact();
+
+    if (pendingMessageLength > this.inputBuffer.capacity()) {
+      this.growInputBuffer(pendingMessageLength);
+    }
+  }
+
+  /**
+   * Grow the input buffer to fit a message, keeping the data received so far.
+   *
+   * @param messageLength Length of message to fit.
+   */
+  private void growInputBuffer(final int messageLength) {
+    final int capacity = Math.max(this.inputBuffer.capacity() * 2, messageLength);
+    LOGGER.debug("Growing input buffer to: {}", capacity);
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(capacity).order(this.byteOrder);
+    this.inputBuffer.flip();
+    buffer.put(this.inputBuffer);
+    this.inputBuffer = buffer;
   }
 
   /**
@@ -662,6 +837,34 @@ public class SlapProtocol implements ISlapProtocol {
     return this.sendRequest(RequestType.GET_THREAD_INFO, threadId);
   }
 
+  /**
+   * Get information about multiple threads. All requests are written at once.
+   *
+   * @param threadIds Threads to get information from.
+   * @return Response of request, per thread ID, in the order of {@code threadIds}.
+   * @throws IOException -
+   */
+  @Override
+  public Map<Long, CompletableFuture<ISlapResponse>> getThreadInfos(
+      final Collection<Long> threadIds) throws IOException {
+    LOGGER.debug("Get thread infos, thread_ids: {}", threadIds);
+    final List<Long> ids = List.copyOf(threadIds);
+    final ByteBuffer buffer = ByteBuffer.allocate(16 * ids.size());
+    buffer.order(this.byteOrder);
+    for (final long threadId : ids) {
+      this.encodeRequest(buffer, RequestType.GET_THREAD_INFO, threadId, 0, new byte[0]);
+    }
+    buffer.flip();
+
+    final List<CompletableFuture<ISlapResponse>> futures =
+        this.sendRequests(RequestType.GET_THREAD_INFO, ids.size(), buffer);
+    final Map<Long, CompletableFuture<ISlapResponse>> threadInfos = new LinkedHashMap<>();
+    for (int i = 0; i < ids.size(); ++i) {
+      threadInfos.put(ids.get(i), futures.get(i));
+    }
+    return threadInfos;
+  }
+
   /**
    * Get the stack of a thread.
    *
@@ -776,75 +979,72 @@ public class SlapProtocol implements ISlapProtocol {
   }
 
   // region: Requests/Futures
-  private CompletableFuture<ISlapResponse> addFutureRequest(final RequestType requestType) {
-    final CompletableFuture<ISlapResponse> future = new CompletableFuture<>();
-    final RequestFuture requestFuture = new RequestFuture(requestType, future);
-
-    synchronized (this.requestFutures) {
-      LOGGER.debug(
-          "Thread: {}, added request future: {}", Thread.currentThread().getName(), requestFuture);
-      this.requestFutures.add(requestFuture);
-    }
-
-    return future;
-  }
-
   private void handleFutureRequest(final RequestType requestType, final ISlapResponse response) {
-    RequestFuture requestFuture = null;
+    final RequestFuture requestFuture = this.pollFutureRequest(requestType);
+    if (requestFuture == null) {
+      return;
+    }
 
     LOGGER.debug(
-        "Thread: {}, Request type: {}, response: {}, request futures: {}",
+        "Thread: {}, Request type: {}, response: {}",
         Thread.currentThread().getName(),
         requestType,
-        response,
-        this.requestFutures);
-
-    synchronized (this.requestFutures) {
-      final Optional<RequestFuture> first =
-          this.requestFutures.stream().filter(pair -> pair.requestType == requestType).findFirst();
-      if (!first.isPresent()) {
-        LOGGER.warn(
-            "Thread: {}, Trying to handle request, but not available, request type: {}",
-            Thread.currentThread().getName(),
-            requestType);
-        return;
-      }
-
-      requestFuture = first.get();
-      this.requestFutures.remove(requestFuture);
-    }
-
+        response);
+    this.metrics.requestCompleted(requestType, System.nanoTime() - requestFuture.sentNanos, false);
     requestFuture.future.complete(response);
   }
 
   private void handleErrorFutureRequest(
       final RequestType requestType, final ErrorResponse errorResponse) {
-    RequestFuture requestFuture = null;
+    final RequestFuture requestFuture = this.pollFutureRequest(requestType);
+    if (requestFuture == null) {
+      return;
+    }
 
     LOGGER.debug(
-        "Thread: {}, Request type: {}, error response: {}, request futures: {}",
+        "Thread: {}, Request type: {}, error response: {}",
         Thread.currentThread().getName(),
         requestType,
-        errorResponse,
-        this.requestFutures);
-
-    synchronized (this.requestFutures) {
-      final Optional<RequestFuture> findFirst =
-          this.requestFutures.stream().filter(pair -> pair.requestType == requestType).findFirst();
-      if (!findFirst.isPresent()) {
-        LOGGER.warn(
-            "Thread: {}, Trying to handle request, but not available, request type: {}",
-            Thread.currentThread().getName(),
-            requestType);
-        return;
-      }
+        errorResponse);
+    this.metrics.requestCompleted(requestType, System.nanoTime() - requestFuture.sentNanos, true);
+    final SlapErrorException exception = new SlapErrorException(errorResponse);
+    requestFuture.future.completeExceptionally(exception);
+  }
 
-      requestFuture = findFirst.get();
-      this.requestFutures.remove(requestFuture);
+  @CheckForNull
+  private RequestFuture pollFutureRequest(final RequestType requestType) {
+    final RequestFuture requestFuture = this.requestFutures.get(requestType).poll();
+    if (requestFuture == null) {
+      LOGGER.warn(
+          "Thread: {}, Trying to handle request, but not available, request type: {}",
+          Thread.currentThread().getName(),
+          requestType);
     }
+    return requestFuture;
+  }
 
-    final SlapErrorException exception = new SlapErrorException(errorResponse);
-    requestFuture.future.completeExceptionally(exception);
+  private void failFutureRequests(final IOException exception) {
+    for (final Queue<RequestFuture> queue : this.requestFutures.values()) {
+      RequestFuture requestFuture = queue.poll();
+      while (requestFuture != null) {
+        this.metrics.requestFailed(requestFuture.requestType, true);
+        requestFuture.future.completeExceptionally(exception);
+        requestFuture = queue.poll();
+      }
+    }
+
+    this.failPendingWrites(exception);
+  }
+
+  private void failPendingWrites(final IOException exception) {
+    PendingWrite pendingWrite = this.pendingWrites.poll();
+    while (pendingWrite != null) {
+      for (final RequestFuture requestFuture : pendingWrite.requestFutures()) {
+        this.metrics.requestFailed(requestFuture.requestType, false);
+        requestFuture.future.completeExceptionally(exception);
+      }
+      pendingWrite = this.pendingWrites.poll();
+    }
   }
   // endregion
 
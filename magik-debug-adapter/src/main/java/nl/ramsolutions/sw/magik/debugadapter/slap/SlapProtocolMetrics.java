@@ -0,0 +1,168 @@
+package nl.ramsolutions.sw.magik.debugadapter.slap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Metrics of a {@link SlapProtocol}: requests in flight and reply latency. */
+public final class SlapProtocolMetrics {
+
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder replied = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder latencyNanos = new LongAdder();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+  private final Map<RequestType, LongAdder> inFlight = new EnumMap<>(RequestType.class);
+  private final LongAdder bytesRead = new LongAdder();
+  private final AtomicLong inputBufferCapacity = new AtomicLong();
+
+  SlapProtocolMetrics() {
+    for (final RequestType requestType : RequestType.values()) {
+      this.inFlight.put(requestType, new LongAdder());
+    }
+  }
+
+  void requestSent(final RequestType requestType) {
+    this.sent.increment();
+    this.inFlight.get(requestType).increment();
+  }
+
+  void requestCompleted(final RequestType requestType, final long latency, final boolean error) {
+    this.inFlight.get(requestType).decrement();
+    if (error) {
+      this.errors.increment();
+    } else {
+      this.replied.increment();
+    }
+    this.latencyNanos.add(latency);
+    this.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+  }
+
+  void requestFailed(final RequestType requestType, final boolean wasSent) {
+    if (wasSent) {
+      this.inFlight.get(requestType).decrement();
+    }
+    this.failed.increment();
+  }
+
+  void dataRead(final int count, final int capacity) {
+    this.bytesRead.add(count);
+    this.inputBufferCapacity.set(capacity);
+  }
+
+  /**
+   * Get the number of requests sent.
+   *
+   * @return Number of requests sent.
+   */
+  public long getSentCount() {
+    return this.sent.sum();
+  }
+
+  /**
+   * Get the number of requests answered with a reply or an error.
+   *
+   * @return Number of requests answered.
+   */
+  public long getCompletedCount() {
+    return this.replied.sum() + this.errors.sum();
+  }
+
+  /**
+   * Get the number of requests answered with an error.
+   *
+   * @return Number of requests answered with an error.
+   */
+  public long getErrorCount() {
+    return this.errors.sum();
+  }
+
+  /**
+   * Get the number of requests which never got an answer, due to a failed write or disconnect.
+   *
+   * @return Number of failed requests.
+   */
+  public long getFailedCount() {
+    return this.failed.sum();
+  }
+
+  /**
+   * Get the number of requests sent but not answered yet.
+   *
+   * @return Number of requests in flight.
+   */
+  public long getInFlightCount() {
+    return this.inFlight.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  /**
+   * Get the number of requests of {@code requestType} sent but not answered yet.
+   *
+   * @param requestType Request type.
+   * @return Number of requests in flight.
+   */
+  public long getInFlightCount(final RequestType requestType) {
+    return this.inFlight.get(requestType).sum();
+  }
+
+  /**
+   * Get the average time between sending a request and receiving its answer.
+   *
+   * @return Average latency in milliseconds.
+   */
+  public double getAverageLatencyMillis() {
+    final long completed = this.getCompletedCount();
+    if (completed == 0) {
+      return 0.0;
+    }
+
+    return this.latencyNanos.sum() / NANOS_PER_MILLI / completed;
+  }
+
+  /**
+   * Get the maximum time between sending a request and receiving its answer.
+   *
+   * @return Maximum latency in milliseconds.
+   */
+  public double getMaxLatencyMillis() {
+    return this.maxLatencyNanos.get() / NANOS_PER_MILLI;
+  }
+
+  /**
+   * Get the number of bytes received.
+   *
+   * @return Number of bytes received.
+   */
+  public long getBytesRead() {
+    return this.bytesRead.sum();
+  }
+
+  /**
+   * Get the current capacity of the input buffer.
+   *
+   * @return Capacity in bytes.
+   */
+  public long getInputBufferCapacity() {
+    return this.inputBufferCapacity.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "sent: %d, completed: %d, errors: %d, failed: %d, in flight: %d, "
+            + "latency avg: %.3f ms, max: %.3f ms, bytes read: %d, input buffer: %d",
+        this.getSentCount(),
+        this.getCompletedCount(),
+        this.getErrorCount(),
+        this.getFailedCount(),
+        this.getInFlightCount(),
+        this.getAverageLatencyMillis(),
+        this.getMaxLatencyMillis(),
+        this.getBytesRead(),
+        this.getInputBufferCapacity());
+  }
+}
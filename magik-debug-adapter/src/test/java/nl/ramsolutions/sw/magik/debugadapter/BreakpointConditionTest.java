@@ -0,0 +1,107 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import org.junit.jupiter.api.Test;
+
+/** Tests for BreakpointCondition. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class BreakpointConditionTest {
+
+  private final List<String> evaluated = new ArrayList<>();
+
+  private Function<String, CompletableFuture<String>> evaluator(final String result) {
+    return expression -> {
+      this.evaluated.add(expression);
+      return CompletableFuture.completedFuture(result);
+    };
+  }
+
+  @Test
+  void testNoCondition() {
+    final BreakpointCondition condition = BreakpointCondition.compile(null, " ", null);
+    assertThat(condition).isSameAs(BreakpointCondition.NONE);
+
+    final BreakpointCondition.Decision decision =
+        condition.decide(this.evaluator("False"), () -> 1).join();
+    assertThat(decision.stop()).isTrue();
+    assertThat(this.evaluated).isEmpty();
+  }
+
+  @Test
+  void testHitConditionWithoutEvaluation() {
+    final BreakpointCondition condition = BreakpointCondition.compile(null, "% 3", null);
+    final AtomicLong hits = new AtomicLong();
+
+    final List<Boolean> stops = new ArrayList<>();
+    for (int i = 0; i < 6; ++i) {
+      stops.add(condition.decide(this.evaluator("True"), hits::incrementAndGet).join().stop());
+    }
+    assertThat(stops).containsExactly(false, false, true, false, false, true);
+    assertThat(this.evaluated).isEmpty();
+  }
+
+  @Test
+  void testHitConditions() {
+    final LongPredicate atLeast = BreakpointCondition.compileHitCondition("5");
+    assertThat(atLeast.test(4)).isFalse();
+    assertThat(atLeast.test(5)).isTrue();
+    assertThat(BreakpointCondition.compileHitCondition("== 2").test(2)).isTrue();
+    assertThat(BreakpointCondition.compileHitCondition("<3").test(3)).isFalse();
+    assertThat(BreakpointCondition.compileHitCondition("% 0")).isNull();
+    assertThat(BreakpointCondition.compileHitCondition("often")).isNull();
+    assertThat(BreakpointCondition.compile(null, "often", null).getError()).isNotNull();
+  }
+
+  @Test
+  void testConditionFalse() {
+    final BreakpointCondition condition = BreakpointCondition.compile("a > 1", null, null);
+    final AtomicLong hits = new AtomicLong();
+
+    final BreakpointCondition.Decision decision =
+        condition.decide(this.evaluator("False"), hits::incrementAndGet).join();
+    assertThat(decision.stop()).isFalse();
+    assertThat(hits.get()).isZero();
+    assertThat(this.evaluated).containsExactly("a > 1");
+  }
+
+  @Test
+  void testLogMessage() {
+    assertThat(BreakpointCondition.compileLogMessage("a is {a}, \"b\""))
+        .isEqualTo("write_string(\"a is \", (a), \", \", %\", \"b\", %\")");
+    assertThat(BreakpointCondition.compileLogMessage("unclosed {a"))
+        .isEqualTo("write_string(\"unclosed {a\")");
+
+    final BreakpointCondition condition = BreakpointCondition.compile(null, null, "a is {a}");
+    final BreakpointCondition.Decision decision =
+        condition.decide(this.evaluator("a is 1"), () -> 1).join();
+    assertThat(decision.stop()).isFalse();
+    assertThat(decision.output()).isEqualTo("a is 1");
+  }
+
+  @Test
+  void testConditionAndLogMessageSingleEvaluation() {
+    final BreakpointCondition condition = BreakpointCondition.compile("a > 1", null, "{a}");
+    final AtomicLong hits = new AtomicLong();
+
+    final BreakpointCondition.Decision passed =
+        condition.decide(this.evaluator("+2"), hits::incrementAndGet).join();
+    assertThat(passed.stop()).isFalse();
+    assertThat(passed.output()).isEqualTo("2");
+
+    final BreakpointCondition.Decision failed =
+        condition.decide(this.evaluator("-"), hits::incrementAndGet).join();
+    assertThat(failed.output()).isNull();
+
+    assertThat(hits.get()).isEqualTo(1);
+    assertThat(this.evaluated)
+        .hasSize(2)
+        .allMatch(expression -> expression.startsWith("_if a > 1 _then"));
+  }
+}
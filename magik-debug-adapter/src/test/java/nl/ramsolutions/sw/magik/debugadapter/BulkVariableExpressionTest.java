@@ -0,0 +1,54 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
+import nl.ramsolutions.sw.magik.analysis.scope.Scope;
+import nl.ramsolutions.sw.magik.analysis.scope.ScopeEntry;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+import org.junit.jupiter.api.Test;
+
+/** Tests for BulkVariableExpression. */
+class BulkVariableExpressionTest {
+
+  /** Procedures only see their own locals, imported variables and globals. */
+  private static void assertProceduresImportOuterLocals(final String expression) {
+    final MagikFile magikFile = new MagikFile(MagikFile.DEFAULT_URI, expression);
+    assertThat(magikFile.getTopNode().getDescendants(MagikGrammar.SYNTAX_ERROR)).isEmpty();
+
+    final GlobalScope globalScope = magikFile.getGlobalScope();
+    final List<ScopeEntry> entries =
+        globalScope.getSelfAndDescendantScopes().stream()
+            .map(Scope::getScopeEntriesInScope)
+            .flatMap(Collection::stream)
+            .toList();
+    final Set<String> locals =
+        entries.stream()
+            .filter(entry -> entry.isType(ScopeEntry.Type.LOCAL))
+            .map(ScopeEntry::getIdentifier)
+            .collect(Collectors.toSet());
+    final Set<String> globals =
+        entries.stream()
+            .filter(entry -> entry.isType(ScopeEntry.Type.GLOBAL))
+            .map(ScopeEntry::getIdentifier)
+            .collect(Collectors.toSet());
+    assertThat(locals).contains("s");
+    assertThat(globals).doesNotContainAnyElementsOf(locals);
+  }
+
+  @Test
+  void testBuildProceduresImportOuterLocals() {
+    assertProceduresImportOuterLocals(BulkVariableExpression.build("a", 0, null));
+    assertProceduresImportOuterLocals(BulkVariableExpression.build("a", 10, 5));
+  }
+
+  @Test
+  void testBuildSizesProceduresImportOuterLocals() {
+    assertProceduresImportOuterLocals(BulkVariableExpression.buildSizes(List.of("a", "b")));
+  }
+}
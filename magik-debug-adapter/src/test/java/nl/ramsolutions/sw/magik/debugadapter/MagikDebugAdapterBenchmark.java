@@ -0,0 +1,220 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import nl.ramsolutions.sw.magik.debugadapter.slap.RequestType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.SlapSimulator;
+import org.eclipse.lsp4j.debug.FunctionBreakpoint;
+import org.eclipse.lsp4j.debug.Scope;
+import org.eclipse.lsp4j.debug.ScopesArguments;
+import org.eclipse.lsp4j.debug.SetFunctionBreakpointsArguments;
+import org.eclipse.lsp4j.debug.StackFrame;
+import org.eclipse.lsp4j.debug.StackTraceArguments;
+import org.eclipse.lsp4j.debug.StoppedEventArguments;
+import org.eclipse.lsp4j.debug.Variable;
+import org.eclipse.lsp4j.debug.VariablesArguments;
+import org.eclipse.lsp4j.debug.services.IDebugProtocolClient;
+
+/**
+ * Benchmark of {@link MagikDebugAdapter} against a {@link SlapSimulator}, for a range of latencies.
+ *
+ * <p>Times {@code threads}, {@code stackTrace} (with cold and warm caches), {@code variables}
+ * expansion (slots and a page of elements) and the handling of conditional breakpoint hits. Run
+ * from the test classpath, optionally giving the number of iterations and the latencies in
+ * milliseconds: {@code MagikDebugAdapterBenchmark 20 0 1 5}.
+ */
+@SuppressWarnings({"checkstyle:MagicNumber", "checkstyle:HideUtilityClassConstructor"})
+public final class MagikDebugAdapterBenchmark {
+
+  private static final long TIMEOUT_SECONDS = 60;
+  private static final int THREAD_COUNT = 16;
+  private static final int STACK_DEPTH = 64;
+  private static final int OBJECT_WIDTH = 16;
+  private static final int OBJECT_DEPTH = 2;
+  private static final int INDEXED_SIZE = 1000;
+  private static final int PAGE_SIZE = 100;
+  private static final double CONDITION_HIT_RATIO = 0.1;
+  private static final int BREAKPOINT_EVENTS = 200;
+
+  private MagikDebugAdapterBenchmark() {}
+
+  /** Timer of a repeated action. */
+  @FunctionalInterface
+  private interface Action {
+    void run() throws Exception; // NOSONAR
+  }
+
+  /**
+   * Main entry point.
+   *
+   * @param args Number of iterations, followed by latencies in milliseconds.
+   * @throws Exception -
+   */
+  public static void main(final String[] args) throws Exception { // NOSONAR
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    final long[] latencies =
+        args.length > 1
+            ? java.util.Arrays.stream(args, 1, args.length).mapToLong(Long::parseLong).toArray()
+            : new long[] {0, 1, 5};
+
+    final PrintStream out = System.out; // NOSONAR
+    out.printf(
+        "threads: %d, stack depth: %d, objects: %dx%d/%d, iterations: %d%n",
+        THREAD_COUNT, STACK_DEPTH, OBJECT_WIDTH, OBJECT_DEPTH, INDEXED_SIZE, iterations);
+    out.printf(
+        "%10s %12s %18s %18s %14s %14s %14s %12s%n",
+        "latency",
+        "threads",
+        "stackTrace cold",
+        "stackTrace warm",
+        "variables",
+        "elements",
+        "bpt hit",
+        "hit rate");
+    for (final long latency : latencies) {
+      MagikDebugAdapterBenchmark.run(out, Duration.ofMillis(latency), iterations);
+    }
+  }
+
+  private static void run(final PrintStream out, final Duration latency, final int iterations)
+      throws Exception { // NOSONAR
+    try (SlapSimulator simulator =
+        new SlapSimulator()
+            .withLatency(latency)
+            .withThreads(THREAD_COUNT)
+            .withStackDepth(STACK_DEPTH)
+            .withObjectGraph(OBJECT_WIDTH, OBJECT_DEPTH, INDEXED_SIZE)
+            .withConditionHitRatio(CONDITION_HIT_RATIO)
+            .start()) {
+      final LongAdder stopped = new LongAdder();
+      final IDebugProtocolClient client =
+          new IDebugProtocolClient() {
+            @Override
+            public void stopped(final StoppedEventArguments args) {
+              stopped.increment();
+            }
+          };
+      final MagikDebugAdapter adapter = MagikDebugAdapterTest.attach(simulator, client);
+
+      final double threadsMillis =
+          MagikDebugAdapterBenchmark.time(
+              iterations, () -> adapter.threads().get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+      final StackTraceArguments stackTraceArgs = new StackTraceArguments();
+      stackTraceArgs.setThreadId(1);
+      final double stackTraceColdMillis =
+          MagikDebugAdapterBenchmark.time(
+              iterations,
+              () -> {
+                adapter.clearCaches().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                adapter.stackTrace(stackTraceArgs).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+              });
+      final double stackTraceWarmMillis =
+          MagikDebugAdapterBenchmark.time(
+              iterations,
+              () -> adapter.stackTrace(stackTraceArgs).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+      final StackFrame[] stackFrames =
+          adapter
+              .stackTrace(stackTraceArgs)
+              .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+              .getStackFrames();
+      final ScopesArguments scopesArgs = new ScopesArguments();
+      scopesArgs.setFrameId(stackFrames[0].getId());
+      final Scope[] scopes =
+          adapter.scopes(scopesArgs).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getScopes();
+      final Variable[] locals =
+          MagikDebugAdapterBenchmark.variables(
+              adapter, scopes[0].getVariablesReference(), null, null);
+      final Variable self = locals[locals.length - 1];
+      final double variablesMillis =
+          MagikDebugAdapterBenchmark.time(
+              iterations,
+              () ->
+                  MagikDebugAdapterBenchmark.variables(
+                      adapter, self.getVariablesReference(), null, null));
+      final Variable slot =
+          MagikDebugAdapterBenchmark.variables(adapter, self.getVariablesReference(), null, null)[
+              0];
+      final Variable indexed =
+          MagikDebugAdapterBenchmark.variables(adapter, slot.getVariablesReference(), null, null)[
+              0];
+      final double elementsMillis =
+          MagikDebugAdapterBenchmark.time(
+              iterations,
+              () ->
+                  MagikDebugAdapterBenchmark.variables(
+                      adapter, indexed.getVariablesReference(), 0, PAGE_SIZE));
+
+      // Conditional breakpoint: time from firing the events until all are handled.
+      final FunctionBreakpoint functionBreakpoint = new FunctionBreakpoint();
+      functionBreakpoint.setName("sw:sim_exemplar_0.method_0()");
+      functionBreakpoint.setCondition("count > 10");
+      final SetFunctionBreakpointsArguments breakpointsArgs = new SetFunctionBreakpointsArguments();
+      breakpointsArgs.setBreakpoints(new FunctionBreakpoint[] {functionBreakpoint});
+      final long breakpointId =
+          adapter
+              .setFunctionBreakpoints(breakpointsArgs)
+              .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+              .getBreakpoints()[0]
+              .getId();
+      final long start = System.nanoTime();
+      for (int i = 0; i < BREAKPOINT_EVENTS; ++i) {
+        simulator.fireBreakpoint(breakpointId, 1 + i % THREAD_COUNT);
+      }
+      final long deadline = start + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+      while (stopped.sum() + simulator.getRequestCount(RequestType.RESUME_THREAD)
+              < BREAKPOINT_EVENTS
+          && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      final double breakpointMillis = (System.nanoTime() - start) / 1_000_000.0 / BREAKPOINT_EVENTS;
+      final double hitRate = (double) stopped.sum() / BREAKPOINT_EVENTS;
+
+      out.printf(
+          "%8d ms %9.3f ms %15.3f ms %15.3f ms %11.3f ms %11.3f ms %11.3f ms %12.2f%n",
+          latency.toMillis(),
+          threadsMillis,
+          stackTraceColdMillis,
+          stackTraceWarmMillis,
+          variablesMillis,
+          elementsMillis,
+          breakpointMillis,
+          hitRate);
+
+      adapter.disconnect(null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  private static Variable[] variables(
+      final MagikDebugAdapter adapter,
+      final int reference,
+      final Integer start,
+      final Integer count)
+      throws Exception { // NOSONAR
+    final VariablesArguments args = new VariablesArguments();
+    args.setVariablesReference(reference);
+    args.setStart(start);
+    args.setCount(count);
+    return adapter.variables(args).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getVariables();
+  }
+
+  /**
+   * Time an action, after a single warm-up run.
+   *
+   * @param iterations Number of timed runs.
+   * @param action Action to time.
+   * @return Average duration in milliseconds.
+   */
+  private static double time(final int iterations, final Action action)
+      throws Exception { // NOSONAR
+    action.run();
+    final long start = System.nanoTime();
+    for (int i = 0; i < iterations; ++i) {
+      action.run();
+    }
+    return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+  }
+}
@@ -0,0 +1,221 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import nl.ramsolutions.sw.magik.debugadapter.slap.RequestType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.SlapSimulator;
+import org.eclipse.lsp4j.debug.Breakpoint;
+import org.eclipse.lsp4j.debug.FunctionBreakpoint;
+import org.eclipse.lsp4j.debug.Scope;
+import org.eclipse.lsp4j.debug.ScopesArguments;
+import org.eclipse.lsp4j.debug.SetFunctionBreakpointsArguments;
+import org.eclipse.lsp4j.debug.StackFrame;
+import org.eclipse.lsp4j.debug.StackTraceArguments;
+import org.eclipse.lsp4j.debug.StoppedEventArguments;
+import org.eclipse.lsp4j.debug.Thread;
+import org.eclipse.lsp4j.debug.Variable;
+import org.eclipse.lsp4j.debug.VariablesArguments;
+import org.eclipse.lsp4j.debug.services.IDebugProtocolClient;
+import org.junit.jupiter.api.Test;
+
+/** Tests for MagikDebugAdapter, against a {@link SlapSimulator}. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class MagikDebugAdapterTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  /**
+   * Attach a new {@link MagikDebugAdapter} to a simulator.
+   *
+   * @param simulator Simulator to attach to.
+   * @param client Debug client.
+   * @return Attached debug adapter.
+   */
+  static MagikDebugAdapter attach(final SlapSimulator simulator, final IDebugProtocolClient client)
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    final MagikDebugAdapter adapter = new MagikDebugAdapter();
+    adapter.connect(client);
+    final Map<String, Object> connect =
+        Map.of("host", simulator.getHost(), "port", (double) simulator.getPort());
+    adapter.attach(Map.of("connect", connect)).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    return adapter;
+  }
+
+  @Test
+  void testThreadsAndStackTrace()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (SlapSimulator simulator = new SlapSimulator().withThreads(3).withStackDepth(8).start()) {
+      final MagikDebugAdapter adapter =
+          MagikDebugAdapterTest.attach(simulator, new IDebugProtocolClient() {});
+
+      final Thread[] threads =
+          adapter.threads().get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getThreads();
+      assertThat(threads)
+          .extracting(Thread::getName)
+          .containsExactly("simulated thread 1", "simulated thread 2", "simulated thread 3");
+
+      final StackTraceArguments args = new StackTraceArguments();
+      args.setThreadId(2);
+      final StackFrame[] stackFrames =
+          adapter.stackTrace(args).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getStackFrames();
+      // Java frames are left out.
+      assertThat(stackFrames).hasSize(6);
+      assertThat(stackFrames[0].getName()).isEqualTo("sw:sim_exemplar_0.method_0()");
+      assertThat(stackFrames[0].getSource().getPath()).endsWith("sim_exemplar_0.magik");
+
+      adapter.disconnect(null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void testVariables()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (SlapSimulator simulator = new SlapSimulator().withObjectGraph(3, 1, 50).start()) {
+      final MagikDebugAdapter adapter =
+          MagikDebugAdapterTest.attach(simulator, new IDebugProtocolClient() {});
+      final StackTraceArguments stackTraceArgs = new StackTraceArguments();
+      stackTraceArgs.setThreadId(1);
+      final StackFrame[] stackFrames =
+          adapter
+              .stackTrace(stackTraceArgs)
+              .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+              .getStackFrames();
+
+      final ScopesArguments scopesArgs = new ScopesArguments();
+      scopesArgs.setFrameId(stackFrames[0].getId());
+      final Scope[] scopes =
+          adapter.scopes(scopesArgs).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getScopes();
+      final Variable[] locals =
+          this.variables(adapter, scopes[0].getVariablesReference(), null, null);
+      assertThat(locals)
+          .extracting(Variable::getName)
+          .containsExactly("count", "done?", "name", "self");
+
+      final Variable[] slots =
+          this.variables(adapter, locals[3].getVariablesReference(), null, null);
+      assertThat(slots).extracting(Variable::getName).containsExactly("slot_0", "slot_1", "slot_2");
+      assertThat(slots[0].getIndexedVariables()).isEqualTo(50);
+
+      final Variable[] elements = this.variables(adapter, slots[0].getVariablesReference(), 10, 5);
+      assertThat(elements)
+          .extracting(Variable::getName)
+          .containsExactly("10", "11", "12", "13", "14");
+
+      adapter.disconnect(null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  private Variable[] variables(
+      final MagikDebugAdapter adapter,
+      final int reference,
+      final Integer start,
+      final Integer count)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    final VariablesArguments args = new VariablesArguments();
+    args.setVariablesReference(reference);
+    args.setStart(start);
+    args.setCount(count);
+    return adapter.variables(args).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getVariables();
+  }
+
+  @Test
+  void testConditionalBreakpoint()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (SlapSimulator simulator = new SlapSimulator().withConditionHitRatio(0.25).start()) {
+      final CountDownLatch stopped = new CountDownLatch(2);
+      final IDebugProtocolClient client =
+          new IDebugProtocolClient() {
+            @Override
+            public void stopped(final StoppedEventArguments args) {
+              stopped.countDown();
+            }
+          };
+      final MagikDebugAdapter adapter = MagikDebugAdapterTest.attach(simulator, client);
+
+      final FunctionBreakpoint functionBreakpoint = new FunctionBreakpoint();
+      functionBreakpoint.setName("sw:sim_exemplar_0.method_0()");
+      functionBreakpoint.setCondition("count > 10");
+      final SetFunctionBreakpointsArguments args = new SetFunctionBreakpointsArguments();
+      args.setBreakpoints(new FunctionBreakpoint[] {functionBreakpoint});
+      final Breakpoint[] breakpoints =
+          adapter
+              .setFunctionBreakpoints(args)
+              .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+              .getBreakpoints();
+      final long breakpointId = breakpoints[0].getId();
+
+      for (int i = 0; i < 8; ++i) {
+        simulator.fireBreakpoint(breakpointId, 1);
+      }
+
+      assertThat(stopped.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+      while (simulator.getRequestCount(RequestType.RESUME_THREAD) < 6
+          && System.nanoTime() < deadline) {
+        java.lang.Thread.sleep(10);
+      }
+      assertThat(simulator.getConditionEvaluationCount()).isEqualTo(8);
+      assertThat(simulator.getConditionHitCount()).isEqualTo(2);
+      assertThat(simulator.getRequestCount(RequestType.RESUME_THREAD)).isEqualTo(6);
+
+      adapter.disconnect(null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void testHitConditionBreakpoint()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (SlapSimulator simulator = new SlapSimulator().start()) {
+      final CountDownLatch stopped = new CountDownLatch(2);
+      final IDebugProtocolClient client =
+          new IDebugProtocolClient() {
+            @Override
+            public void stopped(final StoppedEventArguments args) {
+              stopped.countDown();
+            }
+          };
+      final MagikDebugAdapter adapter = MagikDebugAdapterTest.attach(simulator, client);
+
+      final FunctionBreakpoint functionBreakpoint = new FunctionBreakpoint();
+      functionBreakpoint.setName("sw:sim_exemplar_0.method_0()");
+      functionBreakpoint.setHitCondition("% 4");
+      final SetFunctionBreakpointsArguments args = new SetFunctionBreakpointsArguments();
+      args.setBreakpoints(new FunctionBreakpoint[] {functionBreakpoint});
+      final long breakpointId =
+          adapter
+              .setFunctionBreakpoints(args)
+              .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+              .getBreakpoints()[0]
+              .getId();
+
+      for (int i = 0; i < 8; ++i) {
+        simulator.fireBreakpoint(breakpointId, 1);
+      }
+
+      assertThat(stopped.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+      while (simulator.getRequestCount(RequestType.RESUME_THREAD) < 6
+          && System.nanoTime() < deadline) {
+        java.lang.Thread.sleep(10);
+      }
+      // Hit counts are decided without evaluating anything in the session.
+      assertThat(simulator.getRequestCount(RequestType.EVALUATE)).isZero();
+      assertThat(simulator.getRequestCount(RequestType.RESUME_THREAD)).isEqualTo(6);
+
+      final BreakpointStatistics statistics =
+          adapter.breakpointStatistics().get(TIMEOUT_SECONDS, TimeUnit.SECONDS).get(0);
+      assertThat(statistics.getEvents()).isEqualTo(8);
+      assertThat(statistics.getHits()).isEqualTo(8);
+      assertThat(statistics.getStops()).isEqualTo(2);
+      assertThat(statistics.getEvaluations()).isZero();
+
+      adapter.disconnect(null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/** Tests for MethodLineTable. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class MethodLineTableTest {
+
+  /**
+   * VSCode runs from module directory, mvn runs from project directory.
+   *
+   * @return Proper {@link Path} to use.
+   */
+  private Path getPath(final String relativePath) {
+    final Path path = Path.of(".").toAbsolutePath().getParent();
+    if (path.endsWith("magik-debug-adapter")) {
+      return Path.of("..").resolve(relativePath);
+    }
+    return Path.of(".").resolve(relativePath);
+  }
+
+  @Test
+  void testFind() {
+    final Path path = this.getPath("magik-debug-adapter/src/test/resources/bpt.magik");
+    final MethodLineTableCache cache = new MethodLineTableCache();
+    final MethodLineTable table = cache.get(path);
+    assertThat(table.size()).isEqualTo(5);
+    assertThat(cache.get(path)).isSameAs(table);
+
+    assertThat(table.find(1)).isNull();
+    assertThat(table.find(12)).isEqualTo(new MethodLineTable.MethodLine("user:bpt.invoke()", 12));
+    assertThat(table.find(17)).isEqualTo(new MethodLineTable.MethodLine("user:bpt.t()", 17));
+    assertThat(table.find(18)).isEqualTo(new MethodLineTable.MethodLine("user:bpt.t()", 17));
+    assertThat(table.find(31)).isEqualTo(new MethodLineTable.MethodLine("user:bpt.t()", 17));
+    assertThat(table.find(32)).isNull();
+    assertThat(table.find(49)).isEqualTo(new MethodLineTable.MethodLine("user:bpt.ci()", 47));
+    assertThat(table.find(100)).isNull();
+  }
+}
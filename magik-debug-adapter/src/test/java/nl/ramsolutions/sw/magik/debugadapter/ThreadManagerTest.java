@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
@@ -121,4 +122,97 @@ class ThreadManagerTest {
     final Path path1Expected = Path.of("/home/user/src/module/sources/file2.magik");
     assertThat(path1).isEqualTo(path1Expected);
   }
+
+  @Test
+  void testThreadsPipelined() throws IOException, InterruptedException, ExecutionException {
+    final List<String> events = new ArrayList<>();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadList() throws IOException {
+            final ThreadListResponse response = new ThreadListResponse(List.of(1L, 2L));
+
+            return CompletableFuture.completedFuture(response);
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadInfo(long threadId) throws IOException {
+            events.add("request " + threadId);
+            final ThreadInfoResponse response =
+                new ThreadInfoResponse(
+                    1, // priority
+                    false, // daemon
+                    "Thread: " + threadId,
+                    ThreadInfoResponse.ThreadState.RUNNABLE,
+                    EnumSet.noneOf(ThreadInfoResponse.ThreadFlag.class));
+            final CompletableFuture<ISlapResponse> future =
+                new CompletableFuture<>() {
+                  @Override
+                  public ISlapResponse get() throws InterruptedException, ExecutionException {
+                    events.add("await " + threadId);
+                    return super.get();
+                  }
+                };
+            future.complete(response);
+            return future;
+          }
+        };
+
+    final PathMapper pathMapper = new PathMapper(Collections.emptyMap());
+    final ThreadManager manager = new ThreadManager(slapProtocol, null, pathMapper);
+    final List<Thread> threads = manager.threads();
+    assertThat(threads).hasSize(2);
+    assertThat(events).containsExactly("request 1", "request 2", "await 1", "await 2");
+  }
+
+  @Test
+  void testStackTraceCached() throws IOException, InterruptedException, ExecutionException {
+    final List<String> requests = new ArrayList<>();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadStack(long threadId) throws IOException {
+            final ThreadStackResponse response =
+                new ThreadStackResponse(
+                    List.of(
+                        new ThreadStackResponse.StackElement(0, 0, "object.m1()", "Magik"),
+                        new ThreadStackResponse.StackElement(1, 30, "object.m1()", "Magik")));
+            return CompletableFuture.completedFuture(response);
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> evaluate(
+              final long threadId, final int level, final String expression) throws IOException {
+            requests.add("evaluate");
+            final EvalResponse response = new EvalResponse("sw");
+            return CompletableFuture.completedFuture(response);
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> getSourceFile(final String method)
+              throws IOException {
+            requests.add("source_file " + method);
+            final SourceFileResponse response =
+                new SourceFileResponse("/src/module/sources/file1.magik");
+            return CompletableFuture.completedFuture(response);
+          }
+        };
+
+    final PathMapper pathMapper = new PathMapper(Collections.emptyMap());
+    final ThreadManager manager = new ThreadManager(slapProtocol, null, pathMapper);
+    final List<StackFrame> stackFrames1 = manager.stackTrace(1);
+    assertThat(stackFrames1).hasSize(2);
+    assertThat(requests).containsExactly("evaluate", "source_file sw:object.m1()");
+
+    requests.clear();
+    final List<StackFrame> stackFrames2 = manager.stackTrace(1);
+    assertThat(requests).isEmpty();
+    assertThat(stackFrames2.get(1).getName()).isEqualTo("sw:object.m1()");
+    assertThat(Path.of(stackFrames2.get(1).getSource().getPath()))
+        .isEqualTo(Path.of("/src/module/sources/file1.magik"));
+
+    manager.clearCaches();
+    manager.stackTrace(1);
+    assertThat(requests).containsExactly("evaluate", "source_file sw:object.m1()");
+  }
 }
@@ -1,6 +1,7 @@
 package nl.ramsolutions.sw.magik.debugadapter;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -10,6 +11,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import nl.ramsolutions.sw.magik.debugadapter.VariableManager.MagikVariable;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.LocalType;
 import org.eclipse.lsp4j.debug.Scope;
@@ -55,6 +57,13 @@ class VariableManagerTest {
             final StackFrameLocalsResponse response = new StackFrameLocalsResponse(subResponses);
             return CompletableFuture.completedFuture(response);
           }
+
+          @Override
+          public CompletableFuture<ISlapResponse> evaluate(
+              final long threadId, final int level, final String expression) throws IOException {
+            // Sizes of var1 and var2.
+            return CompletableFuture.completedFuture(new EvalResponse(field("-1") + field("3")));
+          }
         };
     final VariableManager manager = new VariableManager(slapProtocol);
 
@@ -69,9 +78,167 @@ class VariableManagerTest {
     final MagikVariable variable0 = variables.get(0);
     assertThat(variable0.getName()).isEqualTo("var1");
     assertThat(variable0.getValue()).isEqualTo("value1");
+    assertThat(variable0.getIndexedSize()).isEqualTo(BulkVariableExpression.NOT_INDEXED);
 
     final MagikVariable variable1 = variables.get(1);
     assertThat(variable1.getName()).isEqualTo("var2");
     assertThat(variable1.getValue()).isEqualTo("value2");
+    assertThat(variable1.getIndexedSize()).isEqualTo(3);
+  }
+
+  private static String field(final String text) {
+    return text.codePointCount(0, text.length()) + ":" + text;
+  }
+
+  private static TestSlapProtocol slapProtocolWithLocal(
+      final List<String> expressions, final String payload) {
+    return VariableManagerTest.slapProtocolWithLocal(expressions, payload, field("-1"));
+  }
+
+  private static TestSlapProtocol slapProtocolWithLocal(
+      final List<String> expressions, final String payload, final String sizesPayload) {
+    return new TestSlapProtocol() {
+      @Override
+      public CompletableFuture<ISlapResponse> getStackFrameLocals(long threadId, int level)
+          throws IOException {
+        final List<ISlapResponse> subResponses = new ArrayList<>();
+        subResponses.add(
+            new StackFrameLocalsResponse.Local(
+                LocalType.TYPE_OBJ,
+                "var1",
+                "value1",
+                EnumSet.noneOf(StackFrameLocalsResponse.VariableType.class)));
+        return CompletableFuture.completedFuture(new StackFrameLocalsResponse(subResponses));
+      }
+
+      @Override
+      public CompletableFuture<ISlapResponse> evaluate(
+          final long threadId, final int level, final String expression) throws IOException {
+        if (expression.equals(BulkVariableExpression.buildSizes(List.of("var1")))) {
+          return CompletableFuture.completedFuture(new EvalResponse(sizesPayload));
+        }
+
+        expressions.add(expression);
+        return CompletableFuture.completedFuture(new EvalResponse(payload));
+      }
+    };
+  }
+
+  @Test
+  void testExpandSlottedInSingleEvaluate()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final String payload =
+        field(BulkVariableExpression.KIND_SLOTTED)
+            + field("b")
+            + field("a \"quoted\" 3:x value")
+            + field("-1")
+            + field("a")
+            + field("rope(1:2)")
+            + field("2");
+    final VariableManager manager =
+        new VariableManager(VariableManagerTest.slapProtocolWithLocal(expressions, payload));
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final MagikVariable local = manager.getVariables(localScope.getVariablesReference()).get(0);
+    final List<MagikVariable> slots = manager.getVariables(local.getId());
+    assertThat(expressions).hasSize(1);
+    assertThat(slots).hasSize(2);
+
+    final MagikVariable slot0 = slots.get(0);
+    assertThat(slot0.getName()).isEqualTo("a");
+    assertThat(slot0.getValue()).isEqualTo("rope(1:2)");
+    assertThat(slot0.getExpression()).isEqualTo("var1.sys!slot(:a)");
+    assertThat(slot0.getIndexedSize()).isEqualTo(2);
+
+    final MagikVariable slot1 = slots.get(1);
+    assertThat(slot1.getName()).isEqualTo("b");
+    assertThat(slot1.getValue()).isEqualTo("a \"quoted\" 3:x value");
+    assertThat(slot1.getIndexedSize()).isEqualTo(BulkVariableExpression.NOT_INDEXED);
+  }
+
+  @Test
+  void testExpandIndexedPaged() throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final String payload =
+        field(BulkVariableExpression.KIND_INDEXED)
+            + field("1000")
+            + field("10")
+            + field("-1")
+            + field("11")
+            + field("-1");
+    final VariableManager manager =
+        new VariableManager(VariableManagerTest.slapProtocolWithLocal(expressions, payload));
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final MagikVariable local = manager.getVariables(localScope.getVariablesReference()).get(0);
+    final List<MagikVariable> elements = manager.getVariables(local.getId(), 10, 2);
+    assertThat(expressions).hasSize(1);
+    assertThat(expressions.get(0)).contains("10.upto((12).min(n) - 1)");
+    assertThat(elements).hasSize(2);
+    assertThat(elements.get(0).getName()).isEqualTo("10");
+    assertThat(elements.get(0).getExpression()).isEqualTo("var1.sys!at0(10)");
+    assertThat(elements.get(1).getName()).isEqualTo("11");
+    assertThat(elements.get(1).getValue()).isEqualTo("11");
+  }
+
+  @Test
+  void testExpandMalformedResult() throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final String payload = "**** Error: Object unset does not understand #sys!size";
+    final VariableManager manager =
+        new VariableManager(VariableManagerTest.slapProtocolWithLocal(expressions, payload));
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final MagikVariable local = manager.getVariables(localScope.getVariablesReference()).get(0);
+    assertThatThrownBy(() -> manager.getVariables(local.getId()))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining(payload);
+  }
+
+  @Test
+  void testExpandMalformedIndexedSize()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final String payload =
+        field(BulkVariableExpression.KIND_SLOTTED) + field("a") + field("1") + field("error");
+    final VariableManager manager =
+        new VariableManager(VariableManagerTest.slapProtocolWithLocal(expressions, payload));
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final MagikVariable local = manager.getVariables(localScope.getVariablesReference()).get(0);
+    assertThatThrownBy(() -> manager.getVariables(local.getId())).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void testLocalsIndexedSize() throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final VariableManager manager =
+        new VariableManager(
+            VariableManagerTest.slapProtocolWithLocal(expressions, "", field("1000")));
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final MagikVariable local = manager.getVariables(localScope.getVariablesReference()).get(0);
+    assertThat(local.getIndexedSize()).isEqualTo(1000);
+  }
+
+  @Test
+  void testLocalsIndexedSizeMalformed()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final VariableManager manager =
+        new VariableManager(
+            VariableManagerTest.slapProtocolWithLocal(expressions, "", "**** Error: unset"));
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final MagikVariable local = manager.getVariables(localScope.getVariablesReference()).get(0);
+    assertThat(local.getName()).isEqualTo("var1");
+    assertThat(local.getIndexedSize()).isEqualTo(BulkVariableExpression.NOT_INDEXED);
   }
 }
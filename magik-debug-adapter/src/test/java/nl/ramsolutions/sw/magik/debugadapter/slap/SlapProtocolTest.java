@@ -0,0 +1,128 @@
+package nl.ramsolutions.sw.magik.debugadapter.slap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadInfoResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadStackResponse;
+import org.junit.jupiter.api.Test;
+
+/** Tests for SlapProtocol, against a {@link SlapSimulator}. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class SlapProtocolTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private static ISlapResponse await(final CompletableFuture<ISlapResponse> future)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void testHandshake() throws IOException, SlapException {
+    try (SlapSimulator simulator =
+        new SlapSimulator().withByteOrder(ByteOrder.BIG_ENDIAN).withVersion(42).start()) {
+      final SlapProtocol protocol =
+          new SlapProtocol(simulator.getHost(), simulator.getPort(), event -> {});
+      protocol.connect();
+      try {
+        assertThat(protocol.getVersion()).isEqualTo(42);
+      } finally {
+        protocol.close();
+      }
+    }
+  }
+
+  @Test
+  void testPipelinedThreadInfos()
+      throws IOException,
+          SlapException,
+          InterruptedException,
+          ExecutionException,
+          TimeoutException {
+    try (SlapSimulator simulator =
+        new SlapSimulator().withThreads(8).withLatency(Duration.ofMillis(20)).start()) {
+      final SlapProtocol protocol =
+          new SlapProtocol(simulator.getHost(), simulator.getPort(), event -> {});
+      protocol.connect();
+      try {
+        final Map<Long, CompletableFuture<ISlapResponse>> futures =
+            protocol.getThreadInfos(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+        for (final Map.Entry<Long, CompletableFuture<ISlapResponse>> entry : futures.entrySet()) {
+          final long threadId = entry.getKey();
+          if (threadId == 9L) {
+            assertThat(entry.getValue())
+                .failsWithin(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(SlapErrorException.class);
+          } else {
+            final ThreadInfoResponse threadInfo =
+                (ThreadInfoResponse) SlapProtocolTest.await(entry.getValue());
+            assertThat(threadInfo.getName()).isEqualTo("simulated thread " + threadId);
+          }
+        }
+
+        final SlapProtocolMetrics metrics = protocol.getMetrics();
+        assertThat(metrics.getSentCount()).isEqualTo(9);
+        assertThat(metrics.getCompletedCount()).isEqualTo(9);
+        assertThat(metrics.getErrorCount()).isEqualTo(1);
+        assertThat(metrics.getInFlightCount()).isZero();
+      } finally {
+        protocol.close();
+      }
+    }
+  }
+
+  @Test
+  void testMultiPartAndLargeReplies()
+      throws IOException,
+          SlapException,
+          InterruptedException,
+          ExecutionException,
+          TimeoutException {
+    final String largeResult = "x".repeat(200_000);
+    try (SlapSimulator simulator =
+        new SlapSimulator()
+            .withStackDepth(5_000)
+            .withEvaluator(expression -> largeResult)
+            .start()) {
+      final SlapProtocol protocol =
+          new SlapProtocol(simulator.getHost(), simulator.getPort(), event -> {});
+      protocol.connect();
+      try {
+        // Interleave multi-part replies with a reply larger than the initial input buffer.
+        final List<CompletableFuture<ISlapResponse>> futures = new ArrayList<>();
+        futures.add(protocol.getThreadStack(1));
+        futures.add(protocol.evaluate(1, 0, "large"));
+        futures.add(protocol.getThreadStack(2));
+
+        final ThreadStackResponse threadStack1 =
+            (ThreadStackResponse) SlapProtocolTest.await(futures.get(0));
+        assertThat(threadStack1.getStackFrames()).hasSize(5_000);
+        assertThat(threadStack1.getStackFrames().get(4_999).getLevel()).isEqualTo(4_999);
+
+        final EvalResponse evalResponse = (EvalResponse) SlapProtocolTest.await(futures.get(1));
+        assertThat(evalResponse.getResult()).isEqualTo(largeResult);
+
+        final ThreadStackResponse threadStack2 =
+            (ThreadStackResponse) SlapProtocolTest.await(futures.get(2));
+        assertThat(threadStack2.getStackFrames()).hasSize(5_000);
+
+        assertThat(protocol.getMetrics().getInputBufferCapacity())
+            .isGreaterThanOrEqualTo(largeResult.length());
+      } finally {
+        protocol.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,674 @@
+package nl.ramsolutions.sw.magik.debugadapter.slap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.LocalType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.VariableType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadInfoResponse.ThreadFlag;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadInfoResponse.ThreadState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process SLAP server, standing in for a Smallworld session.
+ *
+ * <p>Implements the handshake and all {@link RequestType}s, answering with {@link ResponseType}s
+ * and {@link EventType}s as the debug agent does. Replies are sent after an artificial one-way
+ * latency, in the order the requests arrived, so pipelining clients benefit as they would with a
+ * real session.
+ *
+ * <p>The session consists of a number of threads, each with a stack of alternating Magik and Java
+ * frames. Every Magik frame has the same locals, {@code self} being the root of an object graph:
+ * slotted objects up to a configurable depth, with indexed objects at the bottom. Evaluations of
+ * the expressions the debug adapter sends are answered from this object graph: exemplar packages,
+ * bulk variable expansion and breakpoint conditions, the latter being true for a configurable ratio
+ * of the evaluations.
+ */
+@SuppressWarnings("checkstyle:MagicNumber")
+public class SlapSimulator implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlapSimulator.class);
+
+  private static final String DEBUG_CLIENT_ID = "DuckOnATricycle\0";
+  private static final String DEBUG_AGENT_ID = "SwanOnAUnicycle\0";
+  private static final long END_PACKET = 0xFFFFFFFFL;
+  private static final int EXEMPLAR_COUNT = 5;
+
+  private static final String BULK_PREFIX = "_block _local o << (";
+  private static final String BULK_EXPRESSION_END = ") ; _local s";
+  private static final Pattern BULK_RANGE =
+      Pattern.compile("_over (\\d+)\\.upto\\((?:\\((\\d+)\\)\\.min\\(n\\)|n) - 1\\)");
+  private static final Pattern PATH_SEGMENT =
+      Pattern.compile("\\.sys!slot\\(:(\\w+)\\)|\\.sys!at0\\((\\d+)\\)");
+  private static final String PACKAGE_EXPRESSION = ".package.association_at(";
+
+  private Duration latency = Duration.ZERO;
+  private int threadCount = 4;
+  private int stackDepth = 16;
+  private int objectWidth = 8;
+  private int objectDepth = 2;
+  private int indexedSize = 100;
+  private double conditionHitRatio = 1.0;
+  private ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+  private long version = 1;
+  private UnaryOperator<String> evaluator = this::evaluateDefault;
+
+  private final Map<RequestType, LongAdder> requestCounts = new EnumMap<>(RequestType.class);
+  private final AtomicLong breakpointIds = new AtomicLong();
+  private final AtomicLong conditionEvaluations = new AtomicLong();
+  private final LongAdder conditionHits = new LongAdder();
+  private ServerSocketChannel serverChannel;
+  private SocketChannel clientChannel;
+  private ScheduledExecutorService replyExecutor;
+
+  /** Constructor. */
+  public SlapSimulator() {
+    for (final RequestType requestType : RequestType.values()) {
+      this.requestCounts.put(requestType, new LongAdder());
+    }
+  }
+
+  // region: Configuration
+  /**
+   * Set the one-way latency, each reply is sent this long after the request arrived.
+   *
+   * @param newLatency Latency.
+   * @return this
+   */
+  public SlapSimulator withLatency(final Duration newLatency) {
+    this.latency = newLatency;
+    return this;
+  }
+
+  /**
+   * Set the number of threads in the session.
+   *
+   * @param newThreadCount Number of threads.
+   * @return this
+   */
+  public SlapSimulator withThreads(final int newThreadCount) {
+    this.threadCount = newThreadCount;
+    return this;
+  }
+
+  /**
+   * Set the number of frames of each thread stack.
+   *
+   * @param newStackDepth Number of frames.
+   * @return this
+   */
+  public SlapSimulator withStackDepth(final int newStackDepth) {
+    this.stackDepth = newStackDepth;
+    return this;
+  }
+
+  /**
+   * Set the shape of the object graph.
+   *
+   * @param width Number of slots of each slotted object.
+   * @param depth Number of levels of slotted objects, below which are indexed objects.
+   * @param size Number of elements of each indexed object.
+   * @return this
+   */
+  public SlapSimulator withObjectGraph(final int width, final int depth, final int size) {
+    this.objectWidth = width;
+    this.objectDepth = depth;
+    this.indexedSize = size;
+    return this;
+  }
+
+  /**
+   * Set the ratio of breakpoint condition evaluations resulting in {@code True}.
+   *
+   * @param ratio Ratio, between 0.0 and 1.0.
+   * @return this
+   */
+  public SlapSimulator withConditionHitRatio(final double ratio) {
+    this.conditionHitRatio = ratio;
+    return this;
+  }
+
+  /**
+   * Set the byte order of the session.
+   *
+   * @param newByteOrder Byte order.
+   * @return this
+   */
+  public SlapSimulator withByteOrder(final ByteOrder newByteOrder) {
+    this.byteOrder = newByteOrder;
+    return this;
+  }
+
+  /**
+   * Set the version reported in the handshake.
+   *
+   * @param newVersion Version.
+   * @return this
+   */
+  public SlapSimulator withVersion(final long newVersion) {
+    this.version = newVersion;
+    return this;
+  }
+
+  /**
+   * Set the evaluator, replacing the default object graph based evaluator.
+   *
+   * @param newEvaluator Evaluator, gets the expression and returns the result.
+   * @return this
+   */
+  public SlapSimulator withEvaluator(final UnaryOperator<String> newEvaluator) {
+    this.evaluator = newEvaluator;
+    return this;
+  }
+
+  // endregion
+
+  // region: Lifecycle
+  /**
+   * Start listening on a free local port, accepting a single client.
+   *
+   * @return this
+   * @throws IOException -
+   */
+  public SlapSimulator start() throws IOException {
+    this.serverChannel = ServerSocketChannel.open();
+    this.serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    this.replyExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "slap-simulator-reply");
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    final Thread acceptThread = new Thread(this::serve, "slap-simulator");
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+    return this;
+  }
+
+  public String getHost() {
+    return InetAddress.getLoopbackAddress().getHostAddress();
+  }
+
+  /**
+   * Get the port the simulator listens on.
+   *
+   * @return Port.
+   * @throws IOException -
+   */
+  public int getPort() throws IOException {
+    return ((InetSocketAddress) this.serverChannel.getLocalAddress()).getPort();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.replyExecutor.shutdownNow();
+    if (this.clientChannel != null) {
+      this.clientChannel.close();
+    }
+    this.serverChannel.close();
+  }
+
+  // endregion
+
+  // region: Statistics
+  /**
+   * Get the number of requests received of a type.
+   *
+   * @param requestType Request type.
+   * @return Number of requests.
+   */
+  public long getRequestCount(final RequestType requestType) {
+    return this.requestCounts.get(requestType).sum();
+  }
+
+  /**
+   * Get the number of breakpoint conditions evaluated.
+   *
+   * @return Number of evaluations.
+   */
+  public long getConditionEvaluationCount() {
+    return this.conditionEvaluations.get();
+  }
+
+  /**
+   * Get the number of breakpoint conditions evaluated to {@code True}.
+   *
+   * @return Number of evaluations.
+   */
+  public long getConditionHitCount() {
+    return this.conditionHits.sum();
+  }
+
+  // endregion
+
+  // region: Events
+  /**
+   * Send a {@link EventType#BREAKPOINT} event.
+   *
+   * @param breakpointId Breakpoint which was hit.
+   * @param threadId Thread which hit the breakpoint.
+   */
+  public void fireBreakpoint(final long breakpointId, final long threadId) {
+    final ByteBuffer event =
+        this.message(ResponseType.EVENT, EventType.BREAKPOINT.getVal())
+            .uint32(breakpointId)
+            .uint32(threadId)
+            .build();
+    this.replyExecutor.execute(() -> this.write(List.of(event)));
+  }
+
+  /**
+   * Send a {@link EventType#THREAD_STARTED} or {@link EventType#THREAD_ENDED} event.
+   *
+   * @param eventType Event type.
+   * @param threadId Thread.
+   */
+  public void fireThreadEvent(final EventType eventType, final long threadId) {
+    final ByteBuffer event =
+        this.message(ResponseType.EVENT, eventType.getVal()).uint32(threadId).build();
+    this.replyExecutor.execute(() -> this.write(List.of(event)));
+  }
+
+  // endregion
+
+  // region: Serving
+  private void serve() {
+    try (SocketChannel channel = this.serverChannel.accept()) {
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      this.clientChannel = channel;
+      this.handshake(channel);
+
+      final ByteBuffer lengthBuffer = ByteBuffer.allocate(4).order(this.byteOrder);
+      while (channel.isOpen()) {
+        lengthBuffer.clear();
+        SlapSimulator.readFully(channel, lengthBuffer);
+        final int length = lengthBuffer.getInt(0);
+        final ByteBuffer request = ByteBuffer.allocate(length).order(this.byteOrder);
+        request.putInt(length);
+        SlapSimulator.readFully(channel, request);
+        request.flip();
+
+        final long arrived = System.nanoTime();
+        final List<ByteBuffer> replies = this.handleRequest(request);
+        final long delay = this.latency.toNanos() - (System.nanoTime() - arrived);
+        this.replyExecutor.schedule(() -> this.write(replies), delay, TimeUnit.NANOSECONDS);
+      }
+    } catch (final EOFException exception) {
+      LOGGER.debug("Client disconnected");
+    } catch (final IOException exception) {
+      LOGGER.debug("Simulator stopped: {}", exception.getMessage());
+    }
+  }
+
+  private void handshake(final SocketChannel channel) throws IOException {
+    final ByteBuffer clientId = ByteBuffer.allocate(DEBUG_CLIENT_ID.length());
+    SlapSimulator.readFully(channel, clientId);
+    final String id = new String(clientId.array(), StandardCharsets.UTF_8);
+    if (!id.equals(DEBUG_CLIENT_ID)) {
+      throw new IOException("Unknown debug client: " + id);
+    }
+
+    final ByteBuffer response = ByteBuffer.allocate(32).order(this.byteOrder);
+    response.put(DEBUG_AGENT_ID.getBytes(StandardCharsets.UTF_8));
+    response.put((byte) (this.byteOrder == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+    response.position(20);
+    ByteBufferHelper.writeUInt32(response, this.version);
+    response.position(32);
+    response.flip();
+    this.write(List.of(response));
+  }
+
+  private static void readFully(final SocketChannel channel, final ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) == -1) {
+        throw new EOFException();
+      }
+    }
+  }
+
+  private void write(final List<ByteBuffer> messages) {
+    try {
+      synchronized (this) {
+        for (final ByteBuffer message : messages) {
+          while (message.hasRemaining()) {
+            this.clientChannel.write(message);
+          }
+        }
+      }
+    } catch (final IOException exception) {
+      LOGGER.debug("Unable to write: {}", exception.getMessage());
+    }
+  }
+
+  // endregion
+
+  // region: Requests
+  private List<ByteBuffer> handleRequest(final ByteBuffer request) {
+    final RequestType requestType =
+        RequestType.valueOf((int) ByteBufferHelper.readUInt32(request, 4));
+    if (requestType == null) {
+      return List.of(this.error(RequestType.UNKOWN, ErrorMessage.UNKNOWN_REQUEST));
+    }
+
+    this.requestCounts.get(requestType).increment();
+    final long param0 = ByteBufferHelper.readUInt32(request, 8);
+    final long param1 = ByteBufferHelper.readUInt32(request, 12);
+    final String data = request.limit() > 16 ? ByteBufferHelper.readString(request, 16) : null;
+    return switch (requestType) {
+      case GET_THREAD_LIST -> List.of(this.threadList());
+      case GET_THREAD_INFO -> List.of(this.threadInfo(param0));
+      case SUSPEND_THREAD, RESUME_THREAD, BREAKPOINT_MODIFY ->
+          List.of(this.reply(requestType).uint32(0).build());
+      case GET_THREAD_STACK -> this.threadStack(param0);
+      case GET_FRAME_LOCALS -> this.frameLocals(param0, (int) param1);
+      case BREAKPOINT_SET ->
+          List.of(this.reply(requestType).uint32(this.breakpointIds.incrementAndGet()).build());
+      case EVALUATE -> List.of(this.evaluate(param0, data));
+      case SOURCE_FILE -> List.of(this.sourceFile(data));
+      case STEP -> this.step(param0);
+      default -> List.of(this.error(requestType, ErrorMessage.UNKNOWN_REQUEST));
+    };
+  }
+
+  private boolean isThread(final long threadId) {
+    return threadId >= 1 && threadId <= this.threadCount;
+  }
+
+  private ByteBuffer threadList() {
+    final MessageBuilder builder = this.reply(RequestType.GET_THREAD_LIST).uint32(this.threadCount);
+    for (int threadId = 1; threadId <= this.threadCount; ++threadId) {
+      builder.uint32(threadId);
+    }
+    return builder.build();
+  }
+
+  private ByteBuffer threadInfo(final long threadId) {
+    if (!this.isThread(threadId)) {
+      return this.error(RequestType.GET_THREAD_INFO, ErrorMessage.UNKNOWN_ERROR);
+    }
+
+    final int flags =
+        ThreadState.WAITING.getVal() | ThreadFlag.SUSPENDED.getVal() << ISlapResponse.BYTE_2_SHIFT;
+    return this.reply(RequestType.GET_THREAD_INFO)
+        .uint32(0)
+        .uint32(5) // priority
+        .uint32(0) // daemon
+        .uint32(flags)
+        .string("simulated thread " + threadId)
+        .build();
+  }
+
+  private List<ByteBuffer> threadStack(final long threadId) {
+    if (!this.isThread(threadId)) {
+      return List.of(this.error(RequestType.GET_THREAD_STACK, ErrorMessage.UNKNOWN_ERROR));
+    }
+
+    final List<ByteBuffer> messages = new ArrayList<>();
+    messages.add(this.reply(RequestType.GET_THREAD_STACK).uint32(0).build());
+    for (int level = 0; level < this.stackDepth; ++level) {
+      final boolean isMagik = level % 4 != 3;
+      final String name =
+          isMagik
+              ? "sim_exemplar_" + level % EXEMPLAR_COUNT + ".method_" + level + "()"
+              : "java/lang/Object;method_" + level;
+      final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+      final byte[] languageBytes = (isMagik ? "Magik" : "Java").getBytes(StandardCharsets.UTF_8);
+      messages.add(
+          this.reply(RequestType.GET_THREAD_STACK)
+              .uint32(level)
+              .uint32(10 + level) // offset
+              .uint32(nameBytes.length)
+              .uint32(languageBytes.length)
+              .bytes(nameBytes)
+              .bytes(languageBytes)
+              .build());
+    }
+    messages.add(this.reply(RequestType.GET_THREAD_STACK).uint32(END_PACKET).build());
+    return messages;
+  }
+
+  private List<ByteBuffer> frameLocals(final long threadId, final int level) {
+    if (!this.isThread(threadId) || level >= this.stackDepth) {
+      return List.of(this.error(RequestType.GET_FRAME_LOCALS, ErrorMessage.UNKNOWN_ERROR));
+    }
+
+    final List<ByteBuffer> messages = new ArrayList<>();
+    messages.add(this.reply(RequestType.GET_FRAME_LOCALS).uint32(0).build());
+    messages.add(
+        this.local(LocalType.TYPE_OBJ, VariableType.ARGUMENT, "self")
+            .string(this.printString(0))
+            .build());
+    messages.add(
+        this.local(LocalType.TYPE_INT, VariableType.ARGUMENT, "count").uint32(level).build());
+    messages.add(this.local(LocalType.TYPE_BOOL, null, "done?").uint32(level % 2).build());
+    messages.add(this.local(LocalType.TYPE_OBJ, null, "name").string("\"frame\"").build());
+    messages.add(
+        this.local(LocalType.TYPE_OBJ, VariableType.SLOT, "slot_0")
+            .string(this.printString(1))
+            .build());
+    messages.add(this.reply(RequestType.GET_FRAME_LOCALS).uint32(END_PACKET).build());
+    return messages;
+  }
+
+  private MessageBuilder local(
+      final LocalType type, final VariableType variableType, final String name) {
+    final int flags = variableType != null ? variableType.getVal() : 0;
+    final int status = flags | type.getVal() << ISlapResponse.BYTE_2_SHIFT;
+    return this.reply(RequestType.GET_FRAME_LOCALS).uint32(status).string(name);
+  }
+
+  private ByteBuffer evaluate(final long threadId, final String expression) {
+    if (!this.isThread(threadId)) {
+      return this.error(RequestType.EVALUATE, ErrorMessage.THREAD_NOT_SUSPENDED);
+    }
+
+    final String result = this.evaluator.apply(expression);
+    if (result == null) {
+      return this.error(RequestType.EVALUATE, ErrorMessage.EVALUATION_FAILED);
+    }
+
+    return this.reply(RequestType.EVALUATE).uint32(0).string(result).build();
+  }
+
+  private ByteBuffer sourceFile(final String method) {
+    final int indexColon = method.indexOf(':');
+    final int indexDot = method.indexOf('.');
+    if (indexColon == -1 || indexDot == -1) {
+      return this.error(RequestType.SOURCE_FILE, ErrorMessage.METHOD_NOT_FOUND);
+    }
+
+    final String exemplarName = method.substring(indexColon + 1, indexDot);
+    return this.reply(RequestType.SOURCE_FILE)
+        .uint32(0)
+        .string("/simulated/" + exemplarName + ".magik")
+        .build();
+  }
+
+  private List<ByteBuffer> step(final long threadId) {
+    if (!this.isThread(threadId)) {
+      return List.of(this.error(RequestType.STEP, ErrorMessage.THREAD_NOT_SUSPENDED));
+    }
+
+    return List.of(
+        this.reply(RequestType.STEP).uint32(0).build(),
+        this.message(ResponseType.EVENT, EventType.STEP_COMPLETED.getVal())
+            .uint32(threadId)
+            .build());
+  }
+
+  // endregion
+
+  // region: Evaluation
+  private String evaluateDefault(final String expression) {
+    if (expression.startsWith(BULK_PREFIX)) {
+      return this.evaluateBulk(expression);
+    }
+
+    if (expression.contains(PACKAGE_EXPRESSION)) {
+      return "sw";
+    }
+
+    // Anything else is considered to be a breakpoint condition, true for the configured ratio.
+    final long count = this.conditionEvaluations.incrementAndGet();
+    final boolean hit =
+        Math.floor(count * this.conditionHitRatio)
+            > Math.floor((count - 1) * this.conditionHitRatio);
+    if (hit) {
+      this.conditionHits.increment();
+    }
+    return hit ? "True" : "False";
+  }
+
+  /**
+   * Evaluate a bulk variable expression, see {@code BulkVariableExpression}.
+   *
+   * @param expression Expression.
+   * @return Length prefixed fields.
+   */
+  private String evaluateBulk(final String expression) {
+    final int end = expression.indexOf(BULK_EXPRESSION_END);
+    final String path = expression.substring(BULK_PREFIX.length(), end);
+    int depth = 0;
+    final Matcher segmentMatcher = PATH_SEGMENT.matcher(path);
+    while (segmentMatcher.find()) {
+      depth += 1;
+    }
+
+    final StringBuilder builder = new StringBuilder();
+    if (depth < this.objectDepth) {
+      SlapSimulator.appendField(builder, ":slotted_format_mixin");
+      for (int i = 0; i < this.objectWidth; ++i) {
+        SlapSimulator.appendField(builder, "slot_" + i);
+        SlapSimulator.appendField(builder, this.printString(depth + 1));
+        SlapSimulator.appendField(builder, Integer.toString(this.indexedSize(depth + 1)));
+      }
+    } else if (depth == this.objectDepth) {
+      final Matcher rangeMatcher = BULK_RANGE.matcher(expression);
+      if (!rangeMatcher.find()) {
+        return null;
+      }
+
+      final int start = Integer.parseInt(rangeMatcher.group(1));
+      final int stop =
+          rangeMatcher.group(2) != null
+              ? Math.min(Integer.parseInt(rangeMatcher.group(2)), this.indexedSize)
+              : this.indexedSize;
+      SlapSimulator.appendField(builder, ":indexed_format_mixin");
+      SlapSimulator.appendField(builder, Integer.toString(this.indexedSize));
+      for (int i = start; i < stop; ++i) {
+        SlapSimulator.appendField(builder, Integer.toString(i));
+        SlapSimulator.appendField(builder, "-1");
+      }
+    } else {
+      SlapSimulator.appendField(builder, "integer");
+    }
+    return builder.toString();
+  }
+
+  private String printString(final int depth) {
+    if (depth < this.objectDepth) {
+      return "a sim_object";
+    } else if (depth == this.objectDepth) {
+      return "sw:rope(1:" + this.indexedSize + ")";
+    }
+    return Integer.toString(depth);
+  }
+
+  private int indexedSize(final int depth) {
+    return depth == this.objectDepth ? this.indexedSize : -1;
+  }
+
+  private static void appendField(final StringBuilder builder, final String text) {
+    builder.append(text.codePointCount(0, text.length())).append(':').append(text);
+  }
+
+  // endregion
+
+  // region: Messages
+  private MessageBuilder message(final ResponseType responseType, final int type) {
+    return new MessageBuilder(this.byteOrder).uint32(0).uint32(responseType.getVal()).uint32(type);
+  }
+
+  private MessageBuilder reply(final RequestType requestType) {
+    return this.message(ResponseType.REPLY, requestType.getVal());
+  }
+
+  private ByteBuffer error(final RequestType requestType, final ErrorMessage errorMessage) {
+    return this.message(ResponseType.ERROR, requestType.getVal())
+        .uint32(errorMessage.getVal())
+        .build();
+  }
+
+  /** Builds a message, filling in the message length at the end. */
+  private static final class MessageBuilder {
+
+    private ByteBuffer buffer;
+
+    MessageBuilder(final ByteOrder byteOrder) {
+      this.buffer = ByteBuffer.allocate(64).order(byteOrder);
+    }
+
+    MessageBuilder uint32(final long value) {
+      this.ensureRemaining(4);
+      ByteBufferHelper.writeUInt32(this.buffer, value);
+      return this;
+    }
+
+    MessageBuilder string(final String value) {
+      this.ensureRemaining(4 + value.getBytes(StandardCharsets.UTF_8).length);
+      ByteBufferHelper.writeString(this.buffer, value);
+      return this;
+    }
+
+    MessageBuilder bytes(final byte[] value) {
+      this.ensureRemaining(value.length);
+      this.buffer.put(value);
+      return this;
+    }
+
+    ByteBuffer build() {
+      this.buffer.flip();
+      this.buffer.putInt(0, this.buffer.limit());
+      return this.buffer;
+    }
+
+    private void ensureRemaining(final int count) {
+      if (this.buffer.remaining() >= count) {
+        return;
+      }
+
+      final int capacity = Math.max(this.buffer.capacity() * 2, this.buffer.position() + count);
+      final ByteBuffer newBuffer = ByteBuffer.allocate(capacity).order(this.buffer.order());
+      this.buffer.flip();
+      newBuffer.put(this.buffer);
+      this.buffer = newBuffer;
+    }
+  }
+
+  // endregion
+
+}
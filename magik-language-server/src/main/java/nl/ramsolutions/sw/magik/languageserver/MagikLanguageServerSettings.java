@@ -14,6 +14,9 @@ public final class MagikLanguageServerSettings {
   private static final String SHOW_TYPING_INLAY_HINTS = "magik.typing.showTypingInlayHints";
   private static final String SHOW_ARGUMENT_INLAY_HINTS = "magik.typing.showArgumentInlayHints";
   private static final String ENABLE_TYPING_CHECKS = "magik.typing.enableChecks";
+  private static final String CLASS_INFO_CACHE_DIR = "magik.typing.classInfoCacheDir";
+  private static final String CACHE_DIR_NAME = "magik-tools";
+  private static final String CLASS_INFO_CACHE_DIR_NAME = "class_info";
   public static final String SMALLWORLD_GIS = "magik.smallworldGis";
   public static final String PATH_MAPPING = "magik.pathMapping";
   public static final String SHOW_TOPICS_ON_HOVER = "magik.showTopicsOnHover";
@@ -73,6 +76,56 @@ public final class MagikLanguageServerSettings {
     return this.properties.getPropertyBoolean(ENABLE_TYPING_CHECKS) == Boolean.TRUE;
   }
 
+  /**
+   * Get magik.typing.classInfoCacheDir, defaults to `class_info` in the user cache directory of the
+   * platform.
+   *
+   * @return magik.typing.classInfoCacheDir
+   */
+  public Path getTypingClassInfoCacheDir() {
+    final String classInfoCacheDir = this.properties.getPropertyString(CLASS_INFO_CACHE_DIR);
+    if (classInfoCacheDir != null && !classInfoCacheDir.isBlank()) {
+      return Path.of(classInfoCacheDir);
+    }
+
+    return MagikLanguageServerSettings.getUserCacheDir(
+            System.getProperty("os.name"), System.getenv(), System.getProperty("user.home"))
+        .resolve(CLASS_INFO_CACHE_DIR_NAME);
+  }
+
+  /**
+   * Get the user cache directory for magik-tools: `%LOCALAPPDATA%\magik-tools` on Windows,
+   * `~/Library/Caches/magik-tools` on macOS and `$XDG_CACHE_HOME/magik-tools` (or
+   * `~/.cache/magik-tools`) otherwise.
+   *
+   * @param osName Name of the operating system.
+   * @param environment Environment variables.
+   * @param userHome Home directory of the user.
+   * @return User cache directory.
+   */
+  static Path getUserCacheDir(
+      final String osName, final Map<String, String> environment, final String userHome) {
+    final String lowerOsName = osName.toLowerCase(Locale.ROOT);
+    final Path cacheDir;
+    if (lowerOsName.startsWith("windows")) {
+      final String localAppData = environment.get("LOCALAPPDATA");
+      cacheDir =
+          localAppData != null && !localAppData.isBlank()
+              ? Path.of(localAppData)
+              : Path.of(userHome, "AppData", "Local");
+    } else if (lowerOsName.startsWith("mac")) {
+      cacheDir = Path.of(userHome, "Library", "Caches");
+    } else {
+      final String xdgCacheHome = environment.get("XDG_CACHE_HOME");
+      cacheDir =
+          xdgCacheHome != null && !xdgCacheHome.isBlank()
+              ? Path.of(xdgCacheHome)
+              : Path.of(userHome, ".cache");
+    }
+
+    return cacheDir.resolve(CACHE_DIR_NAME);
+  }
+
   /**
    * Get magik.smallworldGis, default to `null` if the property is not defined
    *
@@ -303,6 +303,7 @@ public class MagikTextDocumentService implements TextDocumentService {
 
     this.openedFiles.remove(textDocumentIdentifier);
     this.diagnosticsProvider.removeIgnoredUri(textDocumentIdentifier.getUri());
+    this.semanticTokenProver.closeFile(URI.create(textDocumentIdentifier.getUri()));
 
     // Clear published diagnostics.
     final List<Diagnostic> diagnostics = Collections.emptyList();
@@ -690,6 +691,63 @@ public class MagikTextDocumentService implements TextDocumentService {
         });
   }
 
+  @Override
+  public CompletableFuture<Either<SemanticTokens, SemanticTokensDelta>> semanticTokensFullDelta(
+      final SemanticTokensDeltaParams params) {
+    final long start = System.nanoTime();
+
+    final TextDocumentIdentifier textDocument = params.getTextDocument();
+    LOGGER.debug("semanticTokensFullDelta, uri: {}", textDocument.getUri());
+
+    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    return CompletableFuture.supplyAsync(
+        () -> {
+          if (openedFile == null) {
+            return null;
+          }
+
+          final Either<SemanticTokens, SemanticTokensDelta> semanticTokens =
+              this.semanticTokenProver.provideSemanticTokensFullDelta(
+                  openedFile, params.getPreviousResultId());
+
+          if (LOGGER_DURATION.isTraceEnabled()) {
+            LOGGER_DURATION.trace(
+                "Duration: {} semanticTokensFullDelta, uri: {}",
+                String.format("%.3f", (System.nanoTime() - start) / 1000000000.0),
+                textDocument.getUri());
+          }
+          return semanticTokens;
+        });
+  }
+
+  @Override
+  public CompletableFuture<SemanticTokens> semanticTokensRange(
+      final SemanticTokensRangeParams params) {
+    final long start = System.nanoTime();
+
+    final TextDocumentIdentifier textDocument = params.getTextDocument();
+    LOGGER.debug("semanticTokensRange, uri: {}", textDocument.getUri());
+
+    final OpenedFile openedFile = this.openedFiles.get(textDocument);
+    return CompletableFuture.supplyAsync(
+        () -> {
+          if (openedFile == null) {
+            return null;
+          }
+
+          final SemanticTokens semanticTokens =
+              this.semanticTokenProver.provideSemanticTokensRange(openedFile, params.getRange());
+
+          if (LOGGER_DURATION.isTraceEnabled()) {
+            LOGGER_DURATION.trace(
+                "Duration: {} semanticTokensRange, uri: {}",
+                String.format("%.3f", (System.nanoTime() - start) / 1000000000.0),
+                textDocument.getUri());
+          }
+          return semanticTokens;
+        });
+  }
+
   @Override
   public CompletableFuture<Either3<Range, PrepareRenameResult, PrepareRenameDefaultBehavior>>
       prepareRename(final PrepareRenameParams params) {
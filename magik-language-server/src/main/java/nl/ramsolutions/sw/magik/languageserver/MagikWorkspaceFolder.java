@@ -85,14 +85,19 @@ public class MagikWorkspaceFolder {
   public void onInit() throws IOException {
     LOGGER.debug("On init: {}", this);
 
-    final MagikAnalysisSettings settings = new MagikAnalysisSettings(this.languageServerProperties);
-    if (settings.getTypingCacheIndexedDefinitions()) {
-      this.readExistingTypesDatabase();
-    }
-
-    this.runProductIndexer();
-    this.runModuleIndexer();
-    this.runMagikIndexer();
+    // Publish the (re-)indexed workspace folder at once.
+    this.definitionKeeper.batch(
+        definitionKeeper -> {
+          final MagikAnalysisSettings settings =
+              new MagikAnalysisSettings(this.languageServerProperties);
+          if (settings.getTypingCacheIndexedDefinitions()) {
+            this.readExistingTypesDatabase();
+          }
+
+          this.runProductIndexer();
+          this.runModuleIndexer();
+          this.runMagikIndexer();
+        });
 
     LOGGER.debug("Done on init: {}", this);
   }
@@ -46,6 +46,7 @@ public class MagikWorkspaceService implements WorkspaceService {
   private final MagikIndexer magikIndexer;
   private final SymbolProvider symbolProvider;
   private final MUnitTestItemProvider testItemProvider;
+  private volatile boolean indexed;
 
   /**
    * Constructor.
@@ -109,9 +110,7 @@ public class MagikWorkspaceService implements WorkspaceService {
     if (collectionsDiffers(oldTypeDBPaths, lspSettings.getTypingTypeDatabasePaths())
         || collectionsDiffers(oldProductDirs, lspSettings.getProductDirs())
         || collectionsDiffers(oldPathMappings, lspSettings.getPathMappings())) {
-      this.definitionKeeper.clear();
-
-      this.runIndexersInBackground();
+      this.runIndexersInBackground(this.indexed);
     }
   }
 
@@ -128,6 +127,10 @@ public class MagikWorkspaceService implements WorkspaceService {
   private void readProductsClassInfos(final List<String> productDirs) {
     LOGGER.trace("Reading docs from product dirs: {}", productDirs);
 
+    final MagikLanguageServerSettings settings =
+        new MagikLanguageServerSettings(this.languageServerProperties);
+    final Path cachePath = settings.getTypingClassInfoCacheDir();
+    ClassInfoDefinitionReader.pruneCache(cachePath);
     productDirs.forEach(
         pathStr -> {
           final Path path = Path.of(pathStr);
@@ -137,7 +140,7 @@ public class MagikWorkspaceService implements WorkspaceService {
           }
 
           try {
-            ClassInfoDefinitionReader.readProductDirectory(path, this.definitionKeeper);
+            ClassInfoDefinitionReader.readProductDirectory(path, this.definitionKeeper, cachePath);
           } catch (final IOException exception) {
             LOGGER.error(exception.getMessage(), exception);
           }
@@ -220,9 +223,12 @@ public class MagikWorkspaceService implements WorkspaceService {
               final nl.ramsolutions.sw.magik.FileEvent magikFileEvent =
                   new nl.ramsolutions.sw.magik.FileEvent(uri, magikFileChangeType);
               try {
-                this.productIndexer.handleFileEvent(magikFileEvent);
-                this.moduleIndexer.handleFileEvent(magikFileEvent);
-                this.magikIndexer.handleFileEvent(magikFileEvent);
+                this.definitionKeeper.batch(
+                    definitionKeeper -> {
+                      this.productIndexer.handleFileEvent(magikFileEvent);
+                      this.moduleIndexer.handleFileEvent(magikFileEvent);
+                      this.magikIndexer.handleFileEvent(magikFileEvent);
+                    });
               } catch (final IOException exception) {
                 LOGGER.error(exception.getMessage(), exception);
               }
@@ -253,12 +259,7 @@ public class MagikWorkspaceService implements WorkspaceService {
    */
   @JsonRequest(value = "custom/reIndex")
   public CompletableFuture<Void> reIndex() {
-    return CompletableFuture.runAsync(
-        () -> {
-          this.definitionKeeper.clear();
-
-          this.runIndexersInBackground();
-        });
+    return CompletableFuture.runAsync(() -> this.runIndexersInBackground(true));
   }
 
   /**
@@ -316,6 +317,9 @@ public class MagikWorkspaceService implements WorkspaceService {
     if (LOGGER_DURATION.isTraceEnabled()) {
       LOGGER_DURATION.trace("Duration: {} runIndexers", (System.nanoTime() - start) / 1000000000.0);
     }
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Definition interner: {}", this.definitionKeeper.getInterner());
+    }
 
     // Update workspace folders.
     for (final MagikWorkspaceFolder workspaceFolder : this.languageServer.getWorkspaceFolders()) {
@@ -328,8 +332,14 @@ public class MagikWorkspaceService implements WorkspaceService {
     }
   }
 
+  /**
+   * Run the indexers in the background.
+   *
+   * @param reindex Replace all existing definitions. Readers keep seeing the existing definitions
+   *     until indexing is done.
+   */
   @SuppressWarnings("IllegalCatch")
-  private void runIndexersInBackground() {
+  private void runIndexersInBackground(final boolean reindex) {
     if (LOGGER.isTraceEnabled()) {
       LOGGER.trace("Run background indexer");
     }
@@ -352,7 +362,16 @@ public class MagikWorkspaceService implements WorkspaceService {
           languageClient.notifyProgress(progressParams);
 
           try {
-            this.runIndexers();
+            if (reindex) {
+              this.definitionKeeper.batch(
+                  definitionKeeper -> {
+                    definitionKeeper.clear();
+                    this.runIndexers();
+                  });
+            } else {
+              this.runIndexers();
+            }
+            this.indexed = true;
           } catch (final Exception exception) {
             LOGGER.error(exception.getMessage(), exception);
           }
@@ -5,15 +5,13 @@ import com.google.gson.JsonObject;
 import com.sonar.sslr.api.AstNode;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Position;
@@ -114,7 +112,8 @@ public class CallHierarchyProvider {
     final String methodName = object.getAsJsonPrimitive(DATA_METHOD_NAME).getAsString();
     final String typeStringStr = object.getAsJsonPrimitive(DATA_TYPE_STRING).getAsString();
 
-    return this.definitionKeeper.getMethodDefinitions().stream()
+    return this.definitionKeeper
+        .streamMethodDefinitions()
         .flatMap(methodDef -> methodDef.getUsedMethods().stream())
         .filter(methodUsage -> methodUsage.getMethodName().equals(methodName))
         .map(MethodUsage::getLocation)
@@ -218,7 +217,7 @@ public class CallHierarchyProvider {
     final Path path = Path.of(uri); // TODO: What about memory:// URIs? These should blackhole.
     final String text;
     try {
-      text = Files.readString(path, FileCharsetDeterminer.determineCharset(path));
+      text = SourceFileLoader.readString(path);
     } catch (final IOException exception) {
       throw new IllegalStateException(exception);
     }
@@ -286,10 +285,9 @@ public class CallHierarchyProvider {
   private MagikTypedFile getMagikFile(final Location location) {
     final URI calledMethodUri = location.getUri();
     final Path calledMethodPath = Path.of(calledMethodUri);
-    final Charset charset = FileCharsetDeterminer.determineCharset(calledMethodPath);
     final String text;
     try {
-      text = Files.readString(calledMethodPath, charset);
+      text = SourceFileLoader.readString(calledMethodPath);
     } catch (final IOException exception) {
       throw new IllegalStateException(exception);
     }
@@ -8,6 +8,7 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.LineTable;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.analysis.AstQuery;
@@ -296,7 +297,8 @@ public class CompletionProvider {
     // Global types.
     final String identifierPart = tokenNode != null ? tokenNode.getTokenValue() : "";
     List<ExemplarDefinition> exemplarDefinitions =
-        definitionKeeper.getExemplarDefinitions().stream()
+        definitionKeeper
+            .streamExemplarDefinitions()
             .filter(
                 exemplarDef -> exemplarDef.getTypeString().getFullString().contains(identifierPart))
             .toList();
@@ -549,14 +551,14 @@ public class CompletionProvider {
   /**
    * Strip the current token at position.
    *
-   * @param source Text to strip from.
+   * @param magikFile File to strip from.
    * @param position Position to strip.
    * @return Cleared source, removed token.
    */
-  private String[] cleanSource(final String source, final Position position) {
-    final int lineNo = position.getLine();
-    final String[] lines = source.split("\n");
-    final String line = lines[lineNo];
+  private String[] cleanSource(final MagikTypedFile magikFile, final Position position) {
+    final LineTable lineTable = magikFile.getLineTable();
+    final int lineNo = position.getLine() + 1;
+    final CharSequence line = lineTable.getLine(lineNo);
 
     // TODO clean source by first moving to the first space and then removing everything to the
     // left? like a for block?
@@ -584,10 +586,17 @@ public class CompletionProvider {
     }
 
     // Clean up by replacing the scanned part with whitespace.
-    final String stripped = line.substring(beginIndex, endIndex);
-    lines[lineNo] =
-        line.substring(0, beginIndex) + " ".repeat(stripped.length()) + line.substring(endIndex);
-    return new String[] {String.join("\n", lines), stripped.trim()};
+    final int beginOffset =
+        lineTable.getOffset(new nl.ramsolutions.sw.magik.Position(lineNo, beginIndex));
+    final int endOffset =
+        lineTable.getOffset(new nl.ramsolutions.sw.magik.Position(lineNo, endIndex));
+    final String source = magikFile.getSource();
+    final String stripped = source.substring(beginOffset, endOffset);
+    final String cleanedSource =
+        source.substring(0, beginOffset)
+            + " ".repeat(stripped.length())
+            + source.substring(endOffset);
+    return new String[] {cleanedSource, stripped.trim()};
   }
 
   /**
@@ -643,8 +652,7 @@ public class CompletionProvider {
         && tokenNode.getParent() != null
         && tokenNode.getParent().is(MagikGrammar.SYNTAX_ERROR)) {
       // Clean it up a bit and try to re-parse.
-      final String source = magikFile.getSource();
-      final String[] items = this.cleanSource(source, position);
+      final String[] items = this.cleanSource(magikFile, position);
       final String cleanedSource = items[0];
       cleanedToken = items[1];
       final URI uri = magikFile.getUri();
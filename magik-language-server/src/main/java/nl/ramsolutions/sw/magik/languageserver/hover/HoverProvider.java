@@ -287,11 +287,9 @@ public class HoverProvider {
     if (parentConditionName != null) {
       builder.append(indentStr).append(" ↳ ").append(parentConditionName).append(BR);
 
-      definitionKeeper
-          .getConditionDefinitions()
-          .forEach(
-              parentConditionDef ->
-                  this.addConditionTaxonomy(magikFile, parentConditionDef, builder, indent + 1));
+      definitionKeeper.forEachConditionDefinition(
+          parentConditionDef ->
+              this.addConditionTaxonomy(magikFile, parentConditionDef, builder, indent + 1));
     }
 
     if (indent == 0) {
@@ -75,7 +75,8 @@ public class ImplementationProvider {
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
 
     final IDefinitionKeeper definitionKeeper = magikFile.getDefinitionKeeper();
-    return definitionKeeper.getMethodDefinitions().stream()
+    return definitionKeeper
+        .streamMethodDefinitions()
         .filter(methodDef -> !typeStr.equals(methodDef.getTypeName()))
         .filter(methodDef -> resolver.isKindOf(methodDef.getTypeName(), typeStr))
         .map(MethodDefinition::getLocation)
@@ -44,21 +44,21 @@ class ArgumentNameInlayHintSupplier {
       return Stream.empty();
     }
 
-    final AstNode topNode = magikFile.getTopNode();
-    return topNode.getDescendants(MagikGrammar.METHOD_INVOCATION).stream()
+    return InlayHintProvider.getSectionNodes(magikFile, range)
+        .flatMap(sectionNode -> sectionNode.getDescendants(MagikGrammar.METHOD_INVOCATION).stream())
         .filter(node -> Range.fromTree(node).overlapsWith(range))
-        .flatMap(node -> this.getInlayHintsForMethodInvocationNode(magikFile, node));
+        .flatMap(node -> this.getInlayHintsForMethodInvocationNode(magikFile, node, range));
   }
 
   private Stream<InlayHint> getInlayHintsForMethodInvocationNode(
-      final MagikTypedFile magikFile, final AstNode methodInvocationNode) {
+      final MagikTypedFile magikFile, final AstNode methodInvocationNode, final Range range) {
     final AstNode argumentsNode = methodInvocationNode.getFirstDescendant(MagikGrammar.ARGUMENTS);
     if (argumentsNode == null) {
       return Stream.of();
     }
 
     // Get type from method invocation.
-    final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState();
+    final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState(range);
     final AstNode previousSiblingNode = methodInvocationNode.getPreviousSibling();
     final ExpressionResultString result = reasonerState.getNodeType(previousSiblingNode);
     final TypeString typeStr = result.get(0, TypeString.UNDEFINED);
@@ -1,5 +1,6 @@
 package nl.ramsolutions.sw.magik.languageserver.inlayhint;
 
+import com.sonar.sslr.api.AstNode;
 import java.util.List;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.MagikToolsProperties;
@@ -47,4 +48,17 @@ public class InlayHintProvider {
         .flatMap(stream -> stream)
         .toList();
   }
+
+  /**
+   * Get the top level sections (method definitions, statements, etc.) overlapping with {@code
+   * range}, so the suppliers only have to look at the visible part of the file.
+   *
+   * @param magikFile Magik file.
+   * @param range Range in file.
+   * @return Top level section nodes.
+   */
+  static Stream<AstNode> getSectionNodes(final MagikTypedFile magikFile, final Range range) {
+    final AstNode topNode = magikFile.getTopNode();
+    return topNode.getChildren().stream().filter(node -> Range.fromTree(node).overlapsWith(range));
+  }
 }
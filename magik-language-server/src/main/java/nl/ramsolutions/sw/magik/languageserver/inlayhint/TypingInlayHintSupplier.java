@@ -1,6 +1,7 @@
 package nl.ramsolutions.sw.magik.languageserver.inlayhint;
 
 import com.sonar.sslr.api.AstNode;
+import java.util.List;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
@@ -37,23 +38,28 @@ class TypingInlayHintSupplier {
       return Stream.empty();
     }
 
-    final AstNode topNode = magikFile.getTopNode();
+    final List<AstNode> sectionNodes = InlayHintProvider.getSectionNodes(magikFile, range).toList();
     return Stream.concat(
-        topNode.getDescendants(MagikGrammar.ATOM).stream()
+        sectionNodes.stream()
+            .flatMap(sectionNode -> sectionNode.getDescendants(MagikGrammar.ATOM).stream())
             .filter(node -> Range.fromTree(node).overlapsWith(range))
-            .flatMap(node -> this.getInlayHintsForAtoms(magikFile, node)),
-        topNode
-            .getDescendants(MagikGrammar.METHOD_INVOCATION, MagikGrammar.PROCEDURE_INVOCATION)
-            .stream()
+            .flatMap(node -> this.getInlayHintsForAtoms(magikFile, node, range)),
+        sectionNodes.stream()
+            .flatMap(
+                sectionNode ->
+                    sectionNode
+                        .getDescendants(
+                            MagikGrammar.METHOD_INVOCATION, MagikGrammar.PROCEDURE_INVOCATION)
+                        .stream())
             .filter(node -> Range.fromTree(node).overlapsWith(range))
-            .flatMap(node -> this.getInlayHintsForInvocations(magikFile, node)));
+            .flatMap(node -> this.getInlayHintsForInvocations(magikFile, node, range)));
     // TODO: Unary operators
     // TODO: Binary operators
   }
 
   private Stream<InlayHint> getInlayHintsForAtoms(
-      final MagikTypedFile magikFile, final AstNode atomNode) {
-    final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState();
+      final MagikTypedFile magikFile, final AstNode atomNode, final Range range) {
+    final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState(range);
     final ExpressionResultString result = reasonerState.getNodeTypeSilent(atomNode);
     if (result == null || result.stream().anyMatch(TypeString::isUndefined)) {
       return Stream.empty();
@@ -72,8 +78,8 @@ class TypingInlayHintSupplier {
   }
 
   private Stream<InlayHint> getInlayHintsForInvocations(
-      final MagikTypedFile magikFile, final AstNode invocationNode) {
-    final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState();
+      final MagikTypedFile magikFile, final AstNode invocationNode, final Range range) {
+    final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState(range);
     final ExpressionResultString result = reasonerState.getNodeTypeSilent(invocationNode);
     if (result == null || result.stream().anyMatch(TypeString::isUndefined)) {
       return Stream.empty();
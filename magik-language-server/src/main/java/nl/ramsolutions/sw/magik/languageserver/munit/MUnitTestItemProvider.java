@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.Location;
@@ -19,6 +20,7 @@ import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver;
 import nl.ramsolutions.sw.magik.languageserver.Lsp4jConversion;
 import nl.ramsolutions.sw.magik.languageserver.MagikLanguageServerSettings;
 import nl.ramsolutions.sw.moduledef.ModuleDefFile;
+import nl.ramsolutions.sw.moduledef.ModuleDefFileResolver;
 import nl.ramsolutions.sw.moduledef.ModuleDefFileScanner;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefFile;
@@ -130,7 +132,8 @@ public class MUnitTestItemProvider {
     }
 
     final TypeStringResolver resolver = new TypeStringResolver(this.definitionKeeper);
-    return this.definitionKeeper.getExemplarDefinitions().stream()
+    return this.definitionKeeper
+        .streamExemplarDefinitions()
         .filter(definition -> resolver.isKindOf(definition, testCaseDefinition));
   }
 
@@ -163,8 +166,8 @@ public class MUnitTestItemProvider {
 
     // Construct SwProduct.
     final ProductDefFile productDefFile =
-        new ProductDefFile(productDefPath, this.definitionKeeper, null);
-    return productDefFile.getProductDefinition();
+        ModuleDefFileResolver.getProductDefFile(productDefPath, this.definitionKeeper, null);
+    return Objects.requireNonNull(productDefFile).getProductDefinition();
   }
 
   private ModuleDefinition getSwModule(final Path path) throws IOException {
@@ -180,8 +183,9 @@ public class MUnitTestItemProvider {
     }
 
     // Construct SwModule.
-    final ModuleDefFile moduleDefFile = new ModuleDefFile(moduleDefPath, definitionKeeper, null);
-    return moduleDefFile.getModuleDefinition();
+    final ModuleDefFile moduleDefFile =
+        ModuleDefFileResolver.getModuleDefFile(moduleDefPath, this.definitionKeeper, null);
+    return Objects.requireNonNull(moduleDefFile).getModuleDefinition();
   }
 
   private MUnitTestItem createTestItem(final ProductDefinition definition) {
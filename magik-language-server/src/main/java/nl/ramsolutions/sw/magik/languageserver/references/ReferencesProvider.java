@@ -217,7 +217,8 @@ public class ReferencesProvider {
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
 
     // Find references.
-    return definitionKeeper.getMethodDefinitions().stream()
+    return definitionKeeper
+        .streamMethodDefinitions()
         .flatMap(def -> def.getUsedMethods().stream())
         .filter(filterPredicate::test)
         .map(MethodUsage::getLocation)
@@ -252,9 +253,11 @@ public class ReferencesProvider {
     // TODO: Also parameters, return types of methods/procedures.
     // TODO: Also slots of methods.
     return Stream.of(
-            definitionKeeper.getMethodDefinitions().stream()
+            definitionKeeper
+                .streamMethodDefinitions()
                 .flatMap(def -> def.getUsedGlobals().stream()),
-            definitionKeeper.getProcedureDefinitions().stream()
+            definitionKeeper
+                .streamProcedureDefinitions()
                 .flatMap(def -> def.getUsedGlobals().stream()))
         .flatMap(stream -> stream)
         .filter(filterPredicate::test)
@@ -267,7 +270,8 @@ public class ReferencesProvider {
       final IDefinitionKeeper definitionKeeper, final String conditionName) {
     LOGGER.debug("Finding references to condition: {}", conditionName);
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
-    return definitionKeeper.getMethodDefinitions().stream()
+    return definitionKeeper
+        .streamMethodDefinitions()
         .flatMap(def -> def.getUsedConditions().stream())
         .filter(conditionUsage -> conditionUsage.getConditionName().equals(conditionName))
         .map(ConditionUsage::getLocation)
@@ -279,7 +283,8 @@ public class ReferencesProvider {
       final IDefinitionKeeper definitionKeeper, final String productName) {
     LOGGER.debug("Finding references to product: {}", productName);
     final ProductUsage searchedProductUsage = new ProductUsage(productName, null);
-    return definitionKeeper.getProductDefinitions().stream()
+    return definitionKeeper
+        .streamProductDefinitions()
         .flatMap(def -> def.getUsages().stream())
         .filter(productUsage -> productUsage.equals(searchedProductUsage))
         .map(ProductUsage::getLocation)
@@ -290,7 +295,8 @@ public class ReferencesProvider {
       final IDefinitionKeeper definitionKeeper, final String moduleName) {
     LOGGER.debug("Finding references to product: {}", moduleName);
     final ModuleUsage searchedModuleUsage = new ModuleUsage(moduleName, null);
-    return definitionKeeper.getModuleDefinitions().stream()
+    return definitionKeeper
+        .streamModuleDefinitions()
         .flatMap(def -> def.getUsages().stream())
         .filter(moduleUsage -> moduleUsage.equals(searchedModuleUsage))
         .map(ModuleUsage::getLocation)
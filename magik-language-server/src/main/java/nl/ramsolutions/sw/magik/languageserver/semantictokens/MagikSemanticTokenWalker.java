@@ -9,6 +9,7 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.analysis.AstQuery;
 import nl.ramsolutions.sw.magik.analysis.MagikAstWalker;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
@@ -80,22 +81,46 @@ public class MagikSemanticTokenWalker extends MagikAstWalker {
       Arrays.stream(MagikOperator.values()).map(MagikOperator::getValue).toList();
 
   private final MagikTypedFile magikFile;
+  private final boolean wholeFileReasoned;
   private final List<SemanticToken> semanticTokens = new ArrayList<>();
   private String currentPakkage = DEFAULT_PACKAGE;
 
   /**
    * Constructor.
    *
+   * <p>Receivers are typed using the whole file reasoner state if it exists when the walker is
+   * constructed, otherwise by reasoning about sections in isolation, for the whole walk.
+   *
    * @param magikFile {@link MagikTypedFile} to operate on.
    */
   MagikSemanticTokenWalker(final MagikTypedFile magikFile) {
     this.magikFile = magikFile;
+    this.wholeFileReasoned = magikFile.hasTypeReasonerState();
   }
 
   public List<SemanticToken> getSemanticTokens() {
     return Collections.unmodifiableList(this.semanticTokens);
   }
 
+  /**
+   * Get the package at the current position of the walk.
+   *
+   * @return Current package name.
+   */
+  String getCurrentPackage() {
+    return this.currentPakkage;
+  }
+
+  /**
+   * Test if receivers are typed using the whole file reasoner state.
+   *
+   * @return True if the whole file reasoner state is used, false if sections are reasoned about in
+   *     isolation.
+   */
+  boolean isWholeFileReasoned() {
+    return this.wholeFileReasoned;
+  }
+
   private void addSemanticToken(
       final Token token,
       final SemanticToken.Type type,
@@ -328,7 +353,10 @@ public class MagikSemanticTokenWalker extends MagikAstWalker {
     // Test for deprecation.
     final MethodInvocationNodeHelper helper = new MethodInvocationNodeHelper(node);
     final AstNode receiverNode = helper.getReceiverNode();
-    final LocalTypeReasonerState reasonerState = this.magikFile.getTypeReasonerState();
+    final LocalTypeReasonerState reasonerState =
+        this.wholeFileReasoned
+            ? this.magikFile.getTypeReasonerState()
+            : this.magikFile.getSectionTypeReasonerState(Range.fromTree(node));
     final ExpressionResultString result = reasonerState.getNodeType(receiverNode);
     final TypeString typeStr = result.get(0, TypeString.UNDEFINED);
     final String methodName = helper.getMethodName();
@@ -94,11 +94,23 @@ public class SemanticToken {
     this.modifiers = modifiers;
   }
 
-  private int tokenTypeValue() {
+  int getLine() {
+    return this.token.getLine();
+  }
+
+  int getColumn() {
+    return this.token.getColumn();
+  }
+
+  int getLength() {
+    return this.token.getOriginalValue().length();
+  }
+
+  int tokenTypeValue() {
     return this.type.getTokenType();
   }
 
-  private int tokenModifiersValue() {
+  int tokenModifiersValue() {
     return this.modifiers.stream()
         .mapToInt(Modifier::getModifierType)
         .reduce(0, (modifier, total) -> modifier | total);
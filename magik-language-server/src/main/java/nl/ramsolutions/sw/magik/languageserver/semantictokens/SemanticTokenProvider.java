@@ -1,28 +1,50 @@
 package nl.ramsolutions.sw.magik.languageserver.semantictokens;
 
 import com.sonar.sslr.api.AstNode;
-import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
-import java.io.IOException;
+import com.sonar.sslr.api.Trivia;
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import nl.ramsolutions.sw.OpenedFile;
+import nl.ramsolutions.sw.magik.LineTable;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+import nl.ramsolutions.sw.magik.languageserver.Lsp4jConversion;
 import nl.ramsolutions.sw.moduledef.ModuleDefFile;
 import nl.ramsolutions.sw.productdef.ProductDefFile;
 import org.eclipse.lsp4j.DocumentFilter;
 import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensDelta;
+import org.eclipse.lsp4j.SemanticTokensEdit;
 import org.eclipse.lsp4j.SemanticTokensLegend;
+import org.eclipse.lsp4j.SemanticTokensServerFull;
 import org.eclipse.lsp4j.SemanticTokensWithRegistrationOptions;
 import org.eclipse.lsp4j.ServerCapabilities;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Semantic token provider. */
+/**
+ * Semantic token provider.
+ *
+ * <p>Semantic tokens of magik files are computed per top level section (method definition,
+ * statement, etc.) and cached per file. A section is only walked again when its source text, or the
+ * package it is in, changed, or when the definitions changed. The last result of each file is kept
+ * to provide deltas.
+ *
+ * <p>Receivers are typed using the whole file reasoner state once it exists, sections are reasoned
+ * about in isolation until then. Sections are cached per kind of reasoning, so the tokens of a
+ * section do not depend on the order of requests. Once the whole file reasoner state exists, the
+ * sections reasoned about in isolation are walked again.
+ */
 public class SemanticTokenProvider {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SemanticTokenProvider.class);
@@ -37,6 +59,24 @@ public class SemanticTokenProvider {
               .map(SemanticToken.Modifier::getSemanticModifierName)
               .toList());
 
+  /**
+   * Semantic tokens of a file.
+   *
+   * @param resultId Result id, as sent to the client.
+   * @param data Encoded semantic tokens, as sent to the client.
+   * @param definitionKeeper Snapshot of the definitions the section tokens were computed with.
+   * @param sectionTokens Tokens per section, keyed by the kind of reasoning, the package, column
+   *     span and source text of the section.
+   */
+  private record FileTokens(
+      String resultId,
+      int[] data,
+      IDefinitionKeeper definitionKeeper,
+      Map<String, int[]> sectionTokens) {}
+
+  private final Map<URI, FileTokens> fileTokens = new ConcurrentHashMap<>();
+  private final AtomicLong resultIds = new AtomicLong();
+
   /**
    * Set server capabilities.
    *
@@ -45,8 +85,8 @@ public class SemanticTokenProvider {
   public void setCapabilities(final ServerCapabilities capabilities) {
     final SemanticTokensWithRegistrationOptions semanticTokensProvider =
         new SemanticTokensWithRegistrationOptions(SemanticTokenProvider.LEGEND);
-    semanticTokensProvider.setFull(true);
-    semanticTokensProvider.setRange(false);
+    semanticTokensProvider.setFull(new SemanticTokensServerFull(true));
+    semanticTokensProvider.setRange(true);
     semanticTokensProvider.setDocumentSelector(
         List.of(
             new DocumentFilter("product.def", "file", null),
@@ -60,67 +100,323 @@ public class SemanticTokenProvider {
    *
    * @param magikFile Magik file.
    * @return SemanticTokens.
-   * @throws IOException -
    */
   public SemanticTokens provideSemanticTokensFull(final MagikTypedFile magikFile) {
     LOGGER.debug("Providing semantic tokens full, file: {}", magikFile);
 
-    final MagikSemanticTokenWalker walker = new MagikSemanticTokenWalker(magikFile);
-    final AstNode topNode = magikFile.getTopNode();
-    walker.walkAst(topNode);
-
-    final List<SemanticToken> walkedSemanticTokens = walker.getSemanticTokens();
-    return this.buildSemanticTokens(walkedSemanticTokens);
+    final FileTokens tokens = this.computeFileTokens(magikFile);
+    return new SemanticTokens(tokens.resultId(), SemanticTokenProvider.toList(tokens.data()));
   }
 
   public SemanticTokens provideSemanticTokensFull(final ModuleDefFile moduleDefFile) {
     LOGGER.debug("Providing semantic tokens full, file: {}", moduleDefFile);
 
-    final ModuleDefSemanticTokenWalker walker = new ModuleDefSemanticTokenWalker();
-    final AstNode topNode = moduleDefFile.getTopNode();
-    walker.walkAst(topNode);
-
-    final List<SemanticToken> walkedSemanticTokens = walker.getSemanticTokens();
-    return this.buildSemanticTokens(walkedSemanticTokens);
+    final FileTokens tokens = this.computeFileTokens(moduleDefFile);
+    return new SemanticTokens(tokens.resultId(), SemanticTokenProvider.toList(tokens.data()));
   }
 
   public SemanticTokens provideSemanticTokensFull(final ProductDefFile productDefFile) {
     LOGGER.debug("Providing semantic tokens full, file: {}", productDefFile);
 
-    final ProductDefSemanticTokenWalker walker = new ProductDefSemanticTokenWalker();
-    final AstNode topNode = productDefFile.getTopNode();
-    walker.walkAst(topNode);
+    final FileTokens tokens = this.computeFileTokens(productDefFile);
+    return new SemanticTokens(tokens.resultId(), SemanticTokenProvider.toList(tokens.data()));
+  }
+
+  /**
+   * Build SemanticTokens, as a delta to the previous result if possible.
+   *
+   * @param openedFile Magik, module.def or product.def file.
+   * @param previousResultId Result id of the previous result.
+   * @return Delta to previous result, or full SemanticTokens if the previous result is unknown.
+   */
+  public Either<SemanticTokens, SemanticTokensDelta> provideSemanticTokensFullDelta(
+      final OpenedFile openedFile, final String previousResultId) {
+    LOGGER.debug(
+        "Providing semantic tokens full delta, file: {}, previous result id: {}",
+        openedFile,
+        previousResultId);
+
+    final FileTokens previousTokens = this.fileTokens.get(openedFile.getUri());
+    final FileTokens tokens = this.computeFileTokens(openedFile);
+    if (previousTokens == null || !previousTokens.resultId().equals(previousResultId)) {
+      final SemanticTokens semanticTokens =
+          new SemanticTokens(tokens.resultId(), SemanticTokenProvider.toList(tokens.data()));
+      return Either.forLeft(semanticTokens);
+    }
+
+    final SemanticTokensEdit edit =
+        SemanticTokenProvider.buildEdit(previousTokens.data(), tokens.data());
+    final List<SemanticTokensEdit> edits = edit != null ? List.of(edit) : List.of();
+    return Either.forRight(new SemanticTokensDelta(edits, tokens.resultId()));
+  }
+
+  /**
+   * Build SemanticTokens for a range. Only the sections of magik files overlapping the range are
+   * walked. For module.def and product.def files, the tokens of the whole file are returned.
+   *
+   * @param openedFile Magik, module.def or product.def file.
+   * @param lsp4jRange Range to provide SemanticTokens for.
+   * @return SemanticTokens.
+   */
+  public SemanticTokens provideSemanticTokensRange(
+      final OpenedFile openedFile, final org.eclipse.lsp4j.Range lsp4jRange) {
+    LOGGER.debug("Providing semantic tokens range, file: {}", openedFile);
+
+    if (!(openedFile instanceof MagikTypedFile magikFile)) {
+      final FileTokens tokens = this.computeFileTokens(openedFile);
+      return new SemanticTokens(SemanticTokenProvider.toList(tokens.data()));
+    }
+
+    final Range range = Lsp4jConversion.rangeFromLsp4j(lsp4jRange);
+    final FileTokens previousTokens = this.getValidFileTokens(magikFile);
+    final Map<String, int[]> previousSectionTokens =
+        previousTokens != null ? previousTokens.sectionTokens() : Map.of();
+    final LineTable lineTable = magikFile.getLineTable();
+    final MagikSemanticTokenWalker walker = new MagikSemanticTokenWalker(magikFile);
+    final TokenEncoder encoder = new TokenEncoder();
+    for (final AstNode sectionNode : magikFile.getTopNode().getChildren()) {
+      if (sectionNode.is(MagikGrammar.PACKAGE_SPECIFICATION)) {
+        // Always walk package specifications, for the current package.
+        final int[] sectionData = this.walkSection(walker, sectionNode, 1);
+        if (Range.fromTree(sectionNode).overlapsWith(range)) {
+          encoder.add(sectionData, 1);
+        }
+        continue;
+      }
+
+      if (!Range.fromTree(sectionNode).overlapsWith(range)) {
+        continue;
+      }
+
+      final int startLine = SemanticTokenProvider.getStartLine(sectionNode);
+      final String key = this.getSectionKey(walker, sectionNode, lineTable, startLine);
+      int[] sectionData = previousSectionTokens.get(key);
+      if (sectionData == null) {
+        sectionData = this.walkSection(walker, sectionNode, startLine);
+      }
+      encoder.add(sectionData, startLine);
+    }
+
+    return new SemanticTokens(SemanticTokenProvider.toList(encoder.toArray()));
+  }
+
+  /**
+   * Forget any cached semantic tokens for a file.
+   *
+   * @param uri URI of file.
+   */
+  public void closeFile(final URI uri) {
+    this.fileTokens.remove(uri);
+  }
+
+  private FileTokens computeFileTokens(final OpenedFile openedFile) {
+    final FileTokens tokens;
+    if (openedFile instanceof MagikTypedFile magikFile) {
+      tokens = this.computeMagikFileTokens(magikFile);
+    } else if (openedFile instanceof ModuleDefFile moduleDefFile) {
+      final ModuleDefSemanticTokenWalker walker = new ModuleDefSemanticTokenWalker();
+      walker.walkAst(moduleDefFile.getTopNode());
+      tokens = this.createFileTokens(walker.getSemanticTokens());
+    } else if (openedFile instanceof ProductDefFile productDefFile) {
+      final ProductDefSemanticTokenWalker walker = new ProductDefSemanticTokenWalker();
+      walker.walkAst(productDefFile.getTopNode());
+      tokens = this.createFileTokens(walker.getSemanticTokens());
+    } else {
+      throw new UnsupportedOperationException();
+    }
+
+    this.fileTokens.put(openedFile.getUri(), tokens);
+    return tokens;
+  }
+
+  private FileTokens createFileTokens(final List<SemanticToken> semanticTokens) {
+    final TokenEncoder encoder = new TokenEncoder();
+    encoder.add(SemanticTokenProvider.toSectionData(semanticTokens, 1), 1);
+    final String resultId = Long.toString(this.resultIds.incrementAndGet());
+    return new FileTokens(resultId, encoder.toArray(), null, Map.of());
+  }
+
+  private FileTokens computeMagikFileTokens(final MagikTypedFile magikFile) {
+    final FileTokens previousTokens = this.getValidFileTokens(magikFile);
+    final Map<String, int[]> previousSectionTokens =
+        previousTokens != null ? previousTokens.sectionTokens() : Map.of();
+    final Map<String, int[]> sectionTokens = new HashMap<>();
+    final LineTable lineTable = magikFile.getLineTable();
+    final MagikSemanticTokenWalker walker = new MagikSemanticTokenWalker(magikFile);
+    final TokenEncoder encoder = new TokenEncoder();
+    int walkedCount = 0;
+    for (final AstNode sectionNode : magikFile.getTopNode().getChildren()) {
+      if (sectionNode.is(MagikGrammar.PACKAGE_SPECIFICATION)) {
+        // Always walk package specifications, for the current package.
+        encoder.add(this.walkSection(walker, sectionNode, 1), 1);
+        continue;
+      }
+
+      final int startLine = SemanticTokenProvider.getStartLine(sectionNode);
+      final String key = this.getSectionKey(walker, sectionNode, lineTable, startLine);
+      int[] sectionData = previousSectionTokens.get(key);
+      if (sectionData == null) {
+        sectionData = this.walkSection(walker, sectionNode, startLine);
+        walkedCount += 1;
+      }
+      sectionTokens.put(key, sectionData);
+      encoder.add(sectionData, startLine);
+    }
+
+    LOGGER.debug(
+        "Walked {} of {} sections, file: {}",
+        walkedCount,
+        sectionTokens.size(),
+        magikFile.getUri());
+    final String resultId = Long.toString(this.resultIds.incrementAndGet());
+    final IDefinitionKeeper definitionKeeper = magikFile.getDefinitionKeeper().getSnapshot();
+    return new FileTokens(resultId, encoder.toArray(), definitionKeeper, sectionTokens);
+  }
+
+  /**
+   * Get the cached tokens for {@code magikFile}, if these were computed using the current
+   * definitions.
+   */
+  private FileTokens getValidFileTokens(final MagikTypedFile magikFile) {
+    final FileTokens tokens = this.fileTokens.get(magikFile.getUri());
+    if (tokens == null
+        || tokens.definitionKeeper() != magikFile.getDefinitionKeeper().getSnapshot()) {
+      return null;
+    }
+
+    return tokens;
+  }
 
-    final List<SemanticToken> walkedSemanticTokens = walker.getSemanticTokens();
-    return this.buildSemanticTokens(walkedSemanticTokens);
+  private int[] walkSection(
+      final MagikSemanticTokenWalker walker, final AstNode sectionNode, final int startLine) {
+    final int startIndex = walker.getSemanticTokens().size();
+    walker.walkAst(sectionNode);
+    final List<SemanticToken> semanticTokens = walker.getSemanticTokens();
+    return SemanticTokenProvider.toSectionData(
+        semanticTokens.subList(startIndex, semanticTokens.size()), startLine);
   }
 
-  private SemanticTokens buildSemanticTokens(final List<SemanticToken> walkedSemanticTokens) {
-    if (walkedSemanticTokens.isEmpty()) {
-      return new SemanticTokens(Collections.emptyList());
+  /**
+   * Get the key of a section: the kind of reasoning, the current package, the start and end
+   * columns, and the full source lines of the section, including any leading comments. The columns
+   * tell apart sections sharing the same lines.
+   */
+  private String getSectionKey(
+      final MagikSemanticTokenWalker walker,
+      final AstNode sectionNode,
+      final LineTable lineTable,
+      final int startLine) {
+    final int startColumn = SemanticTokenProvider.getStartToken(sectionNode).getColumn();
+    final Position endPosition = Position.fromTokenEnd(sectionNode.getLastToken());
+    final int endLine = endPosition.getLine();
+    final StringBuilder builder =
+        new StringBuilder(walker.isWholeFileReasoned() ? "file " : "section ")
+            .append(walker.getCurrentPackage())
+            .append(' ')
+            .append(startColumn)
+            .append('-')
+            .append(endPosition.getColumn());
+    for (int line = startLine; line <= Math.min(endLine, lineTable.getLineCount()); ++line) {
+      builder.append('\n').append(lineTable.getLine(line));
     }
+    return builder.toString();
+  }
 
-    final ArrayList<Integer> data =
-        new ArrayList<>((walkedSemanticTokens.size() - 1) * SIZE_PER_TOKEN);
-    final SemanticToken startSemanticToken = this.createStartSemanticToken();
-    Stream.concat(Stream.of(startSemanticToken), walkedSemanticTokens.stream())
-        .reduce( // NOSONAR: Data is stored in `data` list.
-            (s1, s2) -> {
-              s2.dataToPrevious(s1).collect(Collectors.toCollection(() -> data));
-              return s2;
-            });
-    return new SemanticTokens(data);
-  }
-
-  private SemanticToken createStartSemanticToken() {
-    final Token startToken =
-        Token.builder()
-            .setLine(1)
-            .setColumn(0)
-            .setValueAndOriginalValue("")
-            .setType(GenericTokenType.UNKNOWN_CHAR)
-            .setURI(URI.create("magik://dummy"))
-            .build();
-    return new SemanticToken(startToken, SemanticToken.Type.CLASS, Collections.emptySet());
+  private static int getStartLine(final AstNode sectionNode) {
+    return SemanticTokenProvider.getStartToken(sectionNode).getLine();
+  }
+
+  /** Get the first token of a section, including any leading comments. */
+  private static Token getStartToken(final AstNode sectionNode) {
+    final Token token = sectionNode.getToken();
+    final List<Trivia> trivia = token.getTrivia();
+    if (trivia.isEmpty()) {
+      return token;
+    }
+
+    return trivia.get(0).getToken();
+  }
+
+  /**
+   * Convert semantic tokens to flat data, {@value #SIZE_PER_TOKEN} values per token: line relative
+   * to {@code startLine}, column, length, token type and token modifiers.
+   */
+  private static int[] toSectionData(
+      final List<SemanticToken> semanticTokens, final int startLine) {
+    final int[] data = new int[semanticTokens.size() * SIZE_PER_TOKEN];
+    int offset = 0;
+    for (final SemanticToken semanticToken : semanticTokens) {
+      data[offset] = semanticToken.getLine() - startLine;
+      data[offset + 1] = semanticToken.getColumn();
+      data[offset + 2] = semanticToken.getLength();
+      data[offset + 3] = semanticToken.tokenTypeValue();
+      data[offset + 4] = semanticToken.tokenModifiersValue();
+      offset += SIZE_PER_TOKEN;
+    }
+    return data;
+  }
+
+  /**
+   * Build a single edit from {@code previousData} to {@code data}, replacing everything between the
+   * common prefix and the common suffix.
+   */
+  private static SemanticTokensEdit buildEdit(final int[] previousData, final int[] data) {
+    final int maxCommon = Math.min(previousData.length, data.length);
+    int prefix = 0;
+    while (prefix < maxCommon && previousData[prefix] == data[prefix]) {
+      prefix += 1;
+    }
+
+    int suffix = 0;
+    while (suffix < maxCommon - prefix
+        && previousData[previousData.length - 1 - suffix] == data[data.length - 1 - suffix]) {
+      suffix += 1;
+    }
+
+    final int deleteCount = previousData.length - prefix - suffix;
+    final int[] inserted = Arrays.copyOfRange(data, prefix, data.length - suffix);
+    if (deleteCount == 0 && inserted.length == 0) {
+      return null;
+    }
+
+    return new SemanticTokensEdit(prefix, deleteCount, SemanticTokenProvider.toList(inserted));
+  }
+
+  private static List<Integer> toList(final int[] data) {
+    return Arrays.stream(data).boxed().toList();
+  }
+
+  /** Encoder of section data to the relative format used by the LSP protocol. */
+  private static final class TokenEncoder {
+
+    private int[] data = new int[SIZE_PER_TOKEN * 64];
+    private int size;
+    private int previousLine = 1;
+    private int previousColumn;
+
+    void add(final int[] sectionData, final int startLine) {
+      for (int offset = 0; offset < sectionData.length; offset += SIZE_PER_TOKEN) {
+        if (this.size + SIZE_PER_TOKEN > this.data.length) {
+          this.data = Arrays.copyOf(this.data, this.data.length * 2);
+        }
+
+        // delta line, delta startChar, length, tokenType, tokenModifiers
+        final int line = startLine + sectionData[offset];
+        final int column = sectionData[offset + 1];
+        this.data[this.size] = line - this.previousLine;
+        this.data[this.size + 1] =
+            line == this.previousLine ? column - this.previousColumn : column;
+        this.data[this.size + 2] = sectionData[offset + 2];
+        this.data[this.size + 3] = sectionData[offset + 3];
+        this.data[this.size + 4] = sectionData[offset + 4];
+        this.size += SIZE_PER_TOKEN;
+        this.previousLine = line;
+        this.previousColumn = column;
+      }
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(this.data, this.size);
+    }
   }
 }
@@ -72,7 +72,8 @@ public class SignatureHelpProvider {
       final IDefinitionKeeper definitionKeeper = magikFile.getDefinitionKeeper();
       // Provide all methods with the name.
       sigInfos =
-          definitionKeeper.getMethodDefinitions().stream()
+          definitionKeeper
+              .streamMethodDefinitions()
               .filter(methodDef -> methodDef.getMethodName().startsWith(methodName))
               .map(
                   methodDef ->
@@ -83,19 +83,20 @@ public class SymbolProvider {
         definition -> pattern.matcher(definition.getName()).matches();
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
 
-    for (final ProductDefinition definition : this.definitionKeeper.getProductDefinitions()) {
-      if (predicate.test(definition)) {
-        final Location conditionLocation = definition.getLocation();
-        final Location location =
-            Location.validLocation(conditionLocation, settings.getPathMappings());
-        final WorkspaceSymbol symbol =
-            new WorkspaceSymbol(
-                "Product: " + definition.getName(),
-                SymbolKind.Package,
-                Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
-        workspaceSymbols.add(symbol);
-      }
-    }
+    this.definitionKeeper.forEachProductDefinition(
+        definition -> {
+          if (predicate.test(definition)) {
+            final Location conditionLocation = definition.getLocation();
+            final Location location =
+                Location.validLocation(conditionLocation, settings.getPathMappings());
+            final WorkspaceSymbol symbol =
+                new WorkspaceSymbol(
+                    "Product: " + definition.getName(),
+                    SymbolKind.Package,
+                    Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
+            workspaceSymbols.add(symbol);
+          }
+        });
   }
 
   private void gatherModules(final String query, final List<WorkspaceSymbol> workspaceSymbols) {
@@ -104,56 +105,63 @@ public class SymbolProvider {
         definition -> pattern.matcher(definition.getName()).matches();
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
 
-    for (final ModuleDefinition definition : this.definitionKeeper.getModuleDefinitions()) {
-      if (predicate.test(definition)) {
-        final Location conditionLocation = definition.getLocation();
-        final Location location =
-            Location.validLocation(conditionLocation, settings.getPathMappings());
-        final WorkspaceSymbol symbol =
-            new WorkspaceSymbol(
-                "Module: " + definition.getName(),
-                SymbolKind.Module,
-                Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
-        workspaceSymbols.add(symbol);
-      }
-    }
+    this.definitionKeeper.forEachModuleDefinition(
+        definition -> {
+          if (predicate.test(definition)) {
+            final Location conditionLocation = definition.getLocation();
+            final Location location =
+                Location.validLocation(conditionLocation, settings.getPathMappings());
+            final WorkspaceSymbol symbol =
+                new WorkspaceSymbol(
+                    "Module: " + definition.getName(),
+                    SymbolKind.Module,
+                    Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
+            workspaceSymbols.add(symbol);
+          }
+        });
   }
 
   private void gatherTypes(final String query, final List<WorkspaceSymbol> workspaceSymbols) {
     final Predicate<ITypeStringDefinition> predicate = this.buildTypePredicate(query);
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
 
-    for (final ExemplarDefinition definition : this.definitionKeeper.getExemplarDefinitions()) {
-      if (predicate.test(definition)) {
-        final Location typeLocation = definition.getLocation();
-        final Location location = Location.validLocation(typeLocation, settings.getPathMappings());
-        final WorkspaceSymbol symbol =
-            new WorkspaceSymbol(
-                "Exemplar: " + definition.getTypeString().getFullString(),
-                SymbolKind.Class,
-                Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
-        workspaceSymbols.add(symbol);
-      }
-    }
+    this.definitionKeeper.forEachExemplarDefinition(
+        definition -> {
+          if (predicate.test(definition)) {
+            final Location typeLocation = definition.getLocation();
+            final Location location =
+                Location.validLocation(typeLocation, settings.getPathMappings());
+            final WorkspaceSymbol symbol =
+                new WorkspaceSymbol(
+                    "Exemplar: " + definition.getTypeString().getFullString(),
+                    SymbolKind.Class,
+                    Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
+            workspaceSymbols.add(symbol);
+          }
+        });
   }
 
   private void gatherMethods(final String query, final List<WorkspaceSymbol> workspaceSymbols) {
     final Predicate<MethodDefinition> predicate = this.buildMethodPredicate(query);
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
 
-    for (final MethodDefinition definition : this.definitionKeeper.getMethodDefinitions()) {
-      if (predicate.test(definition)) {
-        final Location methodLocation = definition.getLocation();
-        final Location location =
-            Location.validLocation(methodLocation, settings.getPathMappings());
-        final WorkspaceSymbol symbol =
-            new WorkspaceSymbol(
-                "Method: " + definition.getName(),
-                SymbolKind.Method,
-                Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
-        workspaceSymbols.add(symbol);
-      }
-    }
+    final List<WorkspaceSymbol> methodSymbols =
+        this.definitionKeeper
+            .streamMethodDefinitions()
+            .parallel()
+            .filter(predicate)
+            .map(
+                definition -> {
+                  final Location methodLocation = definition.getLocation();
+                  final Location location =
+                      Location.validLocation(methodLocation, settings.getPathMappings());
+                  return new WorkspaceSymbol(
+                      "Method: " + definition.getName(),
+                      SymbolKind.Method,
+                      Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
+                })
+            .toList();
+    workspaceSymbols.addAll(methodSymbols);
   }
 
   /**
@@ -166,19 +174,20 @@ public class SymbolProvider {
     final Predicate<ConditionDefinition> predicate = this.buildConditionPredicate(query);
     final MagikLanguageServerSettings settings = new MagikLanguageServerSettings(this.properties);
 
-    for (final ConditionDefinition definition : this.definitionKeeper.getConditionDefinitions()) {
-      if (predicate.test(definition)) {
-        final Location conditionLocation = definition.getLocation();
-        final Location location =
-            Location.validLocation(conditionLocation, settings.getPathMappings());
-        final WorkspaceSymbol symbol =
-            new WorkspaceSymbol(
-                "Condition: " + definition.getName(),
-                SymbolKind.Class,
-                Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
-        workspaceSymbols.add(symbol);
-      }
-    }
+    this.definitionKeeper.forEachConditionDefinition(
+        definition -> {
+          if (predicate.test(definition)) {
+            final Location conditionLocation = definition.getLocation();
+            final Location location =
+                Location.validLocation(conditionLocation, settings.getPathMappings());
+            final WorkspaceSymbol symbol =
+                new WorkspaceSymbol(
+                    "Condition: " + definition.getName(),
+                    SymbolKind.Class,
+                    Either.forLeft(Lsp4jConversion.locationToLsp4j(location)));
+            workspaceSymbols.add(symbol);
+          }
+        });
   }
 
   /**
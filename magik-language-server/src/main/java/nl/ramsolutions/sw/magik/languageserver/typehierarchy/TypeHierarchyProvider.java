@@ -132,7 +132,8 @@ public class TypeHierarchyProvider {
     // Find children.
     final TypeString searchedTypeString = definition.getTypeString();
     final Comparator<TypeHierarchyItem> byName = Comparator.comparing(TypeHierarchyItem::getName);
-    return this.definitionKeeper.getExemplarDefinitions().stream()
+    return this.definitionKeeper
+        .streamExemplarDefinitions()
         .filter(def -> resolver.getParents(def.getTypeString()).contains(searchedTypeString))
         .map(this::toTypeHierarchyItem)
         .sorted(byName)
@@ -0,0 +1,37 @@
+package nl.ramsolutions.sw.magik.languageserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Tests for MagikLanguageServerSettings. */
+class MagikLanguageServerSettingsTest {
+
+  @Test
+  void testUserCacheDirWindows() {
+    assertThat(
+            MagikLanguageServerSettings.getUserCacheDir(
+                "Windows 11", Map.of("LOCALAPPDATA", "/local"), "/home"))
+        .isEqualTo(Path.of("/local", "magik-tools"));
+    assertThat(MagikLanguageServerSettings.getUserCacheDir("Windows 11", Map.of(), "/home"))
+        .isEqualTo(Path.of("/home", "AppData", "Local", "magik-tools"));
+  }
+
+  @Test
+  void testUserCacheDirMac() {
+    assertThat(MagikLanguageServerSettings.getUserCacheDir("Mac OS X", Map.of(), "/home"))
+        .isEqualTo(Path.of("/home", "Library", "Caches", "magik-tools"));
+  }
+
+  @Test
+  void testUserCacheDirLinux() {
+    assertThat(
+            MagikLanguageServerSettings.getUserCacheDir(
+                "Linux", Map.of("XDG_CACHE_HOME", "/cache"), "/home"))
+        .isEqualTo(Path.of("/cache", "magik-tools"));
+    assertThat(MagikLanguageServerSettings.getUserCacheDir("Linux", Map.of(), "/home"))
+        .isEqualTo(Path.of("/home", ".cache", "magik-tools"));
+  }
+}
@@ -6,7 +6,13 @@ import java.net.URI;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.typing.reasoner.LocalTypeReasonerState;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensDelta;
+import org.eclipse.lsp4j.SemanticTokensEdit;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.junit.jupiter.api.Test;
 
 /** Test SemanticTokenProvider. */
@@ -398,4 +404,104 @@ class SemanticTokenProviderTest {
             SemanticToken.Type.KEYWORD.getTokenType(),
             0);
   }
+
+  @Test
+  void testFullDelta() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final SemanticTokenProvider provider = new SemanticTokenProvider();
+    final String code1 = "100\n$\n200\n$\n";
+    final MagikTypedFile magikFile1 = new MagikTypedFile(DEFAULT_URI, code1, definitionKeeper);
+    final SemanticTokens semanticTokens1 = provider.provideSemanticTokensFull(magikFile1);
+
+    final String code2 = "100\n$\n\"a\"\n$\n";
+    final MagikTypedFile magikFile2 = new MagikTypedFile(DEFAULT_URI, code2, definitionKeeper);
+    final Either<SemanticTokens, SemanticTokensDelta> either =
+        provider.provideSemanticTokensFullDelta(magikFile2, semanticTokens1.getResultId());
+    assertThat(either.isRight()).isTrue();
+
+    final SemanticTokensDelta delta = either.getRight();
+    assertThat(delta.getEdits()).hasSize(1);
+    final SemanticTokensEdit edit = delta.getEdits().get(0);
+    assertThat(edit.getStart()).isEqualTo(8);
+    assertThat(edit.getDeleteCount()).isEqualTo(1);
+    assertThat(edit.getData()).containsExactly(SemanticToken.Type.STRING.getTokenType());
+  }
+
+  @Test
+  void testRange() {
+    final String code = "100\n$\n\"a\"\n$\n";
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final MagikTypedFile magikFile = new MagikTypedFile(DEFAULT_URI, code, definitionKeeper);
+    final SemanticTokenProvider provider = new SemanticTokenProvider();
+    final Range range = new Range(new Position(2, 0), new Position(2, 2));
+    final SemanticTokens semanticTokens = provider.provideSemanticTokensRange(magikFile, range);
+    assertThat(semanticTokens.getData())
+        .containsExactly(2, 0, "\"a\"".length(), SemanticToken.Type.STRING.getTokenType(), 0);
+  }
+
+  @Test
+  void testSectionsOnSameLines() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final SemanticTokenProvider provider = new SemanticTokenProvider();
+    // A transmit not at the start of a line: a syntax error, the transmit and the string statement
+    // all share line 1.
+    final String code = "100 $ \"a\"\n$\n";
+    final MagikTypedFile magikFile1 = new MagikTypedFile(DEFAULT_URI, code, definitionKeeper);
+    final SemanticTokens semanticTokens1 = provider.provideSemanticTokensFull(magikFile1);
+    assertThat(semanticTokens1.getData())
+        .containsExactly(0, 6, "\"a\"".length(), SemanticToken.Type.STRING.getTokenType(), 0);
+
+    // Reusing the tokens of unchanged sections keeps the sections apart.
+    final MagikTypedFile magikFile2 = new MagikTypedFile(DEFAULT_URI, code, definitionKeeper);
+    final SemanticTokens semanticTokens2 = provider.provideSemanticTokensFull(magikFile2);
+    assertThat(semanticTokens2.getData()).isEqualTo(semanticTokens1.getData());
+  }
+
+  @Test
+  void testSectionsWalkedAgainWithWholeFileReasoning() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final SemanticTokenProvider provider = new SemanticTokenProvider();
+    final String code = "a.method()\n$\n";
+    final CountingMagikTypedFile magikFile1 = new CountingMagikTypedFile(code, definitionKeeper);
+    final SemanticTokens semanticTokens1 = provider.provideSemanticTokensFull(magikFile1);
+    assertThat(magikFile1.sectionReasonerCount).isPositive();
+    assertThat(magikFile1.fileReasonerCount).isZero();
+
+    // Once the whole file is reasoned about, the sections reasoned about in isolation are walked
+    // again.
+    magikFile1.getTypeReasonerState();
+    final int fileReasonerCount = magikFile1.fileReasonerCount;
+    final SemanticTokens semanticTokens2 = provider.provideSemanticTokensFull(magikFile1);
+    assertThat(magikFile1.fileReasonerCount).isGreaterThan(fileReasonerCount);
+    assertThat(semanticTokens2.getData()).isEqualTo(semanticTokens1.getData());
+
+    // Without the whole file reasoned about, the sections are not taken from the whole file walk.
+    final CountingMagikTypedFile magikFile2 = new CountingMagikTypedFile(code, definitionKeeper);
+    provider.provideSemanticTokensFull(magikFile2);
+    assertThat(magikFile2.sectionReasonerCount).isPositive();
+  }
+
+  /** {@link MagikTypedFile} counting the use of its reasoner states. */
+  private static final class CountingMagikTypedFile extends MagikTypedFile {
+
+    private int fileReasonerCount;
+    private int sectionReasonerCount;
+
+    CountingMagikTypedFile(final String code, final IDefinitionKeeper definitionKeeper) {
+      super(DEFAULT_URI, code, definitionKeeper);
+    }
+
+    @Override
+    public synchronized LocalTypeReasonerState getTypeReasonerState() {
+      this.fileReasonerCount += 1;
+      return super.getTypeReasonerState();
+    }
+
+    @Override
+    public synchronized LocalTypeReasonerState getSectionTypeReasonerState(
+        final nl.ramsolutions.sw.magik.Range range) {
+      this.sectionReasonerCount += 1;
+      return super.getSectionTypeReasonerState(range);
+    }
+  }
 }
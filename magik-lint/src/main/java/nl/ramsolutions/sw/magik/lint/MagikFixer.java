@@ -14,6 +14,7 @@ import java.util.stream.Collectors;
 import nl.ramsolutions.sw.ConfigurationReader;
 import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.Position;
 import nl.ramsolutions.sw.magik.Range;
@@ -115,8 +116,7 @@ public class MagikFixer {
     final MagikToolsProperties fileProperties =
         ConfigurationReader.readProperties(path, this.properties);
     final URI uri = path.toUri();
-    final Charset charset = FileCharsetDeterminer.determineCharset(path);
-    final String fileContents = Files.readString(path, charset);
+    final String fileContents = SourceFileLoader.readString(path);
     return new MagikFile(fileProperties, uri, fileContents);
   }
 
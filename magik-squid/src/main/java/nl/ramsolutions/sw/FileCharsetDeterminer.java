@@ -60,6 +60,30 @@ public final class FileCharsetDeterminer {
     return DEFAULT_CHARSET;
   }
 
+  /**
+   * Try to determine the charset used in the raw contents of a file. Magik files usually contain a
+   * line specifying the encoding: #% text_encoding = iso8859_1
+   *
+   * @param bytes Raw contents of file.
+   * @return Charset for file or <code>defaultCharset</code> if undetermined
+   */
+  public static Charset determineCharset(final byte[] bytes) {
+    // The encoding line is plain ASCII, only decode the first line.
+    int lineEnd = 0;
+    while (lineEnd < bytes.length && bytes[lineEnd] != '\n' && bytes[lineEnd] != '\r') {
+      lineEnd++;
+    }
+
+    final String line = new String(bytes, 0, lineEnd, StandardCharsets.ISO_8859_1);
+    try {
+      return FileCharsetDeterminer.readCharsetFromLine(line);
+    } catch (final IllegalArgumentException exception) {
+      // do nothing
+    }
+
+    return DEFAULT_CHARSET;
+  }
+
   private static Charset readCharsetFromLine(final String line) {
     if (line != null && line.startsWith(ENCODING_LINE)) {
       final String encoding = line.substring(ENCODING_LINE.length()).trim();
@@ -0,0 +1,40 @@
+package nl.ramsolutions.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Source file loader.
+ *
+ * <p>Reads the file once, determines the charset from the raw contents using {@link
+ * FileCharsetDeterminer}, and decodes it. Use this instead of {@link
+ * FileCharsetDeterminer#determineCharset(Path)} followed by {@link Files#readString(Path,
+ * Charset)}, which opens and reads the file twice.
+ */
+public final class SourceFileLoader {
+
+  private SourceFileLoader() {}
+
+  /**
+   * Read the contents of a file, decoded using the charset given by its `#% text_encoding` line.
+   *
+   * @param path Path to file.
+   * @return Contents of file.
+   * @throws IOException If the file cannot be read, or is not valid in its charset.
+   */
+  public static String readString(final Path path) throws IOException {
+    final byte[] bytes = Files.readAllBytes(path);
+    final Charset charset = FileCharsetDeterminer.determineCharset(bytes);
+    // Report malformed input, like Files.readString() does.
+    return charset
+        .newDecoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT)
+        .decode(ByteBuffer.wrap(bytes))
+        .toString();
+  }
+}
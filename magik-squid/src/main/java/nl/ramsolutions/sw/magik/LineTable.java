@@ -0,0 +1,127 @@
+package nl.ramsolutions.sw.magik;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Table of line start offsets of a source text.
+ *
+ * <p>Lines are separated by `\r\n`, `\n` or `\r`, the separators are not part of the lines. A
+ * source text ending with a separator has a last, empty, line. Lines start at 1, columns start at
+ * 0, like {@link Position}.
+ */
+public final class LineTable {
+
+  private final String source;
+  private final int[] lineStarts;
+  private final int[] lineEnds;
+
+  /**
+   * Constructor.
+   *
+   * @param source Source text.
+   */
+  public LineTable(final String source) {
+    this.source = source;
+
+    final int length = source.length();
+    int[] starts = new int[Math.max(16, length / 32)];
+    int[] ends = new int[starts.length];
+    int count = 0;
+    int lineStart = 0;
+    for (int i = 0; i < length; ++i) {
+      final char chr = source.charAt(i);
+      if (chr != '\n' && chr != '\r') {
+        continue;
+      }
+
+      if (count == starts.length - 1) {
+        starts = Arrays.copyOf(starts, starts.length * 2);
+        ends = Arrays.copyOf(ends, ends.length * 2);
+      }
+      starts[count] = lineStart;
+      ends[count] = i;
+      count++;
+
+      if (chr == '\r' && i + 1 < length && source.charAt(i + 1) == '\n') {
+        ++i;
+      }
+      lineStart = i + 1;
+    }
+    starts[count] = lineStart;
+    ends[count] = length;
+    count++;
+
+    this.lineStarts = Arrays.copyOf(starts, count);
+    this.lineEnds = Arrays.copyOf(ends, count);
+  }
+
+  /**
+   * Get the number of lines.
+   *
+   * @return Number of lines, at least 1.
+   */
+  public int getLineCount() {
+    return this.lineStarts.length;
+  }
+
+  /**
+   * Get a line, as a view on the source text without copying.
+   *
+   * @param line Line number, 1-based.
+   * @return Line, without line separator.
+   */
+  public CharSequence getLine(final int line) {
+    return CharBuffer.wrap(this.source, this.getLineStart(line), this.getLineEnd(line));
+  }
+
+  /**
+   * Get the offset of the start of a line.
+   *
+   * @param line Line number, 1-based.
+   * @return Offset of the first character of the line.
+   */
+  public int getLineStart(final int line) {
+    this.checkLine(line);
+    return this.lineStarts[line - 1];
+  }
+
+  /**
+   * Get the offset of the end of a line, excluding the line separator.
+   *
+   * @param line Line number, 1-based.
+   * @return Offset just after the last character of the line.
+   */
+  public int getLineEnd(final int line) {
+    this.checkLine(line);
+    return this.lineEnds[line - 1];
+  }
+
+  /**
+   * Get the length of a line, excluding the line separator.
+   *
+   * @param line Line number, 1-based.
+   * @return Length of line.
+   */
+  public int getLineLength(final int line) {
+    return this.getLineEnd(line) - this.getLineStart(line);
+  }
+
+  /**
+   * Get the offset in the source text of a {@link Position}. The column is clamped to the line.
+   *
+   * @param position Position.
+   * @return Offset in source text.
+   */
+  public int getOffset(final Position position) {
+    final int line = position.getLine();
+    final int column = Math.max(0, Math.min(position.getColumn(), this.getLineLength(line)));
+    return this.getLineStart(line) + column;
+  }
+
+  private void checkLine(final int line) {
+    if (line < 1 || line > this.lineStarts.length) {
+      throw new IndexOutOfBoundsException("Line out of range: " + line);
+    }
+  }
+}
@@ -16,12 +16,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.IDefinition;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.OpenedFile;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinitionReader;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
@@ -40,8 +39,11 @@ public class MagikFile extends OpenedFile {
 
   private final @Nullable Instant timestamp;
   private final MagikToolsProperties properties;
+  private LineTable lineTable;
   private AstNode astNode;
   private GlobalScope globalScope;
+  private PositionIndex positionIndex;
+  private SuppressionIndex suppressionIndex;
   private List<MagikDefinition> definitions;
   private final Map<CommentInstructionReader.Instruction, Map<Integer, Map<String, String>>>
       statementInstructions = new HashMap<>();
@@ -79,7 +81,7 @@ public class MagikFile extends OpenedFile {
    * @throws IOException -
    */
   public MagikFile(final MagikToolsProperties properties, final Path path) throws IOException {
-    super(path.toUri(), Files.readString(path, FileCharsetDeterminer.determineCharset(path)));
+    super(path.toUri(), SourceFileLoader.readString(path));
     this.timestamp = Files.getLastModifiedTime(path).toInstant();
     this.properties = properties;
   }
@@ -101,11 +103,39 @@ public class MagikFile extends OpenedFile {
   /**
    * Get the source lines.
    *
+   * <p>Like splitting the source on line separators, trailing empty lines are not included. Prefer
+   * {@link #getLineTable()}, which does not copy the lines.
+   *
    * @return Source lines.
    */
   public String[] getSourceLines() {
-    final String source = this.getSource();
-    return source.split("\r\n|\n|\r");
+    final LineTable table = this.getLineTable();
+    int lineCount = table.getLineCount();
+    if (this.getSource().isEmpty()) {
+      return new String[] {""};
+    }
+
+    while (lineCount > 0 && table.getLineLength(lineCount) == 0) {
+      lineCount--;
+    }
+    final String[] lines = new String[lineCount];
+    for (int line = 1; line <= lineCount; ++line) {
+      lines[line - 1] = table.getLine(line).toString();
+    }
+    return lines;
+  }
+
+  /**
+   * Get the {@link LineTable} for this file.
+   *
+   * @return {@link LineTable} for this file.
+   */
+  public synchronized LineTable getLineTable() {
+    if (this.lineTable == null) {
+      this.lineTable = new LineTable(this.getSource());
+    }
+
+    return this.lineTable;
   }
 
   /**
@@ -119,6 +149,7 @@ public class MagikFile extends OpenedFile {
       final String magikSource = this.getSource();
       final URI uri = this.getUri();
       this.astNode = parser.parseSafe(magikSource, uri);
+      PositionIndex.register(this.astNode, this);
     }
 
     return this.astNode;
@@ -140,6 +171,34 @@ public class MagikFile extends OpenedFile {
     return this.globalScope;
   }
 
+  /**
+   * Get the {@link PositionIndex} for this file.
+   *
+   * @return {@link PositionIndex} for this file.
+   */
+  public synchronized PositionIndex getPositionIndex() {
+    if (this.positionIndex == null) {
+      final AstNode topNode = this.getTopNode();
+      final GlobalScope scope = this.getGlobalScope();
+      this.positionIndex = new PositionIndex(topNode, scope);
+    }
+
+    return this.positionIndex;
+  }
+
+  /**
+   * Get the {@link SuppressionIndex} for this file.
+   *
+   * @return {@link SuppressionIndex} for this file.
+   */
+  public synchronized SuppressionIndex getSuppressionIndex() {
+    if (this.suppressionIndex == null) {
+      this.suppressionIndex = new SuppressionIndex(this);
+    }
+
+    return this.suppressionIndex;
+  }
+
   /**
    * Get the {@link MagikFileDefinition} for this file.
    *
@@ -216,17 +275,16 @@ public class MagikFile extends OpenedFile {
     final CommentInstructionReader instructionReader =
         new CommentInstructionReader(this, Set.of(instruction));
 
-    final String[] sourceLines = this.getSourceLines();
-    return IntStream.range(0, sourceLines.length)
-        .mapToObj(
-            line -> {
-              final String instrAtLine = instructionReader.getInstructionsAtLine(line, instruction);
-              final String lineInstrsStr = Objects.requireNonNullElse(instrAtLine, "");
-              final Map<String, String> lineInstrs =
-                  CommentInstructionReader.parseInstructions(lineInstrsStr);
-              return Map.entry(line, lineInstrs);
-            })
-        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    // Only lines with an instruction are included.
+    final LineTable table = this.getLineTable();
+    final Map<Integer, Map<String, String>> instructions = new HashMap<>();
+    for (int line = 0; line < table.getLineCount(); ++line) {
+      final String instrAtLine = instructionReader.getInstructionsAtLine(line, instruction);
+      if (instrAtLine != null) {
+        instructions.put(line, CommentInstructionReader.parseInstructions(instrAtLine));
+      }
+    }
+    return instructions;
   }
 
   /**
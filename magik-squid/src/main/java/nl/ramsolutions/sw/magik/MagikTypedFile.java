@@ -1,6 +1,11 @@
 package nl.ramsolutions.sw.magik;
 
+import com.sonar.sslr.api.AstNode;
 import java.net.URI;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver;
@@ -13,6 +18,11 @@ public class MagikTypedFile extends MagikFile {
   private final IDefinitionKeeper definitionKeeper;
   private final TypeStringResolver typeStringResolver;
   private LocalTypeReasonerState reasonerState;
+  private LocalTypeReasoner sectionReasoner;
+  private List<AstNode> sectionNodes;
+  private List<Range> sectionRanges;
+  private final Set<AstNode> reasonedSectionNodes =
+      Collections.newSetFromMap(new IdentityHashMap<>());
 
   /**
    * Constructor.
@@ -75,6 +85,78 @@ public class MagikTypedFile extends MagikFile {
     return this.reasonerState;
   }
 
+  /**
+   * Get the resulting state from the {@link LocalTypeReasoner}, reasoning only about the top level
+   * sections (method definitions, statements, etc.) which overlap with {@code range}.
+   *
+   * <p>If the whole file has already been reasoned about, that state is returned. Otherwise,
+   * sections are reasoned about in isolation, on demand, and the results accumulate in a separate
+   * state. Nodes outside the reasoned sections have no type.
+   *
+   * @param range Range to reason about.
+   * @return The {@link LocalTypeReasonerState}.
+   */
+  public synchronized LocalTypeReasonerState getTypeReasonerState(final Range range) {
+    if (this.reasonerState != null) {
+      return this.reasonerState;
+    }
+
+    return this.getSectionTypeReasonerState(range);
+  }
+
+  /**
+   * Test if the whole file has been reasoned about, i.e., {@link #getTypeReasonerState()} does not
+   * need to reason.
+   *
+   * @return True if the whole file has been reasoned about.
+   */
+  public synchronized boolean hasTypeReasonerState() {
+    return this.reasonerState != null;
+  }
+
+  /**
+   * Get the resulting state from the {@link LocalTypeReasoner}, reasoning about the top level
+   * sections which overlap with {@code range} in isolation, even if the whole file has already been
+   * reasoned about.
+   *
+   * @param range Range to reason about.
+   * @return The {@link LocalTypeReasonerState}.
+   */
+  public synchronized LocalTypeReasonerState getSectionTypeReasonerState(final Range range) {
+    if (this.sectionReasoner == null) {
+      this.sectionReasoner = new LocalTypeReasoner(this);
+      this.sectionNodes = this.getTopNode().getChildren();
+      this.sectionRanges = this.sectionNodes.stream().map(Range::fromTree).toList();
+    }
+
+    // Sections are ordered, find the first section which does not end before the range.
+    int low = 0;
+    int high = this.sectionRanges.size();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      final Range sectionRange = this.sectionRanges.get(mid);
+      if (sectionRange.getEndPosition().compareTo(range.getStartPosition()) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    for (int i = low; i < this.sectionRanges.size(); ++i) {
+      final Range sectionRange = this.sectionRanges.get(i);
+      if (sectionRange.getStartPosition().compareTo(range.getEndPosition()) > 0) {
+        break;
+      }
+
+      final AstNode sectionNode = this.sectionNodes.get(i);
+      if (this.reasonedSectionNodes.add(sectionNode)) {
+        this.sectionReasoner.run(sectionNode);
+      }
+    }
+
+    return this.sectionReasoner.getState();
+  }
+
   @Override
   public String toString() {
     return String.format(
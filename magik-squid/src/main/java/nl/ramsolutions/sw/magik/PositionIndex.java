@@ -0,0 +1,395 @@
+package nl.ramsolutions.sw.magik;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import nl.ramsolutions.sw.magik.analysis.AstQuery;
+import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
+import nl.ramsolutions.sw.magik.analysis.scope.Scope;
+
+/**
+ * Positional index of a parsed {@link MagikFile}, for position to node and position to scope
+ * lookups.
+ *
+ * <p>Token nodes are kept in source order, with their start and end positions, a token at a
+ * position is found by a binary search. Grammar nodes surrounding a position are the ancestors of
+ * the tokens at or just before that position. Scopes are properly nested ranges and are kept as an
+ * interval tree, children sorted by position, which is descended with a binary search per level.
+ *
+ * <p>Lookups give the same results as walking the tree from the top node, as done by {@link
+ * AstQuery} and {@link Scope#getScopeForLineColumn(int, int)}.
+ */
+public final class PositionIndex {
+
+  /** Parsed files by top node, for {@link #forTopNode(AstNode)}. */
+  private static final Map<AstNode, WeakReference<MagikFile>> MAGIK_FILES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final AstNode[] tokenNodes;
+  private final int[] tokenStartLines;
+  private final int[] tokenStartColumns;
+  private final int[] tokenEndLines;
+  private final int[] tokenEndColumns;
+  private final boolean tokensOrdered;
+  private final GlobalScope globalScope;
+  private final ScopeInterval globalScopeInterval;
+
+  /**
+   * Constructor.
+   *
+   * @param topNode Top node of file.
+   * @param globalScope {@link GlobalScope} of file.
+   */
+  public PositionIndex(final AstNode topNode, final GlobalScope globalScope) {
+    final List<AstNode> nodes = new ArrayList<>();
+    PositionIndex.collectTokenNodes(topNode, nodes);
+
+    final int count = nodes.size();
+    this.tokenNodes = nodes.toArray(AstNode[]::new);
+    this.tokenStartLines = new int[count];
+    this.tokenStartColumns = new int[count];
+    this.tokenEndLines = new int[count];
+    this.tokenEndColumns = new int[count];
+    boolean ordered = true;
+    for (int i = 0; i < count; ++i) {
+      final Token token = this.tokenNodes[i].getToken();
+      final Position endPosition = Position.fromTokenEnd(token);
+      this.tokenStartLines[i] = token.getLine();
+      this.tokenStartColumns[i] = token.getColumn();
+      this.tokenEndLines[i] = endPosition.getLine();
+      this.tokenEndColumns[i] = endPosition.getColumn();
+
+      if (i > 0
+          && (PositionIndex.compare(
+                      this.tokenStartLines[i - 1],
+                      this.tokenStartColumns[i - 1],
+                      this.tokenStartLines[i],
+                      this.tokenStartColumns[i])
+                  > 0
+              || PositionIndex.compare(
+                      this.tokenEndLines[i - 1],
+                      this.tokenEndColumns[i - 1],
+                      this.tokenEndLines[i],
+                      this.tokenEndColumns[i])
+                  > 0)) {
+        ordered = false;
+      }
+    }
+    this.tokensOrdered = ordered;
+
+    this.globalScope = globalScope;
+    this.globalScopeInterval = new ScopeInterval(globalScope);
+  }
+
+  /**
+   * Get the {@link PositionIndex} for the top node of a parsed {@link MagikFile}.
+   *
+   * @param topNode Top node.
+   * @return Index, or null if {@code topNode} is not the top node of a {@link MagikFile}.
+   */
+  @CheckForNull
+  public static PositionIndex forTopNode(final AstNode topNode) {
+    final WeakReference<MagikFile> reference = PositionIndex.MAGIK_FILES.get(topNode);
+    final MagikFile magikFile = reference != null ? reference.get() : null;
+    if (magikFile == null) {
+      return null;
+    }
+
+    return magikFile.getPositionIndex();
+  }
+
+  /**
+   * Register the top node of a {@link MagikFile}. Does not keep the file alive.
+   *
+   * @param topNode Top node.
+   * @param magikFile File.
+   */
+  static void register(final AstNode topNode, final MagikFile magikFile) {
+    PositionIndex.MAGIK_FILES.put(topNode, new WeakReference<>(magikFile));
+  }
+
+  /**
+   * Get the {@link GlobalScope} this index was built for.
+   *
+   * @return Global scope.
+   */
+  public GlobalScope getGlobalScope() {
+    return this.globalScope;
+  }
+
+  /**
+   * Get the first token node containing {@code position}. See {@link AstQuery#nodeAt(AstNode,
+   * Position)}.
+   *
+   * @param position Position.
+   * @return Token node, or null if none.
+   */
+  @CheckForNull
+  public AstNode nodeAt(final Position position) {
+    final int line = position.getLine();
+    final int column = position.getColumn();
+    if (!this.tokensOrdered) {
+      for (int i = 0; i < this.tokenNodes.length; ++i) {
+        if (this.compareToStart(i, line, column) <= 0 && this.compareToEnd(i, line, column) >= 0) {
+          return this.tokenNodes[i];
+        }
+      }
+      return null;
+    }
+
+    final int index = this.firstEndingAtOrAfter(line, column);
+    if (index == this.tokenNodes.length || this.compareToStart(index, line, column) > 0) {
+      return null;
+    }
+    return this.tokenNodes[index];
+  }
+
+  /**
+   * Get the last token node starting after {@code position}. See {@link
+   * AstQuery#nodeBefore(AstNode, Position)}.
+   *
+   * @param position Position.
+   * @return Token node, or null if none.
+   */
+  @CheckForNull
+  public AstNode nodeBefore(final Position position) {
+    final int line = position.getLine();
+    final int column = position.getColumn();
+    for (int i = this.tokenNodes.length - 1; i >= 0; --i) {
+      if (this.compareToStart(i, line, column) > 0) {
+        return this.tokenNodes[i];
+      }
+      if (this.tokensOrdered) {
+        break;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the first token node ending before {@code position}. See {@link AstQuery#nodeAfter(AstNode,
+   * Position)}.
+   *
+   * @param position Position.
+   * @return Token node, or null if none.
+   */
+  @CheckForNull
+  public AstNode nodeAfter(final Position position) {
+    final int line = position.getLine();
+    final int column = position.getColumn();
+    for (int i = 0; i < this.tokenNodes.length; ++i) {
+      if (this.compareToEnd(i, line, column) < 0) {
+        return this.tokenNodes[i];
+      }
+      if (this.tokensOrdered) {
+        break;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the candidate nodes surrounding {@code position}, in depth first order.
+   *
+   * <p>These are the ancestors of the tokens at, or directly before, {@code position}. Every node
+   * surrounding {@code position} is included, the caller still has to test the range of each node.
+   *
+   * @param position Position.
+   * @return Candidate nodes.
+   */
+  public List<AstNode> getSurroundingCandidates(final Position position) {
+    final int line = position.getLine();
+    final int column = position.getColumn();
+    final int count = this.tokenNodes.length;
+    final int first;
+    final int last;
+    if (this.tokensOrdered) {
+      // Last token starting at or before position.
+      last = this.lastStartingAtOrBefore(line, column);
+      first = Math.min(this.firstEndingAtOrAfter(line, column), last);
+    } else {
+      first = 0;
+      last = count - 1;
+    }
+    if (last < 0) {
+      return Collections.emptyList();
+    }
+
+    final List<AstNode> candidates = new ArrayList<>();
+    final Set<AstNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (int i = first; i <= last; ++i) {
+      final List<AstNode> ancestors = new ArrayList<>();
+      AstNode node = this.tokenNodes[i];
+      while (node != null && !seen.contains(node)) {
+        ancestors.add(node);
+        node = node.getParent();
+      }
+      Collections.reverse(ancestors);
+      candidates.addAll(ancestors);
+      seen.addAll(ancestors);
+    }
+    return candidates;
+  }
+
+  /**
+   * Get the most specific {@link Scope} at {@code line}/{@code column}. See {@link
+   * Scope#getScopeForLineColumn(int, int)}.
+   *
+   * @param line Line, 1-based.
+   * @param column Column, 0-based.
+   * @return Scope, or null if outside of the global scope.
+   */
+  @CheckForNull
+  public Scope getScopeForLineColumn(final int line, final int column) {
+    ScopeInterval interval = this.globalScopeInterval;
+    if (!interval.contains(line, column)) {
+      return null;
+    }
+
+    ScopeInterval childInterval = interval.childAt(line, column);
+    while (childInterval != null) {
+      interval = childInterval;
+      childInterval = interval.childAt(line, column);
+    }
+    return interval.scope;
+  }
+
+  private int firstEndingAtOrAfter(final int line, final int column) {
+    int low = 0;
+    int high = this.tokenNodes.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.compareToEnd(mid, line, column) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private int lastStartingAtOrBefore(final int line, final int column) {
+    int low = 0;
+    int high = this.tokenNodes.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.compareToStart(mid, line, column) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low - 1;
+  }
+
+  private int compareToStart(final int index, final int line, final int column) {
+    return PositionIndex.compare(
+        this.tokenStartLines[index], this.tokenStartColumns[index], line, column);
+  }
+
+  private int compareToEnd(final int index, final int line, final int column) {
+    return PositionIndex.compare(
+        this.tokenEndLines[index], this.tokenEndColumns[index], line, column);
+  }
+
+  private static int compare(
+      final int line1, final int column1, final int line2, final int column2) {
+    if (line1 != line2) {
+      return Integer.compare(line1, line2);
+    }
+    return Integer.compare(column1, column2);
+  }
+
+  private static void collectTokenNodes(final AstNode node, final List<AstNode> nodes) {
+    if (AstQuery.isTokenNode(node)) {
+      nodes.add(node);
+    }
+    for (final AstNode childNode : node.getChildren()) {
+      PositionIndex.collectTokenNodes(childNode, nodes);
+    }
+  }
+
+  /** Range of a {@link Scope}, with its child ranges. */
+  private static final class ScopeInterval {
+
+    private final Scope scope;
+    private final int startLine;
+    private final int startColumn;
+    private final int endLine;
+    private final int endColumn;
+    private final ScopeInterval[] children;
+    private final boolean childrenOrdered;
+
+    ScopeInterval(final Scope scope) {
+      this.scope = scope;
+      this.startLine = scope.getStartLine();
+      this.startColumn = scope.getStartColumn();
+      this.endLine = scope.getEndLine();
+      this.endColumn = scope.getEndColumn();
+      this.children =
+          scope.getChildScopes().stream().map(ScopeInterval::new).toArray(ScopeInterval[]::new);
+
+      boolean ordered = true;
+      for (int i = 1; i < this.children.length; ++i) {
+        final ScopeInterval previous = this.children[i - 1];
+        final ScopeInterval current = this.children[i];
+        if (PositionIndex.compare(
+                    previous.startLine,
+                    previous.startColumn,
+                    current.startLine,
+                    current.startColumn)
+                > 0
+            || PositionIndex.compare(
+                    previous.endLine, previous.endColumn, current.endLine, current.endColumn)
+                > 0) {
+          ordered = false;
+          break;
+        }
+      }
+      this.childrenOrdered = ordered;
+    }
+
+    boolean contains(final int line, final int column) {
+      return PositionIndex.compare(this.startLine, this.startColumn, line, column) <= 0
+          && PositionIndex.compare(this.endLine, this.endColumn, line, column) >= 0;
+    }
+
+    /** Get the first child containing line/column. */
+    @CheckForNull
+    ScopeInterval childAt(final int line, final int column) {
+      if (!this.childrenOrdered) {
+        for (final ScopeInterval child : this.children) {
+          if (child.contains(line, column)) {
+            return child;
+          }
+        }
+        return null;
+      }
+
+      // First child ending at or after line/column.
+      int low = 0;
+      int high = this.children.length;
+      while (low < high) {
+        final int mid = (low + high) >>> 1;
+        final ScopeInterval child = this.children[mid];
+        if (PositionIndex.compare(child.endLine, child.endColumn, line, column) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      if (low == this.children.length || !this.children[low].contains(line, column)) {
+        return null;
+      }
+      return this.children[low];
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package nl.ramsolutions.sw.magik;
+
+import com.sonar.sslr.api.Token;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
+import nl.ramsolutions.sw.magik.analysis.scope.Scope;
+import nl.ramsolutions.sw.magik.parser.CommentInstructionReader;
+import nl.ramsolutions.sw.magik.parser.MagikCommentExtractor;
+
+/**
+ * Index of the checks disabled via `mlint: disable=...` comments in a {@link MagikFile}.
+ *
+ * <p>Built in a single pass over the comments of the file. A comment after a statement disables
+ * checks for its line, a comment on a line of its own disables checks for the innermost scope
+ * containing that line, including its child scopes. Disabled checks are kept as bitsets, keyed by
+ * line and by scope. Scopes are sorted by start position, lookups are binary searches and do not
+ * allocate.
+ *
+ * <p>Obtain via {@link MagikFile#getSuppressionIndex()}, which builds it once per file.
+ */
+public final class SuppressionIndex {
+
+  private static final Pattern MLINT_PATTERN = Pattern.compile("^#\\s*mlint:\\s*(.*)$");
+  private static final String KEY_DISABLE = "disable";
+
+  /** Bit index per check key, shared by all indices. */
+  private static final Map<String, Integer> CHECK_BITS = new ConcurrentHashMap<>();
+
+  private static final AtomicInteger NEXT_CHECK_BIT = new AtomicInteger();
+
+  private final int[] statementLines;
+  private final BitSet[] statementDisableds;
+  private final int[] scopeStartLines;
+  private final int[] scopeStartColumns;
+  private final int[] scopeEndLines;
+  private final int[] scopeEndColumns;
+  private final int[] scopeParents;
+  private final int globalScopeIndex;
+  private final BitSet[] scopeDisableds;
+
+  /**
+   * Constructor.
+   *
+   * @param magikFile {@link MagikFile} to index.
+   */
+  SuppressionIndex(final MagikFile magikFile) {
+    final GlobalScope globalScope = magikFile.getGlobalScope();
+    final List<Scope> scopes = new ArrayList<>(globalScope.getSelfAndDescendantScopes());
+    scopes.sort(
+        Comparator.comparingInt(Scope::getStartLine).thenComparingInt(Scope::getStartColumn));
+    final Map<Scope, Integer> scopeIndices = new IdentityHashMap<>();
+    for (int i = 0; i < scopes.size(); ++i) {
+      scopeIndices.put(scopes.get(i), i);
+    }
+
+    final int scopeCount = scopes.size();
+    this.globalScopeIndex = scopeIndices.get(globalScope);
+    this.scopeStartLines = new int[scopeCount];
+    this.scopeStartColumns = new int[scopeCount];
+    this.scopeEndLines = new int[scopeCount];
+    this.scopeEndColumns = new int[scopeCount];
+    this.scopeParents = new int[scopeCount];
+    this.scopeDisableds = new BitSet[scopeCount];
+    for (int i = 0; i < scopeCount; ++i) {
+      final Scope scope = scopes.get(i);
+      this.scopeStartLines[i] = scope.getStartLine();
+      this.scopeStartColumns[i] = scope.getStartColumn();
+      this.scopeEndLines[i] = scope.getEndLine();
+      this.scopeEndColumns[i] = scope.getEndColumn();
+      final Scope parentScope = scope.getParentScope();
+      this.scopeParents[i] = parentScope != null ? scopeIndices.getOrDefault(parentScope, -1) : -1;
+      this.scopeDisableds[i] = new BitSet();
+    }
+
+    // Single pass over all comments.
+    final LineTable lineTable = magikFile.getLineTable();
+    final TreeMap<Integer, BitSet> statementDisabledMap = new TreeMap<>();
+    MagikCommentExtractor.extractComments(magikFile.getTopNode())
+        .forEach(
+            commentToken -> {
+              final BitSet disabled = SuppressionIndex.readDisabled(commentToken);
+              if (disabled.isEmpty()) {
+                return;
+              }
+
+              final int line = commentToken.getLine();
+              if (SuppressionIndex.isOnlyTokenOnLine(lineTable, commentToken)) {
+                final int scopeIndex =
+                    SuppressionIndex.findOwningScope(globalScope, line, scopeIndices);
+                if (scopeIndex != -1) {
+                  this.scopeDisableds[scopeIndex].or(disabled);
+                }
+              } else {
+                statementDisabledMap.computeIfAbsent(line, k -> new BitSet()).or(disabled);
+              }
+            });
+
+    // Include the disabled checks of all ancestor scopes. Parents are sorted before children.
+    for (int i = 0; i < scopeCount; ++i) {
+      final int parentIndex = this.scopeParents[i];
+      if (parentIndex != -1) {
+        this.scopeDisableds[i].or(this.scopeDisableds[parentIndex]);
+      }
+    }
+
+    this.statementLines =
+        statementDisabledMap.keySet().stream().mapToInt(Integer::intValue).toArray();
+    this.statementDisableds = statementDisabledMap.values().toArray(BitSet[]::new);
+  }
+
+  /**
+   * Test if the check with the given key is disabled at the given position.
+   *
+   * @param checkKey Check key, kebab-case.
+   * @param line Line, 1-based.
+   * @param column Column, 0-based.
+   * @return True if disabled, false otherwise.
+   */
+  public boolean isDisabled(final String checkKey, final int line, final int column) {
+    final Integer checkBit = SuppressionIndex.CHECK_BITS.get(checkKey);
+    if (checkBit == null) {
+      // Never mentioned in any instruction.
+      return false;
+    }
+
+    final int statementIndex = Arrays.binarySearch(this.statementLines, line);
+    if (statementIndex >= 0 && this.statementDisableds[statementIndex].get(checkBit)) {
+      return true;
+    }
+
+    return this.getScopeDisabled(line, column).get(checkBit);
+  }
+
+  private BitSet getScopeDisabled(final int line, final int column) {
+    // Last scope starting at or before line/column, then the first (ancestor) scope containing it.
+    int low = 0;
+    int high = this.scopeStartLines.length - 1;
+    int index = -1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (this.compareToStart(mid, line, column) <= 0) {
+        index = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+
+    while (index != -1 && !this.contains(index, line, column)) {
+      index = this.scopeParents[index];
+    }
+
+    // Outside of any scope, use the global scope.
+    return this.scopeDisableds[index != -1 ? index : this.globalScopeIndex];
+  }
+
+  private int compareToStart(final int index, final int line, final int column) {
+    final int startLine = this.scopeStartLines[index];
+    if (startLine != line) {
+      return Integer.compare(startLine, line);
+    }
+
+    return Integer.compare(this.scopeStartColumns[index], column);
+  }
+
+  private boolean contains(final int index, final int line, final int column) {
+    return !(line < this.scopeStartLines[index]
+        || line > this.scopeEndLines[index]
+        || line == this.scopeStartLines[index] && column < this.scopeStartColumns[index]
+        || line == this.scopeEndLines[index] && column > this.scopeEndColumns[index]);
+  }
+
+  /**
+   * Find the scope owning a line: the innermost scope whose lines, excluding its end line, include
+   * the line. See {@link CommentInstructionReader#getScopeInstructions}.
+   */
+  private static int findOwningScope(
+      final Scope globalScope, final int line, final Map<Scope, Integer> scopeIndices) {
+    if (line < globalScope.getStartLine() || line >= globalScope.getEndLine()) {
+      return -1;
+    }
+
+    Scope scope = globalScope;
+    boolean descended = true;
+    while (descended) {
+      descended = false;
+      for (final Scope childScope : scope.getChildScopes()) {
+        if (line >= childScope.getStartLine() && line < childScope.getEndLine()) {
+          scope = childScope;
+          descended = true;
+          break;
+        }
+      }
+    }
+
+    return scopeIndices.getOrDefault(scope, -1);
+  }
+
+  private static boolean isOnlyTokenOnLine(final LineTable lineTable, final Token token) {
+    final CharSequence line = lineTable.getLine(token.getLine());
+    final int column = Math.min(token.getColumn(), line.length());
+    for (int i = 0; i < column; ++i) {
+      if (!Character.isWhitespace(line.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static BitSet readDisabled(final Token commentToken) {
+    final BitSet disabled = new BitSet();
+    final Matcher matcher = MLINT_PATTERN.matcher(commentToken.getValue());
+    if (!matcher.find()) {
+      return disabled;
+    }
+
+    final Map<String, String> instructions =
+        CommentInstructionReader.parseInstructions(matcher.group(1));
+    final String disableds = instructions.get(KEY_DISABLE);
+    if (disableds == null) {
+      return disabled;
+    }
+
+    for (final String checkKey : disableds.split(",")) {
+      final String trimmedCheckKey = checkKey.trim();
+      if (trimmedCheckKey.isEmpty()) {
+        continue;
+      }
+
+      final int checkBit =
+          SuppressionIndex.CHECK_BITS.computeIfAbsent(
+              trimmedCheckKey, key -> SuppressionIndex.NEXT_CHECK_BIT.getAndIncrement());
+      disabled.set(checkBit);
+    }
+    return disabled;
+  }
+}
@@ -10,6 +10,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.PositionIndex;
 import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.moduledef.api.SwModuleDefinitionGrammar;
@@ -116,6 +117,11 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeBefore(final AstNode topNode, final Position position) {
+    final PositionIndex positionIndex = PositionIndex.forTopNode(topNode);
+    if (positionIndex != null) {
+      return positionIndex.nodeBefore(position);
+    }
+
     final List<AstNode> nodes =
         AstQuery.dfs(topNode)
             .filter(AstQuery::isTokenNode)
@@ -141,6 +147,11 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeAt(final AstNode topNode, final Position position) {
+    final PositionIndex positionIndex = PositionIndex.forTopNode(topNode);
+    if (positionIndex != null) {
+      return positionIndex.nodeAt(position);
+    }
+
     final List<AstNode> nodes =
         AstQuery.dfs(topNode)
             .filter(AstQuery::isTokenNode)
@@ -188,6 +199,11 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeAfter(final AstNode topNode, final Position position) {
+    final PositionIndex positionIndex = PositionIndex.forTopNode(topNode);
+    if (positionIndex != null) {
+      return positionIndex.nodeAfter(position);
+    }
+
     final List<AstNode> nodes =
         AstQuery.dfs(topNode)
             .filter(AstQuery::isTokenNode)
@@ -214,25 +230,9 @@ public final class AstQuery {
   @CheckForNull
   public static AstNode nodeSurrounding(final AstNode topNode, final Position position) {
     final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
+        AstQuery.surroundingCandidates(topNode, position)
             .filter(AstQuery::isGrammarNode)
-            .filter(node -> node.getToken() != null && node.getLastToken() != null)
-            .filter(
-                node -> {
-                  final Token firstToken = node.getToken();
-                  final int firstLine = firstToken.getLine();
-                  final int firstColumn = firstToken.getColumn();
-
-                  final Token lastToken = node.getLastToken();
-                  final int lastLine = lastToken.getLine();
-                  final int lastColumn =
-                      lastToken.getColumn() + lastToken.getOriginalValue().length();
-
-                  return (position.getLine() > firstLine
-                          || position.getLine() == firstLine && position.getColumn() >= firstColumn)
-                      && (position.getLine() < lastLine
-                          || position.getLine() == lastLine && position.getColumn() <= lastColumn);
-                })
+            .filter(node -> AstQuery.surrounds(node, position))
             .collect(Collectors.toList());
     if (nodes.isEmpty()) {
       return null;
@@ -256,25 +256,9 @@ public final class AstQuery {
       final AstNode topNode, final Position position, final AstNodeType... nodeTypes) {
     final List<AstNodeType> nodeTypesList = List.of(nodeTypes);
     final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
+        AstQuery.surroundingCandidates(topNode, position)
             .filter(AstQuery::isGrammarNode)
-            .filter(node -> node.getToken() != null && node.getLastToken() != null)
-            .filter(
-                node -> {
-                  final Token firstToken = node.getToken();
-                  final int firstLine = firstToken.getLine();
-                  final int firstColumn = firstToken.getColumn();
-
-                  final Token lastToken = node.getLastToken();
-                  final int lastLine = lastToken.getLine();
-                  final int lastColumn =
-                      lastToken.getColumn() + lastToken.getOriginalValue().length();
-
-                  return (position.getLine() > firstLine
-                          || position.getLine() == firstLine && position.getColumn() >= firstColumn)
-                      && (position.getLine() < lastLine
-                          || position.getLine() == lastLine && position.getColumn() <= lastColumn);
-                })
+            .filter(node -> AstQuery.surrounds(node, position))
             .filter(node -> nodeTypesList.contains(node.getType()))
             .toList();
     if (nodes.isEmpty()) {
@@ -283,6 +267,33 @@ public final class AstQuery {
     return nodes.get(0);
   }
 
+  private static Stream<AstNode> surroundingCandidates(
+      final AstNode topNode, final Position position) {
+    final PositionIndex positionIndex = PositionIndex.forTopNode(topNode);
+    if (positionIndex != null) {
+      return positionIndex.getSurroundingCandidates(position).stream();
+    }
+
+    return AstQuery.dfs(topNode);
+  }
+
+  private static boolean surrounds(final AstNode node, final Position position) {
+    final Token firstToken = node.getToken();
+    final Token lastToken = node.getLastToken();
+    if (firstToken == null || lastToken == null) {
+      return false;
+    }
+
+    final int firstLine = firstToken.getLine();
+    final int firstColumn = firstToken.getColumn();
+    final int lastLine = lastToken.getLine();
+    final int lastColumn = lastToken.getColumn() + lastToken.getOriginalValue().length();
+    return (position.getLine() > firstLine
+            || position.getLine() == firstLine && position.getColumn() >= firstColumn)
+        && (position.getLine() < lastLine
+            || position.getLine() == lastLine && position.getColumn() <= lastColumn);
+  }
+
   /**
    * Get a depth first search stream for node.
    *
@@ -315,7 +326,13 @@ public final class AstQuery {
         || node.is(MagikGrammar.values());
   }
 
-  private static boolean isTokenNode(final AstNode node) {
+  /**
+   * Test if node is a token node, i.e., not a grammar node.
+   *
+   * @param node Node to test.
+   * @return True if token node, false otherwise.
+   */
+  public static boolean isTokenNode(final AstNode node) {
     return node.isNot(SwProductDefinitionGrammar.values())
         && node.isNot(SwModuleDefinitionGrammar.values())
         && node.isNot(MagikGrammar.values());
@@ -77,6 +77,20 @@ public class BinaryOperatorDefinition extends MagikDefinition {
         + this.rhsTypeName.getFullString();
   }
 
+  @Override
+  BinaryOperatorDefinition getInterned(final DefinitionInterner interner) {
+    return new BinaryOperatorDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.operator,
+        this.lhsTypeName,
+        this.rhsTypeName,
+        this.resultTypeName);
+  }
+
   @Override
   public BinaryOperatorDefinition getWithoutNode() {
     return new BinaryOperatorDefinition(
@@ -56,6 +56,19 @@ public class ConditionDefinition extends MagikDefinition {
     return Collections.unmodifiableList(this.dataNames);
   }
 
+  @Override
+  ConditionDefinition getInterned(final DefinitionInterner interner) {
+    return new ConditionDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.name,
+        this.parent,
+        this.dataNames);
+  }
+
   @Override
   public ConditionDefinition getWithoutNode() {
     return new ConditionDefinition(
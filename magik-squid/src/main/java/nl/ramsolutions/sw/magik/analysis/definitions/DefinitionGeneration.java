@@ -0,0 +1,415 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.moduledef.ModuleDefinition;
+import nl.ramsolutions.sw.productdef.ProductDefinition;
+
+/**
+ * A single generation of the definitions in a {@link DefinitionKeeper}.
+ *
+ * <p>A generation is writable until it is published by its {@link DefinitionKeeper}, after which it
+ * is frozen and serves as an immutable snapshot. Consecutive generations share all buckets which
+ * were not written to.
+ */
+final class DefinitionGeneration implements IDefinitionKeeper {
+
+  private final long generation;
+  private volatile DefinitionInterner interner;
+  private final DefinitionIndex<String, ProductDefinition> productDefinitions;
+  private final DefinitionIndex<String, ModuleDefinition> moduleDefinitions;
+  private final DefinitionIndex<URI, MagikFileDefinition> magikFileDefinitions;
+  private final DefinitionIndex<String, PackageDefinition> packageDefinitions;
+  private final DefinitionIndex<TypeString, ExemplarDefinition> exemplarDefinitions;
+  private final DefinitionIndex<TypeString, MethodDefinition> methodDefinitions;
+  private final DefinitionIndex<TypeString, GlobalDefinition> globalDefinitions;
+  private final DefinitionIndex<String, BinaryOperatorDefinition> binaryOperatorDefinitions;
+  private final DefinitionIndex<String, ConditionDefinition> conditionDefinitions;
+  private final DefinitionIndex<TypeString, ProcedureDefinition> procedureDefinitions;
+
+  /**
+   * Constructor for the first, empty, generation.
+   *
+   * @param interner {@link DefinitionInterner} to intern definitions with.
+   */
+  private DefinitionGeneration(final DefinitionInterner interner) {
+    this.generation = 0;
+    this.interner = interner;
+    this.productDefinitions = DefinitionIndex.empty();
+    this.moduleDefinitions = DefinitionIndex.empty();
+    this.magikFileDefinitions = DefinitionIndex.empty();
+    this.packageDefinitions = DefinitionIndex.empty();
+    this.exemplarDefinitions = DefinitionIndex.empty();
+    this.methodDefinitions = DefinitionIndex.empty();
+    this.globalDefinitions = DefinitionIndex.empty();
+    this.binaryOperatorDefinitions = DefinitionIndex.empty();
+    this.conditionDefinitions = DefinitionIndex.empty();
+    this.procedureDefinitions = DefinitionIndex.empty();
+  }
+
+  /**
+   * Constructor for the generation following {@code base}.
+   *
+   * @param base Generation to continue from.
+   */
+  private DefinitionGeneration(final DefinitionGeneration base) {
+    this.generation = base.generation + 1;
+    this.interner = base.interner;
+    this.productDefinitions = base.productDefinitions.next();
+    this.moduleDefinitions = base.moduleDefinitions.next();
+    this.magikFileDefinitions = base.magikFileDefinitions.next();
+    this.packageDefinitions = base.packageDefinitions.next();
+    this.exemplarDefinitions = base.exemplarDefinitions.next();
+    this.methodDefinitions = base.methodDefinitions.next();
+    this.globalDefinitions = base.globalDefinitions.next();
+    this.binaryOperatorDefinitions = base.binaryOperatorDefinitions.next();
+    this.conditionDefinitions = base.conditionDefinitions.next();
+    this.procedureDefinitions = base.procedureDefinitions.next();
+  }
+
+  /**
+   * Create the first, empty, generation.
+   *
+   * @param interner {@link DefinitionInterner} to intern definitions with.
+   * @return New generation.
+   */
+  static DefinitionGeneration empty(final DefinitionInterner interner) {
+    return new DefinitionGeneration(interner);
+  }
+
+  /**
+   * Create the next, writable, generation, sharing all definitions and the (append only) {@link
+   * DefinitionInterner} with this generation.
+   *
+   * @return New generation.
+   */
+  DefinitionGeneration next() {
+    return new DefinitionGeneration(this);
+  }
+
+  /** Freeze this generation, any further writes are refused. */
+  void freeze() {
+    this.productDefinitions.freeze();
+    this.moduleDefinitions.freeze();
+    this.magikFileDefinitions.freeze();
+    this.packageDefinitions.freeze();
+    this.exemplarDefinitions.freeze();
+    this.methodDefinitions.freeze();
+    this.globalDefinitions.freeze();
+    this.binaryOperatorDefinitions.freeze();
+    this.conditionDefinitions.freeze();
+    this.procedureDefinitions.freeze();
+  }
+
+  /**
+   * Get the number of this generation.
+   *
+   * @return Generation number.
+   */
+  long getGeneration() {
+    return this.generation;
+  }
+
+  @Override
+  public void add(final ProductDefinition definition) {
+    this.productDefinitions.add(definition.getName(), definition);
+  }
+
+  @Override
+  public void add(final ModuleDefinition definition) {
+    this.moduleDefinitions.add(definition.getName(), definition);
+  }
+
+  @Override
+  public void add(final MagikFileDefinition definition) {
+    this.magikFileDefinitions.add(definition.getUri(), definition);
+  }
+
+  @Override
+  public void add(final PackageDefinition definition) {
+    this.packageDefinitions.add(definition.getName(), definition);
+  }
+
+  @Override
+  public void add(final ExemplarDefinition definition) {
+    this.exemplarDefinitions.add(definition.getTypeString().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public void add(final MethodDefinition definition) {
+    this.methodDefinitions.add(definition.getTypeName().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public void add(final GlobalDefinition definition) {
+    this.globalDefinitions.add(definition.getTypeString().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public void add(final BinaryOperatorDefinition definition) {
+    this.binaryOperatorDefinitions.add(DefinitionGeneration.getKey(definition), definition);
+  }
+
+  @Override
+  public void add(final ConditionDefinition definition) {
+    this.conditionDefinitions.add(definition.getName(), definition);
+  }
+
+  @Override
+  public void add(final ProcedureDefinition definition) {
+    this.procedureDefinitions.add(definition.getTypeString().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public void remove(final ProductDefinition definition) {
+    this.productDefinitions.remove(definition.getName(), definition);
+  }
+
+  @Override
+  public void remove(final ModuleDefinition definition) {
+    this.moduleDefinitions.remove(definition.getName(), definition);
+  }
+
+  @Override
+  public void remove(final MagikFileDefinition definition) {
+    this.magikFileDefinitions.remove(definition.getUri(), definition);
+  }
+
+  @Override
+  public void remove(final PackageDefinition definition) {
+    this.packageDefinitions.remove(definition.getName(), definition);
+  }
+
+  @Override
+  public void remove(final ExemplarDefinition definition) {
+    this.exemplarDefinitions.remove(definition.getTypeString().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public void remove(final MethodDefinition definition) {
+    this.methodDefinitions.remove(definition.getTypeName().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public void remove(final GlobalDefinition definition) {
+    this.globalDefinitions.remove(definition.getTypeString().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public void remove(final BinaryOperatorDefinition definition) {
+    this.binaryOperatorDefinitions.remove(DefinitionGeneration.getKey(definition), definition);
+  }
+
+  @Override
+  public void remove(final ConditionDefinition definition) {
+    this.conditionDefinitions.remove(definition.getName(), definition);
+  }
+
+  @Override
+  public void remove(final ProcedureDefinition definition) {
+    this.procedureDefinitions.remove(definition.getTypeString().getWithoutGenerics(), definition);
+  }
+
+  @Override
+  public Collection<ProductDefinition> getProductDefinitions(final String name) {
+    return this.productDefinitions.get(name);
+  }
+
+  @Override
+  public Collection<ProductDefinition> getProductDefinitions() {
+    return this.streamProductDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ProductDefinition> streamProductDefinitions() {
+    return this.productDefinitions.stream();
+  }
+
+  @Override
+  public Collection<ModuleDefinition> getModuleDefinitions(final String name) {
+    return this.moduleDefinitions.get(name);
+  }
+
+  @Override
+  public Collection<ModuleDefinition> getModuleDefinitions() {
+    return this.streamModuleDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ModuleDefinition> streamModuleDefinitions() {
+    return this.moduleDefinitions.stream();
+  }
+
+  @Override
+  public Collection<MagikFileDefinition> getMagikFileDefinitions(final URI uri) {
+    return this.magikFileDefinitions.get(uri);
+  }
+
+  @Override
+  public Collection<MagikFileDefinition> getMagikFileDefinitions() {
+    return this.streamMagikFileDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<MagikFileDefinition> streamMagikFileDefinitions() {
+    return this.magikFileDefinitions.stream();
+  }
+
+  @Override
+  public Collection<PackageDefinition> getPackageDefinitions(final String name) {
+    return this.packageDefinitions.get(name);
+  }
+
+  @Override
+  public Collection<PackageDefinition> getPackageDefinitions() {
+    return this.streamPackageDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<PackageDefinition> streamPackageDefinitions() {
+    return this.packageDefinitions.stream();
+  }
+
+  @Override
+  public Collection<ExemplarDefinition> getExemplarDefinitions(final TypeString typeString) {
+    return this.exemplarDefinitions.get(typeString.getWithoutGenerics());
+  }
+
+  @Override
+  public Collection<ExemplarDefinition> getExemplarDefinitions() {
+    return this.streamExemplarDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ExemplarDefinition> streamExemplarDefinitions() {
+    return this.exemplarDefinitions.stream();
+  }
+
+  @Override
+  public Collection<MethodDefinition> getMethodDefinitions(final TypeString typeString) {
+    return this.methodDefinitions.get(typeString.getWithoutGenerics());
+  }
+
+  @Override
+  public Collection<MethodDefinition> getMethodDefinitions() {
+    return this.streamMethodDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<MethodDefinition> streamMethodDefinitions() {
+    return this.methodDefinitions.stream();
+  }
+
+  @Override
+  public Collection<GlobalDefinition> getGlobalDefinitions(final TypeString typeString) {
+    return this.globalDefinitions.get(typeString);
+  }
+
+  @Override
+  public Collection<GlobalDefinition> getGlobalDefinitions() {
+    return this.streamGlobalDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<GlobalDefinition> streamGlobalDefinitions() {
+    return this.globalDefinitions.stream();
+  }
+
+  private static String getKey(final BinaryOperatorDefinition definition) {
+    return DefinitionGeneration.getKey(
+        definition.getOperator(), definition.getLhsTypeName(), definition.getRhsTypeName());
+  }
+
+  private static String getKey(final String operator, final TypeString lhs, final TypeString rhs) {
+    return operator
+        + "_"
+        + lhs.getWithoutGenerics().getFullString()
+        + "_"
+        + rhs.getWithoutGenerics().getFullString();
+  }
+
+  @Override
+  public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions(
+      final String operator, final TypeString lhs, final TypeString rhs) {
+    return this.binaryOperatorDefinitions.get(DefinitionGeneration.getKey(operator, lhs, rhs));
+  }
+
+  @Override
+  public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions() {
+    return this.streamBinaryOperatorDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<BinaryOperatorDefinition> streamBinaryOperatorDefinitions() {
+    return this.binaryOperatorDefinitions.stream();
+  }
+
+  @Override
+  public Collection<ConditionDefinition> getConditionDefinitions(final String name) {
+    return this.conditionDefinitions.get(name);
+  }
+
+  @Override
+  public Collection<ConditionDefinition> getConditionDefinitions() {
+    return this.streamConditionDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ConditionDefinition> streamConditionDefinitions() {
+    return this.conditionDefinitions.stream();
+  }
+
+  @Override
+  public Collection<ProcedureDefinition> getProcedureDefinitions(final TypeString typeString) {
+    return this.procedureDefinitions.get(typeString.getWithoutGenerics());
+  }
+
+  @Override
+  public Collection<ProcedureDefinition> getProcedureDefinitions() {
+    return this.streamProcedureDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ProcedureDefinition> streamProcedureDefinitions() {
+    return this.procedureDefinitions.stream();
+  }
+
+  @Override
+  public DefinitionInterner getInterner() {
+    return this.interner;
+  }
+
+  @Override
+  public IDefinitionKeeper getSnapshot() {
+    return this;
+  }
+
+  /**
+   * Clear any contained {@link MagikDefinition}s. This generation gets a new, empty, {@link
+   * DefinitionInterner}, the interner shared with earlier generations is left untouched.
+   */
+  @Override
+  public void clear() {
+    this.interner = new DefinitionInterner();
+    this.productDefinitions.clear();
+    this.moduleDefinitions.clear();
+    this.magikFileDefinitions.clear();
+    this.packageDefinitions.clear();
+    this.exemplarDefinitions.clear();
+    this.methodDefinitions.clear();
+    this.globalDefinitions.clear();
+    this.binaryOperatorDefinitions.clear();
+    this.conditionDefinitions.clear();
+    this.procedureDefinitions.clear();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s@%s(%d)",
+        this.getClass().getName(), Integer.toHexString(this.hashCode()), this.generation);
+  }
+}
@@ -0,0 +1,146 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Definitions of a single kind, bucketed by key, for one {@link DefinitionGeneration}.
+ *
+ * <p>Buckets are held in a persistent {@link HashTrie}. A new index shares the trie of the index it
+ * is based on. Writing to a bucket copies that bucket and the path to it in the trie, all other
+ * buckets stay shared between generations. Once frozen, an index is never modified again.
+ *
+ * @param <K> Type of key.
+ * @param <T> Type of definition.
+ */
+final class DefinitionIndex<K, T> {
+
+  /**
+   * Bucket of definitions, writable only by the index which created it.
+   *
+   * @param owner Owner token of the index which created the bucket.
+   * @param definitions Definitions in the bucket.
+   */
+  private record Bucket<T>(Object owner, Set<T> definitions) {}
+
+  private final Object owner = new Object();
+  private volatile HashTrie<K, Bucket<T>> buckets;
+  private boolean frozen;
+
+  private DefinitionIndex(final HashTrie<K, Bucket<T>> buckets) {
+    this.buckets = buckets;
+  }
+
+  /**
+   * Create a new, empty, index.
+   *
+   * @return New index.
+   */
+  static <K, T> DefinitionIndex<K, T> empty() {
+    return new DefinitionIndex<>(HashTrie.empty());
+  }
+
+  /**
+   * Create a new index, sharing all buckets with this index.
+   *
+   * @return New index.
+   */
+  DefinitionIndex<K, T> next() {
+    return new DefinitionIndex<>(this.buckets);
+  }
+
+  /** Freeze this index, any further writes are refused. */
+  synchronized void freeze() {
+    this.frozen = true;
+  }
+
+  /**
+   * Add a definition.
+   *
+   * @param key Key of bucket.
+   * @param definition Definition to add.
+   */
+  synchronized void add(final K key, final T definition) {
+    this.checkNotFrozen();
+    final Bucket<T> bucket = this.buckets.get(key);
+    if (bucket != null && bucket.owner() == this.owner) {
+      bucket.definitions().add(definition);
+      return;
+    }
+
+    final Set<T> definitions = ConcurrentHashMap.newKeySet();
+    if (bucket != null) {
+      definitions.addAll(bucket.definitions());
+    }
+    definitions.add(definition);
+    this.buckets = this.buckets.put(key, new Bucket<>(this.owner, definitions));
+  }
+
+  /**
+   * Remove a definition.
+   *
+   * @param key Key of bucket.
+   * @param definition Definition to remove.
+   */
+  synchronized void remove(final K key, final T definition) {
+    this.checkNotFrozen();
+    final Bucket<T> bucket = this.buckets.get(key);
+    if (bucket == null || !bucket.definitions().contains(definition)) {
+      return;
+    }
+
+    if (bucket.definitions().size() == 1) {
+      this.buckets = this.buckets.remove(key);
+      return;
+    }
+
+    if (bucket.owner() == this.owner) {
+      bucket.definitions().remove(definition);
+      return;
+    }
+
+    final Set<T> definitions = ConcurrentHashMap.newKeySet();
+    definitions.addAll(bucket.definitions());
+    definitions.remove(definition);
+    this.buckets = this.buckets.put(key, new Bucket<>(this.owner, definitions));
+  }
+
+  /** Remove all definitions. */
+  synchronized void clear() {
+    this.checkNotFrozen();
+    this.buckets = HashTrie.empty();
+  }
+
+  /**
+   * Get the definitions for a key.
+   *
+   * @param key Key of bucket.
+   * @return Unmodifiable view of the definitions.
+   */
+  Collection<T> get(final K key) {
+    final Bucket<T> bucket = this.buckets.get(key);
+    if (bucket == null) {
+      return Collections.emptySet();
+    }
+
+    return Collections.unmodifiableCollection(bucket.definitions());
+  }
+
+  /**
+   * Stream all definitions, without copying.
+   *
+   * @return Stream of definitions.
+   */
+  Stream<T> stream() {
+    return this.buckets.values().flatMap(bucket -> bucket.definitions().stream());
+  }
+
+  private void checkNotFrozen() {
+    if (this.frozen) {
+      throw new IllegalStateException("Generation is already published");
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Range;
+
+/**
+ * Intern pools for values shared by many definitions: file URIs, module names, package names, and
+ * the names and type strings of usages.
+ *
+ * <p>Obtained from a {@link IDefinitionKeeper}. Readers pass values through the pools before
+ * constructing definitions, or pass definitions through {@link #intern(MagikDefinition)} before
+ * adding them, so equal values are stored only once.
+ *
+ * <p>Pools only grow, so they can be shared by concurrent readers. Clearing a {@link
+ * DefinitionKeeper} starts a new interner instead of emptying this one.
+ */
+public final class DefinitionInterner {
+
+  private static final long STRING_OVERHEAD_BYTES = 24L + 16L;
+  private static final long URI_OVERHEAD_BYTES = 80L;
+  private static final int ALIGNMENT = 8;
+
+  /** Per entry cost of a pool: map node, boxed id, and map/array slots. */
+  private static final long POOL_ENTRY_OVERHEAD_BYTES = 32L + 16L + 8L + 8L;
+
+  private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+  private final InternTable<URI> files = new InternTable<>();
+  private final PackedUsageSet.Tables usageTables = new PackedUsageSet.Tables(this.files);
+  private final InternTable<String> moduleNames = new InternTable<>();
+  private final InternTable<String> packageNames = new InternTable<>();
+  private final LongAdder savedBytes = new LongAdder();
+
+  /**
+   * Get the canonical instance of {@code uri}.
+   *
+   * @param uri URI to intern.
+   * @return Canonical URI.
+   */
+  public URI internUri(final URI uri) {
+    final URI canonical = this.files.intern(uri);
+    if (canonical != uri) {
+      this.savedBytes.add(URI_OVERHEAD_BYTES + 2 * DefinitionInterner.stringSize(uri.toString()));
+    }
+    return canonical;
+  }
+
+  /**
+   * Get a {@link Location} equal to {@code location}, using the canonical URI.
+   *
+   * @param location Location to intern.
+   * @return Location using the canonical URI.
+   */
+  @CheckForNull
+  public Location internLocation(final @Nullable Location location) {
+    if (location == null) {
+      return null;
+    }
+
+    final URI uri = location.getUri();
+    final URI canonicalUri = this.internUri(uri);
+    if (canonicalUri == uri) {
+      return location;
+    }
+
+    final Range range = location.getRange();
+    return new Location(canonicalUri, range);
+  }
+
+  /**
+   * Get the canonical instance of module name {@code moduleName}.
+   *
+   * @param moduleName Module name to intern.
+   * @return Canonical module name.
+   */
+  @CheckForNull
+  public String internModuleName(final @Nullable String moduleName) {
+    return this.internString(this.moduleNames, moduleName);
+  }
+
+  /**
+   * Get the canonical instance of package name {@code packageName}.
+   *
+   * @param packageName Package name to intern.
+   * @return Canonical package name.
+   */
+  public String internPackageName(final String packageName) {
+    return Objects.requireNonNull(this.internString(this.packageNames, packageName));
+  }
+
+  /**
+   * Get a definition equal to {@code definition}, using the canonical URI, module name, and any
+   * package names. {@code definition} itself is left untouched.
+   *
+   * <p>Must be called before {@code definition} is added to a {@link IDefinitionKeeper}.
+   *
+   * @param definition Definition to intern.
+   * @return Interned definition.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends MagikDefinition> T intern(final T definition) {
+    return (T) definition.getInterned(this);
+  }
+
+  /**
+   * Get the intern tables used to pack usages.
+   *
+   * @return Intern tables for usages.
+   */
+  PackedUsageSet.Tables getUsageTables() {
+    return this.usageTables;
+  }
+
+  @CheckForNull
+  private String internString(final InternTable<String> table, final @Nullable String value) {
+    if (value == null) {
+      return null;
+    }
+
+    final String canonical = table.intern(value);
+    if (canonical != value) {
+      this.savedBytes.add(DefinitionInterner.stringSize(value));
+    }
+    return canonical;
+  }
+
+  private static long stringSize(final String value) {
+    final long size = STRING_OVERHEAD_BYTES + value.length();
+    return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+
+  /**
+   * Get the estimated number of bytes saved by interning, net of the memory used by the pools.
+   *
+   * @return Estimated number of bytes saved, negative if the pools cost more than they save.
+   */
+  public long getSavedBytes() {
+    final long poolEntries =
+        (long) this.files.size() + this.moduleNames.size() + this.packageNames.size();
+    return this.savedBytes.sum() - poolEntries * POOL_ENTRY_OVERHEAD_BYTES;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "files: %d, module names: %d, package names: %d, usage names: %d, usage types: %d,"
+            + " saved: %.1f MB",
+        this.files.size(),
+        this.moduleNames.size(),
+        this.packageNames.size(),
+        this.usageTables.names().size(),
+        this.usageTables.typeStrings().size(),
+        this.getSavedBytes() / BYTES_PER_MEGABYTE);
+  }
+}
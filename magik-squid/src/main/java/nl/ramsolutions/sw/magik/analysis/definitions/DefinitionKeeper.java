@@ -2,34 +2,32 @@ package nl.ramsolutions.sw.magik.analysis.definitions;
 
 import java.net.URI;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
 
-/** In memory Definition keeper. */
+/**
+ * In memory Definition keeper.
+ *
+ * <p>Definitions are kept in generations. Readers always read the last published generation, which
+ * is never modified, so they never see a partially applied batch. A batch is written to a new
+ * generation, which shares all untouched buckets with the previous generation, and is published
+ * atomically when the batch completes. A single write outside of a batch is a batch by itself.
+ *
+ * <p>Batches are serialized: a batch waits for the running batch to be published, and then runs
+ * against that generation. Readers never wait.
+ *
+ * <p>The thread running a batch reads its own, unpublished, writes.
+ */
 public class DefinitionKeeper implements IDefinitionKeeper {
 
-  private final Map<String, Set<ProductDefinition>> productDefinitions = new ConcurrentHashMap<>();
-  private final Map<String, Set<ModuleDefinition>> moduleDefinitions = new ConcurrentHashMap<>();
-  private final Map<URI, Set<MagikFileDefinition>> magikFileDefinitions = new ConcurrentHashMap<>();
-  private final Map<String, Set<PackageDefinition>> packageDefinitions = new ConcurrentHashMap<>();
-  private final Map<String, Set<BinaryOperatorDefinition>> binaryOperatorDefinitions =
-      new ConcurrentHashMap<>();
-  private final Map<String, Set<ConditionDefinition>> conditionDefinitions =
-      new ConcurrentHashMap<>();
-  private final Map<TypeString, Set<ExemplarDefinition>> exemplarDefinitions =
-      new ConcurrentHashMap<>();
-  private final Map<TypeString, Set<MethodDefinition>> methodDefinitions =
-      new ConcurrentHashMap<>();
-  private final Map<TypeString, Set<GlobalDefinition>> globalDefinitions =
-      new ConcurrentHashMap<>();
-  private final Map<TypeString, Set<ProcedureDefinition>> procedureDefinitions =
-      new ConcurrentHashMap<>();
+  private final Lock writeLock = new ReentrantLock();
+  private final ThreadLocal<DefinitionGeneration> pending = new ThreadLocal<>();
+  private volatile DefinitionGeneration published =
+      DefinitionGeneration.empty(new DefinitionInterner());
 
   /** Constructor. */
   public DefinitionKeeper() {
@@ -42,350 +40,331 @@ public class DefinitionKeeper implements IDefinitionKeeper {
    * @param addDefaultTypes Do add default types?
    */
   public DefinitionKeeper(final boolean addDefaultTypes) {
-    this.clear();
+    this.batch(
+        definitionKeeper -> {
+          DefaultDefinitionsAdder.addBaseDefinitions(definitionKeeper);
+          if (addDefaultTypes) {
+            DefaultDefinitionsAdder.addDefaultDefinitions(definitionKeeper);
+          }
+        });
+  }
 
-    DefaultDefinitionsAdder.addBaseDefinitions(this);
-    if (addDefaultTypes) {
-      DefaultDefinitionsAdder.addDefaultDefinitions(this);
+  /**
+   * Get the generation to read from. This is the pending generation for the thread running a batch,
+   * the last published generation otherwise.
+   *
+   * @return Generation to read from.
+   */
+  private DefinitionGeneration getReadGeneration() {
+    final DefinitionGeneration generation = this.pending.get();
+    if (generation != null) {
+      return generation;
     }
+
+    return this.published;
+  }
+
+  /**
+   * Get the number of the last published generation.
+   *
+   * @return Generation number.
+   */
+  public long getGeneration() {
+    return this.published.getGeneration();
+  }
+
+  @Override
+  public <E extends Exception> void batch(final BatchWriter<E> writer) throws E {
+    final DefinitionGeneration pendingGeneration = this.pending.get();
+    if (pendingGeneration != null) {
+      // Nested batch, becomes part of the outer batch.
+      writer.write(pendingGeneration);
+      return;
+    }
+
+    // Writers are serialized, so a batch always builds on the last published generation and sees
+    // all earlier batches. Readers are never blocked.
+    this.writeLock.lock();
+    try {
+      final DefinitionGeneration generation = this.published.next();
+      this.pending.set(generation);
+      try {
+        writer.write(generation);
+      } finally {
+        this.pending.remove();
+      }
+
+      generation.freeze();
+      this.published = generation;
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  @Override
+  public IDefinitionKeeper getSnapshot() {
+    return this.getReadGeneration();
   }
 
   @Override
   public void add(final ProductDefinition definition) {
-    final String name = definition.getName();
-    final Set<ProductDefinition> definitions =
-        this.productDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final ModuleDefinition definition) {
-    final String name = definition.getName();
-    final Set<ModuleDefinition> definitions =
-        this.moduleDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final MagikFileDefinition definition) {
-    final URI uri = definition.getUri();
-    final Set<MagikFileDefinition> definitions =
-        this.magikFileDefinitions.computeIfAbsent(uri, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final PackageDefinition definition) {
-    final String name = definition.getName();
-    final Set<PackageDefinition> definitions =
-        this.packageDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final ExemplarDefinition definition) {
-    // Store without generics.
-    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
-    final Set<ExemplarDefinition> definitions =
-        this.exemplarDefinitions.computeIfAbsent(
-            bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final MethodDefinition definition) {
-    final TypeString bareTypeString = definition.getTypeName().getWithoutGenerics();
-    final Set<MethodDefinition> definitions =
-        this.methodDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final GlobalDefinition definition) {
-    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
-    final Set<GlobalDefinition> definitions =
-        this.globalDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final BinaryOperatorDefinition definition) {
-    final String key = this.getKey(definition);
-    final Set<BinaryOperatorDefinition> definitions =
-        this.binaryOperatorDefinitions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final ConditionDefinition definition) {
-    final String name = definition.getName();
-    final Set<ConditionDefinition> definitions =
-        this.conditionDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void add(final ProcedureDefinition definition) {
-    // TODO: Should these always be aliases via a GlobalDefinition? Probably so!
-    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
-    final Set<ProcedureDefinition> definitions =
-        this.procedureDefinitions.computeIfAbsent(
-            bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.add(definition);
+    this.batch(definitionKeeper -> definitionKeeper.add(definition));
   }
 
   @Override
   public void remove(final ProductDefinition definition) {
-    final String name = definition.getName();
-    final Set<ProductDefinition> definitions =
-        this.productDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final ModuleDefinition definition) {
-    final String name = definition.getName();
-    final Set<ModuleDefinition> definitions =
-        this.moduleDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final MagikFileDefinition definition) {
-    final URI uri = definition.getUri();
-    final Set<MagikFileDefinition> definitions =
-        this.magikFileDefinitions.computeIfAbsent(uri, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final PackageDefinition definition) {
-    final String name = definition.getName();
-    final Set<PackageDefinition> definitions =
-        this.packageDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
-  public void remove(ExemplarDefinition definition) {
-    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
-    final Set<ExemplarDefinition> definitions =
-        this.exemplarDefinitions.computeIfAbsent(
-            bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+  public void remove(final ExemplarDefinition definition) {
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final MethodDefinition definition) {
-    final TypeString bareTypeString = definition.getTypeName().getWithoutGenerics();
-    final Set<MethodDefinition> definitions =
-        this.methodDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final GlobalDefinition definition) {
-    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
-    final Set<GlobalDefinition> definitions =
-        this.globalDefinitions.computeIfAbsent(bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final BinaryOperatorDefinition definition) {
-    final String key = this.getKey(definition);
-    final Set<BinaryOperatorDefinition> definitions =
-        this.binaryOperatorDefinitions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final ConditionDefinition definition) {
-    final String name = definition.getName();
-    final Set<ConditionDefinition> definitions =
-        this.conditionDefinitions.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public void remove(final ProcedureDefinition definition) {
-    final TypeString bareTypeString = definition.getTypeString().getWithoutGenerics();
-    final Set<ProcedureDefinition> definitions =
-        this.procedureDefinitions.computeIfAbsent(
-            bareTypeString, k -> ConcurrentHashMap.newKeySet());
-    definitions.remove(definition);
+    this.batch(definitionKeeper -> definitionKeeper.remove(definition));
   }
 
   @Override
   public Collection<ProductDefinition> getProductDefinitions(final String name) {
-    final Collection<ProductDefinition> definitions =
-        this.productDefinitions.getOrDefault(name, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getProductDefinitions(name);
   }
 
   @Override
   public Collection<ProductDefinition> getProductDefinitions() {
-    return this.productDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getProductDefinitions();
+  }
+
+  @Override
+  public Stream<ProductDefinition> streamProductDefinitions() {
+    return this.getReadGeneration().streamProductDefinitions();
   }
 
   @Override
   public Collection<ModuleDefinition> getModuleDefinitions(final String name) {
-    final Collection<ModuleDefinition> definitions =
-        this.moduleDefinitions.getOrDefault(name, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getModuleDefinitions(name);
   }
 
   @Override
   public Collection<ModuleDefinition> getModuleDefinitions() {
-    return this.moduleDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getModuleDefinitions();
+  }
+
+  @Override
+  public Stream<ModuleDefinition> streamModuleDefinitions() {
+    return this.getReadGeneration().streamModuleDefinitions();
   }
 
   @Override
   public Collection<MagikFileDefinition> getMagikFileDefinitions(final URI uri) {
-    final Collection<MagikFileDefinition> definitions =
-        this.magikFileDefinitions.getOrDefault(uri, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getMagikFileDefinitions(uri);
   }
 
   @Override
   public Collection<MagikFileDefinition> getMagikFileDefinitions() {
-    return this.magikFileDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getMagikFileDefinitions();
+  }
+
+  @Override
+  public Stream<MagikFileDefinition> streamMagikFileDefinitions() {
+    return this.getReadGeneration().streamMagikFileDefinitions();
   }
 
   @Override
   public Collection<PackageDefinition> getPackageDefinitions(final String name) {
-    final Collection<PackageDefinition> definitions =
-        this.packageDefinitions.getOrDefault(name, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getPackageDefinitions(name);
   }
 
   @Override
   public Collection<PackageDefinition> getPackageDefinitions() {
-    return this.packageDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getPackageDefinitions();
+  }
+
+  @Override
+  public Stream<PackageDefinition> streamPackageDefinitions() {
+    return this.getReadGeneration().streamPackageDefinitions();
   }
 
   @Override
   public Collection<ExemplarDefinition> getExemplarDefinitions(final TypeString typeString) {
-    // Get without generics.
-    final TypeString bareTypeString = typeString.getWithoutGenerics();
-    final Collection<ExemplarDefinition> definitions =
-        this.exemplarDefinitions.getOrDefault(bareTypeString, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getExemplarDefinitions(typeString);
   }
 
   @Override
   public Collection<ExemplarDefinition> getExemplarDefinitions() {
-    return this.exemplarDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getExemplarDefinitions();
+  }
+
+  @Override
+  public Stream<ExemplarDefinition> streamExemplarDefinitions() {
+    return this.getReadGeneration().streamExemplarDefinitions();
   }
 
   @Override
   public Collection<MethodDefinition> getMethodDefinitions(final TypeString typeString) {
-    final TypeString bareTypeString = typeString.getWithoutGenerics();
-    final Collection<MethodDefinition> definitions =
-        this.methodDefinitions.getOrDefault(bareTypeString, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getMethodDefinitions(typeString);
   }
 
   @Override
   public Collection<MethodDefinition> getMethodDefinitions() {
-    return this.methodDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getMethodDefinitions();
+  }
+
+  @Override
+  public Stream<MethodDefinition> streamMethodDefinitions() {
+    return this.getReadGeneration().streamMethodDefinitions();
   }
 
   @Override
   public Collection<GlobalDefinition> getGlobalDefinitions(final TypeString typeString) {
-    final Collection<GlobalDefinition> definitions =
-        this.globalDefinitions.getOrDefault(typeString, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getGlobalDefinitions(typeString);
   }
 
   @Override
   public Collection<GlobalDefinition> getGlobalDefinitions() {
-    return this.globalDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getGlobalDefinitions();
   }
 
-  private String getKey(final BinaryOperatorDefinition definition) {
-    return definition.getOperator()
-        + "_"
-        + definition.getLhsTypeName().getWithoutGenerics().getFullString()
-        + "_"
-        + definition.getRhsTypeName().getWithoutGenerics().getFullString();
+  @Override
+  public Stream<GlobalDefinition> streamGlobalDefinitions() {
+    return this.getReadGeneration().streamGlobalDefinitions();
   }
 
   @Override
   public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions(
       final String operator, final TypeString lhs, final TypeString rhs) {
-    final String key =
-        operator
-            + "_"
-            + lhs.getWithoutGenerics().getFullString()
-            + "_"
-            + rhs.getWithoutGenerics().getFullString();
-    final Collection<BinaryOperatorDefinition> definitions =
-        this.binaryOperatorDefinitions.getOrDefault(key, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getBinaryOperatorDefinitions(operator, lhs, rhs);
   }
 
   @Override
   public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions() {
-    return this.binaryOperatorDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getBinaryOperatorDefinitions();
+  }
+
+  @Override
+  public Stream<BinaryOperatorDefinition> streamBinaryOperatorDefinitions() {
+    return this.getReadGeneration().streamBinaryOperatorDefinitions();
   }
 
   @Override
   public Collection<ConditionDefinition> getConditionDefinitions(final String name) {
-    final Collection<ConditionDefinition> definitions =
-        this.conditionDefinitions.getOrDefault(name, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getConditionDefinitions(name);
   }
 
   @Override
   public Collection<ConditionDefinition> getConditionDefinitions() {
-    return this.conditionDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getConditionDefinitions();
+  }
+
+  @Override
+  public Stream<ConditionDefinition> streamConditionDefinitions() {
+    return this.getReadGeneration().streamConditionDefinitions();
   }
 
   @Override
   public Collection<ProcedureDefinition> getProcedureDefinitions(final TypeString typeString) {
-    final TypeString bareTypeString = typeString.getWithoutGenerics();
-    final Collection<ProcedureDefinition> definitions =
-        this.procedureDefinitions.getOrDefault(bareTypeString, Collections.emptySet());
-    return Collections.unmodifiableCollection(definitions);
+    return this.getReadGeneration().getProcedureDefinitions(typeString);
   }
 
   @Override
   public Collection<ProcedureDefinition> getProcedureDefinitions() {
-    return this.procedureDefinitions.values().stream()
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
+    return this.getReadGeneration().getProcedureDefinitions();
+  }
+
+  @Override
+  public Stream<ProcedureDefinition> streamProcedureDefinitions() {
+    return this.getReadGeneration().streamProcedureDefinitions();
+  }
+
+  @Override
+  public DefinitionInterner getInterner() {
+    return this.getReadGeneration().getInterner();
   }
 
   /** Clear any contained {@link MagikDefinition}s. */
   @Override
   public void clear() {
-    this.productDefinitions.clear();
-    this.moduleDefinitions.clear();
-    this.packageDefinitions.clear();
-    this.binaryOperatorDefinitions.clear();
-    this.conditionDefinitions.clear();
-    this.exemplarDefinitions.clear();
-    this.methodDefinitions.clear();
-    this.globalDefinitions.clear();
-    this.procedureDefinitions.clear();
+    this.batch(IDefinitionKeeper::clear);
   }
 }
@@ -103,6 +103,21 @@ public class ExemplarDefinition extends MagikDefinition implements ITypeStringDe
     return this.typeName.getFullString();
   }
 
+  @Override
+  ExemplarDefinition getInterned(final DefinitionInterner interner) {
+    return new ExemplarDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.sort,
+        this.typeName,
+        this.slots.stream().map(slot -> slot.getInterned(interner)).toList(),
+        this.parents,
+        this.topics);
+  }
+
   @Override
   public ExemplarDefinition getWithoutNode() {
     return new ExemplarDefinition(
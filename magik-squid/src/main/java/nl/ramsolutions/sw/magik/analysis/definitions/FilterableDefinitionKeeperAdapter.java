@@ -4,6 +4,7 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
@@ -167,106 +168,131 @@ public class FilterableDefinitionKeeperAdapter implements IDefinitionKeeper {
 
   @Override
   public Collection<ProductDefinition> getProductDefinitions(final String name) {
-    return this.getProductDefinitions().stream()
+    return this.streamProductDefinitions()
         .filter(productDef -> productDef.getName().equals(name))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<ProductDefinition> getProductDefinitions() {
-    return this.definitionKeeper.getProductDefinitions().stream()
-        .filter(this.productDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamProductDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ProductDefinition> streamProductDefinitions() {
+    return this.definitionKeeper.streamProductDefinitions().filter(this.productDefinitionPredicate);
   }
 
   @Override
   public Collection<ModuleDefinition> getModuleDefinitions(final String name) {
-    return this.getModuleDefinitions().stream()
+    return this.streamModuleDefinitions()
         .filter(moduleDef -> moduleDef.getName().equals(name))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<ModuleDefinition> getModuleDefinitions() {
-    return this.definitionKeeper.getModuleDefinitions().stream()
-        .filter(this.moduleDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamModuleDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ModuleDefinition> streamModuleDefinitions() {
+    return this.definitionKeeper.streamModuleDefinitions().filter(this.moduleDefinitionPredicate);
   }
 
   @Override
   public Collection<MagikFileDefinition> getMagikFileDefinitions(URI uri) {
-    return this.getMagikFileDefinitions().stream()
+    return this.streamMagikFileDefinitions()
         .filter(magikFileDef -> magikFileDef.getUri().equals(uri))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<MagikFileDefinition> getMagikFileDefinitions() {
-    return this.definitionKeeper.getMagikFileDefinitions().stream()
-        .filter(this.magikFileDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamMagikFileDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<MagikFileDefinition> streamMagikFileDefinitions() {
+    return this.definitionKeeper
+        .streamMagikFileDefinitions()
+        .filter(this.magikFileDefinitionPredicate);
   }
 
   @Override
   public Collection<PackageDefinition> getPackageDefinitions(final String name) {
-    return this.getPackageDefinitions().stream()
+    return this.streamPackageDefinitions()
         .filter(packageDef -> packageDef.getName().equals(name))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<PackageDefinition> getPackageDefinitions() {
-    return this.definitionKeeper.getPackageDefinitions().stream()
-        .filter(this.packageDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamPackageDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<PackageDefinition> streamPackageDefinitions() {
+    return this.definitionKeeper.streamPackageDefinitions().filter(this.packageDefinitionPredicate);
   }
 
   @Override
   public Collection<ExemplarDefinition> getExemplarDefinitions(final TypeString typeName) {
-    return this.getExemplarDefinitions().stream()
+    return this.streamExemplarDefinitions()
         .filter(exemplarDef -> exemplarDef.getTypeString().equals(typeName))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<ExemplarDefinition> getExemplarDefinitions() {
-    return this.definitionKeeper.getExemplarDefinitions().stream()
-        .filter(this.exemplarDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamExemplarDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ExemplarDefinition> streamExemplarDefinitions() {
+    return this.definitionKeeper
+        .streamExemplarDefinitions()
+        .filter(this.exemplarDefinitionPredicate);
   }
 
   @Override
   public Collection<MethodDefinition> getMethodDefinitions(final TypeString typeName) {
-    return this.getMethodDefinitions().stream()
+    return this.streamMethodDefinitions()
         .filter(methodDef -> methodDef.getTypeName().equals(typeName))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<MethodDefinition> getMethodDefinitions() {
-    return this.definitionKeeper.getMethodDefinitions().stream()
-        .filter(this.methodDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamMethodDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<MethodDefinition> streamMethodDefinitions() {
+    return this.definitionKeeper.streamMethodDefinitions().filter(this.methodDefinitionPredicate);
   }
 
   @Override
   public Collection<GlobalDefinition> getGlobalDefinitions(final TypeString typeName) {
-    return this.getGlobalDefinitions().stream()
+    return this.streamGlobalDefinitions()
         .filter(globalDef -> globalDef.getTypeString().equals(typeName))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<GlobalDefinition> getGlobalDefinitions() {
-    return this.definitionKeeper.getGlobalDefinitions().stream()
-        .filter(this.globalDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamGlobalDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<GlobalDefinition> streamGlobalDefinitions() {
+    return this.definitionKeeper.streamGlobalDefinitions().filter(this.globalDefinitionPredicate);
   }
 
   @Override
   public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions(
       final String operator, final TypeString lhs, final TypeString rhs) {
-    return this.getBinaryOperatorDefinitions().stream()
+    return this.streamBinaryOperatorDefinitions()
         .filter(
             binaryOperatorDef ->
                 binaryOperatorDef.getOperator().equals(operator)
@@ -277,37 +303,73 @@ public class FilterableDefinitionKeeperAdapter implements IDefinitionKeeper {
 
   @Override
   public Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions() {
-    return this.definitionKeeper.getBinaryOperatorDefinitions().stream()
-        .filter(this.binaryOperatorDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamBinaryOperatorDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<BinaryOperatorDefinition> streamBinaryOperatorDefinitions() {
+    return this.definitionKeeper
+        .streamBinaryOperatorDefinitions()
+        .filter(this.binaryOperatorDefinitionPredicate);
   }
 
   @Override
   public Collection<ConditionDefinition> getConditionDefinitions(final String name) {
-    return this.getConditionDefinitions().stream()
+    return this.streamConditionDefinitions()
         .filter(conditionDef -> conditionDef.getName().equals(name))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<ConditionDefinition> getConditionDefinitions() {
-    return this.definitionKeeper.getConditionDefinitions().stream()
-        .filter(this.conditionDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamConditionDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ConditionDefinition> streamConditionDefinitions() {
+    return this.definitionKeeper
+        .streamConditionDefinitions()
+        .filter(this.conditionDefinitionPredicate);
   }
 
   @Override
   public Collection<ProcedureDefinition> getProcedureDefinitions(final TypeString typeName) {
-    return this.getProcedureDefinitions().stream()
+    return this.streamProcedureDefinitions()
         .filter(procedureDef -> procedureDef.getTypeString().equals(typeName))
         .collect(Collectors.toSet());
   }
 
   @Override
   public Collection<ProcedureDefinition> getProcedureDefinitions() {
-    return this.definitionKeeper.getProcedureDefinitions().stream()
-        .filter(this.procedureDefinitionPredicate)
-        .collect(Collectors.toSet());
+    return this.streamProcedureDefinitions().collect(Collectors.toSet());
+  }
+
+  @Override
+  public Stream<ProcedureDefinition> streamProcedureDefinitions() {
+    return this.definitionKeeper
+        .streamProcedureDefinitions()
+        .filter(this.procedureDefinitionPredicate);
+  }
+
+  @Override
+  public DefinitionInterner getInterner() {
+    return this.definitionKeeper.getInterner();
+  }
+
+  @Override
+  public IDefinitionKeeper getSnapshot() {
+    return new FilterableDefinitionKeeperAdapter(
+        this.definitionKeeper.getSnapshot(),
+        this.productDefinitionPredicate,
+        this.moduleDefinitionPredicate,
+        this.magikFileDefinitionPredicate,
+        this.packageDefinitionPredicate,
+        this.exemplarDefinitionPredicate,
+        this.methodDefinitionPredicate,
+        this.globalDefinitionPredicate,
+        this.binaryOperatorDefinitionPredicate,
+        this.conditionDefinitionPredicate,
+        this.procedureDefinitionPredicate);
   }
 
   @Override
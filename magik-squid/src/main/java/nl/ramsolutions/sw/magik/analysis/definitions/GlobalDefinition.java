@@ -47,6 +47,18 @@ public class GlobalDefinition extends MagikDefinition implements ITypeStringDefi
     return this.typeName.getFullString();
   }
 
+  @Override
+  GlobalDefinition getInterned(final DefinitionInterner interner) {
+    return new GlobalDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.typeName,
+        this.aliasedTypeName);
+  }
+
   @Override
   public GlobalDefinition getWithoutNode() {
     return new GlobalDefinition(
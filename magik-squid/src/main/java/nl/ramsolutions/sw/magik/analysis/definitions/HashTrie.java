@@ -0,0 +1,385 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Persistent (immutable) hash array mapped trie.
+ *
+ * <p>{@link #put(Object, Object)} and {@link #remove(Object)} return a new trie, copying only the
+ * path from the root to the changed entry. All other nodes are shared with the original trie, so
+ * both can be read concurrently without locking.
+ *
+ * @param <K> Type of key.
+ * @param <V> Type of value.
+ */
+final class HashTrie<K, V> {
+
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+  /**
+   * Single key/value entry.
+   *
+   * @param hash Hash of key.
+   * @param key Key.
+   * @param value Value.
+   */
+  private record Entry<K, V>(int hash, K key, V value) {
+
+    boolean matches(final int otherHash, final Object otherKey) {
+      return this.hash == otherHash && this.key.equals(otherKey);
+    }
+  }
+
+  /** Node of the trie. */
+  private abstract static class Node<K, V> {
+
+    @CheckForNull
+    abstract V get(int hash, Object key, int shift);
+
+    abstract Node<K, V> put(Entry<K, V> entry, int shift, boolean[] added);
+
+    /** Remove a key, returns the same node if absent, or {@code null} if empty. */
+    @CheckForNull
+    abstract Node<K, V> remove(int hash, Object key, int shift);
+
+    /** Get the only entry, if this node holds a single entry and no sub nodes. */
+    @CheckForNull
+    abstract Entry<K, V> getSingleEntry();
+
+    abstract Stream<Entry<K, V>> entries();
+  }
+
+  /**
+   * Node holding up to 32 entries or sub nodes, indexed by 5 bits of the hash.
+   *
+   * <p>{@code slots} holds, in bit order, either an {@link Entry} or a {@link Node} for every bit
+   * set in {@code bitmap}.
+   */
+  private static final class BitmapNode<K, V> extends Node<K, V> {
+
+    private final int bitmap;
+    private final Object[] slots;
+
+    BitmapNode(final int bitmap, final Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    private int index(final int bit) {
+      return Integer.bitCount(this.bitmap & (bit - 1));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V get(final int hash, final Object key, final int shift) {
+      final int bit = HashTrie.bit(hash, shift);
+      if ((this.bitmap & bit) == 0) {
+        return null;
+      }
+
+      final Object slot = this.slots[this.index(bit)];
+      if (slot instanceof Entry<?, ?> entry) {
+        return entry.matches(hash, key) ? (V) entry.value() : null;
+      }
+
+      return ((Node<K, V>) slot).get(hash, key, shift + BITS_PER_LEVEL);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> put(final Entry<K, V> entry, final int shift, final boolean[] added) {
+      final int bit = HashTrie.bit(entry.hash(), shift);
+      final int index = this.index(bit);
+      if ((this.bitmap & bit) == 0) {
+        final Object[] newSlots = new Object[this.slots.length + 1];
+        System.arraycopy(this.slots, 0, newSlots, 0, index);
+        newSlots[index] = entry;
+        System.arraycopy(this.slots, index, newSlots, index + 1, this.slots.length - index);
+        added[0] = true;
+        return new BitmapNode<>(this.bitmap | bit, newSlots);
+      }
+
+      final Object slot = this.slots[index];
+      final Object newSlot;
+      if (slot instanceof Entry<?, ?> existingEntry) {
+        if (existingEntry.matches(entry.hash(), entry.key())) {
+          if (existingEntry.value() == entry.value()) {
+            return this;
+          }
+          newSlot = entry;
+        } else {
+          newSlot = HashTrie.merge((Entry<K, V>) existingEntry, entry, shift + BITS_PER_LEVEL);
+          added[0] = true;
+        }
+      } else {
+        final Node<K, V> node = (Node<K, V>) slot;
+        newSlot = node.put(entry, shift + BITS_PER_LEVEL, added);
+        if (newSlot == node) {
+          return this;
+        }
+      }
+
+      final Object[] newSlots = this.slots.clone();
+      newSlots[index] = newSlot;
+      return new BitmapNode<>(this.bitmap, newSlots);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> remove(final int hash, final Object key, final int shift) {
+      final int bit = HashTrie.bit(hash, shift);
+      if ((this.bitmap & bit) == 0) {
+        return this;
+      }
+
+      final int index = this.index(bit);
+      final Object slot = this.slots[index];
+      if (slot instanceof Entry<?, ?> entry) {
+        if (!entry.matches(hash, key)) {
+          return this;
+        }
+
+        if (this.slots.length == 1) {
+          return null;
+        }
+
+        final Object[] newSlots = new Object[this.slots.length - 1];
+        System.arraycopy(this.slots, 0, newSlots, 0, index);
+        System.arraycopy(this.slots, index + 1, newSlots, index, newSlots.length - index);
+        return new BitmapNode<>(this.bitmap & ~bit, newSlots);
+      }
+
+      final Node<K, V> node = (Node<K, V>) slot;
+      final Node<K, V> newNode = node.remove(hash, key, shift + BITS_PER_LEVEL);
+      if (newNode == node) {
+        return this;
+      }
+
+      // Sub nodes never become empty: a node with a single entry is replaced by that entry.
+      final Entry<K, V> singleEntry = Objects.requireNonNull(newNode).getSingleEntry();
+      final Object[] newSlots = this.slots.clone();
+      newSlots[index] = singleEntry != null ? singleEntry : newNode;
+      return new BitmapNode<>(this.bitmap, newSlots);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Entry<K, V> getSingleEntry() {
+      if (this.slots.length == 1 && this.slots[0] instanceof Entry<?, ?> entry) {
+        return (Entry<K, V>) entry;
+      }
+
+      return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Stream<Entry<K, V>> entries() {
+      return Arrays.stream(this.slots)
+          .flatMap(
+              slot ->
+                  slot instanceof Entry<?, ?> entry
+                      ? Stream.of((Entry<K, V>) entry)
+                      : ((Node<K, V>) slot).entries());
+    }
+  }
+
+  /** Node holding entries of which the keys have the same hash. */
+  private static final class CollisionNode<K, V> extends Node<K, V> {
+
+    private final int hash;
+    private final Entry<K, V>[] entries;
+
+    CollisionNode(final int hash, final Entry<K, V>[] entries) {
+      this.hash = hash;
+      this.entries = entries;
+    }
+
+    private int indexOf(final Object key) {
+      for (int i = 0; i < this.entries.length; i++) {
+        if (this.entries[i].key().equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    V get(final int otherHash, final Object key, final int shift) {
+      if (otherHash != this.hash) {
+        return null;
+      }
+
+      final int index = this.indexOf(key);
+      return index != -1 ? this.entries[index].value() : null;
+    }
+
+    @Override
+    Node<K, V> put(final Entry<K, V> entry, final int shift, final boolean[] added) {
+      if (entry.hash() != this.hash) {
+        // Push this node down a level, next to the new entry.
+        final BitmapNode<K, V> node =
+            new BitmapNode<>(HashTrie.bit(this.hash, shift), new Object[] {this});
+        return node.put(entry, shift, added);
+      }
+
+      final int index = this.indexOf(entry.key());
+      if (index != -1) {
+        if (this.entries[index].value() == entry.value()) {
+          return this;
+        }
+
+        final Entry<K, V>[] newEntries = this.entries.clone();
+        newEntries[index] = entry;
+        return new CollisionNode<>(this.hash, newEntries);
+      }
+
+      final Entry<K, V>[] newEntries = Arrays.copyOf(this.entries, this.entries.length + 1);
+      newEntries[this.entries.length] = entry;
+      added[0] = true;
+      return new CollisionNode<>(this.hash, newEntries);
+    }
+
+    @Override
+    Node<K, V> remove(final int otherHash, final Object key, final int shift) {
+      final int index = otherHash == this.hash ? this.indexOf(key) : -1;
+      if (index == -1) {
+        return this;
+      }
+
+      if (this.entries.length == 1) {
+        return null;
+      }
+
+      final Entry<K, V>[] newEntries = Arrays.copyOf(this.entries, this.entries.length - 1);
+      System.arraycopy(this.entries, index + 1, newEntries, index, this.entries.length - index - 1);
+      return new CollisionNode<>(this.hash, newEntries);
+    }
+
+    @Override
+    Entry<K, V> getSingleEntry() {
+      return this.entries.length == 1 ? this.entries[0] : null;
+    }
+
+    @Override
+    Stream<Entry<K, V>> entries() {
+      return Arrays.stream(this.entries);
+    }
+  }
+
+  private static final HashTrie<?, ?> EMPTY = new HashTrie<>(new BitmapNode<>(0, new Object[0]), 0);
+
+  private final Node<K, V> root;
+  private final int size;
+
+  private HashTrie(final Node<K, V> root, final int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Get the empty trie.
+   *
+   * @return Empty trie.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> HashTrie<K, V> empty() {
+    return (HashTrie<K, V>) EMPTY;
+  }
+
+  /**
+   * Get the value for {@code key}.
+   *
+   * @param key Key.
+   * @return Value, or {@code null} if absent.
+   */
+  @CheckForNull
+  V get(final Object key) {
+    return this.root.get(key.hashCode(), key, 0);
+  }
+
+  /**
+   * Get a trie with {@code key} mapped to {@code value}.
+   *
+   * @param key Key.
+   * @param value Value.
+   * @return New trie, or this trie if {@code key} already maps to {@code value}.
+   */
+  HashTrie<K, V> put(final K key, final V value) {
+    final boolean[] added = new boolean[1];
+    final Node<K, V> newRoot = this.root.put(new Entry<>(key.hashCode(), key, value), 0, added);
+    if (newRoot == this.root) {
+      return this;
+    }
+
+    return new HashTrie<>(newRoot, added[0] ? this.size + 1 : this.size);
+  }
+
+  /**
+   * Get a trie without {@code key}.
+   *
+   * @param key Key.
+   * @return New trie, or this trie if {@code key} is absent.
+   */
+  HashTrie<K, V> remove(final Object key) {
+    final Node<K, V> newRoot = this.root.remove(key.hashCode(), key, 0);
+    if (newRoot == this.root) {
+      return this;
+    }
+
+    if (newRoot == null) {
+      return HashTrie.empty();
+    }
+
+    return new HashTrie<>(newRoot, this.size - 1);
+  }
+
+  /**
+   * Get the number of entries.
+   *
+   * @return Number of entries.
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Stream all values.
+   *
+   * @return Stream of values.
+   */
+  Stream<V> values() {
+    return this.root.entries().map(Entry::value);
+  }
+
+  private static int bit(final int hash, final int shift) {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  /** Create a node holding two entries with different keys. */
+  private static <K, V> Node<K, V> merge(
+      final Entry<K, V> entry1, final Entry<K, V> entry2, final int shift) {
+    if (entry1.hash() == entry2.hash()) {
+      @SuppressWarnings("unchecked")
+      final Entry<K, V>[] entries = new Entry[] {entry1, entry2};
+      return new CollisionNode<>(entry1.hash(), entries);
+    }
+
+    final int bit1 = HashTrie.bit(entry1.hash(), shift);
+    final int bit2 = HashTrie.bit(entry2.hash(), shift);
+    if (bit1 == bit2) {
+      final Node<K, V> node = HashTrie.merge(entry1, entry2, shift + BITS_PER_LEVEL);
+      return new BitmapNode<>(bit1, new Object[] {node});
+    }
+
+    final Object[] slots =
+        Integer.compareUnsigned(bit1, bit2) < 0
+            ? new Object[] {entry1, entry2}
+            : new Object[] {entry2, entry1};
+    return new BitmapNode<>(bit1 | bit2, slots);
+  }
+}
@@ -2,13 +2,41 @@ package nl.ramsolutions.sw.magik.analysis.definitions;
 
 import java.net.URI;
 import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
 
-/** Definition keeper. */
+/**
+ * Definition keeper.
+ *
+ * <p>The no-argument {@code get...Definitions()} methods return a snapshot. The {@code
+ * stream...Definitions()} and {@code forEach...Definition()} methods iterate the live definitions
+ * without copying them, are weakly consistent, and the streams support parallel traversal.
+ *
+ * <p>Writes can be grouped using {@link #batch(BatchWriter)}. Readers which need a consistent view
+ * over multiple reads can pin one using {@link #getSnapshot()}.
+ */
 public interface IDefinitionKeeper {
 
+  /**
+   * Writer of a batch.
+   *
+   * @param <E> Type of exception thrown by the writer.
+   */
+  @FunctionalInterface
+  interface BatchWriter<E extends Exception> {
+
+    /**
+     * Write to the batch.
+     *
+     * @param definitionKeeper {@link IDefinitionKeeper} to write to.
+     * @throws E If the writer fails.
+     */
+    void write(IDefinitionKeeper definitionKeeper) throws E;
+  }
+
   void add(ProductDefinition definition);
 
   void add(ModuleDefinition definition);
@@ -53,42 +81,135 @@ public interface IDefinitionKeeper {
 
   Collection<ProductDefinition> getProductDefinitions();
 
+  Stream<ProductDefinition> streamProductDefinitions();
+
+  default void forEachProductDefinition(final Consumer<? super ProductDefinition> action) {
+    this.streamProductDefinitions().forEach(action);
+  }
+
   Collection<ModuleDefinition> getModuleDefinitions(String name);
 
   Collection<ModuleDefinition> getModuleDefinitions();
 
+  Stream<ModuleDefinition> streamModuleDefinitions();
+
+  default void forEachModuleDefinition(final Consumer<? super ModuleDefinition> action) {
+    this.streamModuleDefinitions().forEach(action);
+  }
+
   Collection<MagikFileDefinition> getMagikFileDefinitions(URI uri);
 
   Collection<MagikFileDefinition> getMagikFileDefinitions();
 
+  Stream<MagikFileDefinition> streamMagikFileDefinitions();
+
+  default void forEachMagikFileDefinition(final Consumer<? super MagikFileDefinition> action) {
+    this.streamMagikFileDefinitions().forEach(action);
+  }
+
   Collection<PackageDefinition> getPackageDefinitions(String name);
 
   Collection<PackageDefinition> getPackageDefinitions();
 
+  Stream<PackageDefinition> streamPackageDefinitions();
+
+  default void forEachPackageDefinition(final Consumer<? super PackageDefinition> action) {
+    this.streamPackageDefinitions().forEach(action);
+  }
+
   Collection<ExemplarDefinition> getExemplarDefinitions(TypeString typeName);
 
   Collection<ExemplarDefinition> getExemplarDefinitions();
 
+  Stream<ExemplarDefinition> streamExemplarDefinitions();
+
+  default void forEachExemplarDefinition(final Consumer<? super ExemplarDefinition> action) {
+    this.streamExemplarDefinitions().forEach(action);
+  }
+
   Collection<MethodDefinition> getMethodDefinitions(TypeString typeName);
 
   Collection<MethodDefinition> getMethodDefinitions();
 
+  Stream<MethodDefinition> streamMethodDefinitions();
+
+  default void forEachMethodDefinition(final Consumer<? super MethodDefinition> action) {
+    this.streamMethodDefinitions().forEach(action);
+  }
+
   Collection<GlobalDefinition> getGlobalDefinitions(TypeString typeName);
 
   Collection<GlobalDefinition> getGlobalDefinitions();
 
+  Stream<GlobalDefinition> streamGlobalDefinitions();
+
+  default void forEachGlobalDefinition(final Consumer<? super GlobalDefinition> action) {
+    this.streamGlobalDefinitions().forEach(action);
+  }
+
   Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions(
       String operator, TypeString lhs, TypeString rhs);
 
   Collection<BinaryOperatorDefinition> getBinaryOperatorDefinitions();
 
+  Stream<BinaryOperatorDefinition> streamBinaryOperatorDefinitions();
+
+  default void forEachBinaryOperatorDefinition(
+      final Consumer<? super BinaryOperatorDefinition> action) {
+    this.streamBinaryOperatorDefinitions().forEach(action);
+  }
+
   Collection<ConditionDefinition> getConditionDefinitions(String name);
 
   Collection<ConditionDefinition> getConditionDefinitions();
 
+  Stream<ConditionDefinition> streamConditionDefinitions();
+
+  default void forEachConditionDefinition(final Consumer<? super ConditionDefinition> action) {
+    this.streamConditionDefinitions().forEach(action);
+  }
+
   Collection<ProcedureDefinition> getProcedureDefinitions(TypeString typeName);
 
   Collection<ProcedureDefinition> getProcedureDefinitions();
 
+  Stream<ProcedureDefinition> streamProcedureDefinitions();
+
+  default void forEachProcedureDefinition(final Consumer<? super ProcedureDefinition> action) {
+    this.streamProcedureDefinitions().forEach(action);
+  }
+
+  /**
+   * Get the {@link DefinitionInterner} to pass values through before adding definitions.
+   *
+   * @return Intern pools of this keeper.
+   */
+  DefinitionInterner getInterner();
+
+  /**
+   * Run {@code writer} as a single batch. Readers see either none or all of its writes.
+   *
+   * <p>Writes from other threads than the calling thread, and reads of the batch's own writes from
+   * those threads, must go through the {@link IDefinitionKeeper} given to {@code writer}. Batches
+   * are serialized: a write to this keeper from another thread waits until the batch is complete.
+   * The default implementation writes directly to this keeper.
+   *
+   * @param writer Writer of the batch.
+   * @throws E If the writer fails.
+   */
+  default <E extends Exception> void batch(final BatchWriter<E> writer) throws E {
+    writer.write(this);
+  }
+
+  /**
+   * Get a read-only view of the current definitions, which is not affected by later writes. The
+   * default implementation returns this keeper.
+   *
+   * @return Snapshot of this keeper.
+   */
+  default IDefinitionKeeper getSnapshot() {
+    return this;
+  }
+
   void clear();
 }
@@ -0,0 +1,93 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe intern table, mapping values to dense integer ids and back.
+ *
+ * <p>Ids are never reused, values are kept for the lifetime of the table.
+ *
+ * @param <T> Type of value.
+ */
+public final class InternTable<T> {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+  private volatile Object[] values = new Object[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Get the id for {@code value}, interning it if needed.
+   *
+   * @param value Value to intern.
+   * @return Id of value.
+   */
+  public int idOf(final T value) {
+    final Integer id = this.ids.get(value);
+    if (id != null) {
+      return id;
+    }
+
+    synchronized (this) {
+      final Integer existingId = this.ids.get(value);
+      if (existingId != null) {
+        return existingId;
+      }
+
+      final int newId = this.size;
+      Object[] currentValues = this.values;
+      if (newId == currentValues.length) {
+        currentValues = Arrays.copyOf(currentValues, currentValues.length * 2);
+      }
+      currentValues[newId] = value;
+      this.values = currentValues;
+      this.size = newId + 1;
+      this.ids.put(value, newId);
+      return newId;
+    }
+  }
+
+  /**
+   * Get the id for {@code value}, without interning it.
+   *
+   * @param value Value to look up.
+   * @return Id of value, or {@code -1} if {@code value} is not interned.
+   */
+  public int find(final T value) {
+    final Integer id = this.ids.get(value);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Get the canonical instance equal to {@code value}, interning it if needed.
+   *
+   * @param value Value to intern.
+   * @return Canonical instance.
+   */
+  public T intern(final T value) {
+    return this.get(this.idOf(value));
+  }
+
+  /**
+   * Get the value for {@code id}.
+   *
+   * @param id Id of value, as returned by {@link #idOf(Object)}.
+   * @return Value.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(final int id) {
+    return (T) this.values[id];
+  }
+
+  /**
+   * Get the number of interned values.
+   *
+   * @return Number of interned values.
+   */
+  public int size() {
+    return this.ids.size();
+  }
+}
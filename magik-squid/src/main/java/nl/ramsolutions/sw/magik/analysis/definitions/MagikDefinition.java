@@ -89,6 +89,17 @@ public abstract class MagikDefinition implements IDefinition {
    */
   public abstract String getName();
 
+  /**
+   * Get a(n equal) copy of self, using the canonical instances of the location, module name and
+   * other shared values from {@code interner}.
+   *
+   * @param interner {@link DefinitionInterner} to use.
+   * @return Copy of self, or self if there is nothing to intern.
+   */
+  MagikDefinition getInterned(final DefinitionInterner interner) {
+    return this;
+  }
+
   /**
    * Get a(n equal) copy of self, without the {@link AstNode}.
    *
@@ -1,6 +1,7 @@
 package nl.ramsolutions.sw.magik.analysis.definitions;
 
 import com.sonar.sslr.api.AstNode;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -20,6 +21,9 @@ import nl.ramsolutions.sw.magik.analysis.definitions.parsers.GlobalDefinitionPar
 import nl.ramsolutions.sw.magik.analysis.definitions.parsers.MethodDefinitionParser;
 import nl.ramsolutions.sw.magik.analysis.definitions.parsers.ProcedureDefinitionParser;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
+import nl.ramsolutions.sw.magik.api.MagikKeyword;
+import nl.ramsolutions.sw.magik.parser.MagikParser;
+import nl.ramsolutions.sw.magik.parser.MagikSourceChunker;
 
 /**
  * Class to easily read/parse AST for. Supported constructs:
@@ -40,11 +44,63 @@ import nl.ramsolutions.sw.magik.api.MagikGrammar;
 public class MagikDefinitionReader extends MagikAstWalker {
 
   private final MagikFile magikFile;
+  private final boolean nodeless;
   private final List<MagikDefinition> definitions = new ArrayList<>();
   private final List<MethodDefinition> fromSlots = new ArrayList<>();
 
   public MagikDefinitionReader(final MagikFile magikFile) {
+    this(magikFile, false);
+  }
+
+  private MagikDefinitionReader(final MagikFile magikFile, final boolean nodeless) {
     this.magikFile = magikFile;
+    this.nodeless = nodeless;
+  }
+
+  /**
+   * Read the definitions of a file, without their nodes, for indexing.
+   *
+   * <p>The file is parsed chunk by chunk, see {@link MagikSourceChunker}, and the definitions of a
+   * chunk are stripped from their nodes before the next chunk is parsed. Only the syntax tree of a
+   * single chunk is kept in memory, instead of that of the whole file. Each chunk is preceded by
+   * the current package and its tokens are moved to their lines in the whole file. If any chunk
+   * contains a syntax error, the file is parsed as a whole.
+   *
+   * <p>The syntax tree of {@code magikFile} is not used, nor kept.
+   *
+   * @param magikFile File to read.
+   * @return Definitions, without nodes.
+   */
+  public static List<MagikDefinition> readNodelessDefinitions(final MagikFile magikFile) {
+    final MagikDefinitionReader reader = new MagikDefinitionReader(magikFile, true);
+    final MagikParser parser = new MagikParser();
+    final String source = magikFile.getSource();
+    final URI uri = magikFile.getUri();
+    String pakkage = null;
+    for (final MagikSourceChunker.Chunk chunk : MagikSourceChunker.split(source)) {
+      final String chunkSource = source.substring(chunk.startOffset(), chunk.endOffset());
+      final AstNode chunkNode;
+      if (pakkage != null) {
+        final String packageLine = MagikKeyword.PACKAGE.getValue() + " " + pakkage + "\n";
+        chunkNode = parser.parseSafe(packageLine + chunkSource, uri, chunk.startLine() - 2);
+      } else {
+        chunkNode = parser.parseSafe(chunkSource, uri, chunk.startLine() - 1);
+      }
+      if (chunkNode.hasDescendant(MagikGrammar.SYNTAX_ERROR)) {
+        // Chunks do not align with the parser, read the file as a whole.
+        final MagikDefinitionReader fileReader = new MagikDefinitionReader(magikFile, true);
+        fileReader.walkAst(parser.parseSafe(source, uri));
+        return fileReader.getDefinitions();
+      }
+
+      reader.walkAst(chunkNode);
+
+      for (final AstNode childNode : chunkNode.getChildren(MagikGrammar.PACKAGE_SPECIFICATION)) {
+        pakkage =
+            childNode.getFirstChild(MagikGrammar.PACKAGE_IDENTIFIER).getToken().getOriginalValue();
+      }
+    }
+    return reader.getDefinitions();
   }
 
   public List<MagikDefinition> getDefinitions() {
@@ -54,7 +110,7 @@ public class MagikDefinitionReader extends MagikAstWalker {
   @Override
   protected void walkPostMethodDefinition(final AstNode node) {
     final MethodDefinitionParser parser = new MethodDefinitionParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
 
     // remove any write/get methods from writeable slots if they would create duplicates
     parsedDefinitions.stream()
@@ -92,7 +148,7 @@ public class MagikDefinitionReader extends MagikAstWalker {
 
   private void handleGlobalDefinition(final AstNode node) {
     final GlobalDefinitionParser parser = new GlobalDefinitionParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
@@ -146,50 +202,50 @@ public class MagikDefinitionReader extends MagikAstWalker {
 
   private void handleDefineCondition(final AstNode node) {
     final DefConditionParser parser = new DefConditionParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefPackage(final AstNode node) {
     final DefPackageParser parser = new DefPackageParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefEnumeration(final AstNode node) {
     final DefEnumerationParser parser = new DefEnumerationParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefSlottedExemplar(final AstNode node) {
     final DefSlottedExemplarParser parser = new DefSlottedExemplarParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefIndexedExemplar(final AstNode node) {
     final DefIndexedExemplarParser parser = new DefIndexedExemplarParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefMixin(final AstNode node) {
     final DefMixinParser parser = new DefMixinParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefineBinaryOperatorCase(final AstNode node) {
     final DefineBinaryOperatorCaseParser parser =
         new DefineBinaryOperatorCaseParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefineSlotAccess(final AstNode node) {
     final DefineSlotAccessParser parser = new DefineSlotAccessParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.fromSlots.addAll(
         parsedDefinitions.stream()
             .filter(MethodDefinition.class::isInstance)
@@ -200,19 +256,27 @@ public class MagikDefinitionReader extends MagikAstWalker {
 
   private void handleDefineSharedVariable(final AstNode node) {
     final DefineSharedVariableParser parser = new DefineSharedVariableParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefineSharedConstant(final AstNode node) {
     final DefineSharedConstantParser parser = new DefineSharedConstantParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
 
   private void handleDefineProcedure(final AstNode node) {
     final ProcedureDefinitionParser parser = new ProcedureDefinitionParser(this.magikFile, node);
-    final List<MagikDefinition> parsedDefinitions = parser.parseDefinitions();
+    final List<MagikDefinition> parsedDefinitions = this.withoutNodes(parser.parseDefinitions());
     this.definitions.addAll(parsedDefinitions);
   }
+
+  private List<MagikDefinition> withoutNodes(final List<MagikDefinition> parsedDefinitions) {
+    if (!this.nodeless) {
+      return parsedDefinitions;
+    }
+
+    return parsedDefinitions.stream().map(MagikDefinition::getWithoutNode).toList();
+  }
 }
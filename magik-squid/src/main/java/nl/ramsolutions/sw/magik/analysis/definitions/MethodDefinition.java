@@ -126,10 +126,10 @@ public class MethodDefinition extends MagikDefinition implements ICallableDefini
     this.topics = Set.copyOf(topics);
     this.returnTypes = returnTypes;
     this.loopTypes = loopTypes;
-    this.usedGlobals = Collections.unmodifiableSet(usedGlobals);
-    this.usedMethods = Collections.unmodifiableSet(usedMethods);
-    this.usedSlots = Collections.unmodifiableSet(usedSlots);
-    this.usedConditions = Collections.unmodifiableSet(usedConditions);
+    this.usedGlobals = PackedUsageSet.copyOf(usedGlobals);
+    this.usedMethods = PackedUsageSet.copyOf(usedMethods);
+    this.usedSlots = PackedUsageSet.copyOf(usedSlots);
+    this.usedConditions = PackedUsageSet.copyOf(usedConditions);
   }
 
   /**
@@ -319,6 +319,29 @@ public class MethodDefinition extends MagikDefinition implements ICallableDefini
     return Collections.unmodifiableSet(this.usedConditions);
   }
 
+  @Override
+  MethodDefinition getInterned(final DefinitionInterner interner) {
+    final PackedUsageSet.Tables usageTables = interner.getUsageTables();
+    return new MethodDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.typeName,
+        this.methodName,
+        this.modifiers,
+        this.parameters.stream().map(parameter -> parameter.getInterned(interner)).toList(),
+        this.assignmentParameter != null ? this.assignmentParameter.getInterned(interner) : null,
+        this.topics,
+        this.returnTypes,
+        this.loopTypes,
+        PackedUsageSet.ofGlobalUsages(usageTables, this.usedGlobals),
+        PackedUsageSet.ofMethodUsages(usageTables, this.usedMethods),
+        PackedUsageSet.ofSlotUsages(usageTables, this.usedSlots),
+        PackedUsageSet.ofConditionUsages(usageTables, this.usedConditions));
+  }
+
   @Override
   public MethodDefinition getWithoutNode() {
     return new MethodDefinition(
@@ -44,6 +44,18 @@ public class PackageDefinition extends MagikDefinition {
     return Collections.unmodifiableList(this.uses);
   }
 
+  @Override
+  PackageDefinition getInterned(final DefinitionInterner interner) {
+    return new PackageDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        interner.internPackageName(this.name),
+        this.uses.stream().map(interner::internPackageName).toList());
+  }
+
   @Override
   public PackageDefinition getWithoutNode() {
     return new PackageDefinition(
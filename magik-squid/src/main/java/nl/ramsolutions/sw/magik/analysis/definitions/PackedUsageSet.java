@@ -0,0 +1,490 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+
+/**
+ * Immutable set of usages, packed into a single {@code int[]}.
+ *
+ * <p>Every usage is stored as a fixed number of key ids (interned names/type strings), followed by
+ * the file id and the start/end line/column of its location. Usages are sorted by their key ids.
+ * Usage objects, and their {@link Location}s, are only materialized when iterating.
+ *
+ * <p>Usages are equal when their keys are equal, the location is not tested. {@link
+ * #contains(Object)}, {@link #equals(Object)} and {@link #hashCode()} work on the key ids only.
+ *
+ * @param <T> Type of usage.
+ */
+final class PackedUsageSet<T> extends AbstractSet<T> {
+
+  /**
+   * Intern tables the ids in a {@link PackedUsageSet} refer to. Owned by a {@link
+   * DefinitionInterner}.
+   *
+   * @param names Interned names of methods, slots and conditions.
+   * @param typeStrings Interned type strings of used globals and method receivers.
+   * @param files Interned file URIs of usage locations.
+   */
+  record Tables(
+      InternTable<String> names, InternTable<TypeString> typeStrings, InternTable<URI> files) {
+
+    /**
+     * Constructor, with empty name and type string tables.
+     *
+     * @param files Interned file URIs, shared with the {@link DefinitionInterner}.
+     */
+    Tables(final InternTable<URI> files) {
+      this(new InternTable<>(), new InternTable<>(), files);
+    }
+  }
+
+  /**
+   * Encoder/decoder for a single kind of usage.
+   *
+   * @param <T> Type of usage.
+   */
+  private interface Codec<T> {
+
+    Class<T> getUsageClass();
+
+    int keyCount();
+
+    void writeKeys(T usage, Tables tables, int[] data, int offset);
+
+    /** Write the key ids of {@code usage} without interning, returns false if any is unknown. */
+    boolean findKeys(T usage, Tables tables, int[] keys);
+
+    @CheckForNull
+    Location getLocation(T usage);
+
+    T read(Tables tables, int[] data, int offset, @Nullable Location location);
+
+    /** Get the hash code of the usage at {@code offset}, equal to its {@code hashCode()}. */
+    int hash(Tables tables, int[] data, int offset);
+  }
+
+  private static final int NONE = -1;
+  private static final int LOCATION_FIELDS = 5;
+
+  private static final Codec<GlobalUsage> GLOBAL_USAGE_CODEC =
+      new Codec<>() {
+        @Override
+        public Class<GlobalUsage> getUsageClass() {
+          return GlobalUsage.class;
+        }
+
+        @Override
+        public int keyCount() {
+          return 1;
+        }
+
+        @Override
+        public void writeKeys(
+            final GlobalUsage usage, final Tables tables, final int[] data, final int offset) {
+          data[offset] = tables.typeStrings().idOf(usage.getTypeName());
+        }
+
+        @Override
+        public boolean findKeys(final GlobalUsage usage, final Tables tables, final int[] keys) {
+          keys[0] = tables.typeStrings().find(usage.getTypeName());
+          return keys[0] != NONE;
+        }
+
+        @Override
+        public Location getLocation(final GlobalUsage usage) {
+          return usage.getLocation();
+        }
+
+        @Override
+        public GlobalUsage read(
+            final Tables tables,
+            final int[] data,
+            final int offset,
+            final @Nullable Location location) {
+          return new GlobalUsage(tables.typeStrings().get(data[offset]), location);
+        }
+
+        @Override
+        public int hash(final Tables tables, final int[] data, final int offset) {
+          return Objects.hash(tables.typeStrings().get(data[offset]));
+        }
+      };
+
+  private static final Codec<MethodUsage> METHOD_USAGE_CODEC =
+      new Codec<>() {
+        @Override
+        public Class<MethodUsage> getUsageClass() {
+          return MethodUsage.class;
+        }
+
+        @Override
+        public int keyCount() {
+          return 2;
+        }
+
+        @Override
+        public void writeKeys(
+            final MethodUsage usage, final Tables tables, final int[] data, final int offset) {
+          data[offset] = tables.typeStrings().idOf(usage.getTypeName());
+          data[offset + 1] = tables.names().idOf(usage.getMethodName());
+        }
+
+        @Override
+        public boolean findKeys(final MethodUsage usage, final Tables tables, final int[] keys) {
+          keys[0] = tables.typeStrings().find(usage.getTypeName());
+          keys[1] = tables.names().find(usage.getMethodName());
+          return keys[0] != NONE && keys[1] != NONE;
+        }
+
+        @Override
+        public Location getLocation(final MethodUsage usage) {
+          return usage.getLocation();
+        }
+
+        @Override
+        public MethodUsage read(
+            final Tables tables,
+            final int[] data,
+            final int offset,
+            final @Nullable Location location) {
+          return new MethodUsage(
+              tables.typeStrings().get(data[offset]),
+              tables.names().get(data[offset + 1]),
+              location);
+        }
+
+        @Override
+        public int hash(final Tables tables, final int[] data, final int offset) {
+          return Objects.hash(
+              tables.typeStrings().get(data[offset]), tables.names().get(data[offset + 1]));
+        }
+      };
+
+  private static final Codec<SlotUsage> SLOT_USAGE_CODEC =
+      new Codec<>() {
+        @Override
+        public Class<SlotUsage> getUsageClass() {
+          return SlotUsage.class;
+        }
+
+        @Override
+        public int keyCount() {
+          return 1;
+        }
+
+        @Override
+        public void writeKeys(
+            final SlotUsage usage, final Tables tables, final int[] data, final int offset) {
+          data[offset] = tables.names().idOf(usage.getSlotName());
+        }
+
+        @Override
+        public boolean findKeys(final SlotUsage usage, final Tables tables, final int[] keys) {
+          keys[0] = tables.names().find(usage.getSlotName());
+          return keys[0] != NONE;
+        }
+
+        @Override
+        public Location getLocation(final SlotUsage usage) {
+          return usage.getLocation();
+        }
+
+        @Override
+        public SlotUsage read(
+            final Tables tables,
+            final int[] data,
+            final int offset,
+            final @Nullable Location location) {
+          return new SlotUsage(tables.names().get(data[offset]), location);
+        }
+
+        @Override
+        public int hash(final Tables tables, final int[] data, final int offset) {
+          return Objects.hash(tables.names().get(data[offset]));
+        }
+      };
+
+  private static final Codec<ConditionUsage> CONDITION_USAGE_CODEC =
+      new Codec<>() {
+        @Override
+        public Class<ConditionUsage> getUsageClass() {
+          return ConditionUsage.class;
+        }
+
+        @Override
+        public int keyCount() {
+          return 1;
+        }
+
+        @Override
+        public void writeKeys(
+            final ConditionUsage usage, final Tables tables, final int[] data, final int offset) {
+          data[offset] = tables.names().idOf(usage.getConditionName());
+        }
+
+        @Override
+        public boolean findKeys(final ConditionUsage usage, final Tables tables, final int[] keys) {
+          keys[0] = tables.names().find(usage.getConditionName());
+          return keys[0] != NONE;
+        }
+
+        @Override
+        public Location getLocation(final ConditionUsage usage) {
+          return usage.getLocation();
+        }
+
+        @Override
+        public ConditionUsage read(
+            final Tables tables,
+            final int[] data,
+            final int offset,
+            final @Nullable Location location) {
+          return new ConditionUsage(tables.names().get(data[offset]), location);
+        }
+
+        @Override
+        public int hash(final Tables tables, final int[] data, final int offset) {
+          return Objects.hash(tables.names().get(data[offset]));
+        }
+      };
+
+  private final Codec<T> codec;
+  private final Tables tables;
+  private final int[] data;
+
+  private PackedUsageSet(final Codec<T> codec, final Tables tables, final Set<T> usages) {
+    this.codec = codec;
+    this.tables = tables;
+
+    final int stride = PackedUsageSet.stride(codec);
+    final int[] unsorted = new int[usages.size() * stride];
+    int offset = 0;
+    for (final T usage : usages) {
+      codec.writeKeys(usage, tables, unsorted, offset);
+      PackedUsageSet.writeLocation(
+          codec.getLocation(usage), tables, unsorted, offset + codec.keyCount());
+      offset += stride;
+    }
+
+    // Sort usages by their keys, for binary searching and comparing.
+    final int keyCount = codec.keyCount();
+    final Comparator<Integer> byKeys =
+        (index1, index2) ->
+            Arrays.compare(
+                unsorted,
+                index1 * stride,
+                index1 * stride + keyCount,
+                unsorted,
+                index2 * stride,
+                index2 * stride + keyCount);
+    final int[] order =
+        IntStream.range(0, usages.size()).boxed().sorted(byKeys).mapToInt(i -> i).toArray();
+    this.data = new int[unsorted.length];
+    for (int i = 0; i < order.length; i++) {
+      System.arraycopy(unsorted, order[i] * stride, this.data, i * stride, stride);
+    }
+  }
+
+  static Set<GlobalUsage> ofGlobalUsages(final Tables tables, final Set<GlobalUsage> usages) {
+    return PackedUsageSet.of(GLOBAL_USAGE_CODEC, tables, usages);
+  }
+
+  static Set<MethodUsage> ofMethodUsages(final Tables tables, final Set<MethodUsage> usages) {
+    return PackedUsageSet.of(METHOD_USAGE_CODEC, tables, usages);
+  }
+
+  static Set<SlotUsage> ofSlotUsages(final Tables tables, final Set<SlotUsage> usages) {
+    return PackedUsageSet.of(SLOT_USAGE_CODEC, tables, usages);
+  }
+
+  static Set<ConditionUsage> ofConditionUsages(
+      final Tables tables, final Set<ConditionUsage> usages) {
+    return PackedUsageSet.of(CONDITION_USAGE_CODEC, tables, usages);
+  }
+
+  /**
+   * Get an immutable copy of {@code usages}, keeping an already packed set as is.
+   *
+   * @param usages Usages to copy.
+   * @return Immutable set of usages.
+   */
+  static <T> Set<T> copyOf(final Set<T> usages) {
+    if (usages instanceof PackedUsageSet<T>) {
+      return usages;
+    }
+
+    return Set.copyOf(usages);
+  }
+
+  private static <T> Set<T> of(final Codec<T> codec, final Tables tables, final Set<T> usages) {
+    if (usages.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    if (usages instanceof PackedUsageSet<T> packedUsages && packedUsages.tables == tables) {
+      return packedUsages;
+    }
+
+    return new PackedUsageSet<>(codec, tables, usages);
+  }
+
+  private static int stride(final Codec<?> codec) {
+    return codec.keyCount() + LOCATION_FIELDS;
+  }
+
+  private static void writeLocation(
+      final @Nullable Location location, final Tables tables, final int[] data, final int offset) {
+    Arrays.fill(data, offset, offset + LOCATION_FIELDS, NONE);
+    if (location == null) {
+      return;
+    }
+
+    data[offset] = tables.files().idOf(location.getUri());
+    final Range range = location.getRange();
+    if (range == null) {
+      return;
+    }
+
+    final Position startPosition = range.getStartPosition();
+    final Position endPosition = range.getEndPosition();
+    data[offset + 1] = startPosition.getLine();
+    data[offset + 2] = startPosition.getColumn();
+    data[offset + 3] = endPosition.getLine();
+    data[offset + 4] = endPosition.getColumn();
+  }
+
+  @CheckForNull
+  private static Location readLocation(final Tables tables, final int[] data, final int offset) {
+    final int fileId = data[offset];
+    if (fileId == NONE) {
+      return null;
+    }
+
+    final URI uri = tables.files().get(fileId);
+    if (data[offset + 1] == NONE) {
+      return new Location(uri);
+    }
+
+    final Position startPosition = new Position(data[offset + 1], data[offset + 2]);
+    final Position endPosition = new Position(data[offset + 3], data[offset + 4]);
+    return new Location(uri, new Range(startPosition, endPosition));
+  }
+
+  @Override
+  public int size() {
+    return this.data.length / PackedUsageSet.stride(this.codec);
+  }
+
+  @Override
+  public boolean contains(final Object obj) {
+    final Class<T> usageClass = this.codec.getUsageClass();
+    if (obj == null || obj.getClass() != usageClass) {
+      return false;
+    }
+
+    final int keyCount = this.codec.keyCount();
+    final int[] keys = new int[keyCount];
+    if (!this.codec.findKeys(usageClass.cast(obj), this.tables, keys)) {
+      return false;
+    }
+
+    final int stride = PackedUsageSet.stride(this.codec);
+    int low = 0;
+    int high = this.size() - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int offset = mid * stride;
+      final int comparison =
+          Arrays.compare(this.data, offset, offset + keyCount, keys, 0, keyCount);
+      if (comparison < 0) {
+        low = mid + 1;
+      } else if (comparison > 0) {
+        high = mid - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj instanceof PackedUsageSet<?> other
+        && other.codec == this.codec
+        && other.tables == this.tables) {
+      // Both sorted by the same key ids, compare the keys of every usage.
+      if (other.data.length != this.data.length) {
+        return false;
+      }
+
+      final int stride = PackedUsageSet.stride(this.codec);
+      final int keyCount = this.codec.keyCount();
+      for (int offset = 0; offset < this.data.length; offset += stride) {
+        if (!Arrays.equals(
+            this.data, offset, offset + keyCount, other.data, offset, offset + keyCount)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    return super.equals(obj);
+  }
+
+  @Override
+  public int hashCode() {
+    final int stride = PackedUsageSet.stride(this.codec);
+    int hashCode = 0;
+    for (int offset = 0; offset < this.data.length; offset += stride) {
+      hashCode += this.codec.hash(this.tables, this.data, offset);
+    }
+    return hashCode;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    final int stride = PackedUsageSet.stride(this.codec);
+    return new Iterator<>() {
+      private int offset;
+
+      @Override
+      public boolean hasNext() {
+        return this.offset < PackedUsageSet.this.data.length;
+      }
+
+      @Override
+      public T next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        final int[] packed = PackedUsageSet.this.data;
+        final Codec<T> usageCodec = PackedUsageSet.this.codec;
+        final Tables usageTables = PackedUsageSet.this.tables;
+        final Location location =
+            PackedUsageSet.readLocation(usageTables, packed, this.offset + usageCodec.keyCount());
+        final T usage = usageCodec.read(usageTables, packed, this.offset, location);
+        this.offset += stride;
+        return usage;
+      }
+    };
+  }
+}
@@ -59,6 +59,19 @@ public class ParameterDefinition extends MagikDefinition {
     return this.typeName;
   }
 
+  @Override
+  ParameterDefinition getInterned(final DefinitionInterner interner) {
+    return new ParameterDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.name,
+        this.modifier,
+        this.typeName);
+  }
+
   @Override
   public ParameterDefinition getWithoutNode() {
     return new ParameterDefinition(
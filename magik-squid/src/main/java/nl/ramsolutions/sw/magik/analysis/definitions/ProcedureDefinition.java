@@ -108,9 +108,9 @@ public class ProcedureDefinition extends MagikDefinition
     this.parameters = List.copyOf(parameters);
     this.returnTypes = returnTypes;
     this.loopTypes = loopTypes;
-    this.usedGlobals = Collections.unmodifiableSet(usedGlobals);
-    this.usedMethods = Collections.unmodifiableSet(usedMethods);
-    this.usedConditions = Collections.unmodifiableSet(usedConditions);
+    this.usedGlobals = PackedUsageSet.copyOf(usedGlobals);
+    this.usedMethods = PackedUsageSet.copyOf(usedMethods);
+    this.usedConditions = PackedUsageSet.copyOf(usedConditions);
   }
 
   public Set<Modifier> getModifiers() {
@@ -218,6 +218,26 @@ public class ProcedureDefinition extends MagikDefinition
     return Collections.unmodifiableSet(this.usedConditions);
   }
 
+  @Override
+  ProcedureDefinition getInterned(final DefinitionInterner interner) {
+    final PackedUsageSet.Tables usageTables = interner.getUsageTables();
+    return new ProcedureDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.modifiers,
+        this.typeName,
+        this.procedureName,
+        this.parameters.stream().map(parameter -> parameter.getInterned(interner)).toList(),
+        this.returnTypes,
+        this.loopTypes,
+        PackedUsageSet.ofGlobalUsages(usageTables, this.usedGlobals),
+        PackedUsageSet.ofMethodUsages(usageTables, this.usedMethods),
+        PackedUsageSet.ofConditionUsages(usageTables, this.usedConditions));
+  }
+
   @Override
   public ProcedureDefinition getWithoutNode() {
     return new ProcedureDefinition(
@@ -42,6 +42,18 @@ public class SlotDefinition extends MagikDefinition {
     return this.typeName;
   }
 
+  @Override
+  SlotDefinition getInterned(final DefinitionInterner interner) {
+    return new SlotDefinition(
+        interner.internLocation(this.getLocation()),
+        this.getTimestamp(),
+        interner.internModuleName(this.getModuleName()),
+        this.getDoc(),
+        this.getNode(),
+        this.name,
+        this.typeName);
+  }
+
   @Override
   public SlotDefinition getWithoutNode() {
     return new SlotDefinition(
@@ -44,6 +44,7 @@ public final class JsonDefinitionReader {
   public static final String TYPE_DB_EXT = ".types_db.v" + TYPE_DB_VERSION + ".jsonl";
 
   private final IDefinitionKeeper definitionKeeper;
+  private final DefinitionInterner interner;
   private final List<PathMapping> mappings;
   private final ObjectMapper objectMapper;
   private final ExecutorService threadPool;
@@ -51,6 +52,7 @@ public final class JsonDefinitionReader {
   private JsonDefinitionReader(
       final IDefinitionKeeper definitionKeeper, final @Nullable List<PathMapping> mappings) {
     this.definitionKeeper = definitionKeeper;
+    this.interner = definitionKeeper.getInterner();
     this.mappings = mappings;
 
     final int processors = Runtime.getRuntime().availableProcessors();
@@ -114,9 +116,14 @@ public final class JsonDefinitionReader {
       throws IOException {
     BaseDeserializer.clearParsedFiles();
 
-    final JsonDefinitionReader reader = new JsonDefinitionReader(definitionKeeper, mappings);
     final long start = System.nanoTime();
-    reader.run(path);
+    // Read as a single batch, the reader threads write to the batch.
+    definitionKeeper.batch(
+        batchDefinitionKeeper -> {
+          final JsonDefinitionReader reader =
+              new JsonDefinitionReader(batchDefinitionKeeper, mappings);
+          reader.run(path);
+        });
     LOGGER_DURATION.trace(
         "Duration: {} readTypes, type db: {}", (System.nanoTime() - start) / 1000000000.0, path);
   }
@@ -282,7 +289,7 @@ public final class JsonDefinitionReader {
 
   private void handlePackage(final JsonNode node) throws IOException {
     PackageDefinition definition = objectMapper.reader().readValue(node, PackageDefinition.class);
-    this.definitionKeeper.add(definition);
+    this.definitionKeeper.add(this.interner.intern(definition));
   }
 
   private void handleType(final JsonNode node) throws IOException {
@@ -295,34 +302,34 @@ public final class JsonDefinitionReader {
         .filter(def -> def.getLocation() == null)
         .forEach(this.definitionKeeper::remove);
 
-    this.definitionKeeper.add(definition);
+    this.definitionKeeper.add(this.interner.intern(definition));
   }
 
   private void handleMethod(final JsonNode node) throws IOException {
     MethodDefinition definition = objectMapper.reader().readValue(node, MethodDefinition.class);
-    this.definitionKeeper.add(definition);
+    this.definitionKeeper.add(this.interner.intern(definition));
   }
 
   private void handleCondition(final JsonNode node) throws IOException {
     ConditionDefinition definition =
         objectMapper.reader().readValue(node, ConditionDefinition.class);
-    this.definitionKeeper.add(definition);
+    this.definitionKeeper.add(this.interner.intern(definition));
   }
 
   private void handleBinaryOperator(final JsonNode node) throws IOException {
     BinaryOperatorDefinition definition =
         objectMapper.reader().readValue(node, BinaryOperatorDefinition.class);
-    this.definitionKeeper.add(definition);
+    this.definitionKeeper.add(this.interner.intern(definition));
   }
 
   private void handleProcedure(final JsonNode node) throws IOException {
     ProcedureDefinition definition =
         objectMapper.reader().readValue(node, ProcedureDefinition.class);
-    this.definitionKeeper.add(definition);
+    this.definitionKeeper.add(this.interner.intern(definition));
   }
 
   private void handleGlobal(final JsonNode node) throws IOException {
     GlobalDefinition definition = objectMapper.reader().readValue(node, GlobalDefinition.class);
-    this.definitionKeeper.add(definition);
+    this.definitionKeeper.add(this.interner.intern(definition));
   }
 }
@@ -152,7 +152,8 @@ public final class JsonDefinitionWriter {
 
   private void writeProducts(final Writer writer) {
     final Comparator<ProductDefinition> sorter = Comparator.comparing(ProductDefinition::getName);
-    this.definitionKeeper.getProductDefinitions().stream()
+    this.definitionKeeper
+        .streamProductDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -165,7 +166,8 @@ public final class JsonDefinitionWriter {
 
   private void writeModules(final Writer writer) {
     final Comparator<ModuleDefinition> sorter = Comparator.comparing(ModuleDefinition::getName);
-    this.definitionKeeper.getModuleDefinitions().stream()
+    this.definitionKeeper
+        .streamModuleDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -179,7 +181,8 @@ public final class JsonDefinitionWriter {
   private void writeMagikFiles(final Writer writer) {
     final Comparator<MagikFileDefinition> sorter =
         Comparator.comparing(MagikFileDefinition::getUri);
-    this.definitionKeeper.getMagikFileDefinitions().stream()
+    this.definitionKeeper
+        .streamMagikFileDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -192,7 +195,8 @@ public final class JsonDefinitionWriter {
 
   private void writePackages(final Writer writer) {
     final Comparator<PackageDefinition> sorter = Comparator.comparing(PackageDefinition::getName);
-    this.definitionKeeper.getPackageDefinitions().stream()
+    this.definitionKeeper
+        .streamPackageDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -206,7 +210,8 @@ public final class JsonDefinitionWriter {
   private void writeExemplars(final Writer writer) {
     final Comparator<ExemplarDefinition> sorter =
         Comparator.comparing(ExemplarDefinition::getTypeString);
-    this.definitionKeeper.getExemplarDefinitions().stream()
+    this.definitionKeeper
+        .streamExemplarDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -223,7 +228,8 @@ public final class JsonDefinitionWriter {
     final Comparator<MethodDefinition> nameComparer =
         Comparator.comparing(MethodDefinition::getName);
     final Comparator<MethodDefinition> sorter = typeNameComparer.thenComparing(nameComparer);
-    this.definitionKeeper.getMethodDefinitions().stream()
+    this.definitionKeeper
+        .streamMethodDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -237,7 +243,8 @@ public final class JsonDefinitionWriter {
   private void writeProcedures(final Writer writer) {
     final Comparator<ProcedureDefinition> sorter =
         Comparator.comparing(ProcedureDefinition::getTypeString);
-    this.definitionKeeper.getProcedureDefinitions().stream()
+    this.definitionKeeper
+        .streamProcedureDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -251,7 +258,8 @@ public final class JsonDefinitionWriter {
   private void writeConditions(final BufferedWriter writer) {
     final Comparator<ConditionDefinition> sorter =
         Comparator.comparing(ConditionDefinition::getName);
-    this.definitionKeeper.getConditionDefinitions().stream()
+    this.definitionKeeper
+        .streamConditionDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -271,7 +279,8 @@ public final class JsonDefinitionWriter {
         Comparator.comparing(BinaryOperatorDefinition::getResultTypeName);
     final Comparator<BinaryOperatorDefinition> sorter =
         lhsComparer.thenComparing(rhsComparer).thenComparing(resultComparer);
-    this.definitionKeeper.getBinaryOperatorDefinitions().stream()
+    this.definitionKeeper
+        .streamBinaryOperatorDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -286,7 +295,8 @@ public final class JsonDefinitionWriter {
   private void writeGlobals(final Writer writer) {
     final Comparator<GlobalDefinition> sorter =
         Comparator.comparing(GlobalDefinition::getTypeString);
-    this.definitionKeeper.getGlobalDefinitions().stream()
+    this.definitionKeeper
+        .streamGlobalDefinitions()
         .sorted(sorter)
         .forEach(
             definition -> {
@@ -14,9 +14,11 @@ import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.MagikFileScanner;
 import nl.ramsolutions.sw.magik.analysis.definitions.BinaryOperatorDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionInterner;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.GlobalDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinitionReader;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikFileDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.PackageDefinition;
@@ -50,12 +52,17 @@ public class MagikIndexer {
   }
 
   /**
-   * Handle file event.
+   * Handle file event. The event is applied to the {@link IDefinitionKeeper} as a single batch.
    *
    * @param fileEvent {@link FileEvent} to handle.
    * @throws IOException If an error occurs.
    */
-  public synchronized void handleFileEvent(final FileEvent fileEvent) throws IOException {
+  public void handleFileEvent(final FileEvent fileEvent) throws IOException {
+    // Enter the batch before synchronizing on this indexer, to keep a single lock order.
+    this.definitionKeeper.batch(definitionKeeper -> this.applyFileEvent(fileEvent));
+  }
+
+  private synchronized void applyFileEvent(final FileEvent fileEvent) throws IOException {
     LOGGER.debug("Handling file event: {}", fileEvent);
 
     final Path path = fileEvent.getPath();
@@ -83,15 +90,15 @@ public class MagikIndexer {
    */
   private Collection<IDefinition> getIndexedDefinitions(final Path path) {
     return Stream.of(
-            this.definitionKeeper.getMagikFileDefinitions(),
-            this.definitionKeeper.getPackageDefinitions(),
-            this.definitionKeeper.getExemplarDefinitions(),
-            this.definitionKeeper.getMethodDefinitions(),
-            this.definitionKeeper.getGlobalDefinitions(),
-            this.definitionKeeper.getBinaryOperatorDefinitions(),
-            this.definitionKeeper.getConditionDefinitions(),
-            this.definitionKeeper.getProcedureDefinitions())
-        .flatMap(Collection::stream)
+            this.definitionKeeper.streamMagikFileDefinitions(),
+            this.definitionKeeper.streamPackageDefinitions(),
+            this.definitionKeeper.streamExemplarDefinitions(),
+            this.definitionKeeper.streamMethodDefinitions(),
+            this.definitionKeeper.streamGlobalDefinitions(),
+            this.definitionKeeper.streamBinaryOperatorDefinitions(),
+            this.definitionKeeper.streamConditionDefinitions(),
+            this.definitionKeeper.streamProcedureDefinitions())
+        .flatMap(stream -> stream)
         .filter(def -> def.getLocation() != null && def.getLocation().getPath().startsWith(path))
         .collect(Collectors.toSet());
   }
@@ -113,30 +120,23 @@ public class MagikIndexer {
   }
 
   private void addDefinition(final IDefinition definition) {
+    final DefinitionInterner interner = this.definitionKeeper.getInterner();
     if (definition instanceof MagikFileDefinition magikFileDefinition) {
       this.definitionKeeper.add(magikFileDefinition);
     } else if (definition instanceof PackageDefinition packageDefinition) {
-      final PackageDefinition nodelessPackageDefinition = packageDefinition.getWithoutNode();
-      this.definitionKeeper.add(nodelessPackageDefinition);
+      this.definitionKeeper.add(interner.intern(packageDefinition));
     } else if (definition instanceof ExemplarDefinition exemplarDefinition) {
-      final ExemplarDefinition nodelessExemplarDefinition = exemplarDefinition.getWithoutNode();
-      this.definitionKeeper.add(nodelessExemplarDefinition);
+      this.definitionKeeper.add(interner.intern(exemplarDefinition));
     } else if (definition instanceof MethodDefinition methodDefinition) {
-      final MethodDefinition nodelessMethodDefinition = methodDefinition.getWithoutNode();
-      this.definitionKeeper.add(nodelessMethodDefinition);
+      this.definitionKeeper.add(interner.intern(methodDefinition));
     } else if (definition instanceof GlobalDefinition globalDefinition) {
-      final GlobalDefinition nodelessGlobalDefinition = globalDefinition.getWithoutNode();
-      this.definitionKeeper.add(nodelessGlobalDefinition);
+      this.definitionKeeper.add(interner.intern(globalDefinition));
     } else if (definition instanceof BinaryOperatorDefinition binaryOperatorDefinition) {
-      final BinaryOperatorDefinition nodelessBinaryOperatorDefinition =
-          binaryOperatorDefinition.getWithoutNode();
-      this.definitionKeeper.add(nodelessBinaryOperatorDefinition);
+      this.definitionKeeper.add(interner.intern(binaryOperatorDefinition));
     } else if (definition instanceof ConditionDefinition conditionDefinition) {
-      final ConditionDefinition nodelessConditionDefinition = conditionDefinition.getWithoutNode();
-      this.definitionKeeper.add(nodelessConditionDefinition);
+      this.definitionKeeper.add(interner.intern(conditionDefinition));
     } else if (definition instanceof ProcedureDefinition procedureDefinition) {
-      final ProcedureDefinition nodelessProcedureDefinition = procedureDefinition.getWithoutNode();
-      this.definitionKeeper.add(nodelessProcedureDefinition);
+      this.definitionKeeper.add(interner.intern(procedureDefinition));
     }
   }
 
@@ -168,7 +168,13 @@ public class MagikIndexer {
   private void readDefinitions(final Path path) {
     try {
       final MagikFile magikFile = new MagikFile(this.properties, path);
-      magikFile.getDefinitions().forEach(this::addDefinition);
+      final MagikFileDefinition magikFileDefinition = magikFile.getMagikFileDefinition();
+      if (magikFileDefinition != null) {
+        this.addDefinition(magikFileDefinition);
+      }
+
+      // Definitions are read without nodes, the syntax tree is not kept.
+      MagikDefinitionReader.readNodelessDefinitions(magikFile).forEach(this::addDefinition);
     } catch (final IOException exception) {
       LOGGER.error(exception.getMessage(), exception);
     }
@@ -10,7 +10,9 @@ import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.moduledef.LoadListIndex;
 import nl.ramsolutions.sw.moduledef.ModuleDefFile;
+import nl.ramsolutions.sw.moduledef.ModuleDefFileResolver;
 import nl.ramsolutions.sw.moduledef.ModuleDefFileScanner;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.productdef.ProductDefFile;
@@ -32,16 +34,23 @@ public class ModuleIndexer {
   }
 
   /**
-   * Handle file event.
+   * Handle file event. The event is applied to the {@link IDefinitionKeeper} as a single batch.
    *
    * @param fileEvent {@link FileEvent} to handle.
    * @throws IOException -
    */
-  public synchronized void handleFileEvent(final FileEvent fileEvent) throws IOException {
+  public void handleFileEvent(final FileEvent fileEvent) throws IOException {
+    // Enter the batch before synchronizing on this indexer, to keep a single lock order.
+    this.definitionKeeper.batch(definitionKeeper -> this.applyFileEvent(fileEvent));
+  }
+
+  private synchronized void applyFileEvent(final FileEvent fileEvent) throws IOException {
     LOGGER.debug("Handling file event: {}", fileEvent);
 
     final FileChangeType fileChangeType = fileEvent.getFileChangeType();
     final Path path = fileEvent.getPath();
+    ModuleDefFileResolver.invalidate(path);
+    LoadListIndex.invalidate(path);
     if (fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED) {
       this.getIndexedDefinitions(path).forEach(this::removeDefinition);
     }
@@ -66,7 +75,8 @@ public class ModuleIndexer {
    */
   private Collection<IDefinition> getIndexedDefinitions(final Path path) {
     // TODO: ModuleDefFileDefinitions, like MagikFileDefinition?
-    return this.definitionKeeper.getModuleDefinitions().stream()
+    return this.definitionKeeper
+        .streamModuleDefinitions()
         .filter(def -> def.getLocation() != null && def.getLocation().getPath().startsWith(path))
         .collect(Collectors.toSet());
   }
@@ -97,17 +107,22 @@ public class ModuleIndexer {
 
   private void readModuleDefinition(final Path path) throws IOException {
     final ModuleDefinition definition;
-    final Path productDefPath = ModuleDefFileScanner.getProductDefFileForPath(path);
+    final Path productDefPath = ModuleDefFileResolver.getProductDefFileForPath(path);
     final ProductDefFile productDefFile;
     if (productDefPath != null) {
-      productDefFile = new ProductDefFile(productDefPath, this.definitionKeeper, null);
+      productDefFile =
+          ModuleDefFileResolver.getProductDefFile(productDefPath, this.definitionKeeper, null);
     } else {
       productDefFile = null;
     }
 
     try {
       final ModuleDefFile moduleDefFile =
-          new ModuleDefFile(path, this.definitionKeeper, productDefFile);
+          ModuleDefFileResolver.getModuleDefFile(path, this.definitionKeeper, productDefFile);
+      if (moduleDefFile == null) {
+        return;
+      }
+
       definition = moduleDefFile.getModuleDefinition();
     } catch (final RecognitionException exception) {
       LOGGER.warn("Error parsing defintion at: " + path, exception);
@@ -10,7 +10,7 @@ import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
-import nl.ramsolutions.sw.moduledef.ModuleDefFileScanner;
+import nl.ramsolutions.sw.moduledef.ModuleDefFileResolver;
 import nl.ramsolutions.sw.productdef.ProductDefFile;
 import nl.ramsolutions.sw.productdef.ProductDefFileScanner;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
@@ -32,16 +32,22 @@ public class ProductIndexer {
   }
 
   /**
-   * Handle file event.
+   * Handle file event. The event is applied to the {@link IDefinitionKeeper} as a single batch.
    *
    * @param fileEvent {@link FileEvent} to handle.
    * @throws IOException -
    */
-  public synchronized void handleFileEvent(final FileEvent fileEvent) throws IOException {
+  public void handleFileEvent(final FileEvent fileEvent) throws IOException {
+    // Enter the batch before synchronizing on this indexer, to keep a single lock order.
+    this.definitionKeeper.batch(definitionKeeper -> this.applyFileEvent(fileEvent));
+  }
+
+  private synchronized void applyFileEvent(final FileEvent fileEvent) throws IOException {
     LOGGER.debug("Handling file event: {}", fileEvent);
 
     final FileChangeType fileChangeType = fileEvent.getFileChangeType();
     final Path path = fileEvent.getPath();
+    ModuleDefFileResolver.invalidate(path);
     if (fileChangeType == FileChangeType.CHANGED || fileChangeType == FileChangeType.DELETED) {
       this.getIndexedDefinitions(path).forEach(this::removeDefinition);
     }
@@ -66,7 +72,8 @@ public class ProductIndexer {
    */
   private Collection<IDefinition> getIndexedDefinitions(final Path path) {
     // TODO: ProductDefFileDefinitions, like MagikFileDefinition?
-    return this.definitionKeeper.getProductDefinitions().stream()
+    return this.definitionKeeper
+        .streamProductDefinitions()
         .filter(def -> def.getLocation() != null && def.getLocation().getPath().startsWith(path))
         .collect(Collectors.toSet());
   }
@@ -99,16 +106,22 @@ public class ProductIndexer {
   private void readProductDefinition(final Path path) throws IOException {
     final ProductDefinition definition;
     final Path parentPath = path.resolve("..").resolve("..");
-    final Path productDefPath = ModuleDefFileScanner.getProductDefFileForPath(parentPath);
+    final Path productDefPath = ModuleDefFileResolver.getProductDefFileForPath(parentPath);
     final ProductDefFile parentProductDefFile;
     if (productDefPath != null) {
-      parentProductDefFile = new ProductDefFile(productDefPath, this.definitionKeeper, null);
+      parentProductDefFile =
+          ModuleDefFileResolver.getProductDefFile(productDefPath, this.definitionKeeper, null);
     } else {
       parentProductDefFile = null;
     }
     try {
       final ProductDefFile productDefFile =
-          new ProductDefFile(path, this.definitionKeeper, parentProductDefFile);
+          ModuleDefFileResolver.getProductDefFile(
+              path, this.definitionKeeper, parentProductDefFile);
+      if (productDefFile == null) {
+        return;
+      }
+
       definition = productDefFile.getProductDefinition();
     } catch (final RecognitionException exception) {
       LOGGER.warn("Error parsing defintion at: " + path, exception);
@@ -6,6 +6,7 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.HashMap;
 import java.util.Map;
+import nl.ramsolutions.sw.magik.PositionIndex;
 import nl.ramsolutions.sw.magik.analysis.AstQuery;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 
@@ -102,4 +103,17 @@ public class GlobalScope extends Scope {
     final Token token = lastChild.getToken();
     return token.getColumn() + token.getOriginalValue().length();
   }
+
+  @Override
+  @Nullable
+  public Scope getScopeForLineColumn(final int line, final int column) {
+    // Use the index of the parsed file, when this is its global scope.
+    final AstNode node = this.getNode();
+    final PositionIndex positionIndex = node != null ? PositionIndex.forTopNode(node) : null;
+    if (positionIndex != null && positionIndex.getGlobalScope() == this) {
+      return positionIndex.getScopeForLineColumn(line, column);
+    }
+
+    return super.getScopeForLineColumn(line, column);
+  }
 }
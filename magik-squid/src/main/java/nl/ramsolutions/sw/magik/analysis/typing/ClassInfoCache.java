@@ -0,0 +1,232 @@
+package nl.ramsolutions.sw.magik.analysis.typing;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.analysis.typing.ClassInfoDefinitionReader.Entry;
+import nl.ramsolutions.sw.magik.analysis.typing.ClassInfoDefinitionReader.EntryKind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of the read class_info entries of a jar.
+ *
+ * <p>One file per jar, keyed by the path of the jar. The cache file records the last modified time
+ * and size of the jar, a cache file for a changed jar is ignored and overwritten. Unreadable cache
+ * files are ignored as well, the jar is then read again. Cache files of removed jars are removed by
+ * {@link #prune(Path)}.
+ */
+final class ClassInfoCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClassInfoCache.class);
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String CACHE_FILE_EXTENSION = ".class_info";
+
+  private ClassInfoCache() {}
+
+  /**
+   * Read the cached entries for a jar.
+   *
+   * @param cachePath Path to cache directory.
+   * @param jarPath Path to jar.
+   * @param attributes Attributes of jar.
+   * @return Cached entries, or null if not cached or the jar has changed.
+   */
+  @CheckForNull
+  static List<Entry> read(
+      final Path cachePath, final Path jarPath, final BasicFileAttributes attributes) {
+    final Path cacheFilePath = ClassInfoCache.getCacheFilePath(cachePath, jarPath);
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFilePath)))) {
+      if (input.readInt() != FORMAT_VERSION
+          || !input.readUTF().equals(jarPath.toAbsolutePath().toString())
+          || input.readLong() != attributes.lastModifiedTime().toMillis()
+          || input.readLong() != attributes.size()) {
+        return null;
+      }
+
+      final EntryKind[] kinds = EntryKind.values();
+      final int count = input.readInt();
+      final List<Entry> entries = new ArrayList<>(count);
+      for (int i = 0; i < count; ++i) {
+        final EntryKind kind = kinds[input.readByte()];
+        final String className = ClassInfoCache.readString(input);
+        final String name = ClassInfoCache.readString(input);
+        final List<String> arguments = ClassInfoCache.readStrings(input);
+        final List<String> parents = ClassInfoCache.readStrings(input);
+        final List<String> pragmas = ClassInfoCache.readStrings(input);
+        final String sourceFile = ClassInfoCache.readString(input);
+        final String doc = ClassInfoCache.readString(input);
+        entries.add(new Entry(kind, className, name, arguments, parents, pragmas, sourceFile, doc));
+      }
+      LOGGER.debug("Read {} cached class_info entries for: {}", count, jarPath);
+      return entries;
+    } catch (final NoSuchFileException exception) {
+      return null;
+    } catch (final IOException | RuntimeException exception) {
+      LOGGER.warn("Unable to read class_info cache file: {}", cacheFilePath, exception);
+      return null;
+    }
+  }
+
+  /**
+   * Write the entries for a jar to the cache.
+   *
+   * @param cachePath Path to cache directory.
+   * @param jarPath Path to jar.
+   * @param attributes Attributes of jar.
+   * @param entries Entries to cache.
+   */
+  static void write(
+      final Path cachePath,
+      final Path jarPath,
+      final BasicFileAttributes attributes,
+      final List<Entry> entries) {
+    final Path cacheFilePath = ClassInfoCache.getCacheFilePath(cachePath, jarPath);
+    try {
+      Files.createDirectories(cachePath);
+      final Path tempPath =
+          Files.createTempFile(cachePath, cacheFilePath.getFileName().toString(), ".tmp");
+      try {
+        try (DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+          output.writeInt(FORMAT_VERSION);
+          output.writeUTF(jarPath.toAbsolutePath().toString());
+          output.writeLong(attributes.lastModifiedTime().toMillis());
+          output.writeLong(attributes.size());
+
+          output.writeInt(entries.size());
+          for (final Entry entry : entries) {
+            output.writeByte(entry.kind().ordinal());
+            ClassInfoCache.writeString(output, entry.className());
+            ClassInfoCache.writeString(output, entry.name());
+            ClassInfoCache.writeStrings(output, entry.arguments());
+            ClassInfoCache.writeStrings(output, entry.parents());
+            ClassInfoCache.writeStrings(output, entry.pragmas());
+            ClassInfoCache.writeString(output, entry.sourceFile());
+            ClassInfoCache.writeString(output, entry.doc());
+          }
+        }
+
+        // Replace at once, so concurrent readers never see a partial file.
+        Files.move(
+            tempPath,
+            cacheFilePath,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempPath);
+      }
+    } catch (final IOException exception) {
+      LOGGER.warn("Unable to write class_info cache file: {}", cacheFilePath, exception);
+    }
+  }
+
+  /**
+   * Remove stale cache files: files of removed jars, files of an older format and unreadable files.
+   *
+   * @param cachePath Path to cache directory.
+   */
+  static void prune(final Path cachePath) {
+    if (!Files.isDirectory(cachePath)) {
+      return;
+    }
+
+    final List<Path> cacheFilePaths;
+    try (Stream<Path> paths = Files.list(cachePath)) {
+      cacheFilePaths =
+          paths.filter(path -> path.toString().endsWith(CACHE_FILE_EXTENSION)).toList();
+    } catch (final IOException exception) {
+      LOGGER.warn("Unable to list class_info cache directory: {}", cachePath, exception);
+      return;
+    }
+
+    for (final Path cacheFilePath : cacheFilePaths) {
+      if (ClassInfoCache.isStale(cacheFilePath)) {
+        try {
+          LOGGER.debug("Removing stale class_info cache file: {}", cacheFilePath);
+          Files.deleteIfExists(cacheFilePath);
+        } catch (final IOException exception) {
+          LOGGER.warn("Unable to remove class_info cache file: {}", cacheFilePath, exception);
+        }
+      }
+    }
+  }
+
+  private static boolean isStale(final Path cacheFilePath) {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFilePath)))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        return true;
+      }
+
+      final Path jarPath = Path.of(input.readUTF());
+      return !Files.isRegularFile(jarPath);
+    } catch (final IOException | RuntimeException exception) {
+      return true;
+    }
+  }
+
+  /**
+   * Get the path to the cache file for a jar.
+   *
+   * @param cachePath Path to cache directory.
+   * @param jarPath Path to jar.
+   * @return Path to cache file.
+   */
+  static Path getCacheFilePath(final Path cachePath, final Path jarPath) {
+    final String absolutePath = jarPath.toAbsolutePath().toString();
+    final String fileName =
+        jarPath.getFileName().toString()
+            + "."
+            + Integer.toHexString(absolutePath.hashCode())
+            + CACHE_FILE_EXTENSION;
+    return cachePath.resolve(fileName);
+  }
+
+  private static String readString(final DataInputStream input) throws IOException {
+    final int length = input.readInt();
+    final byte[] bytes = input.readNBytes(length);
+    if (bytes.length != length) {
+      throw new IOException("Unexpected end of file");
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static List<String> readStrings(final DataInputStream input) throws IOException {
+    final int count = input.readInt();
+    final List<String> strings = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      strings.add(ClassInfoCache.readString(input));
+    }
+    return strings;
+  }
+
+  private static void writeString(final DataOutputStream output, final String string)
+      throws IOException {
+    final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static void writeStrings(final DataOutputStream output, final List<String> strings)
+      throws IOException {
+    output.writeInt(strings.size());
+    for (final String string : strings) {
+      ClassInfoCache.writeString(output, string);
+    }
+  }
+}
@@ -1,15 +1,16 @@
 package nl.ramsolutions.sw.magik.analysis.typing;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.LineNumberReader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,19 +18,22 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.Objects;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.analysis.definitions.ConditionDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionInterner;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.GlobalDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ParameterDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
@@ -40,6 +44,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Reads class info from generated libraries. E.g.,
  * core/sw_core/libs/sw_core.emailer.1.jar/class_info
+ *
+ * <p>The class_info file is first read into plain {@link Entry}s, which can be cached on disk per
+ * jar by {@link ClassInfoCache}. Jars of a product directory are read in parallel, the definitions
+ * are added to the {@link IDefinitionKeeper} in a single batch.
  */
 public final class ClassInfoDefinitionReader {
 
@@ -54,612 +62,406 @@ public final class ClassInfoDefinitionReader {
           "", ParameterDefinition.Modifier.NONE,
           "_optional", ParameterDefinition.Modifier.OPTIONAL,
           "_gather", ParameterDefinition.Modifier.GATHER);
-  private static final List<String> METHOD_PRAGMA_SKIP_LIST = List.of("classconst", "classvar");
-  private static final String NEXT_NOT_SLASH_PATTERN = "[^/]+";
   private static final String FILE_URI_PREFIX = "file://";
 
+  /** Kind of entry in a class_info file. */
+  enum EntryKind {
+    GLOBAL,
+    CONDITION,
+    METHOD,
+    SLOTTED_CLASS,
+    INDEXED_CLASS,
+    ENUMERATED_CLASS,
+    MIXIN,
+  }
+
+  /**
+   * Entry read from a class_info file, as plain strings.
+   *
+   * @param kind Kind of entry.
+   * @param className Class name for methods, empty otherwise.
+   * @param name Name of global, condition, method or class.
+   * @param arguments Parameters of methods, data names of conditions or slots of slotted classes.
+   * @param parents Parents of classes.
+   * @param pragmas Modifiers/pragmas.
+   * @param sourceFile Source file.
+   * @param doc Doc.
+   */
+  record Entry(
+      EntryKind kind,
+      String className,
+      String name,
+      List<String> arguments,
+      List<String> parents,
+      List<String> pragmas,
+      String sourceFile,
+      String doc) {}
+
   private final Path path;
-  private final IDefinitionKeeper definitionKeeper;
+  private final DefinitionInterner interner;
+  private final @Nullable Path cachePath;
 
   /**
    * Constructor.
    *
    * @param path Path to jar file.
-   * @param typeKeeper Typekeeper to fill.
+   * @param interner Interner to use.
+   * @param cachePath Path to cache directory, if any.
    */
-  private ClassInfoDefinitionReader(final Path path, final IDefinitionKeeper definitionKeeper) {
+  private ClassInfoDefinitionReader(
+      final Path path, final DefinitionInterner interner, final @Nullable Path cachePath) {
     this.path = path;
-    this.definitionKeeper = definitionKeeper;
-  }
-
-  private Instant getTimestamp() throws IOException {
-    return Files.getLastModifiedTime(this.path).toInstant();
+    this.interner = interner;
+    this.cachePath = cachePath;
   }
 
   @SuppressWarnings("checkstyle:MagicNumber")
-  private void run() throws IOException {
+  private List<MagikDefinition> run() throws IOException {
     final String[] parts = this.path.getFileName().toString().split("\\.");
     if (parts.length != 4) { // <product_name>.<module_name>.<version>.jar
       // Must be some other jar.
-      return;
+      return Collections.emptyList();
+    }
+
+    final String moduleName = this.interner.internModuleName(parts[1]);
+    final BasicFileAttributes attributes =
+        Files.readAttributes(this.path, BasicFileAttributes.class);
+    final Instant timestamp = attributes.lastModifiedTime().toInstant();
+
+    List<Entry> entries =
+        this.cachePath != null ? ClassInfoCache.read(this.cachePath, this.path, attributes) : null;
+    if (entries == null) {
+      entries = this.readEntries();
+      if (this.cachePath != null) {
+        ClassInfoCache.write(this.cachePath, this.path, attributes, entries);
+      }
     }
 
-    final String moduleName = parts[1];
+    return entries.stream().map(entry -> this.toDefinition(moduleName, timestamp, entry)).toList();
+  }
+
+  private List<Entry> readEntries() throws IOException {
     final File file = this.path.toFile();
     try (ZipFile zipFile = new ZipFile(file)) {
       final ZipEntry zipEntry = zipFile.getEntry("class_info");
       if (zipEntry == null) {
-        return;
+        return Collections.emptyList();
       }
 
       try (InputStream stream = zipFile.getInputStream(zipEntry);
-          InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.ISO_8859_1)) {
-        this.parseClassInfo(moduleName, reader);
+          InputStreamReader streamReader =
+              new InputStreamReader(stream, StandardCharsets.ISO_8859_1);
+          BufferedReader reader = new BufferedReader(streamReader)) {
+        return ClassInfoDefinitionReader.parseClassInfo(reader);
       }
     }
   }
 
-  private void parseClassInfo(final String moduleName, final InputStreamReader streamReader)
-      throws IOException {
-    try (LineNumberReader reader = new LineNumberReader(streamReader)) {
-      String line = reader.readLine();
-      while (line != null) {
-        final String[] tokens = line.split(" ");
-        final String token0 = tokens.length > 0 ? tokens[0] : "";
-        final String token1 = tokens.length > 1 ? tokens[1] : "";
-        switch (token0) {
-          case "method":
-            switch (token1) {
-              case "<global>":
-                this.readGlobal(moduleName, line, reader);
-                break;
-
-              case "<condition>":
-                this.readCondition(moduleName, line, reader);
-                break;
-
-              default:
-                this.readMethod(moduleName, line, reader);
-                break;
-            }
-            break;
-
-          case "slotted_class":
-            this.readSlottedClass(moduleName, line, reader);
-            break;
-
-          case "indexed_class":
-            this.readIndexedClass(moduleName, line, reader);
-            break;
-
-          case "enumerated_class":
-            this.readEnumeratedClass(moduleName, line, reader);
-            break;
-
-          case "delete_class":
-            this.readDeleteClass(moduleName, line, reader);
-            break;
-
-          case "mixin":
-            this.readMixin(moduleName, line, reader);
-            break;
-
-          default:
-            LOGGER.warn("Unknown token: {}", token0);
-            throw new UnsupportedOperationException("Unknown token: " + token0);
+  // region: Parsing
+  /**
+   * Parse a class_info file.
+   *
+   * @param reader Reader to read from.
+   * @return Read entries.
+   * @throws IOException -
+   */
+  static List<Entry> parseClassInfo(final BufferedReader reader) throws IOException {
+    final List<Entry> entries = new ArrayList<>();
+    String line = reader.readLine();
+    while (line != null) {
+      final ClassInfoLineTokenizer tokenizer = new ClassInfoLineTokenizer(line);
+      final String token0 = tokenizer.hasNext() ? tokenizer.next() : "";
+      final String token1 = tokenizer.hasNext() ? tokenizer.next() : "";
+      switch (token0) {
+        case "method" ->
+            entries.add(ClassInfoDefinitionReader.readMethodLine(token1, tokenizer, reader));
+        case "slotted_class" ->
+            entries.add(ClassInfoDefinitionReader.readSlottedClass(token1, tokenizer, reader));
+        case "indexed_class" ->
+            entries.add(
+                ClassInfoDefinitionReader.readClass(EntryKind.INDEXED_CLASS, token1, reader));
+        case "enumerated_class" ->
+            entries.add(
+                ClassInfoDefinitionReader.readClass(EntryKind.ENUMERATED_CLASS, token1, reader));
+        case "mixin" -> entries.add(ClassInfoDefinitionReader.readMixin(token1, reader));
+        case "delete_class" -> {
+          // 1 : "delete_class" <class name>
+          // Ignore this. This is a single line, without a last part to skip.
+          line = reader.readLine();
+          continue;
         }
-
-        if (!token0.equals("delete_class")) {
-          reader.readLine(); // NOSONAR: Skip last part of line.
+        default -> {
+          LOGGER.warn("Unknown token: {}", token0);
+          throw new UnsupportedOperationException("Unknown token: " + token0);
         }
-
-        line = reader.readLine();
       }
+
+      reader.readLine(); // NOSONAR: Skip last part of line.
+      line = reader.readLine();
     }
+    return entries;
   }
 
-  private void readGlobal(final String moduleName, final String line, final BufferedReader reader)
+  /**
+   * Read a {@code method} entry, which is a global, a condition, or an actual method.
+   *
+   * @param token1 Second token of the line: {@code <global>}, {@code <condition>} or class name.
+   * @param tokenizer Tokenizer of the line.
+   * @param reader Reader to read the following lines from.
+   * @return Read entry.
+   * @throws IOException -
+   */
+  private static Entry readMethodLine(
+      final String token1, final ClassInfoLineTokenizer tokenizer, final BufferedReader reader)
       throws IOException {
+    return switch (token1) {
+      case "<global>" -> ClassInfoDefinitionReader.readGlobal(tokenizer, reader);
+      case "<condition>" -> ClassInfoDefinitionReader.readCondition(tokenizer, reader);
+      default -> ClassInfoDefinitionReader.readMethod(token1, tokenizer, reader);
+    };
+  }
+
+  private static Entry readGlobal(
+      final ClassInfoLineTokenizer tokenizer, final BufferedReader reader) throws IOException {
     // 1 : "method" "<global>" <global_name> <parameters>
     // 2 : n ["basic"/"restricted"/"internal"/pragma]* source_file
     // 3+: <n lines of comments>
-    // Line 1
-    final TypeString typeString;
-    try (Scanner scanner = new Scanner(line)) {
-      scanner.next(); // "method"
-
-      scanner.next(); // "<global>"
-
-      final String globalName = scanner.next();
-      typeString = TypeString.ofIdentifier(globalName, "sw");
-
-      // Parameters!
-      this.readParameterDefinitions(moduleName, scanner); // NOSONAR: Unused.
-
-      // TODO: Is it always a procedure when it has parameters?
-    }
-
-    // Line 2
-    final String line2 = reader.readLine();
-    final List<String> pragmas = new ArrayList<>();
-    final int commentLineCount;
-    final Location location;
-    try (Scanner scanner = new Scanner(line2)) {
-      commentLineCount = scanner.nextInt();
-
-      // Read pragmas.
-      while (scanner.hasNext(ClassInfoDefinitionReader.NEXT_NOT_SLASH_PATTERN)) {
-        final String item = scanner.next();
-        pragmas.add(item);
-      }
-
-      // Source file.
-      final String sourceFile = scanner.nextLine().trim();
-      final URI uri = URI.create(FILE_URI_PREFIX + "/" + sourceFile);
-      location = new Location(uri);
-    }
+    // Line 1, parameters are not used.
+    // TODO: Is it always a procedure when it has parameters?
+    final String globalName = tokenizer.next();
 
-    // Line 3+
-    final StringBuilder docBuilder = new StringBuilder();
-    for (int i = 0; i < commentLineCount; ++i) {
-      final String commentLine = reader.readLine();
-      docBuilder.append(commentLine);
-      docBuilder.append('\n');
-    }
-    final String doc = docBuilder.toString();
-
-    final Instant timestamp = this.getTimestamp();
-    final GlobalDefinition definition =
-        new GlobalDefinition(
-            location, timestamp, moduleName, doc, null, typeString, TypeString.UNDEFINED);
-    this.definitionKeeper.add(definition);
-  }
-
-  private List<ParameterDefinition> readParameterDefinitions(
-      final String moduleName, final Scanner scanner) {
-    final List<ParameterDefinition> paramDefs = new ArrayList<>();
-    ParameterDefinition.Modifier paramModifier = ParameterDefinition.Modifier.NONE;
-    while (scanner.hasNext()) {
-      final String next = scanner.next();
-      if (next.startsWith("_")) {
-        paramModifier = ClassInfoDefinitionReader.PARAMETER_MODIFIER_MAPPING.get(next);
-        continue;
-      }
-
-      final ParameterDefinition paramDef =
-          new ParameterDefinition(
-              null, null, moduleName, null, null, next, paramModifier, TypeString.UNDEFINED);
-      paramDefs.add(paramDef);
-    }
-    return paramDefs;
+    // Line 2+
+    return ClassInfoDefinitionReader.readSourceAndDoc(
+        EntryKind.GLOBAL, "", globalName, List.of(), List.of(), reader);
   }
 
-  private void readCondition(
-      final String moduleName, final String line, final BufferedReader reader) throws IOException {
+  private static Entry readCondition(
+      final ClassInfoLineTokenizer tokenizer, final BufferedReader reader) throws IOException {
     // 1 : "method" "<condition>" <condition_name> <data_name_list>
     // 2 : n ["basic"/"restricted"/"internal"/pragma]* source_file
     // 3+: <n lines of comments>
     // Line 1
-    final String name;
-    final List<String> dataNames;
-    final String parent = null; // Parent is not registered in class_info files.
-    try (Scanner scanner = new Scanner(line)) {
-      scanner.next(); // "method"
-
-      scanner.next(); // "<condition>"
+    final String name = tokenizer.next();
+    final List<String> dataNames = tokenizer.remaining();
 
-      name = scanner.next();
-
-      // Data names.
-      final Spliterator<String> scannerSpliterator =
-          Spliterators.spliteratorUnknownSize(scanner, Spliterator.IMMUTABLE | Spliterator.NONNULL);
-      dataNames = StreamSupport.stream(scannerSpliterator, false).toList();
-    }
-
-    // Line 2
-    final String line2 = reader.readLine();
-    final List<String> pragmas = new ArrayList<>();
-    final int commentLineCount;
-    final Location location;
-    try (Scanner scanner = new Scanner(line2)) {
-      commentLineCount = scanner.nextInt();
-
-      // Read modifiers/pragmas.
-      while (scanner.hasNext(ClassInfoDefinitionReader.NEXT_NOT_SLASH_PATTERN)) {
-        final String item = scanner.next();
-        pragmas.add(item);
-      }
-
-      // Source file.
-      final String sourceFile = scanner.nextLine().trim();
-      final URI uri = URI.create(FILE_URI_PREFIX + "/" + sourceFile);
-      location = new Location(uri);
-    }
-
-    // Line 3+
-    final StringBuilder docBuilder = new StringBuilder();
-    for (int i = 0; i < commentLineCount; ++i) {
-      final String commentLine = reader.readLine();
-      docBuilder.append(commentLine);
-      docBuilder.append('\n');
-    }
-    final String doc = docBuilder.toString();
-
-    final Instant timestamp = this.getTimestamp();
-    final ConditionDefinition definition =
-        new ConditionDefinition(
-            location, timestamp, moduleName, doc, null, name, parent, dataNames);
-    this.definitionKeeper.add(definition);
+    // Line 2+
+    return ClassInfoDefinitionReader.readSourceAndDoc(
+        EntryKind.CONDITION, "", name, dataNames, List.of(), reader);
   }
 
-  private void readMethod(final String moduleName, final String line, final BufferedReader reader)
+  private static Entry readMethod(
+      final String className, final ClassInfoLineTokenizer tokenizer, final BufferedReader reader)
       throws IOException {
     // 1 : "method" <class name> <method name> <parameters>
     // 2 : n ["private"/"classconst"/"classvar"/"iter"]*
     // ["basic"/"restricted"/"internal"/pragma]* source_file
     // 3+: <n lines of comments>
     // Line 1
-    final String methodName;
-    final TypeString typeString;
-    final List<ParameterDefinition> parameters;
-    final ParameterDefinition assignmentParameter;
-    try (Scanner scanner = new Scanner(line)) {
-      scanner.next(); // "method"
-
-      final String className = scanner.next();
-      typeString = TypeString.ofIdentifier(className, TypeString.DEFAULT_PACKAGE);
-
-      methodName = scanner.next();
-
-      // Parameters.
-      final List<ParameterDefinition> paramDefs =
-          this.readParameterDefinitions(moduleName, scanner);
-      parameters =
-          methodName.contains("<<") && !paramDefs.isEmpty()
-              ? paramDefs.subList(1, paramDefs.size())
-              : paramDefs;
-      assignmentParameter =
-          methodName.contains("<<") && !paramDefs.isEmpty() ? paramDefs.get(0) : null;
-    }
+    final String methodName = tokenizer.next();
+    final List<String> parameters = tokenizer.remaining();
 
-    // Line 2
-    final String line2 = reader.readLine();
-    final Set<MethodDefinition.Modifier> modifiers = new HashSet<>();
-    final List<String> pragmas = new ArrayList<>();
-    final int commentLineCount;
-    final Location location;
-    try (Scanner scanner = new Scanner(line2)) {
-      commentLineCount = scanner.nextInt();
-
-      // Read modifiers/pragmas.
-      while (scanner.hasNext(ClassInfoDefinitionReader.NEXT_NOT_SLASH_PATTERN)) {
-        final String item = scanner.next();
-        if (ClassInfoDefinitionReader.METHOD_MODIFIER_MAPPING.containsKey(item)) {
-          final MethodDefinition.Modifier modifier =
-              ClassInfoDefinitionReader.METHOD_MODIFIER_MAPPING.get(item);
-          modifiers.add(modifier);
-        } else if (ClassInfoDefinitionReader.METHOD_PRAGMA_SKIP_LIST.contains(item)) {
-          continue;
-        }
-
-        pragmas.add(item);
-      }
-
-      // Source file.
-      final String sourceFile = scanner.nextLine().trim();
-      final URI uri = URI.create(FILE_URI_PREFIX + "/" + sourceFile);
-      location = new Location(uri);
-    }
-
-    // Line 3+
-    final StringBuilder docBuilder = new StringBuilder();
-    for (int i = 0; i < commentLineCount; ++i) {
-      final String commentLine = reader.readLine();
-      docBuilder.append(commentLine);
-      docBuilder.append('\n');
-    }
-    final String doc = docBuilder.toString();
-
-    final MethodDefinition definition =
-        new MethodDefinition(
-            location,
-            this.getTimestamp(),
-            moduleName,
-            doc,
-            null,
-            typeString,
-            methodName,
-            modifiers,
-            parameters,
-            assignmentParameter,
-            Collections.emptySet(),
-            ExpressionResultString.UNDEFINED,
-            ExpressionResultString.UNDEFINED);
-    this.definitionKeeper.add(definition);
+    // Line 2+
+    return ClassInfoDefinitionReader.readSourceAndDoc(
+        EntryKind.METHOD, className, methodName, parameters, List.of(), reader);
   }
 
-  private void readSlottedClass(
-      final String moduleName, final String line, final BufferedReader reader) throws IOException {
+  private static Entry readSlottedClass(
+      final String identifier, final ClassInfoLineTokenizer tokenizer, final BufferedReader reader)
+      throws IOException {
     // 1 : "slotted_class" <class name> <slots> <-- This also includes inherited
     // slots!
     // 2 : <base classes>
     // 3 : n pragma source_file
     // 4+: <n lines of comments>
     // Line 1
-    final TypeString typeString;
-    final List<SlotDefinition> slots;
-    try (Scanner scanner = new Scanner(line)) {
-      scanner.next(); // "slotted_class"
-
-      final String identifier = scanner.next();
-      typeString = TypeString.ofIdentifier(identifier, TypeString.DEFAULT_PACKAGE);
-
-      // Slots.
-      final Spliterator<String> slotsSpliterator =
-          Spliterators.spliteratorUnknownSize(scanner, Spliterator.IMMUTABLE | Spliterator.NONNULL);
-      slots =
-          StreamSupport.stream(slotsSpliterator, false)
-              .map(
-                  slotName ->
-                      new SlotDefinition(
-                          null, null, moduleName, null, null, slotName, TypeString.UNDEFINED))
-              .toList();
-    }
+    final List<String> slots = tokenizer.remaining();
 
     // Line 2
-    final String line2 = reader.readLine();
-    final List<TypeString> parents =
-        Arrays.stream(line2.split(" ")).map(TypeStringParser::parseTypeString).toList();
-
-    // Line 3
-    final String line3 = reader.readLine();
-    final List<String> pragmas;
-    final int commentLineCount;
-    final Location location;
-    try (Scanner scanner = new Scanner(line3)) {
-      commentLineCount = scanner.nextInt();
-
-      // Pragmas.
-      pragmas = new ArrayList<>();
-      while (scanner.hasNext(NEXT_NOT_SLASH_PATTERN)) {
-        final String pragma = scanner.next();
-        pragmas.add(pragma);
-      }
-
-      // Source file.
-      final String sourceFile = scanner.nextLine().trim();
-      final URI uri = URI.create(FILE_URI_PREFIX + "/" + sourceFile);
-      location = new Location(uri);
-    }
+    final List<String> parents = Arrays.asList(reader.readLine().split(" "));
 
-    // Line 4+
-    final StringBuilder commentBuilder = new StringBuilder();
-    for (int i = 0; i < commentLineCount; ++i) {
-      final String commentLine = reader.readLine();
-      commentBuilder.append(commentLine);
-      commentBuilder.append('\n');
-    }
-    final String doc = commentBuilder.toString();
-
-    // TODO: What if type is already defined?
-    final ExemplarDefinition definition =
-        new ExemplarDefinition(
-            location,
-            this.getTimestamp(),
-            moduleName,
-            doc,
-            null,
-            ExemplarDefinition.Sort.UNDEFINED,
-            typeString,
-            slots,
-            parents,
-            Collections.emptySet());
-    this.definitionKeeper.add(definition);
+    // Line 3+
+    return ClassInfoDefinitionReader.readSourceAndDoc(
+        EntryKind.SLOTTED_CLASS, "", identifier, slots, parents, reader);
   }
 
-  private void readIndexedClass(
-      final String moduleName, final String line, final BufferedReader reader) throws IOException {
-    // 1 : "indexed_class" <class name>
+  private static Entry readClass(
+      final EntryKind kind, final String identifier, final BufferedReader reader)
+      throws IOException {
+    // 1 : "indexed_class"/"enumerated_class" <class name>
     // 2 : <base classes>
     // 3 : n pragma source_file
     // 4+: <n lines of comments>
-    // Line 1
-    final TypeString typeString;
-    try (Scanner scanner = new Scanner(line)) {
-      scanner.next(); // "indexed_class"
-
-      final String identifier = scanner.next();
-      typeString = TypeString.ofIdentifier(identifier, TypeString.DEFAULT_PACKAGE);
-    }
-
     // Line 2
-    final String line2 = reader.readLine();
-    final List<TypeString> parents =
-        Arrays.stream(line2.split(" ")).map(TypeStringParser::parseTypeString).toList();
-
-    // Line 3
-    final String line3 = reader.readLine();
-    final List<String> pragmas;
-    final int commentLineCount;
-    final Location location;
-    try (Scanner scanner = new Scanner(line3)) {
-      commentLineCount = scanner.nextInt();
-
-      // Pragmas.
-      pragmas = new ArrayList<>();
-      while (scanner.hasNext(NEXT_NOT_SLASH_PATTERN)) {
-        final String pragma = scanner.next();
-        pragmas.add(pragma);
-      }
-
-      // Source file.
-      final String sourceFile = scanner.nextLine().trim();
-      final URI uri = URI.create(FILE_URI_PREFIX + "/" + sourceFile);
-      location = new Location(uri);
-    }
+    final List<String> parents = Arrays.asList(reader.readLine().split(" "));
 
-    // Line 4+
-    final StringBuilder commentBuilder = new StringBuilder();
-    for (int i = 0; i < commentLineCount; ++i) {
-      final String commentLine = reader.readLine();
-      commentBuilder.append(commentLine);
-      commentBuilder.append('\n');
-    }
-    final String doc = commentBuilder.toString();
-
-    // TODO: What if type is already defined?
-    final ExemplarDefinition definition =
-        new ExemplarDefinition(
-            location,
-            this.getTimestamp(),
-            moduleName,
-            doc,
-            null,
-            ExemplarDefinition.Sort.UNDEFINED,
-            typeString,
-            Collections.emptyList(),
-            parents,
-            Collections.emptySet());
-    this.definitionKeeper.add(definition);
+    // Line 3+
+    return ClassInfoDefinitionReader.readSourceAndDoc(
+        kind, "", identifier, List.of(), parents, reader);
   }
 
-  @SuppressWarnings("java:S4144")
-  private void readEnumeratedClass(
-      final String moduleName, final String line, final BufferedReader reader) throws IOException {
-    // 1 : "enumerated_class" <class name>
-    // 2 : <base classes>
+  private static Entry readMixin(final String identifier, final BufferedReader reader)
+      throws IOException {
+    // 1 : "mixin" <class name>
+    // 2 : "."
     // 3 : n pragma source_file
     // 4+: <n lines of comments>
-    // Line 1
-    final TypeString typeString;
-    try (Scanner scanner = new Scanner(line)) {
-      scanner.next(); // "enumerated_class"
-
-      final String identifier = scanner.next();
-      typeString = TypeString.ofIdentifier(identifier, TypeString.DEFAULT_PACKAGE);
-    }
-
     // Line 2
-    final String line2 = reader.readLine();
-    final List<TypeString> parents =
-        Arrays.stream(line2.split(" ")).map(TypeStringParser::parseTypeString).toList();
-
-    // Line 3
-    final String line3 = reader.readLine();
-    final List<String> pragmas;
-    final int commentLineCount;
-    final Location location;
-    try (Scanner scanner = new Scanner(line3)) {
-      commentLineCount = scanner.nextInt();
-
-      // Pragmas.
-      pragmas = new ArrayList<>();
-      while (scanner.hasNext(NEXT_NOT_SLASH_PATTERN)) {
-        final String pragma = scanner.next();
-        pragmas.add(pragma);
-      }
+    reader.readLine(); // NOSONAR: Unused.
+
+    // Line 3+
+    return ClassInfoDefinitionReader.readSourceAndDoc(
+        EntryKind.MIXIN, "", identifier, List.of(), List.of(), reader);
+  }
 
-      // Source file.
-      final String sourceFile = scanner.nextLine().trim();
-      final URI uri = URI.create(FILE_URI_PREFIX + "/" + sourceFile);
-      location = new Location(uri);
+  private static Entry readSourceAndDoc(
+      final EntryKind kind,
+      final String className,
+      final String name,
+      final List<String> arguments,
+      final List<String> parents,
+      final BufferedReader reader)
+      throws IOException {
+    // n [pragma]* source_file
+    final ClassInfoLineTokenizer tokenizer = new ClassInfoLineTokenizer(reader.readLine());
+    final int commentLineCount = tokenizer.nextInt();
+    final List<String> pragmas = new ArrayList<>();
+    while (tokenizer.hasNextWithoutSlash()) {
+      pragmas.add(tokenizer.next());
     }
+    final String sourceFile = tokenizer.rest();
 
-    // Line 4+
-    final StringBuilder commentBuilder = new StringBuilder();
+    // <n lines of comments>
+    final StringBuilder docBuilder = new StringBuilder();
     for (int i = 0; i < commentLineCount; ++i) {
       final String commentLine = reader.readLine();
-      commentBuilder.append(commentLine);
-      commentBuilder.append('\n');
+      docBuilder.append(commentLine);
+      docBuilder.append('\n');
     }
-    final String doc = commentBuilder.toString();
-
-    // TODO: What if type is already defined?
-    final ExemplarDefinition definition =
-        new ExemplarDefinition(
-            location,
-            this.getTimestamp(),
-            moduleName,
-            doc,
-            null,
-            ExemplarDefinition.Sort.UNDEFINED,
-            typeString,
-            Collections.emptyList(),
-            parents,
-            Collections.emptySet());
-    this.definitionKeeper.add(definition);
+
+    return new Entry(
+        kind, className, name, arguments, parents, pragmas, sourceFile, docBuilder.toString());
   }
 
-  @SuppressWarnings("java:S1172")
-  private void readDeleteClass(
-      final String moduleName, final String line, final BufferedReader reader) {
-    // 1 : "delete_class" <class name>
-    // Line 1.
-    // Ignore this.
+  // endregion
+
+  // region: Definitions
+  private MagikDefinition toDefinition(
+      final String moduleName, final Instant timestamp, final Entry entry) {
+    final URI uri = this.interner.internUri(URI.create(FILE_URI_PREFIX + "/" + entry.sourceFile()));
+    final Location location = new Location(uri);
+    final String doc = entry.doc();
+    return switch (entry.kind()) {
+      case GLOBAL ->
+          new GlobalDefinition(
+              location,
+              timestamp,
+              moduleName,
+              doc,
+              null,
+              TypeString.ofIdentifier(entry.name(), "sw"),
+              TypeString.UNDEFINED);
+      case CONDITION ->
+          new ConditionDefinition(
+              location, timestamp, moduleName, doc, null, entry.name(), null, entry.arguments());
+      case METHOD -> this.toMethodDefinition(moduleName, timestamp, location, doc, entry);
+      case SLOTTED_CLASS, INDEXED_CLASS, ENUMERATED_CLASS ->
+          new ExemplarDefinition(
+              location,
+              timestamp,
+              moduleName,
+              doc,
+              null,
+              ExemplarDefinition.Sort.UNDEFINED,
+              TypeString.ofIdentifier(entry.name(), TypeString.DEFAULT_PACKAGE),
+              entry.arguments().stream()
+                  .map(
+                      slotName ->
+                          new SlotDefinition(
+                              null, null, moduleName, null, null, slotName, TypeString.UNDEFINED))
+                  .toList(),
+              entry.parents().stream().map(TypeStringParser::parseTypeString).toList(),
+              Collections.emptySet());
+      case MIXIN ->
+          new ExemplarDefinition(
+              location,
+              timestamp,
+              moduleName,
+              doc,
+              null,
+              ExemplarDefinition.Sort.INTRINSIC,
+              TypeString.ofIdentifier(entry.name(), TypeString.DEFAULT_PACKAGE),
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.emptySet());
+    };
   }
 
-  private void readMixin(final String moduleName, final String line, final BufferedReader reader)
-      throws IOException {
-    // 1 : "mixin" <class name>
-    // 2 : "."
-    // 3 : n pragma source_file
-    // 4+: <n lines of comments>
-    // Line 1
-    final TypeString typeString;
-    try (Scanner scanner = new Scanner(line)) {
-      scanner.next(); // "mixin"
+  private MethodDefinition toMethodDefinition(
+      final String moduleName,
+      final Instant timestamp,
+      final Location location,
+      final String doc,
+      final Entry entry) {
+    final String methodName = entry.name();
+    final List<ParameterDefinition> paramDefs = new ArrayList<>();
+    ParameterDefinition.Modifier paramModifier = ParameterDefinition.Modifier.NONE;
+    for (final String argument : entry.arguments()) {
+      if (argument.startsWith("_")) {
+        paramModifier = ClassInfoDefinitionReader.PARAMETER_MODIFIER_MAPPING.get(argument);
+        continue;
+      }
 
-      final String identifier = scanner.next();
-      typeString = TypeString.ofIdentifier(identifier, TypeString.DEFAULT_PACKAGE);
+      paramDefs.add(
+          new ParameterDefinition(
+              null, null, moduleName, null, null, argument, paramModifier, TypeString.UNDEFINED));
     }
+    final boolean isAssignment = methodName.contains("<<") && !paramDefs.isEmpty();
+    final List<ParameterDefinition> parameters =
+        isAssignment ? paramDefs.subList(1, paramDefs.size()) : paramDefs;
+    final ParameterDefinition assignmentParameter = isAssignment ? paramDefs.get(0) : null;
 
-    // Line 2
-    reader.readLine(); // NOSONAR: Unused.
+    // Other pragmas, such as classconst/classvar, are not used.
+    final Set<MethodDefinition.Modifier> modifiers = new HashSet<>();
+    entry.pragmas().stream()
+        .map(ClassInfoDefinitionReader.METHOD_MODIFIER_MAPPING::get)
+        .filter(Objects::nonNull)
+        .forEach(modifiers::add);
+
+    return new MethodDefinition(
+        location,
+        timestamp,
+        moduleName,
+        doc,
+        null,
+        TypeString.ofIdentifier(entry.className(), TypeString.DEFAULT_PACKAGE),
+        methodName,
+        modifiers,
+        parameters,
+        assignmentParameter,
+        Collections.emptySet(),
+        ExpressionResultString.UNDEFINED,
+        ExpressionResultString.UNDEFINED);
+  }
 
-    // Line 3
-    final String line3 = reader.readLine();
-    final int commentLineCount;
-    final Location location;
-    try (Scanner scanner = new Scanner(line3)) {
-      commentLineCount = scanner.nextInt();
-
-      // Read pragmas.
-      final List<String> pragmas = new ArrayList<>();
-      while (scanner.hasNext(NEXT_NOT_SLASH_PATTERN)) {
-        final String pragma = scanner.next();
-        pragmas.add(pragma);
+  private static void addDefinitions(
+      final IDefinitionKeeper definitionKeeper, final List<MagikDefinition> definitions) {
+    for (final MagikDefinition definition : definitions) {
+      if (definition instanceof GlobalDefinition globalDefinition) {
+        definitionKeeper.add(globalDefinition);
+      } else if (definition instanceof ConditionDefinition conditionDefinition) {
+        definitionKeeper.add(conditionDefinition);
+      } else if (definition instanceof MethodDefinition methodDefinition) {
+        definitionKeeper.add(methodDefinition);
+      } else if (definition instanceof ExemplarDefinition exemplarDefinition) {
+        definitionKeeper.add(exemplarDefinition);
+      } else {
+        throw new IllegalStateException("Unknown type");
       }
-
-      // Source file.
-      final String sourceFile = scanner.nextLine().trim();
-      final URI uri = URI.create(FILE_URI_PREFIX + "/" + sourceFile);
-      location = new Location(uri);
-    }
-
-    // Line 4+
-    final StringBuilder docBuilder = new StringBuilder();
-    for (int i = 0; i < commentLineCount; ++i) {
-      final String commentLine = reader.readLine();
-      docBuilder.append(commentLine);
-      docBuilder.append('\n');
     }
-    final String doc = docBuilder.toString();
-
-    final ExemplarDefinition definition =
-        new ExemplarDefinition(
-            location,
-            this.getTimestamp(),
-            moduleName,
-            doc,
-            null,
-            ExemplarDefinition.Sort.INTRINSIC,
-            typeString,
-            Collections.emptyList(),
-            Collections.emptyList(),
-            Collections.emptySet());
-    this.definitionKeeper.add(definition);
   }
 
+  // endregion
+
   /**
    * Read types from a jar/class_info file.
    *
@@ -669,8 +471,12 @@ public final class ClassInfoDefinitionReader {
    */
   public static void readTypes(final Path path, final IDefinitionKeeper definitionKeeper)
       throws IOException {
-    final ClassInfoDefinitionReader reader = new ClassInfoDefinitionReader(path, definitionKeeper);
-    reader.run();
+    definitionKeeper.batch(
+        batchDefinitionKeeper -> {
+          final ClassInfoDefinitionReader reader =
+              new ClassInfoDefinitionReader(path, batchDefinitionKeeper.getInterner(), null);
+          ClassInfoDefinitionReader.addDefinitions(batchDefinitionKeeper, reader.run());
+        });
   }
 
   /**
@@ -682,22 +488,81 @@ public final class ClassInfoDefinitionReader {
    */
   public static void readProductDirectory(
       final Path productPath, final IDefinitionKeeper definitionKeeper) throws IOException {
+    ClassInfoDefinitionReader.readProductDirectory(productPath, definitionKeeper, null);
+  }
+
+  /**
+   * Remove stale files from the class_info cache directory, such as those of removed jars.
+   *
+   * @param cachePath Path to directory the read class_info files are cached in.
+   */
+  public static void pruneCache(final Path cachePath) {
+    ClassInfoCache.prune(cachePath);
+  }
+
+  /**
+   * Read libs directory, reading the jars in parallel.
+   *
+   * @param productPath Path to libs directory.
+   * @param definitionKeeper {@link IDefinitionKeeper} to fill.
+   * @param cachePath Path to directory to cache the read class_info files in, if any.
+   * @throws IOException -
+   */
+  public static void readProductDirectory(
+      final Path productPath,
+      final IDefinitionKeeper definitionKeeper,
+      final @Nullable Path cachePath)
+      throws IOException {
     final Path libsPath = productPath.resolve("libs");
+    final List<Path> libPaths;
     try (Stream<Path> paths = Files.list(libsPath)) {
-      paths
-          .filter(Files::isRegularFile)
-          .filter(path -> path.toString().toLowerCase().endsWith(".jar"))
-          .forEach(
-              libPath -> {
-                LOGGER.trace("Reading lib: {}", libPath);
-                try {
-                  ClassInfoDefinitionReader.readTypes(libPath, definitionKeeper);
-                } catch (final IOException exception) {
-                  LOGGER.error("Error reading file: " + libPath, exception);
-                }
-              });
+      libPaths =
+          paths
+              .filter(Files::isRegularFile)
+              .filter(path -> path.toString().toLowerCase().endsWith(".jar"))
+              .sorted()
+              .toList();
     } catch (final IOException exception) {
       LOGGER.error(exception.getMessage(), exception);
+      return;
+    }
+
+    final DefinitionInterner interner = definitionKeeper.getInterner();
+    final int threads =
+        Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), libPaths.size()));
+    final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<List<MagikDefinition>>> futures =
+          libPaths.stream()
+              .map(
+                  libPath ->
+                      executorService.submit(
+                          () -> {
+                            LOGGER.trace("Reading lib: {}", libPath);
+                            final ClassInfoDefinitionReader reader =
+                                new ClassInfoDefinitionReader(libPath, interner, cachePath);
+                            return reader.run();
+                          }))
+              .toList();
+
+      // Add in order of the jars, as a single batch.
+      definitionKeeper.batch(
+          batchDefinitionKeeper -> {
+            for (int i = 0; i < libPaths.size(); ++i) {
+              final Path libPath = libPaths.get(i);
+              try {
+                final List<MagikDefinition> definitions = futures.get(i).get();
+                ClassInfoDefinitionReader.addDefinitions(batchDefinitionKeeper, definitions);
+              } catch (final ExecutionException exception) {
+                LOGGER.error("Error reading file: " + libPath, exception.getCause());
+              } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+              }
+            }
+          });
+    } finally {
+      executorService.shutdownNow();
     }
   }
 }
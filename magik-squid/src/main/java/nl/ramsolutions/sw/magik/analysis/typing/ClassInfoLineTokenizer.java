@@ -0,0 +1,117 @@
+package nl.ramsolutions.sw.magik.analysis.typing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Tokenizer for a single line of a class_info file.
+ *
+ * <p>Splits on whitespace, like {@link java.util.Scanner} with its default delimiter, but without
+ * regular expressions and only allocating the returned tokens.
+ */
+final class ClassInfoLineTokenizer {
+
+  private final String line;
+  private int position;
+
+  /**
+   * Constructor.
+   *
+   * @param line Line to tokenize.
+   */
+  ClassInfoLineTokenizer(final String line) {
+    this.line = line;
+  }
+
+  /**
+   * Test if there is another token.
+   *
+   * @return True if there is another token.
+   */
+  boolean hasNext() {
+    return this.skipWhitespace() < this.line.length();
+  }
+
+  /**
+   * Test if there is another token, which does not contain a slash.
+   *
+   * @return True if there is another token without a slash.
+   */
+  boolean hasNextWithoutSlash() {
+    final int start = this.skipWhitespace();
+    final int end = this.tokenEnd(start);
+    if (start == end) {
+      return false;
+    }
+
+    final int slashIndex = this.line.indexOf('/', start);
+    return slashIndex == -1 || slashIndex >= end;
+  }
+
+  /**
+   * Get the next token.
+   *
+   * @return Next token.
+   */
+  String next() {
+    final int start = this.skipWhitespace();
+    final int end = this.tokenEnd(start);
+    if (start == end) {
+      throw new NoSuchElementException();
+    }
+
+    this.position = end;
+    return this.line.substring(start, end);
+  }
+
+  /**
+   * Get the next token as an int.
+   *
+   * @return Next token as int.
+   */
+  int nextInt() {
+    return Integer.parseInt(this.next());
+  }
+
+  /**
+   * Get all remaining tokens.
+   *
+   * @return Remaining tokens.
+   */
+  List<String> remaining() {
+    final List<String> tokens = new ArrayList<>();
+    while (this.hasNext()) {
+      tokens.add(this.next());
+    }
+    return tokens;
+  }
+
+  /**
+   * Get the remainder of the line, trimmed.
+   *
+   * @return Remainder of line.
+   */
+  String rest() {
+    final String rest = this.line.substring(this.position).trim();
+    this.position = this.line.length();
+    return rest;
+  }
+
+  private int skipWhitespace() {
+    final int length = this.line.length();
+    while (this.position < length && Character.isWhitespace(this.line.charAt(this.position))) {
+      this.position++;
+    }
+    return this.position;
+  }
+
+  private int tokenEnd(final int start) {
+    final int length = this.line.length();
+    int end = start;
+    while (end < length && !Character.isWhitespace(this.line.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+}
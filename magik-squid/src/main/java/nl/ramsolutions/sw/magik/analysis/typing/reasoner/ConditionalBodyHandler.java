@@ -9,7 +9,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.helpers.ArgumentsNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodInvocationNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
@@ -214,10 +213,8 @@ class ConditionalBodyHandler extends LocalTypeReasonerHandler {
                   }
 
                   final String conditionName = argumentNode.getTokenValue().substring(1);
-                  final IDefinitionKeeper definitionKeeper =
-                      this.state.getMagikFile().getDefinitionKeeper();
                   final ConditionResolver conditionResolver =
-                      new ConditionResolver(definitionKeeper);
+                      new ConditionResolver(this.definitionKeeper);
                   return conditionResolver.conditionHasAncestor(conditionName, "error");
                 });
     return doesReturn || raisesError;
@@ -71,6 +71,15 @@ public class LocalTypeReasoner extends MagikAstWalker {
     this.walkAst(topNode);
   }
 
+  /**
+   * Evaluate a single top level section, such as a method definition, of the file.
+   *
+   * @param sectionNode Top level section {@link AstNode} to evaluate.
+   */
+  public void run(final AstNode sectionNode) {
+    this.walkAst(sectionNode);
+  }
+
   @Override
   protected void walkPostExemplarName(final AstNode node) {
     this.identifierHandler.handleExemplarName(node);
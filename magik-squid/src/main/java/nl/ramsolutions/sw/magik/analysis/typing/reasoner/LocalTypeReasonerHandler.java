@@ -31,7 +31,7 @@ abstract class LocalTypeReasonerHandler {
   LocalTypeReasonerHandler(final LocalTypeReasonerState state) {
     this.state = state;
 
-    this.definitionKeeper = state.getMagikFile().getDefinitionKeeper();
+    this.definitionKeeper = state.getDefinitionKeeper();
     this.typeResolver = new TypeStringResolver(this.definitionKeeper);
   }
 
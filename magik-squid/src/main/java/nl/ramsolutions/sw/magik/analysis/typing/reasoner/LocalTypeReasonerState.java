@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.Map;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.scope.ScopeEntry;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
 import org.slf4j.Logger;
@@ -20,18 +21,30 @@ public class LocalTypeReasonerState {
   private static final Logger LOGGER = LoggerFactory.getLogger(LocalTypeReasonerState.class);
 
   private final MagikTypedFile magikFile;
+  private final IDefinitionKeeper definitionKeeper;
   private final Map<AstNode, ExpressionResultString> nodeTypes = new HashMap<>();
   private final Map<AstNode, ExpressionResultString> nodeIterTypes = new HashMap<>();
   private final Map<ScopeEntry, AstNode> currentScopeEntryNodes = new HashMap<>();
 
   LocalTypeReasonerState(final MagikTypedFile magikFile) {
     this.magikFile = magikFile;
+    this.definitionKeeper = magikFile.getDefinitionKeeper().getSnapshot();
   }
 
   public MagikTypedFile getMagikFile() {
     return this.magikFile;
   }
 
+  /**
+   * Get the snapshot of the {@link IDefinitionKeeper} used for reasoning, pinned when the state was
+   * created so the whole run sees a consistent set of definitions.
+   *
+   * @return Snapshot of the {@link IDefinitionKeeper}.
+   */
+  IDefinitionKeeper getDefinitionKeeper() {
+    return this.definitionKeeper;
+  }
+
   /**
    * Test if the type for a {@link AstNode} is known.
    *
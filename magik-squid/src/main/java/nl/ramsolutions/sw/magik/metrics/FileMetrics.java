@@ -1,12 +1,10 @@
 package nl.ramsolutions.sw.magik.metrics;
 
-import com.sonar.sslr.api.AstNode;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import nl.ramsolutions.sw.magik.MagikFile;
-import nl.ramsolutions.sw.magik.api.MagikGrammar;
 
 /** File metrics extractor. */
 public class FileMetrics {
@@ -28,59 +26,31 @@ public class FileMetrics {
    * @param ignoreHeaderComments Ignore first (header) comment of file.
    */
   public FileMetrics(final MagikFile magikFile, final boolean ignoreHeaderComments) {
-    final AstNode topNode = magikFile.getTopNode();
-
-    final StatementCountVisitor statementCountVisitor = new StatementCountVisitor();
-    statementCountVisitor.scanFile(magikFile);
-    this.numberOfStatements = statementCountVisitor.getStatementCount();
-
-    final ExemplarDefinitionVisitor exemplarDefinitionVisitor = new ExemplarDefinitionVisitor();
-    exemplarDefinitionVisitor.scanFile(magikFile);
-    this.numberOfExemplars = exemplarDefinitionVisitor.getCount();
-
-    final ComplexityVisitor complexityVisitor = new ComplexityVisitor();
-    complexityVisitor.scanFile(magikFile);
-    this.fileComplexity = complexityVisitor.getComplexity();
-
-    final FileLinesVisitor fileLinesVisitor = new FileLinesVisitor(ignoreHeaderComments);
-    fileLinesVisitor.scanFile(magikFile);
-    this.linesOfCode = fileLinesVisitor.getLinesOfCode();
-    this.commentLines = fileLinesVisitor.getLinesOfComments();
-    this.nosonarLines = fileLinesVisitor.getNosonarLines();
-    this.executableLines = fileLinesVisitor.getExecutableLines();
-
-    // method definitions/complexity
-    for (final AstNode methodDef : topNode.getDescendants(MagikGrammar.METHOD_DEFINITION)) {
-      final ComplexityVisitor methodComplexityVisitor = new ComplexityVisitor();
-      methodComplexityVisitor.walkAst(methodDef);
-      final int complexity = methodComplexityVisitor.getComplexity();
-      this.methodComplexities.add(complexity);
-    }
-
-    // procedure definitions/complexity
-    for (final AstNode procDef : topNode.getDescendants(MagikGrammar.PROCEDURE_DEFINITION)) {
-      if (this.isNestedInMethodDef(procDef)) {
-        continue; // only non-nested procedure definitions
-      }
-
-      final ComplexityVisitor procComplexityVisitor = new ComplexityVisitor();
-      procComplexityVisitor.walkAst(procDef);
-      final int complexity = procComplexityVisitor.getComplexity();
-      this.procedureComplexities.add(complexity);
-    }
+    this(FileMetrics.walk(magikFile, ignoreHeaderComments));
   }
 
-  private boolean isNestedInMethodDef(final AstNode procDef) {
-    AstNode parent = procDef.getParent();
-    while (parent != null) {
-      if (parent.is(MagikGrammar.METHOD_DEFINITION)) {
-        return true;
-      }
-
-      parent = parent.getParent();
-    }
+  /**
+   * Constructor, from an already walked {@link FileMetricsVisitor}.
+   *
+   * @param visitor Visitor which has walked the file.
+   */
+  public FileMetrics(final FileMetricsVisitor visitor) {
+    this.numberOfStatements = visitor.getStatementCount();
+    this.numberOfExemplars = visitor.getExemplarCount();
+    this.fileComplexity = visitor.getFileComplexity();
+    this.methodComplexities.addAll(visitor.getMethodComplexities());
+    this.procedureComplexities.addAll(visitor.getProcedureComplexities());
+    this.linesOfCode = visitor.getLinesOfCode();
+    this.commentLines = visitor.getLinesOfComments();
+    this.nosonarLines = visitor.getNosonarLines();
+    this.executableLines = visitor.getExecutableLines();
+  }
 
-    return false;
+  private static FileMetricsVisitor walk(
+      final MagikFile magikFile, final boolean ignoreHeaderComments) {
+    final FileMetricsVisitor visitor = new FileMetricsVisitor(ignoreHeaderComments);
+    visitor.scanFile(magikFile);
+    return visitor;
   }
 
   public int numberOfExemplars() {
@@ -0,0 +1,171 @@
+package nl.ramsolutions.sw.magik.metrics;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.MagikVisitor;
+
+/**
+ * Visitor gathering all {@link FileMetrics} in a single walk of the tree.
+ *
+ * <p>Forwards to a {@link StatementCountVisitor}, {@link ExemplarDefinitionVisitor}, {@link
+ * ComplexityVisitor} and {@link FileLinesVisitor}. The complexity of each method and (non-nested)
+ * procedure definition is tracked while walking, instead of walking each definition again. Can be
+ * extended to gather more in the same walk, overriding methods must call their super method.
+ */
+public class FileMetricsVisitor extends MagikVisitor {
+
+  private final StatementCountVisitor statementCountVisitor = new StatementCountVisitor();
+  private final ExemplarDefinitionVisitor exemplarDefinitionVisitor =
+      new ExemplarDefinitionVisitor();
+  private final ComplexityVisitor complexityVisitor = new ComplexityVisitor();
+  private final FileLinesVisitor fileLinesVisitor;
+  private final Deque<ComplexityVisitor> definitionComplexityVisitors = new ArrayDeque<>();
+  private final List<ComplexityVisitor> methodComplexityVisitors = new ArrayList<>();
+  private final List<ComplexityVisitor> procedureComplexityVisitors = new ArrayList<>();
+  private int methodDepth;
+
+  /**
+   * Constructor.
+   *
+   * @param ignoreHeaderComments Ignore first (header) comment of file.
+   */
+  public FileMetricsVisitor(final boolean ignoreHeaderComments) {
+    this.fileLinesVisitor = new FileLinesVisitor(ignoreHeaderComments);
+  }
+
+  public int getStatementCount() {
+    return this.statementCountVisitor.getStatementCount();
+  }
+
+  public int getExemplarCount() {
+    return this.exemplarDefinitionVisitor.getCount();
+  }
+
+  public int getFileComplexity() {
+    return this.complexityVisitor.getComplexity();
+  }
+
+  public List<Integer> getMethodComplexities() {
+    return this.methodComplexityVisitors.stream().map(ComplexityVisitor::getComplexity).toList();
+  }
+
+  public List<Integer> getProcedureComplexities() {
+    return this.procedureComplexityVisitors.stream().map(ComplexityVisitor::getComplexity).toList();
+  }
+
+  public Set<Integer> getLinesOfCode() {
+    return this.fileLinesVisitor.getLinesOfCode();
+  }
+
+  public Set<Integer> getLinesOfComments() {
+    return this.fileLinesVisitor.getLinesOfComments();
+  }
+
+  public Set<Integer> getNosonarLines() {
+    return this.fileLinesVisitor.getNosonarLines();
+  }
+
+  public Set<Integer> getExecutableLines() {
+    return this.fileLinesVisitor.getExecutableLines();
+  }
+
+  @Override
+  protected void walkPreMagik(final AstNode node) {
+    this.statementCountVisitor.walkPreMagik(node);
+    this.exemplarDefinitionVisitor.walkPreMagik(node);
+    this.fileLinesVisitor.walkPreMagik(node);
+  }
+
+  @Override
+  public void walkToken(final Token token) {
+    this.fileLinesVisitor.walkToken(token);
+  }
+
+  @Override
+  protected void walkPreStatement(final AstNode node) {
+    this.statementCountVisitor.walkPreStatement(node);
+    this.fileLinesVisitor.walkPreStatement(node);
+  }
+
+  @Override
+  protected void walkPreExpression(final AstNode node) {
+    this.fileLinesVisitor.walkPreExpression(node);
+  }
+
+  @Override
+  protected void walkPreProcedureInvocation(final AstNode node) {
+    this.exemplarDefinitionVisitor.walkPreProcedureInvocation(node);
+  }
+
+  // region: Complexity
+  @Override
+  protected void walkPreMethodDefinition(final AstNode node) {
+    final ComplexityVisitor methodComplexityVisitor = new ComplexityVisitor();
+    this.methodComplexityVisitors.add(methodComplexityVisitor);
+    this.definitionComplexityVisitors.push(methodComplexityVisitor);
+    this.methodDepth++;
+  }
+
+  @Override
+  protected void walkPostMethodDefinition(final AstNode node) {
+    this.definitionComplexityVisitors.pop();
+    this.methodDepth--;
+  }
+
+  @Override
+  protected void walkPreProcedureDefinition(final AstNode node) {
+    this.complexityVisitor.walkPreProcedureDefinition(node);
+    this.definitionComplexityVisitors.forEach(visitor -> visitor.walkPreProcedureDefinition(node));
+
+    // Only procedure definitions which are not nested in a method definition.
+    if (this.methodDepth == 0) {
+      final ComplexityVisitor procedureComplexityVisitor = new ComplexityVisitor();
+      procedureComplexityVisitor.walkPreProcedureDefinition(node);
+      this.procedureComplexityVisitors.add(procedureComplexityVisitor);
+      this.definitionComplexityVisitors.push(procedureComplexityVisitor);
+    }
+  }
+
+  @Override
+  protected void walkPostProcedureDefinition(final AstNode node) {
+    if (this.methodDepth == 0) {
+      this.definitionComplexityVisitors.pop();
+    }
+  }
+
+  @Override
+  protected void walkPreLoop(final AstNode node) {
+    this.complexityVisitor.walkPreLoop(node);
+    this.definitionComplexityVisitors.forEach(visitor -> visitor.walkPreLoop(node));
+  }
+
+  @Override
+  protected void walkPreIf(final AstNode node) {
+    this.complexityVisitor.walkPreIf(node);
+    this.definitionComplexityVisitors.forEach(visitor -> visitor.walkPreIf(node));
+  }
+
+  @Override
+  protected void walkPreElif(final AstNode node) {
+    this.complexityVisitor.walkPreElif(node);
+    this.definitionComplexityVisitors.forEach(visitor -> visitor.walkPreElif(node));
+  }
+
+  @Override
+  protected void walkPreAndExpression(final AstNode node) {
+    this.complexityVisitor.walkPreAndExpression(node);
+    this.definitionComplexityVisitors.forEach(visitor -> visitor.walkPreAndExpression(node));
+  }
+
+  @Override
+  protected void walkPreOrExpression(final AstNode node) {
+    this.complexityVisitor.walkPreOrExpression(node);
+    this.definitionComplexityVisitors.forEach(visitor -> visitor.walkPreOrExpression(node));
+  }
+  // endregion
+}
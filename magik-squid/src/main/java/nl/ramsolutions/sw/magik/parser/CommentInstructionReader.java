@@ -11,6 +11,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import nl.ramsolutions.sw.magik.LineTable;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.analysis.scope.Scope;
 
@@ -171,16 +172,12 @@ public class CommentInstructionReader {
       return;
     }
 
-    final String[] lines = this.magikFile.getSourceLines();
-    if (lines == null) {
-      return;
-    }
-
+    final LineTable lineTable = this.magikFile.getLineTable();
     this.instructions.forEach(
         instruction -> {
           final Pattern pattern = instruction.getPattern();
-          for (int lineNo = 0; lineNo < lines.length; ++lineNo) {
-            final String line = lines[lineNo];
+          for (int lineNo = 0; lineNo < lineTable.getLineCount(); ++lineNo) {
+            final CharSequence line = lineTable.getLine(lineNo + 1);
             final Matcher matcher = pattern.matcher(line);
             if (!matcher.find()) {
               continue;
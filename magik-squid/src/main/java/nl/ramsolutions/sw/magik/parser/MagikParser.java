@@ -3,18 +3,17 @@ package nl.ramsolutions.sw.magik.parser;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
 import com.sonar.sslr.impl.Parser;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.EnumMap;
 import java.util.Map;
 import nl.ramsolutions.sw.AstNodeHelper;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,6 +89,30 @@ public class MagikParser {
     return node;
   }
 
+  /**
+   * Parse safe, set {@link URI} and move all tokens down by {@code lineOffset} lines.
+   *
+   * <p>Used to parse a part of a file, giving the tokens the lines they have in the whole file.
+   *
+   * @param source Source to parse.
+   * @param uri URI to set.
+   * @param lineOffset Number of lines to add to the line of each token.
+   * @return Parsed source.
+   */
+  public AstNode parseSafe(final String source, final URI uri, final int lineOffset) {
+    final AstNode node = this.parseSafe(source, uri);
+    if (lineOffset != 0) {
+      try {
+        final Field field = Token.class.getDeclaredField("line");
+        field.setAccessible(true);
+        this.offsetLines(node, field, lineOffset);
+      } catch (final ReflectiveOperationException exception) {
+        LOGGER.error(exception.getMessage(), exception);
+      }
+    }
+    return node;
+  }
+
   /**
    * Parse a file and return the AstNode. IOExceptions are caught, not handled.
    *
@@ -132,8 +155,7 @@ public class MagikParser {
    * @throws IOException -
    */
   public AstNode parse(final Path path) throws IOException {
-    final Charset charset = FileCharsetDeterminer.determineCharset(path);
-    final String source = Files.readString(path, charset);
+    final String source = SourceFileLoader.readString(path);
     final AstNode node = this.parser.parse(source);
 
     final URI uri = path.toUri();
@@ -170,6 +192,27 @@ public class MagikParser {
     node.getChildren().forEach(this::applyRuleMapping);
   }
 
+  private void offsetLines(final AstNode node, final Field field, final int lineOffset)
+      throws ReflectiveOperationException {
+    if (!node.hasChildren()) {
+      // Grammar nodes share the tokens of their leaves.
+      final Token token = node.getToken();
+      if (token != null) {
+        field.setInt(token, token.getLine() + lineOffset);
+        for (final Trivia trivia : token.getTrivia()) {
+          for (final Token triviaToken : trivia.getTokens()) {
+            field.setInt(triviaToken, triviaToken.getLine() + lineOffset);
+          }
+        }
+      }
+      return;
+    }
+
+    for (final AstNode childNode : node.getChildren()) {
+      this.offsetLines(childNode, field, lineOffset);
+    }
+  }
+
   /**
    * Update token value.
    *
@@ -0,0 +1,165 @@
+package nl.ramsolutions.sw.magik.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits Magik source into chunks, each ending with a line containing only a {@code $}.
+ *
+ * <p>Strings, comments, character literals and piped identifiers are skipped, a {@code $} in these
+ * does not end a chunk. This is a lexical approximation, the parser is the authority: code for
+ * which the chunks do not parse should be parsed as a whole.
+ */
+public final class MagikSourceChunker {
+
+  /**
+   * A chunk of source.
+   *
+   * @param startOffset Offset of first character in source.
+   * @param endOffset Offset after last character in source.
+   * @param startLine Line of first character, 1-based.
+   */
+  public record Chunk(int startOffset, int endOffset, int startLine) {}
+
+  private MagikSourceChunker() {}
+
+  /**
+   * Split source into chunks. The chunks together cover the whole source.
+   *
+   * @param source Source to split.
+   * @return Chunks, in order.
+   */
+  public static List<Chunk> split(final String source) {
+    final List<Chunk> chunks = new ArrayList<>();
+    final int length = source.length();
+    int chunkStart = 0;
+    int chunkStartLine = 1;
+    boolean atLineStart = true;
+    int offset = 0;
+    while (offset < length) {
+      final int chunkEnd =
+          atLineStart ? MagikSourceChunker.endChunkAtTransmitLine(source, offset) : -1;
+      if (chunkEnd != -1) {
+        chunks.add(new Chunk(chunkStart, chunkEnd, chunkStartLine));
+        chunkStartLine += MagikSourceChunker.countLineBreaks(source, chunkStart, chunkEnd);
+        chunkStart = chunkEnd;
+        offset = chunkEnd;
+      } else {
+        atLineStart = MagikSourceChunker.isLineBreak(source.charAt(offset));
+        offset = MagikSourceChunker.skipToken(source, offset);
+      }
+    }
+
+    if (chunkStart < length || chunks.isEmpty()) {
+      chunks.add(new Chunk(chunkStart, length, chunkStartLine));
+    }
+    return chunks;
+  }
+
+  /** Skip the token, or the single character, at {@code offset}, returns the next offset. */
+  private static int skipToken(final String source, final int offset) {
+    return switch (source.charAt(offset)) {
+      case '\r', '\n' -> MagikSourceChunker.skipLineBreak(source, offset);
+      case '#' -> MagikSourceChunker.skipComment(source, offset);
+      case '"', '\'', '|' -> MagikSourceChunker.skipQuoted(source, offset);
+      case '%', '\\' -> MagikSourceChunker.skipCharacterLiteral(source, offset);
+      default -> offset + 1;
+    };
+  }
+
+  /** Skip the line break at {@code offset}, if any, returns the next offset. */
+  private static int skipLineBreak(final String source, final int offset) {
+    int next = offset;
+    if (next < source.length() && source.charAt(next) == '\r') {
+      next++;
+    }
+    if (next < source.length() && source.charAt(next) == '\n') {
+      next++;
+    }
+    return next;
+  }
+
+  /** Skip the comment starting at {@code offset}, up to the line end, returns the next offset. */
+  private static int skipComment(final String source, final int offset) {
+    int next = offset;
+    while (next < source.length() && !MagikSourceChunker.isLineBreak(source.charAt(next))) {
+      next++;
+    }
+    return next;
+  }
+
+  /**
+   * Skip the string or piped identifier starting at {@code offset}, which may span lines, returns
+   * the next offset.
+   */
+  private static int skipQuoted(final String source, final int offset) {
+    final int close = source.indexOf(source.charAt(offset), offset + 1);
+    return close != -1 ? close + 1 : source.length();
+  }
+
+  /**
+   * Skip the character literal or escaped character starting at {@code offset}: the next character
+   * on this line. Returns the next offset.
+   */
+  private static int skipCharacterLiteral(final String source, final int offset) {
+    final int next = offset + 1;
+    if (next < source.length() && !MagikSourceChunker.isLineBreak(source.charAt(next))) {
+      return next + 1;
+    }
+    return next;
+  }
+
+  /**
+   * Get the end of the chunk, after the line separator, if the line starting at {@code offset} only
+   * contains a {@code $}.
+   *
+   * @return Offset after the transmit line, or -1 if this is not a transmit line.
+   */
+  private static int endChunkAtTransmitLine(final String source, final int offset) {
+    final int lineEnd = MagikSourceChunker.transmitLineEnd(source, offset);
+    if (lineEnd == -1) {
+      return -1;
+    }
+
+    // Include the line separator in this chunk.
+    return MagikSourceChunker.skipLineBreak(source, lineEnd);
+  }
+
+  /** Count the line breaks in {@code source} between {@code start} and {@code end}. */
+  private static int countLineBreaks(final String source, final int start, final int end) {
+    int count = 0;
+    int offset = start;
+    while (offset < end) {
+      if (MagikSourceChunker.isLineBreak(source.charAt(offset))) {
+        offset = MagikSourceChunker.skipLineBreak(source, offset);
+        count++;
+      } else {
+        offset++;
+      }
+    }
+    return count;
+  }
+
+  private static boolean isLineBreak(final char chr) {
+    return chr == '\n' || chr == '\r';
+  }
+
+  /** Get the end of the line starting at {@code start}, if it only contains a {@code $}. */
+  private static int transmitLineEnd(final String source, final int start) {
+    final int length = source.length();
+    boolean seenTransmit = false;
+    int i = start;
+    while (i < length) {
+      final char chr = source.charAt(i);
+      if (chr == '\n' || chr == '\r') {
+        break;
+      } else if (chr == '$' && !seenTransmit) {
+        seenTransmit = true;
+      } else if (chr != ' ' && chr != '\t') {
+        return -1;
+      }
+      i++;
+    }
+    return seenTransmit ? i : -1;
+  }
+}
@@ -0,0 +1,77 @@
+package nl.ramsolutions.sw.moduledef;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Parsed `load_list.txt` file. */
+public final class LoadList {
+
+  private final Path path;
+  private final List<String> entries;
+  private final Set<String> entrySet;
+
+  /**
+   * Constructor.
+   *
+   * @param path Path to `load_list.txt` file.
+   * @param lines Lines of the file.
+   */
+  public LoadList(final Path path, final List<String> lines) {
+    this.path = path;
+    this.entries = lines.stream().map(String::trim).filter(line -> !line.isEmpty()).toList();
+    this.entrySet = Collections.unmodifiableSet(new LinkedHashSet<>(this.entries));
+  }
+
+  /**
+   * Get the path to the `load_list.txt` file.
+   *
+   * @return Path to `load_list.txt` file.
+   */
+  public Path getPath() {
+    return this.path;
+  }
+
+  /**
+   * Get the entries, in load order.
+   *
+   * @return Entries.
+   */
+  public List<String> getEntries() {
+    return this.entries;
+  }
+
+  /**
+   * Test if the load list contains the given entry.
+   *
+   * @param entry Entry, a file name without extension or a directory name.
+   * @return True if listed, false otherwise.
+   */
+  public boolean contains(final String entry) {
+    return this.entrySet.contains(entry);
+  }
+
+  /**
+   * Test if the load list contains the given file, stripping the extension of the file name.
+   *
+   * @param filePath Path to file.
+   * @return True if listed, false otherwise.
+   */
+  public boolean containsFile(final Path filePath) {
+    final String fileName = filePath.getFileName().toString();
+    final int extensionIndex = fileName.lastIndexOf('.');
+    final String entry =
+        extensionIndex != -1 && extensionIndex < fileName.length() - 1
+            ? fileName.substring(0, extensionIndex)
+            : fileName;
+    return this.contains(entry);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s@%s(%s)", this.getClass().getName(), Integer.toHexString(this.hashCode()), this.path);
+  }
+}
@@ -0,0 +1,101 @@
+package nl.ramsolutions.sw.moduledef;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared index of parsed `load_list.txt` files, per directory.
+ *
+ * <p>A `load_list.txt` file is only read again when its last modified time changes, so all files in
+ * a directory can be checked against the load list without re-reading it. The indexers call {@link
+ * #invalidate(Path)} on each file event.
+ */
+public final class LoadListIndex {
+
+  /** Parsed {@link LoadList}, with the last modified time of its `load_list.txt` file. */
+  private record CachedLoadList(FileTime lastModifiedTime, LoadList loadList) {}
+
+  /** File name of load list files. */
+  public static final String LOAD_LIST_TXT = "load_list.txt";
+
+  private static final Map<Path, CachedLoadList> CACHE = new ConcurrentHashMap<>();
+
+  private LoadListIndex() {}
+
+  /** Reset the cache. */
+  public static void resetCache() {
+    LoadListIndex.CACHE.clear();
+  }
+
+  /**
+   * Invalidate everything cached for the given path: the load list itself, or all load lists of the
+   * directory and below.
+   *
+   * @param path Changed path, a `load_list.txt` file or a directory.
+   */
+  public static void invalidate(final Path path) {
+    final Path fileName = path.getFileName();
+    final Path parentPath = path.getParent();
+    if (fileName != null
+        && fileName.toString().equalsIgnoreCase(LoadListIndex.LOAD_LIST_TXT)
+        && parentPath != null) {
+      LoadListIndex.CACHE.remove(parentPath);
+      return;
+    }
+
+    LoadListIndex.CACHE.keySet().removeIf(key -> key.startsWith(path));
+  }
+
+  /**
+   * Get the {@link LoadList} of a directory.
+   *
+   * @param directoryPath Path to directory.
+   * @return {@link LoadList}, or null if the directory has no `load_list.txt` file.
+   * @throws IOException -
+   */
+  @CheckForNull
+  public static LoadList getLoadList(final Path directoryPath) throws IOException {
+    final Path loadListPath = directoryPath.resolve(LoadListIndex.LOAD_LIST_TXT);
+    final FileTime lastModifiedTime;
+    try {
+      lastModifiedTime = Files.getLastModifiedTime(loadListPath);
+    } catch (final NoSuchFileException exception) {
+      LoadListIndex.CACHE.remove(directoryPath);
+      return null;
+    }
+
+    final CachedLoadList cached = LoadListIndex.CACHE.get(directoryPath);
+    if (cached != null && cached.lastModifiedTime().equals(lastModifiedTime)) {
+      return cached.loadList();
+    }
+
+    final List<String> lines = Files.readAllLines(loadListPath);
+    final LoadList loadList = new LoadList(loadListPath, lines);
+    LoadListIndex.CACHE.put(directoryPath, new CachedLoadList(lastModifiedTime, loadList));
+    return loadList;
+  }
+
+  /**
+   * Get the {@link LoadList} of the directory containing the given file.
+   *
+   * @param filePath Path to file.
+   * @return {@link LoadList}, or null if the directory has no `load_list.txt` file.
+   * @throws IOException -
+   */
+  @CheckForNull
+  public static LoadList getLoadListForFile(final Path filePath) throws IOException {
+    final Path directoryPath = filePath.getParent();
+    if (directoryPath == null) {
+      return null;
+    }
+
+    return LoadListIndex.getLoadList(directoryPath);
+  }
+}
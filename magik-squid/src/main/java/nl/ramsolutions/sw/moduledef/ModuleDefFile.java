@@ -8,8 +8,8 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.OpenedFile;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
@@ -26,7 +26,9 @@ public class ModuleDefFile extends OpenedFile {
   private final @Nullable Instant timestamp;
   private final IDefinitionKeeper definitionKeeper;
   private final @Nullable ProductDefFile parentProductDefFile;
+  private final @Nullable ModuleDefFile parsedDefFile;
   private AstNode astNode;
+  private ModuleDefinition moduleDefinition;
 
   /**
    * Constructor.
@@ -45,6 +47,7 @@ public class ModuleDefFile extends OpenedFile {
     this.timestamp = null;
     this.definitionKeeper = definitionKeeper;
     this.parentProductDefFile = parentProductDefFile;
+    this.parsedDefFile = null;
   }
 
   /**
@@ -60,10 +63,29 @@ public class ModuleDefFile extends OpenedFile {
       final IDefinitionKeeper definitionKeeper,
       final @Nullable ProductDefFile parentProductDefFile)
       throws IOException {
-    super(path.toUri(), Files.readString(path, FileCharsetDeterminer.determineCharset(path)));
+    super(path.toUri(), SourceFileLoader.readString(path));
     this.timestamp = Files.getLastModifiedTime(path).toInstant();
     this.definitionKeeper = definitionKeeper;
     this.parentProductDefFile = parentProductDefFile;
+    this.parsedDefFile = null;
+  }
+
+  /**
+   * Constructor, sharing the source and parse tree of another {@link ModuleDefFile}.
+   *
+   * @param moduleDefFile {@link ModuleDefFile} to share the source and parse tree of.
+   * @param definitionKeeper DefinitionKeeper.
+   * @param parentProductDefFile Parent {@link ProductDefFile}.
+   */
+  public ModuleDefFile(
+      final ModuleDefFile moduleDefFile,
+      final IDefinitionKeeper definitionKeeper,
+      final @Nullable ProductDefFile parentProductDefFile) {
+    super(moduleDefFile.getUri(), moduleDefFile.getSource());
+    this.timestamp = moduleDefFile.getTimestamp();
+    this.definitionKeeper = definitionKeeper;
+    this.parentProductDefFile = parentProductDefFile;
+    this.parsedDefFile = moduleDefFile;
   }
 
   /**
@@ -87,16 +109,22 @@ public class ModuleDefFile extends OpenedFile {
   }
 
   /**
-   * Get the product definition defined in this file.
+   * Get the module definition defined in this file. The definition is parsed once and cached.
    *
-   * @return {@link ProductDefinition} defined in this file.
+   * @return {@link ModuleDefinition} defined in this file.
    * @throws IOException -
    */
-  public ModuleDefinition getModuleDefinition() {
-    final ModuleDefinitionParser parser = new ModuleDefinitionParser();
-    final ProductDefinition productDefinition =
-        this.parentProductDefFile != null ? this.parentProductDefFile.getProductDefinition() : null;
-    return parser.parseDefinition(this, productDefinition);
+  public synchronized ModuleDefinition getModuleDefinition() {
+    if (this.moduleDefinition == null) {
+      final ModuleDefinitionParser parser = new ModuleDefinitionParser();
+      final ProductDefinition productDefinition =
+          this.parentProductDefFile != null
+              ? this.parentProductDefFile.getProductDefinition()
+              : null;
+      this.moduleDefinition = parser.parseDefinition(this, productDefinition);
+    }
+
+    return this.moduleDefinition;
   }
 
   /**
@@ -105,7 +133,9 @@ public class ModuleDefFile extends OpenedFile {
    * @return Top level {@link AstNode}.
    */
   public synchronized AstNode getTopNode() {
-    if (this.astNode == null) {
+    if (this.astNode == null && this.parsedDefFile != null) {
+      this.astNode = this.parsedDefFile.getTopNode();
+    } else if (this.astNode == null) {
       final SwModuleDefParser parser = new SwModuleDefParser();
       final String source = this.getSource();
       final URI uri = this.getUri();
@@ -129,7 +159,7 @@ public class ModuleDefFile extends OpenedFile {
    * Get the module name for the given URI.
    *
    * <p>Scans upwards from the given URI to find the module definition file and extracts the module
-   * name from the `module.def` file..
+   * name from the `module.def` file. Both are cached by {@link ModuleDefFileResolver}.
    *
    * @param uri URI to start searching from.
    * @return Module name, or null if no module was found.
@@ -141,19 +171,18 @@ public class ModuleDefFile extends OpenedFile {
     }
 
     final Path path = Path.of(uri);
-    final ModuleDefFile moduleDefFile;
+    final ModuleDefinition moduleDefinition;
     try {
-      final Path moduleDefPath = ModuleDefFileScanner.getModuleDefFileForPath(path);
+      final Path moduleDefPath = ModuleDefFileResolver.getModuleDefFileForPath(path);
       if (moduleDefPath == null) {
         return null;
       }
 
-      moduleDefFile = new ModuleDefFile(moduleDefPath, null, null);
+      moduleDefinition = ModuleDefFileResolver.getModuleDefinition(moduleDefPath);
     } catch (final IOException exception) {
       throw new IllegalStateException(exception);
     }
 
-    final ModuleDefinition moduleDefinition = moduleDefFile.getModuleDefinition();
-    return moduleDefinition.getName();
+    return moduleDefinition != null ? moduleDefinition.getName() : null;
   }
 }
@@ -0,0 +1,242 @@
+package nl.ramsolutions.sw.moduledef;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.productdef.ProductDefFile;
+
+/**
+ * Cached resolution of the owning `module.def`/`product.def` of a path.
+ *
+ * <p>Every directory passed while searching upwards is remembered, so files in the same module (or
+ * product) are resolved without touching the file system again. Read {@link ModuleDefFile}s and
+ * {@link ProductDefFile}s are memoized by path and last modified time only, so a `product.def`
+ * shared by many modules is parsed once. Callers get a file bound to their own definition keeper
+ * and parent, sharing the memoized source and parse tree. Resolved files which are removed are
+ * noticed on the next lookup; new `module.def`/`product.def` files are picked up after {@link
+ * #invalidate(Path)}, which the indexers do on each file event.
+ */
+public final class ModuleDefFileResolver {
+
+  /**
+   * Read definition file, with its last modified time.
+   *
+   * @param lastModifiedTime Last modified time of the file.
+   * @param defFile Read {@link ModuleDefFile} or {@link ProductDefFile}, without definition keeper
+   *     or parent.
+   */
+  private record ReadDefFile<T>(FileTime lastModifiedTime, T defFile) {}
+
+  /** Reader of a definition file. */
+  @FunctionalInterface
+  private interface DefFileReader<T> {
+    T read(Path path) throws IOException;
+  }
+
+  private static final Path DOES_NOT_EXIST = Path.of("DOES_NOT_EXIST");
+  private static final Map<Path, Path> MODULE_DEF_CACHE = new ConcurrentHashMap<>();
+  private static final Map<Path, Path> PRODUCT_DEF_CACHE = new ConcurrentHashMap<>();
+  private static final Map<Path, ReadDefFile<ModuleDefFile>> MODULE_DEF_FILE_CACHE =
+      new ConcurrentHashMap<>();
+  private static final Map<Path, ReadDefFile<ProductDefFile>> PRODUCT_DEF_FILE_CACHE =
+      new ConcurrentHashMap<>();
+
+  private ModuleDefFileResolver() {}
+
+  /** Reset all caches. */
+  public static void resetCache() {
+    ModuleDefFileResolver.MODULE_DEF_CACHE.clear();
+    ModuleDefFileResolver.PRODUCT_DEF_CACHE.clear();
+    ModuleDefFileResolver.MODULE_DEF_FILE_CACHE.clear();
+    ModuleDefFileResolver.PRODUCT_DEF_FILE_CACHE.clear();
+  }
+
+  /**
+   * Invalidate everything cached for the given path: resolutions from the directory containing it
+   * (or below) and resolutions to it (or below).
+   *
+   * @param path Changed path, a `module.def`/`product.def` file or a directory.
+   */
+  public static void invalidate(final Path path) {
+    final Path fileName = path.getFileName();
+    final boolean isDefFile =
+        fileName != null
+            && (fileName.toString().equalsIgnoreCase(ModuleDefFileScanner.SW_MODULE_DEF)
+                || fileName.toString().equalsIgnoreCase(ModuleDefFileScanner.SW_PRODUCT_DEF));
+    final Path dirPath = isDefFile && path.getParent() != null ? path.getParent() : path;
+    List.of(ModuleDefFileResolver.MODULE_DEF_CACHE, ModuleDefFileResolver.PRODUCT_DEF_CACHE)
+        .forEach(
+            cache ->
+                cache
+                    .entrySet()
+                    .removeIf(
+                        entry ->
+                            entry.getKey().startsWith(dirPath)
+                                || entry.getValue().startsWith(path)));
+    ModuleDefFileResolver.MODULE_DEF_FILE_CACHE.keySet().removeIf(key -> key.startsWith(path));
+    ModuleDefFileResolver.PRODUCT_DEF_FILE_CACHE.keySet().removeIf(key -> key.startsWith(path));
+  }
+
+  /**
+   * Get owning `module.def` from a given path.
+   *
+   * @param startPath Path to start at.
+   * @return Path to `module.def` file if found, null otherwise.
+   */
+  @CheckForNull
+  public static Path getModuleDefFileForPath(final Path startPath) {
+    return ModuleDefFileResolver.resolve(
+        startPath, ModuleDefFileScanner.SW_MODULE_DEF, ModuleDefFileResolver.MODULE_DEF_CACHE);
+  }
+
+  /**
+   * Get owning `product.def` from a given path.
+   *
+   * @param startPath Path to start at.
+   * @return Path to `product.def` file if found, null otherwise.
+   */
+  @CheckForNull
+  public static Path getProductDefFileForPath(final Path startPath) {
+    return ModuleDefFileResolver.resolve(
+        startPath, ModuleDefFileScanner.SW_PRODUCT_DEF, ModuleDefFileResolver.PRODUCT_DEF_CACHE);
+  }
+
+  /**
+   * Get the {@link ModuleDefinition} defined by the given `module.def` file, without its product.
+   *
+   * <p>The file is only parsed again when its last modified time changes.
+   *
+   * @param moduleDefPath Path to `module.def` file.
+   * @return {@link ModuleDefinition}, or null if the file does not exist (anymore).
+   * @throws IOException -
+   */
+  @CheckForNull
+  public static ModuleDefinition getModuleDefinition(final Path moduleDefPath) throws IOException {
+    final ModuleDefFile moduleDefFile =
+        ModuleDefFileResolver.getDefFile(
+            moduleDefPath,
+            ModuleDefFileResolver.MODULE_DEF_FILE_CACHE,
+            path -> new ModuleDefFile(path, null, null));
+    return moduleDefFile != null ? moduleDefFile.getModuleDefinition() : null;
+  }
+
+  /**
+   * Get the {@link ModuleDefFile} for the given `module.def` file.
+   *
+   * <p>The file is only read and parsed again when its last modified time changes. The returned
+   * file is bound to the given {@link IDefinitionKeeper} and parent {@link ProductDefFile}.
+   *
+   * @param moduleDefPath Path to `module.def` file.
+   * @param definitionKeeper {@link IDefinitionKeeper} for the file.
+   * @param parentProductDefFile Parent {@link ProductDefFile}.
+   * @return {@link ModuleDefFile}, or null if the file does not exist (anymore).
+   * @throws IOException -
+   */
+  @CheckForNull
+  public static ModuleDefFile getModuleDefFile(
+      final Path moduleDefPath,
+      final @Nullable IDefinitionKeeper definitionKeeper,
+      final @Nullable ProductDefFile parentProductDefFile)
+      throws IOException {
+    final ModuleDefFile moduleDefFile =
+        ModuleDefFileResolver.getDefFile(
+            moduleDefPath,
+            ModuleDefFileResolver.MODULE_DEF_FILE_CACHE,
+            path -> new ModuleDefFile(path, null, null));
+    return moduleDefFile != null
+        ? new ModuleDefFile(moduleDefFile, definitionKeeper, parentProductDefFile)
+        : null;
+  }
+
+  /**
+   * Get the {@link ProductDefFile} for the given `product.def` file.
+   *
+   * <p>The file is only read and parsed again when its last modified time changes. The returned
+   * file is bound to the given {@link IDefinitionKeeper} and parent {@link ProductDefFile}.
+   *
+   * @param productDefPath Path to `product.def` file.
+   * @param definitionKeeper {@link IDefinitionKeeper} for the file.
+   * @param parentProductDefFile Parent {@link ProductDefFile}.
+   * @return {@link ProductDefFile}, or null if the file does not exist (anymore).
+   * @throws IOException -
+   */
+  @CheckForNull
+  public static ProductDefFile getProductDefFile(
+      final Path productDefPath,
+      final @Nullable IDefinitionKeeper definitionKeeper,
+      final @Nullable ProductDefFile parentProductDefFile)
+      throws IOException {
+    final ProductDefFile productDefFile =
+        ModuleDefFileResolver.getDefFile(
+            productDefPath,
+            ModuleDefFileResolver.PRODUCT_DEF_FILE_CACHE,
+            path -> new ProductDefFile(path, null, null));
+    return productDefFile != null
+        ? new ProductDefFile(productDefFile, definitionKeeper, parentProductDefFile)
+        : null;
+  }
+
+  @CheckForNull
+  private static <T> T getDefFile(
+      final Path defPath, final Map<Path, ReadDefFile<T>> cache, final DefFileReader<T> reader)
+      throws IOException {
+    final FileTime lastModifiedTime;
+    try {
+      lastModifiedTime = Files.getLastModifiedTime(defPath);
+    } catch (final NoSuchFileException exception) {
+      ModuleDefFileResolver.invalidate(defPath);
+      return null;
+    }
+
+    final ReadDefFile<T> cached = cache.get(defPath);
+    if (cached != null && cached.lastModifiedTime().equals(lastModifiedTime)) {
+      return cached.defFile();
+    }
+
+    final T defFile = reader.read(defPath);
+    cache.put(defPath, new ReadDefFile<>(lastModifiedTime, defFile));
+    return defFile;
+  }
+
+  @CheckForNull
+  private static Path resolve(
+      final Path startPath, final String defFileName, final Map<Path, Path> cache) {
+    final List<Path> searchedPaths = new ArrayList<>();
+    Path defPath = DOES_NOT_EXIST;
+    Path path = startPath;
+    while (path != null) {
+      final Path cachedDefPath = cache.get(path);
+      if (cachedDefPath != null) {
+        if (cachedDefPath == DOES_NOT_EXIST || Files.exists(cachedDefPath)) {
+          defPath = cachedDefPath;
+          break;
+        }
+
+        // Resolved file is removed, search again from here.
+        ModuleDefFileResolver.invalidate(cachedDefPath);
+      }
+
+      searchedPaths.add(path);
+      final Path candidatePath = path.resolve(defFileName);
+      if (Files.exists(candidatePath)) {
+        defPath = candidatePath;
+        break;
+      }
+
+      path = path.getParent();
+    }
+
+    final Path resolvedPath = defPath;
+    searchedPaths.forEach(searchedPath -> cache.put(searchedPath, resolvedPath));
+    return resolvedPath != DOES_NOT_EXIST ? resolvedPath : null;
+  }
+}
@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.moduledef.api.SwModuleDefinitionGrammar;
-import nl.ramsolutions.sw.moduledef.parser.SwModuleDefParser;
 import nl.ramsolutions.sw.productdef.ProductDefinition;
 
 public class ModuleDefinitionParser {
@@ -19,10 +18,8 @@ public class ModuleDefinitionParser {
 
   public ModuleDefinition parseDefinition(
       final ModuleDefFile moduleDefFile, final @Nullable ProductDefinition productDefinition) {
-    final SwModuleDefParser parser = new SwModuleDefParser();
-    final String source = moduleDefFile.getSource();
     final URI uri = moduleDefFile.getUri();
-    final AstNode node = parser.parse(source, uri);
+    final AstNode node = moduleDefFile.getTopNode();
 
     final String moduleName;
     final String baseVersion;
@@ -4,12 +4,10 @@ import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.impl.Parser;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import nl.ramsolutions.sw.AstNodeHelper;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.moduledef.api.SwModuleDefinitionGrammar;
 import org.sonar.sslr.parser.LexerlessGrammar;
 import org.sonar.sslr.parser.ParserAdapter;
@@ -33,8 +31,7 @@ public class SwModuleDefParser {
    * @throws IOException -
    */
   public AstNode parse(final Path path) throws IOException {
-    final Charset charset = FileCharsetDeterminer.determineCharset(path);
-    final String source = Files.readString(path, charset);
+    final String source = SourceFileLoader.readString(path);
     final URI uri = path.toUri();
     return this.parse(source, uri);
   }
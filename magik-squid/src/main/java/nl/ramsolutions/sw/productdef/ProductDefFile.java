@@ -8,8 +8,8 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.OpenedFile;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
@@ -24,7 +24,9 @@ public class ProductDefFile extends OpenedFile {
   private final @Nullable Instant timestamp;
   private final IDefinitionKeeper definitionKeeper;
   private final @Nullable ProductDefFile parentProductDefFile;
+  private final @Nullable ProductDefFile parsedDefFile;
   private AstNode astNode;
+  private ProductDefinition productDefinition;
 
   /**
    * Constructor.
@@ -42,6 +44,7 @@ public class ProductDefFile extends OpenedFile {
     this.timestamp = null;
     this.definitionKeeper = definitionKeeper;
     this.parentProductDefFile = parentProductDefFile;
+    this.parsedDefFile = null;
   }
 
   /**
@@ -56,10 +59,29 @@ public class ProductDefFile extends OpenedFile {
       final IDefinitionKeeper definitionKeeper,
       final @Nullable ProductDefFile parentProductDefFile)
       throws IOException {
-    super(path.toUri(), Files.readString(path, FileCharsetDeterminer.determineCharset(path)));
+    super(path.toUri(), SourceFileLoader.readString(path));
     this.timestamp = Files.getLastModifiedTime(path).toInstant();
     this.definitionKeeper = definitionKeeper;
     this.parentProductDefFile = parentProductDefFile;
+    this.parsedDefFile = null;
+  }
+
+  /**
+   * Constructor, sharing the source and parse tree of another {@link ProductDefFile}.
+   *
+   * @param productDefFile {@link ProductDefFile} to share the source and parse tree of.
+   * @param definitionKeeper DefinitionKeeper.
+   * @param parentProductDefFile Parent {@link ProductDefFile}.
+   */
+  public ProductDefFile(
+      final ProductDefFile productDefFile,
+      final IDefinitionKeeper definitionKeeper,
+      final @Nullable ProductDefFile parentProductDefFile) {
+    super(productDefFile.getUri(), productDefFile.getSource());
+    this.timestamp = productDefFile.getTimestamp();
+    this.definitionKeeper = definitionKeeper;
+    this.parentProductDefFile = parentProductDefFile;
+    this.parsedDefFile = productDefFile;
   }
 
   /**
@@ -80,17 +102,24 @@ public class ProductDefFile extends OpenedFile {
   /**
    * Get the product definition defined in this file.
    *
-   * <p>Note that this does not include the parent product!
+   * <p>Note that this does not include the parent product! The definition is parsed once and
+   * cached.
    *
    * @return {@link ProductDefinition} defined in this file.
    * @throws IOException -
    */
   @CheckForNull
-  public ProductDefinition getProductDefinition() {
-    final ProductDefinitionParser parser = new ProductDefinitionParser();
-    final ProductDefinition parentProductDefinition =
-        this.parentProductDefFile != null ? this.parentProductDefFile.getProductDefinition() : null;
-    return parser.parseDefinition(this, parentProductDefinition);
+  public synchronized ProductDefinition getProductDefinition() {
+    if (this.productDefinition == null) {
+      final ProductDefinitionParser parser = new ProductDefinitionParser();
+      final ProductDefinition parentProductDefinition =
+          this.parentProductDefFile != null
+              ? this.parentProductDefFile.getProductDefinition()
+              : null;
+      this.productDefinition = parser.parseDefinition(this, parentProductDefinition);
+    }
+
+    return this.productDefinition;
   }
 
   /**
@@ -99,7 +128,9 @@ public class ProductDefFile extends OpenedFile {
    * @return Top level {@link AstNode}.
    */
   public synchronized AstNode getTopNode() {
-    if (this.astNode == null) {
+    if (this.astNode == null && this.parsedDefFile != null) {
+      this.astNode = this.parsedDefFile.getTopNode();
+    } else if (this.astNode == null) {
       final SwProductDefParser parser = new SwProductDefParser();
       final String source = this.getSource();
       final URI uri = this.getUri();
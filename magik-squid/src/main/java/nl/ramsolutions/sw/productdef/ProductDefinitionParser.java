@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.productdef.api.SwProductDefinitionGrammar;
-import nl.ramsolutions.sw.productdef.parser.SwProductDefParser;
 
 /** {@link ProductDefinition} parser. */
 public class ProductDefinitionParser {
@@ -18,10 +17,8 @@ public class ProductDefinitionParser {
 
   public ProductDefinition parseDefinition(
       final ProductDefFile productDefFile, final @Nullable ProductDefinition parentProduct) {
-    final SwProductDefParser parser = new SwProductDefParser();
-    final String source = productDefFile.getSource();
     final URI uri = productDefFile.getUri();
-    final AstNode node = parser.parse(source, uri);
+    final AstNode node = productDefFile.getTopNode();
 
     final AstNode productIdentNode =
         node.getFirstChild(SwProductDefinitionGrammar.PRODUCT_IDENTIFICATION);
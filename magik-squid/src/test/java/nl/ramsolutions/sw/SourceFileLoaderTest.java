@@ -0,0 +1,58 @@
+package nl.ramsolutions.sw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test {@link SourceFileLoader}. */
+class SourceFileLoaderTest {
+
+  @TempDir private Path tempDir;
+
+  @Test
+  void testReadUtf8() throws IOException {
+    final String source = "#% text_encoding = utf8\n_global a << \"é€\"\n";
+    final Path path = this.tempDir.resolve("utf8.magik");
+    Files.writeString(path, source, StandardCharsets.UTF_8);
+
+    assertThat(SourceFileLoader.readString(path)).isEqualTo(source);
+  }
+
+  @Test
+  void testReadDefaultIso88591() throws IOException {
+    final String source = "_global a << \"é\"\r\n";
+    final Path path = this.tempDir.resolve("iso8859_1.magik");
+    Files.writeString(path, source, StandardCharsets.ISO_8859_1);
+
+    assertThat(SourceFileLoader.readString(path)).isEqualTo(source);
+  }
+
+  @Test
+  void testReadUnknownEncoding() throws IOException {
+    final String source = "#% text_encoding = does_not_exist\r\n_global a << 1\n";
+    final Path path = this.tempDir.resolve("unknown.magik");
+    Files.writeString(path, source, StandardCharsets.ISO_8859_1);
+
+    assertThat(SourceFileLoader.readString(path)).isEqualTo(source);
+  }
+
+  @Test
+  void testReadMalformed() throws IOException {
+    final Path path = this.tempDir.resolve("malformed.magik");
+    final byte[] header = "#% text_encoding = utf8\n".getBytes(StandardCharsets.US_ASCII);
+    final byte[] bytes = Arrays.copyOf(header, header.length + 1);
+    bytes[header.length] = (byte) 0xff;
+    Files.write(path, bytes);
+
+    assertThatThrownBy(() -> SourceFileLoader.readString(path))
+        .isInstanceOf(CharacterCodingException.class);
+  }
+}
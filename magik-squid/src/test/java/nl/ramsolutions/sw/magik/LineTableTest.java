@@ -0,0 +1,46 @@
+package nl.ramsolutions.sw.magik;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests for LineTable. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class LineTableTest {
+
+  @Test
+  void testLines() {
+    final LineTable lineTable = new LineTable("ab\r\ncd\nef\rgh\n");
+    assertThat(lineTable.getLineCount()).isEqualTo(5);
+    assertThat(lineTable.getLine(1)).hasToString("ab");
+    assertThat(lineTable.getLine(2)).hasToString("cd");
+    assertThat(lineTable.getLine(3)).hasToString("ef");
+    assertThat(lineTable.getLine(4)).hasToString("gh");
+    assertThat(lineTable.getLine(5)).isEmpty();
+    assertThatThrownBy(() -> lineTable.getLine(6)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  void testEmpty() {
+    final LineTable lineTable = new LineTable("");
+    assertThat(lineTable.getLineCount()).isEqualTo(1);
+    assertThat(lineTable.getLine(1)).isEmpty();
+  }
+
+  @Test
+  void testOffsets() {
+    final LineTable lineTable = new LineTable("ab\r\ncd\nef");
+    assertThat(lineTable.getOffset(new Position(1, 1))).isEqualTo(1);
+    assertThat(lineTable.getOffset(new Position(2, 0))).isEqualTo(4);
+    assertThat(lineTable.getOffset(new Position(2, 10))).isEqualTo(6);
+    assertThat(lineTable.getOffset(new Position(3, 2))).isEqualTo(9);
+  }
+
+  @Test
+  void testSourceLines() {
+    final MagikFile magikFile = new MagikFile(MagikFile.DEFAULT_URI, "a\r\n\nb\n\n");
+    assertThat(magikFile.getSourceLines()).containsExactly("a", "", "b");
+    assertThat(magikFile.getLineTable()).isSameAs(magikFile.getLineTable());
+  }
+}
@@ -0,0 +1,133 @@
+package nl.ramsolutions.sw.magik;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sonar.sslr.api.AstNode;
+import nl.ramsolutions.sw.magik.analysis.AstQuery;
+import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
+import nl.ramsolutions.sw.magik.analysis.scope.Scope;
+import nl.ramsolutions.sw.magik.analysis.scope.ScopeBuilderVisitor;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+import nl.ramsolutions.sw.magik.parser.MagikParser;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link PositionIndex}. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class PositionIndexTest {
+
+  private static final String CODE =
+      """
+      _package sw
+      $
+
+      _method a.b(p1, _optional p2)
+      \t## Doc.
+      \t_local x << p1.c + 10
+      \t_for i _over p2.fast_elements()
+      \t_loop
+      \t\t_block
+      \t\t\tx +<< i
+      \t\t_endblock
+      \t_endloop
+      \t_local s << "multi
+      line"
+      \t_return _proc(y) >> x + y _endproc
+      _endmethod
+      $
+
+      x.y(1, 2)
+      $
+      """;
+
+  @Test
+  void testIndexRegisteredForTopNode() {
+    final MagikFile magikFile = new MagikFile(MagikFile.DEFAULT_URI, CODE);
+    final AstNode topNode = magikFile.getTopNode();
+
+    assertThat(PositionIndex.forTopNode(topNode)).isSameAs(magikFile.getPositionIndex());
+    assertThat(PositionIndex.forTopNode(topNode.getFirstChild())).isNull();
+  }
+
+  @Test
+  void testNodeLookupsSameAsTreeWalk() {
+    final MagikFile magikFile = new MagikFile(MagikFile.DEFAULT_URI, CODE);
+    final AstNode indexedNode = magikFile.getTopNode();
+    final AstNode walkedNode = new MagikParser().parseSafe(CODE);
+    assertThat(PositionIndex.forTopNode(walkedNode)).isNull();
+
+    for (int line = 0; line <= 21; ++line) {
+      for (int column = 0; column <= 40; ++column) {
+        final Position position = new Position(line, column);
+        assertThat(this.describe(AstQuery.nodeAt(indexedNode, position)))
+            .as("nodeAt %s", position)
+            .isEqualTo(this.describe(AstQuery.nodeAt(walkedNode, position)));
+        assertThat(this.describe(AstQuery.nodeBefore(indexedNode, position)))
+            .as("nodeBefore %s", position)
+            .isEqualTo(this.describe(AstQuery.nodeBefore(walkedNode, position)));
+        assertThat(this.describe(AstQuery.nodeAfter(indexedNode, position)))
+            .as("nodeAfter %s", position)
+            .isEqualTo(this.describe(AstQuery.nodeAfter(walkedNode, position)));
+        assertThat(this.describe(AstQuery.nodeSurrounding(indexedNode, position)))
+            .as("nodeSurrounding %s", position)
+            .isEqualTo(this.describe(AstQuery.nodeSurrounding(walkedNode, position)));
+        assertThat(
+                this.describe(
+                    AstQuery.nodeSurrounding(
+                        indexedNode, position, MagikGrammar.EXPRESSION, MagikGrammar.BODY)))
+            .as("nodeSurrounding typed %s", position)
+            .isEqualTo(
+                this.describe(
+                    AstQuery.nodeSurrounding(
+                        walkedNode, position, MagikGrammar.EXPRESSION, MagikGrammar.BODY)));
+      }
+    }
+  }
+
+  @Test
+  void testScopeLookupSameAsTreeWalk() {
+    final MagikFile magikFile = new MagikFile(MagikFile.DEFAULT_URI, CODE);
+    final GlobalScope indexedScope = magikFile.getGlobalScope();
+    final ScopeBuilderVisitor scopeBuilderVisitor = new ScopeBuilderVisitor();
+    scopeBuilderVisitor.walkAst(new MagikParser().parseSafe(CODE));
+    final GlobalScope walkedScope = scopeBuilderVisitor.getGlobalScope();
+
+    for (int line = 0; line <= 21; ++line) {
+      for (int column = 0; column <= 40; ++column) {
+        final Scope indexed = indexedScope.getScopeForLineColumn(line, column);
+        final Scope walked = walkedScope.getScopeForLineColumn(line, column);
+        assertThat(this.describe(indexed))
+            .as("scope %s:%s", line, column)
+            .isEqualTo(this.describe(walked));
+      }
+    }
+    assertThat(indexedScope.getScopeForLineColumn(10, 4).getStartLine()).isEqualTo(9);
+  }
+
+  private String describe(final AstNode node) {
+    if (node == null) {
+      return null;
+    }
+    return node.getType()
+        + "@"
+        + node.getTokenLine()
+        + ":"
+        + node.getToken().getColumn()
+        + "-"
+        + node.getLastToken().getLine()
+        + ":"
+        + node.getLastToken().getColumn();
+  }
+
+  private String describe(final Scope scope) {
+    if (scope == null) {
+      return null;
+    }
+    return scope.getStartLine()
+        + ":"
+        + scope.getStartColumn()
+        + "-"
+        + scope.getEndLine()
+        + ":"
+        + scope.getEndColumn();
+  }
+}
@@ -0,0 +1,151 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+/** Test DefinitionKeeper. */
+class DefinitionKeeperTest {
+
+  private static ConditionDefinition condition(final String name) {
+    return new ConditionDefinition(
+        null, null, null, null, null, name, null, Collections.emptyList());
+  }
+
+  @Test
+  void testSnapshotIsNotAffectedByLaterWrites() {
+    final DefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    definitionKeeper.add(DefinitionKeeperTest.condition("condition1"));
+
+    final IDefinitionKeeper snapshot = definitionKeeper.getSnapshot();
+    definitionKeeper.add(DefinitionKeeperTest.condition("condition2"));
+    definitionKeeper.clear();
+
+    assertThat(snapshot.getConditionDefinitions("condition1")).hasSize(1);
+    assertThat(snapshot.getConditionDefinitions("condition2")).isEmpty();
+    assertThat(definitionKeeper.getConditionDefinitions("condition1")).isEmpty();
+  }
+
+  @Test
+  void testBatchIsPublishedAtOnce() throws Exception {
+    final DefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    definitionKeeper.add(DefinitionKeeperTest.condition("condition1"));
+
+    definitionKeeper.batch(
+        batchDefinitionKeeper -> {
+          batchDefinitionKeeper.clear();
+          batchDefinitionKeeper.add(DefinitionKeeperTest.condition("condition2"));
+
+          // The writing thread sees its own writes.
+          assertThat(definitionKeeper.getConditionDefinitions("condition2")).hasSize(1);
+
+          // Other threads still see the published generation.
+          final Collection<ConditionDefinition> otherThreadDefinitions =
+              CompletableFuture.supplyAsync(
+                      () -> definitionKeeper.getConditionDefinitions("condition1"))
+                  .get();
+          assertThat(otherThreadDefinitions).hasSize(1);
+        });
+
+    assertThat(definitionKeeper.getConditionDefinitions("condition1")).isEmpty();
+    assertThat(definitionKeeper.getConditionDefinitions("condition2")).hasSize(1);
+  }
+
+  @Test
+  void testFailedBatchIsDiscarded() {
+    final DefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    final long generation = definitionKeeper.getGeneration();
+
+    assertThatThrownBy(
+            () ->
+                definitionKeeper.batch(
+                    batchDefinitionKeeper -> {
+                      batchDefinitionKeeper.add(DefinitionKeeperTest.condition("condition1"));
+                      throw new IllegalStateException("failed");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(definitionKeeper.getGeneration()).isEqualTo(generation);
+    assertThat(definitionKeeper.getConditionDefinitions("condition1")).isEmpty();
+  }
+
+  @Test
+  void testClearDoesNotAffectPublishedInterner() {
+    final DefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    final DefinitionInterner publishedInterner = definitionKeeper.getInterner();
+    publishedInterner.internModuleName("module1");
+    final String before = publishedInterner.toString();
+
+    assertThatThrownBy(
+            () ->
+                definitionKeeper.batch(
+                    batchDefinitionKeeper -> {
+                      batchDefinitionKeeper.clear();
+                      assertThat(batchDefinitionKeeper.getInterner())
+                          .isNotSameAs(publishedInterner);
+                      throw new IllegalStateException("failed");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(definitionKeeper.getInterner()).isSameAs(publishedInterner);
+    assertThat(publishedInterner).hasToString(before);
+
+    definitionKeeper.clear();
+    assertThat(definitionKeeper.getInterner()).isNotSameAs(publishedInterner);
+    assertThat(publishedInterner).hasToString(before);
+  }
+
+  @Test
+  void testConcurrentBatchesAreSerialized() throws Exception {
+    final DefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    final long generation = definitionKeeper.getGeneration();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch proceed = new CountDownLatch(1);
+
+    final CompletableFuture<Void> firstBatch =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                definitionKeeper.batch(
+                    batchDefinitionKeeper -> {
+                      batchDefinitionKeeper.add(DefinitionKeeperTest.condition("condition1"));
+                      started.countDown();
+                      proceed.await();
+                    });
+              } catch (final InterruptedException exception) {
+                throw new CompletionException(exception);
+              }
+            });
+    started.await();
+
+    // Readers are not blocked, and do not see the running batch.
+    assertThat(definitionKeeper.getConditionDefinitions("condition1")).isEmpty();
+
+    // A second batch waits for the first, and then sees its writes.
+    final CompletableFuture<Integer> secondBatch =
+        CompletableFuture.supplyAsync(
+            () -> {
+              final int[] seen = new int[1];
+              definitionKeeper.batch(
+                  batchDefinitionKeeper -> {
+                    seen[0] = batchDefinitionKeeper.getConditionDefinitions("condition1").size();
+                    batchDefinitionKeeper.add(DefinitionKeeperTest.condition("condition2"));
+                  });
+              return seen[0];
+            });
+    assertThat(secondBatch).isNotDone();
+    proceed.countDown();
+
+    firstBatch.get();
+    assertThat(secondBatch.get()).isEqualTo(1);
+    assertThat(definitionKeeper.getGeneration()).isEqualTo(generation + 2);
+    assertThat(definitionKeeper.getConditionDefinitions("condition1")).hasSize(1);
+    assertThat(definitionKeeper.getConditionDefinitions("condition2")).hasSize(1);
+  }
+}
@@ -3,10 +3,13 @@ package nl.ramsolutions.sw.magik.analysis.definitions;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.sonar.sslr.api.AstNode;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import nl.ramsolutions.sw.MagikToolsProperties;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.Position;
@@ -1003,4 +1006,73 @@ class DefinitionReaderTest {
                     "information",
                     List.of("data1", "data2"))));
   }
+
+  @Test
+  void testReadNodelessDefinitionsSameAsWholeFile() throws IOException {
+    for (final String fileName :
+        List.of("test_magik_indexer.magik", "test_magik_indexer_with_type_doc.magik")) {
+      final Path path = Path.of("src/test/resources").resolve(fileName);
+      final MagikFile magikFile = new MagikFile(MagikToolsProperties.DEFAULT_PROPERTIES, path);
+      this.assertNodelessDefinitionsSameAsWholeFile(magikFile);
+    }
+
+    final String code =
+        """
+        _package sw
+        $
+
+        def_slotted_exemplar(:a, {{:s, _unset}})
+        $
+        a.define_slot_access(:s, :write)
+        $
+
+        _method a.s
+          _return "
+        $
+        "
+        _endmethod
+        $
+
+        _package user
+        $
+
+        _global g << _proc@p() _endproc
+        $
+        """;
+    this.assertNodelessDefinitionsSameAsWholeFile(this.createMagikFile(code));
+  }
+
+  @Test
+  void testReadNodelessDefinitionsSyntaxError() {
+    final String code =
+        """
+        _method a.b
+          _if _endif
+        _endmethod
+        $
+
+        _method a.c
+        _endmethod
+        $
+        """;
+    this.assertNodelessDefinitionsSameAsWholeFile(this.createMagikFile(code));
+  }
+
+  private void assertNodelessDefinitionsSameAsWholeFile(final MagikFile magikFile) {
+    final List<MagikDefinition> expected =
+        magikFile.getMagikDefinitions().stream().map(MagikDefinition::getWithoutNode).toList();
+    final List<MagikDefinition> definitions =
+        MagikDefinitionReader.readNodelessDefinitions(magikFile);
+    assertThat(definitions).isEqualTo(expected);
+    assertThat(definitions).allMatch(definition -> definition.getNode() == null);
+    for (int i = 0; i < expected.size(); ++i) {
+      if (expected.get(i) instanceof MethodDefinition methodDefinition) {
+        final MethodDefinition readMethodDefinition = (MethodDefinition) definitions.get(i);
+        assertThat(readMethodDefinition.getUsedMethods())
+            .isEqualTo(methodDefinition.getUsedMethods());
+        assertThat(readMethodDefinition.getUsedGlobals())
+            .isEqualTo(methodDefinition.getUsedGlobals());
+      }
+    }
+  }
 }
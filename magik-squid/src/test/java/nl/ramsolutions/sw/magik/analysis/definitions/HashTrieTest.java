@@ -0,0 +1,105 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Test HashTrie. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class HashTrieTest {
+
+  /** Key with a controlled hash code, to force collisions. */
+  private record Key(int hash, String name) {
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  private static void assertSameContents(
+      final HashTrie<Key, Integer> trie, final Map<Key, Integer> map) {
+    assertThat(trie.size()).isEqualTo(map.size());
+    map.forEach((key, value) -> assertThat(trie.get(key)).isEqualTo(value));
+    assertThat(trie.values()).containsExactlyInAnyOrderElementsOf(map.values());
+  }
+
+  @Test
+  void testPutGetRemove() {
+    final HashTrie<Key, Integer> empty = HashTrie.empty();
+    final HashTrie<Key, Integer> trie = empty.put(new Key(1, "a"), 1).put(new Key(2, "b"), 2);
+
+    assertThat(empty.size()).isZero();
+    assertThat(empty.get(new Key(1, "a"))).isNull();
+    assertThat(trie.get(new Key(1, "a"))).isEqualTo(1);
+    assertThat(trie.get(new Key(3, "c"))).isNull();
+
+    final HashTrie<Key, Integer> removed = trie.remove(new Key(1, "a"));
+    assertThat(removed.get(new Key(1, "a"))).isNull();
+    assertThat(removed.size()).isEqualTo(1);
+    assertThat(trie.get(new Key(1, "a"))).isEqualTo(1);
+    assertThat(removed.remove(new Key(3, "c"))).isSameAs(removed);
+  }
+
+  @Test
+  void testPutSameValue() {
+    final Integer value = 1;
+    final HashTrie<Key, Integer> trie = HashTrie.<Key, Integer>empty().put(new Key(1, "a"), value);
+    assertThat(trie.put(new Key(1, "a"), value)).isSameAs(trie);
+  }
+
+  @Test
+  void testCollisions() {
+    final Map<Key, Integer> map = new HashMap<>();
+    HashTrie<Key, Integer> trie = HashTrie.empty();
+    for (int i = 0; i < 10; i++) {
+      final Key key = new Key(42, "key" + i);
+      map.put(key, i);
+      trie = trie.put(key, i);
+    }
+    // Same low bits, different high bits.
+    final Key other = new Key(42 | 1 << 30, "other");
+    map.put(other, 100);
+    trie = trie.put(other, 100);
+    assertSameContents(trie, map);
+
+    for (int i = 0; i < 10; i++) {
+      final Key key = new Key(42, "key" + i);
+      map.remove(key);
+      trie = trie.remove(key);
+      assertSameContents(trie, map);
+    }
+  }
+
+  @Test
+  void testAgainstHashMap() {
+    final Random random = new Random(1234);
+    final Map<Key, Integer> map = new HashMap<>();
+    HashTrie<Key, Integer> trie = HashTrie.empty();
+    for (int i = 0; i < 20_000; i++) {
+      // Narrow hash range, for plenty of deep paths and collisions.
+      final int hash = random.nextInt(4096) * (random.nextBoolean() ? 1 : -1);
+      final Key key = new Key(hash, "key" + random.nextInt(8));
+      if (random.nextInt(3) == 0) {
+        map.remove(key);
+        trie = trie.remove(key);
+      } else {
+        map.put(key, i);
+        trie = trie.put(key, i);
+      }
+    }
+    assertSameContents(trie, map);
+
+    // Older versions are not affected by changes to newer ones.
+    final HashTrie<Key, Integer> snapshot = trie;
+    final Map<Key, Integer> snapshotMap = new HashMap<>(map);
+    for (final Key key : snapshotMap.keySet()) {
+      trie = trie.remove(key);
+    }
+    assertThat(trie.size()).isZero();
+    assertSameContents(snapshot, snapshotMap);
+  }
+}
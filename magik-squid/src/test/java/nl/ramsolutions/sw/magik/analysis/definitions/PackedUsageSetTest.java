@@ -0,0 +1,97 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import org.junit.jupiter.api.Test;
+
+/** Test PackedUsageSet. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class PackedUsageSetTest {
+
+  private static final URI URI_A = URI.create("file:///a.magik");
+
+  @Test
+  void testMethodUsagesRoundTrip() {
+    final PackedUsageSet.Tables tables = new DefinitionInterner().getUsageTables();
+    final Location location =
+        new Location(URI_A, new Range(new Position(3, 4), new Position(3, 12)));
+    final Set<MethodUsage> usages =
+        Set.of(
+            new MethodUsage(TypeString.ofIdentifier("rope", "sw"), "new()", location),
+            new MethodUsage(TypeString.UNDEFINED, "size", null));
+
+    final Set<MethodUsage> packed = PackedUsageSet.ofMethodUsages(tables, usages);
+    assertThat(packed).isEqualTo(usages);
+
+    final MethodUsage newUsage =
+        packed.stream().filter(usage -> usage.getMethodName().equals("new()")).findAny().get();
+    assertThat(newUsage.getLocation()).isEqualTo(location);
+    final MethodUsage sizeUsage =
+        packed.stream().filter(usage -> usage.getMethodName().equals("size")).findAny().get();
+    assertThat(sizeUsage.getLocation()).isNull();
+  }
+
+  @Test
+  void testLocationWithoutRange() {
+    final PackedUsageSet.Tables tables = new DefinitionInterner().getUsageTables();
+    final Set<SlotUsage> usages = Set.of(new SlotUsage("slot1", new Location(URI_A)));
+
+    final Set<SlotUsage> packed = PackedUsageSet.ofSlotUsages(tables, usages);
+    final SlotUsage usage = packed.iterator().next();
+    assertThat(usage.getSlotName()).isEqualTo("slot1");
+    assertThat(usage.getLocation()).isEqualTo(new Location(URI_A));
+  }
+
+  @Test
+  void testEmptyAndRepacked() {
+    final PackedUsageSet.Tables tables = new DefinitionInterner().getUsageTables();
+    assertThat(PackedUsageSet.ofConditionUsages(tables, Set.of())).isEmpty();
+
+    final Set<GlobalUsage> packed =
+        PackedUsageSet.ofGlobalUsages(tables, Set.of(new GlobalUsage(TypeString.SW_OBJECT, null)));
+    assertThat(PackedUsageSet.ofGlobalUsages(tables, packed)).isSameAs(packed);
+    assertThat(List.copyOf(packed)).containsExactly(new GlobalUsage(TypeString.SW_OBJECT, null));
+
+    final PackedUsageSet.Tables otherTables = new DefinitionInterner().getUsageTables();
+    final Set<GlobalUsage> repacked = PackedUsageSet.ofGlobalUsages(otherTables, packed);
+    assertThat(repacked).isNotSameAs(packed).isEqualTo(packed);
+  }
+
+  @Test
+  void testContainsEqualsHashCode() {
+    final PackedUsageSet.Tables tables = new DefinitionInterner().getUsageTables();
+    final Set<MethodUsage> usages = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      usages.add(new MethodUsage(TypeString.ofIdentifier("type" + i % 7, "sw"), "m" + i, null));
+    }
+
+    final Set<MethodUsage> packed = PackedUsageSet.ofMethodUsages(tables, usages);
+    assertThat(packed).hasSameHashCodeAs(usages);
+    assertThat(packed.equals(usages)).isTrue();
+    assertThat(usages.equals(packed)).isTrue();
+    assertThat(PackedUsageSet.ofMethodUsages(tables, new HashSet<>(usages))).isEqualTo(packed);
+
+    // Locations are not tested.
+    final Location location = new Location(URI_A);
+    assertThat(packed)
+        .contains(new MethodUsage(TypeString.ofIdentifier("type3", "sw"), "m3", location));
+    assertThat(packed)
+        .doesNotContain(
+            new MethodUsage(TypeString.ofIdentifier("type4", "sw"), "m3", null),
+            new MethodUsage(TypeString.ofIdentifier("type3", "sw"), "unknown", null));
+    assertThat(packed.contains(new SlotUsage("m3", null))).isFalse();
+
+    final Set<MethodUsage> fewer = new HashSet<>(usages);
+    fewer.remove(new MethodUsage(TypeString.ofIdentifier("type0", "sw"), "m0", null));
+    fewer.add(new MethodUsage(TypeString.ofIdentifier("type0", "sw"), "other", null));
+    assertThat(PackedUsageSet.ofMethodUsages(tables, fewer)).isNotEqualTo(packed);
+  }
+}
@@ -0,0 +1,213 @@
+package nl.ramsolutions.sw.magik.analysis.definitions;
+
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.magik.MagikFile;
+
+/**
+ * Benchmark of the heap footprint of usages: {@link HashSet}s of usage objects, as kept before,
+ * against {@link PackedUsageSet}s.
+ *
+ * <p>All usages (globals, methods, slots and conditions) of the methods and procedures in the
+ * {@code .magik} files are read. Reports the retained heap, and the time and allocated bytes to
+ * build, all sets of all definitions in either layout. The intern tables of the packed layout are
+ * included in its retained size. The names and type strings of the usage objects are shared between
+ * the copies of the old layout, so its retained size is a lower bound. Run from the test classpath,
+ * optionally giving the number of copies and directories to search for {@code .magik} files: {@code
+ * UsageSetBenchmark 100 /path/to/product}.
+ */
+@SuppressWarnings({"checkstyle:MagicNumber", "checkstyle:HideUtilityClassConstructor"})
+public final class UsageSetBenchmark {
+
+  private static final Path DEFAULT_PATH = Path.of("src/test/resources");
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int ITERATIONS = 20;
+  private static final double NANOS_PER_MICRO = 1_000.0;
+  private static final double BYTES_PER_KIB = 1_024.0;
+
+  private UsageSetBenchmark() {}
+
+  /**
+   * Usages of a single definition.
+   *
+   * @param globals Used globals.
+   * @param methods Used methods.
+   * @param slots Used slots.
+   * @param conditions Used conditions.
+   */
+  private record Usages(
+      Set<GlobalUsage> globals,
+      Set<MethodUsage> methods,
+      Set<SlotUsage> slots,
+      Set<ConditionUsage> conditions) {
+
+    int size() {
+      return this.globals.size() + this.methods.size() + this.slots.size() + this.conditions.size();
+    }
+  }
+
+  /**
+   * Main entry point.
+   *
+   * @param args Number of copies, followed by directories.
+   * @throws IOException -
+   */
+  public static void main(final String[] args) throws IOException {
+    final int copies = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    final List<Path> paths =
+        args.length > 1 ? Stream.of(args).skip(1).map(Path::of).toList() : List.of(DEFAULT_PATH);
+
+    final List<Usages> usages = UsageSetBenchmark.readUsages(paths);
+
+    for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+      UsageSetBenchmark.measure(() -> UsageSetBenchmark.hashed(usages));
+      UsageSetBenchmark.measure(() -> UsageSetBenchmark.packed(usages));
+    }
+
+    final long[] hashed = new long[2];
+    final long[] packed = new long[2];
+    for (int i = 0; i < ITERATIONS; ++i) {
+      final long[] hashedBuild = UsageSetBenchmark.measure(() -> UsageSetBenchmark.hashed(usages));
+      hashed[0] += hashedBuild[0] / ITERATIONS;
+      hashed[1] += hashedBuild[1] / ITERATIONS;
+      final long[] packedBuild = UsageSetBenchmark.measure(() -> UsageSetBenchmark.packed(usages));
+      packed[0] += packedBuild[0] / ITERATIONS;
+      packed[1] += packedBuild[1] / ITERATIONS;
+    }
+
+    final long hashedRetained =
+        UsageSetBenchmark.retainedSize(copies, () -> UsageSetBenchmark.hashed(usages));
+    final long packedRetained =
+        UsageSetBenchmark.retainedSize(copies, () -> UsageSetBenchmark.packed(usages));
+
+    final PrintStream out = System.out; // NOSONAR
+    out.printf(
+        "definitions: %d, usages: %d, copies: %d%n",
+        usages.size(), usages.stream().mapToInt(Usages::size).sum(), copies);
+    out.printf("%16s %16s %16s %16s%n", "layout", "KiB retained", "KiB alloc", "us build");
+    out.printf(
+        "%16s %16.1f %16.1f %16.1f%n",
+        "HashSet",
+        hashedRetained / BYTES_PER_KIB,
+        hashed[1] / BYTES_PER_KIB,
+        hashed[0] / NANOS_PER_MICRO);
+    out.printf(
+        "%16s %16.1f %16.1f %16.1f%n",
+        "PackedUsageSet",
+        packedRetained / BYTES_PER_KIB,
+        packed[1] / BYTES_PER_KIB,
+        packed[0] / NANOS_PER_MICRO);
+  }
+
+  private static List<Usages> readUsages(final List<Path> paths) throws IOException {
+    final MagikToolsProperties properties = new MagikToolsProperties();
+    properties.setProperty("magik.typing.indexGlobalUsages", true);
+    properties.setProperty("magik.typing.indexMethodUsages", true);
+    properties.setProperty("magik.typing.indexSlotUsages", true);
+    properties.setProperty("magik.typing.indexConditionUsages", true);
+
+    // Pack once, so every iteration of the packed sets below yields fresh usage objects.
+    final PackedUsageSet.Tables tables = new PackedUsageSet.Tables(new InternTable<URI>());
+    final List<Usages> usages = new ArrayList<>();
+    for (final Path path : paths) {
+      try (Stream<Path> stream = Files.walk(path)) {
+        for (final Path filePath :
+            stream
+                .filter(p -> p.toString().endsWith(".magik") && Files.isRegularFile(p))
+                .toList()) {
+          final String code = Files.readString(filePath, StandardCharsets.ISO_8859_1);
+          final MagikFile magikFile = new MagikFile(properties, filePath.toUri(), code);
+          for (final MagikDefinition definition :
+              MagikDefinitionReader.readNodelessDefinitions(magikFile)) {
+            if (definition instanceof MethodDefinition methodDefinition) {
+              usages.add(
+                  new Usages(
+                      PackedUsageSet.ofGlobalUsages(tables, methodDefinition.getUsedGlobals()),
+                      PackedUsageSet.ofMethodUsages(tables, methodDefinition.getUsedMethods()),
+                      PackedUsageSet.ofSlotUsages(tables, methodDefinition.getUsedSlots()),
+                      PackedUsageSet.ofConditionUsages(
+                          tables, methodDefinition.getUsedConditions())));
+            } else if (definition instanceof ProcedureDefinition procedureDefinition) {
+              usages.add(
+                  new Usages(
+                      PackedUsageSet.ofGlobalUsages(tables, procedureDefinition.getUsedGlobals()),
+                      PackedUsageSet.ofMethodUsages(tables, procedureDefinition.getUsedMethods()),
+                      Set.of(),
+                      PackedUsageSet.ofConditionUsages(
+                          tables, procedureDefinition.getUsedConditions())));
+            }
+          }
+        }
+      }
+    }
+    return usages;
+  }
+
+  private static List<Usages> hashed(final Collection<Usages> usages) {
+    return usages.stream()
+        .map(
+            definitionUsages ->
+                new Usages(
+                    new HashSet<>(definitionUsages.globals()),
+                    new HashSet<>(definitionUsages.methods()),
+                    new HashSet<>(definitionUsages.slots()),
+                    new HashSet<>(definitionUsages.conditions())))
+        .toList();
+  }
+
+  private static List<Usages> packed(final Collection<Usages> usages) {
+    final PackedUsageSet.Tables tables = new PackedUsageSet.Tables(new InternTable<URI>());
+    return usages.stream()
+        .map(
+            definitionUsages ->
+                new Usages(
+                    PackedUsageSet.ofGlobalUsages(tables, definitionUsages.globals()),
+                    PackedUsageSet.ofMethodUsages(tables, definitionUsages.methods()),
+                    PackedUsageSet.ofSlotUsages(tables, definitionUsages.slots()),
+                    PackedUsageSet.ofConditionUsages(tables, definitionUsages.conditions())))
+        .toList();
+  }
+
+  private static long[] measure(final Supplier<List<Usages>> build) {
+    final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+    final long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+    final long start = System.nanoTime();
+    final List<Usages> built = build.get();
+    final long nanos = System.nanoTime() - start;
+    final long bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+    Reference.reachabilityFence(built);
+    return new long[] {nanos, bytes};
+  }
+
+  private static long retainedSize(final int copies, final Supplier<List<Usages>> build) {
+    // Keep a number of copies, the size of a single copy is too small to measure reliably.
+    final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    System.gc(); // NOSONAR
+    final long before = memoryBean.getHeapMemoryUsage().getUsed();
+    final List<List<Usages>> kept = new ArrayList<>();
+    for (int i = 0; i < copies; ++i) {
+      kept.add(build.get());
+    }
+    System.gc(); // NOSONAR
+    final long after = memoryBean.getHeapMemoryUsage().getUsed();
+    Reference.reachabilityFence(kept);
+    return Math.max(0, after - before) / copies;
+  }
+}
@@ -0,0 +1,154 @@
+package nl.ramsolutions.sw.magik.analysis.indexer;
+
+import com.sonar.sslr.api.AstNode;
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinition;
+import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinitionReader;
+import nl.ramsolutions.sw.magik.parser.MagikParser;
+import nl.ramsolutions.sw.magik.parser.MagikSourceChunker;
+
+/**
+ * Benchmark of reading definitions for indexing: parsing whole files against parsing chunk by
+ * chunk, see {@link MagikDefinitionReader#readNodelessDefinitions(MagikFile)}.
+ *
+ * <p>Reports the time and allocated bytes per file, and the retained size of the largest syntax
+ * tree kept at once: that of the whole file, or that of the largest chunk. Run from the test
+ * classpath, optionally giving the number of iterations and directories to search for {@code
+ * .magik} files: {@code MagikIndexerBenchmark 20 /path/to/product}.
+ */
+@SuppressWarnings({"checkstyle:MagicNumber", "checkstyle:HideUtilityClassConstructor"})
+public final class MagikIndexerBenchmark {
+
+  private static final Path DEFAULT_PATH = Path.of("src/test/resources");
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final double NANOS_PER_MICRO = 1_000.0;
+  private static final double BYTES_PER_KIB = 1_024.0;
+
+  private MagikIndexerBenchmark() {}
+
+  /**
+   * Main entry point.
+   *
+   * @param args Number of iterations, followed by directories.
+   * @throws IOException -
+   */
+  public static void main(final String[] args) throws IOException {
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    final List<Path> paths =
+        args.length > 1 ? Stream.of(args).skip(1).map(Path::of).toList() : List.of(DEFAULT_PATH);
+
+    final List<MagikFile> magikFiles = new ArrayList<>();
+    for (final Path path : paths) {
+      try (Stream<Path> stream = Files.walk(path)) {
+        for (final Path filePath :
+            stream
+                .filter(p -> p.toString().endsWith(".magik") && Files.isRegularFile(p))
+                .toList()) {
+          final String code = Files.readString(filePath, StandardCharsets.ISO_8859_1);
+          magikFiles.add(new MagikFile(filePath.toUri(), code));
+        }
+      }
+    }
+
+    for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+      MagikIndexerBenchmark.measure(magikFiles, MagikIndexerBenchmark::wholeFile);
+      MagikIndexerBenchmark.measure(magikFiles, MagikIndexerBenchmark::chunked);
+    }
+
+    long wholeNanos = 0;
+    long wholeBytes = 0;
+    long chunkedNanos = 0;
+    long chunkedBytes = 0;
+    for (int i = 0; i < iterations; ++i) {
+      final long[] whole =
+          MagikIndexerBenchmark.measure(magikFiles, MagikIndexerBenchmark::wholeFile);
+      wholeNanos += whole[0];
+      wholeBytes += whole[1];
+      final long[] chunked =
+          MagikIndexerBenchmark.measure(magikFiles, MagikIndexerBenchmark::chunked);
+      chunkedNanos += chunked[0];
+      chunkedBytes += chunked[1];
+    }
+
+    // Retained size of the largest syntax tree kept at once.
+    final MagikParser parser = new MagikParser();
+    long wholeRetained = 0;
+    long chunkedRetained = 0;
+    for (final MagikFile magikFile : magikFiles) {
+      final String source = magikFile.getSource();
+      wholeRetained =
+          Math.max(wholeRetained, MagikIndexerBenchmark.retainedSize(() -> parser.parse(source)));
+      for (final MagikSourceChunker.Chunk chunk : MagikSourceChunker.split(source)) {
+        final String chunkSource = source.substring(chunk.startOffset(), chunk.endOffset());
+        chunkedRetained =
+            Math.max(
+                chunkedRetained,
+                MagikIndexerBenchmark.retainedSize(() -> parser.parse(chunkSource)));
+      }
+    }
+
+    final PrintStream out = System.out; // NOSONAR
+    final long reads = (long) iterations * Math.max(magikFiles.size(), 1);
+    out.printf("files: %d, iterations: %d%n", magikFiles.size(), iterations);
+    out.printf("%16s %16s %16s %20s%n", "parse", "us/file", "KiB alloc/file", "KiB max tree kept");
+    out.printf(
+        "%16s %16.1f %16.1f %20.1f%n",
+        "whole file",
+        wholeNanos / NANOS_PER_MICRO / reads,
+        wholeBytes / BYTES_PER_KIB / reads,
+        wholeRetained / BYTES_PER_KIB);
+    out.printf(
+        "%16s %16.1f %16.1f %20.1f%n",
+        "chunked",
+        chunkedNanos / NANOS_PER_MICRO / reads,
+        chunkedBytes / BYTES_PER_KIB / reads,
+        chunkedRetained / BYTES_PER_KIB);
+  }
+
+  private static long[] measure(
+      final List<MagikFile> magikFiles, final Consumer<MagikFile> reader) {
+    final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+    final long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+    final long start = System.nanoTime();
+    magikFiles.forEach(reader);
+    final long nanos = System.nanoTime() - start;
+    final long bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+    return new long[] {nanos, bytes};
+  }
+
+  private static void wholeFile(final MagikFile magikFile) {
+    // Like the indexer used to: parse the whole file, then strip the nodes.
+    final MagikFile freshFile = new MagikFile(magikFile.getUri(), magikFile.getSource());
+    freshFile.getMagikDefinitions().stream().map(MagikDefinition::getWithoutNode).toList();
+  }
+
+  private static void chunked(final MagikFile magikFile) {
+    MagikDefinitionReader.readNodelessDefinitions(magikFile);
+  }
+
+  private static long retainedSize(final Supplier<AstNode> parse) {
+    final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    System.gc(); // NOSONAR
+    final long before = memoryBean.getHeapMemoryUsage().getUsed();
+    final AstNode node = parse.get();
+    System.gc(); // NOSONAR
+    final long after = memoryBean.getHeapMemoryUsage().getUsed();
+    Reference.reachabilityFence(node);
+    return Math.max(0, after - before);
+  }
+}
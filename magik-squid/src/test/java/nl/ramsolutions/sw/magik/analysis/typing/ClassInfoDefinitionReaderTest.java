@@ -1,9 +1,13 @@
 package nl.ramsolutions.sw.magik.analysis.typing;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
@@ -20,6 +24,7 @@ import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.ParameterDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /** Tests for {@link ClassInfoDefinitionReader}. */
 class ClassInfoDefinitionReaderTest {
@@ -300,4 +305,83 @@ for examples.
                 ExpressionResultString.UNDEFINED,
                 ExpressionResultString.UNDEFINED));
   }
+
+  @Test
+  void testReadProductDirectoryCached(@TempDir final Path tempDir) throws IOException {
+    final Path jarPath =
+        Path.of("src/test/resources/magik_tools.class_definition_reader_test.1.jar");
+    final Path productPath = tempDir.resolve("product");
+    final Path libPath =
+        Files.createDirectories(productPath.resolve("libs")).resolve(jarPath.getFileName());
+    Files.copy(jarPath, libPath);
+    final Path cachePath = tempDir.resolve("cache");
+
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    ClassInfoDefinitionReader.readProductDirectory(productPath, definitionKeeper, cachePath);
+    assertThat(ClassInfoCache.getCacheFilePath(cachePath, libPath)).exists();
+
+    // Read again, from cache.
+    final IDefinitionKeeper cachedDefinitionKeeper = new DefinitionKeeper();
+    ClassInfoDefinitionReader.readProductDirectory(productPath, cachedDefinitionKeeper, cachePath);
+    assertThat(cachedDefinitionKeeper.getGlobalDefinitions())
+        .isNotEmpty()
+        .containsExactlyInAnyOrderElementsOf(definitionKeeper.getGlobalDefinitions());
+    assertThat(cachedDefinitionKeeper.getConditionDefinitions())
+        .containsExactlyInAnyOrderElementsOf(definitionKeeper.getConditionDefinitions());
+    assertThat(cachedDefinitionKeeper.getExemplarDefinitions())
+        .containsExactlyInAnyOrderElementsOf(definitionKeeper.getExemplarDefinitions());
+    assertThat(cachedDefinitionKeeper.getMethodDefinitions())
+        .isNotEmpty()
+        .containsExactlyInAnyOrderElementsOf(definitionKeeper.getMethodDefinitions());
+  }
+
+  @Test
+  void testPruneCache(@TempDir final Path tempDir) throws IOException {
+    final Path jarPath =
+        Path.of("src/test/resources/magik_tools.class_definition_reader_test.1.jar");
+    final Path productPath = tempDir.resolve("product");
+    final Path libPath =
+        Files.createDirectories(productPath.resolve("libs")).resolve(jarPath.getFileName());
+    Files.copy(jarPath, libPath);
+    final Path cachePath = tempDir.resolve("cache");
+    ClassInfoDefinitionReader.readProductDirectory(productPath, new DefinitionKeeper(), cachePath);
+    final Path cacheFilePath = ClassInfoCache.getCacheFilePath(cachePath, libPath);
+    final Path corruptCacheFilePath = Files.writeString(cachePath.resolve("x.class_info"), "x");
+    final Path otherFilePath = Files.writeString(cachePath.resolve("other.txt"), "x");
+
+    // Cache files of existing jars are kept.
+    ClassInfoDefinitionReader.pruneCache(cachePath);
+    assertThat(cacheFilePath).exists();
+    assertThat(corruptCacheFilePath).doesNotExist();
+    assertThat(otherFilePath).exists();
+
+    // Cache files of removed jars are removed.
+    Files.delete(libPath);
+    ClassInfoDefinitionReader.pruneCache(cachePath);
+    assertThat(cacheFilePath).doesNotExist();
+  }
+
+  @Test
+  void testParseClassInfoSkipsDeleteClass() throws IOException {
+    final String classInfo =
+        """
+        delete_class old_class
+        mixin example_mixin
+        .
+        1 basic /source/example_mixin.magik
+        Example mixin.
+
+        method <global> !example_global!
+        0 basic /source/globals.magik
+
+        """;
+    final List<ClassInfoDefinitionReader.Entry> entries =
+        ClassInfoDefinitionReader.parseClassInfo(new BufferedReader(new StringReader(classInfo)));
+
+    assertThat(entries)
+        .extracting(ClassInfoDefinitionReader.Entry::kind, ClassInfoDefinitionReader.Entry::name)
+        .containsExactly(
+            tuple(ClassInfoDefinitionReader.EntryKind.MIXIN, "example_mixin"),
+            tuple(ClassInfoDefinitionReader.EntryKind.GLOBAL, "!example_global!"));
+  }
 }
@@ -0,0 +1,35 @@
+package nl.ramsolutions.sw.magik.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import nl.ramsolutions.sw.magik.parser.MagikSourceChunker.Chunk;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link MagikSourceChunker}. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class MagikSourceChunkerTest {
+
+  @Test
+  void testSplit() {
+    final String code = "_package sw\n$\n\na << 10\n  $  \r\nb << 20";
+    final List<Chunk> chunks = MagikSourceChunker.split(code);
+
+    assertThat(chunks)
+        .containsExactly(new Chunk(0, 14, 1), new Chunk(14, 30, 3), new Chunk(30, 37, 6));
+  }
+
+  @Test
+  void testSplitSkipsStringsAndComments() {
+    final String code = "a << \"\n$\n\" # \"\n$\nb << %\"\n$\nc << |\n$\n|\n$\n";
+    final List<Chunk> chunks = MagikSourceChunker.split(code);
+
+    assertThat(chunks)
+        .containsExactly(new Chunk(0, 17, 1), new Chunk(17, 27, 5), new Chunk(27, 40, 7));
+  }
+
+  @Test
+  void testSplitEmpty() {
+    assertThat(MagikSourceChunker.split("")).containsExactly(new Chunk(0, 0, 1));
+  }
+}
@@ -0,0 +1,46 @@
+package nl.ramsolutions.sw.moduledef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for LoadListIndex. */
+class LoadListIndexTest {
+
+  @TempDir private Path tempDir;
+
+  @AfterEach
+  void resetCache() {
+    LoadListIndex.resetCache();
+  }
+
+  @Test
+  void testGetLoadList() throws IOException {
+    final Path loadListPath =
+        Files.writeString(this.tempDir.resolve("load_list.txt"), "file_a\n  file_b \n\nsubdir\n");
+    final LoadList loadList = LoadListIndex.getLoadListForFile(this.tempDir.resolve("a.magik"));
+    assertThat(loadList).isNotNull();
+    assertThat(loadList.getEntries()).containsExactly("file_a", "file_b", "subdir");
+    assertThat(loadList.containsFile(this.tempDir.resolve("file_a.magik"))).isTrue();
+    assertThat(loadList.containsFile(this.tempDir.resolve("file_c.magik"))).isFalse();
+    assertThat(LoadListIndex.getLoadList(this.tempDir)).isSameAs(loadList);
+
+    // Changed load_list.txt is read again.
+    Files.writeString(loadListPath, "file_c\n");
+    Files.setLastModifiedTime(loadListPath, FileTime.from(Instant.now().plusSeconds(10)));
+    final LoadList changedLoadList = LoadListIndex.getLoadList(this.tempDir);
+    assertThat(changedLoadList).isNotNull();
+    assertThat(changedLoadList.getEntries()).containsExactly("file_c");
+
+    // Removed load_list.txt is noticed.
+    Files.delete(loadListPath);
+    assertThat(LoadListIndex.getLoadList(this.tempDir)).isNull();
+  }
+}
@@ -0,0 +1,118 @@
+package nl.ramsolutions.sw.moduledef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.productdef.ProductDefFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for ModuleDefFileResolver. */
+class ModuleDefFileResolverTest {
+
+  @TempDir private Path tempDir;
+
+  @AfterEach
+  void resetCache() {
+    ModuleDefFileResolver.resetCache();
+  }
+
+  @Test
+  void testResolve() throws IOException {
+    final Path productDefPath = Files.writeString(this.tempDir.resolve("product.def"), "product");
+    final Path moduleDir = Files.createDirectories(this.tempDir.resolve("module/source"));
+    final Path moduleDefPath =
+        Files.writeString(this.tempDir.resolve("module/module.def"), "test_module 1\n");
+    final Path magikPath = moduleDir.resolve("file.magik");
+
+    assertThat(ModuleDefFileResolver.getModuleDefFileForPath(magikPath)).isEqualTo(moduleDefPath);
+    assertThat(ModuleDefFileResolver.getProductDefFileForPath(magikPath)).isEqualTo(productDefPath);
+    assertThat(ModuleDefFileResolver.getModuleDefFileForPath(this.tempDir)).isNull();
+
+    // Removed module.def is noticed.
+    Files.delete(moduleDefPath);
+    assertThat(ModuleDefFileResolver.getModuleDefFileForPath(magikPath)).isNull();
+
+    // Created module.def is noticed after invalidation.
+    final Path newModuleDefPath =
+        Files.writeString(moduleDir.resolve("module.def"), "test_module 1\n");
+    ModuleDefFileResolver.invalidate(newModuleDefPath);
+    assertThat(ModuleDefFileResolver.getModuleDefFileForPath(magikPath))
+        .isEqualTo(newModuleDefPath);
+  }
+
+  @Test
+  void testGetModuleDefinition() throws IOException {
+    final Path moduleDefPath =
+        Files.writeString(this.tempDir.resolve("module.def"), "test_module 1\n");
+    final ModuleDefinition definition = ModuleDefFileResolver.getModuleDefinition(moduleDefPath);
+    assertThat(definition).isNotNull();
+    assertThat(definition.getName()).isEqualTo("test_module");
+    assertThat(ModuleDefFileResolver.getModuleDefinition(moduleDefPath)).isSameAs(definition);
+
+    // Changed module.def is parsed again.
+    Files.writeString(moduleDefPath, "other_module 1\n");
+    Files.setLastModifiedTime(moduleDefPath, FileTime.from(Instant.now().plusSeconds(10)));
+    final ModuleDefinition changedDefinition =
+        ModuleDefFileResolver.getModuleDefinition(moduleDefPath);
+    assertThat(changedDefinition).isNotNull();
+    assertThat(changedDefinition.getName()).isEqualTo("other_module");
+    assertThat(ModuleDefFile.getModuleNameForUri(this.tempDir.resolve("a.magik").toUri()))
+        .isEqualTo("other_module");
+  }
+
+  @Test
+  void testGetDefFilesShared() throws IOException {
+    final Path productDefPath =
+        Files.writeString(this.tempDir.resolve("product.def"), "test_product layered_product\n");
+    final Path moduleDefPath =
+        Files.writeString(this.tempDir.resolve("module.def"), "test_module 1\n");
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+
+    // The product is parsed once, for all modules and all callers.
+    final ProductDefFile productDefFile =
+        ModuleDefFileResolver.getProductDefFile(productDefPath, definitionKeeper, null);
+    assertThat(productDefFile).isNotNull();
+    assertThat(productDefFile.getDefinitionKeeper()).isSameAs(definitionKeeper);
+    final IDefinitionKeeper otherDefinitionKeeper = new DefinitionKeeper(false);
+    final ProductDefFile otherProductDefFile =
+        ModuleDefFileResolver.getProductDefFile(productDefPath, otherDefinitionKeeper, null);
+    assertThat(otherProductDefFile).isNotNull();
+    assertThat(otherProductDefFile.getDefinitionKeeper()).isSameAs(otherDefinitionKeeper);
+    assertThat(otherProductDefFile.getTopNode()).isSameAs(productDefFile.getTopNode());
+    assertThat(
+            ModuleDefFileResolver.getProductDefFile(productDefPath, definitionKeeper, null)
+                .getTopNode())
+        .isSameAs(productDefFile.getTopNode());
+
+    // Module is bound to the requested parent, sharing the parse tree.
+    final ModuleDefFile moduleDefFile =
+        ModuleDefFileResolver.getModuleDefFile(moduleDefPath, definitionKeeper, productDefFile);
+    assertThat(moduleDefFile).isNotNull();
+    assertThat(moduleDefFile.getModuleDefinition()).isSameAs(moduleDefFile.getModuleDefinition());
+    assertThat(moduleDefFile.getModuleDefinition().getProduct()).isEqualTo("test_product");
+    final ModuleDefFile unparentedModuleDefFile =
+        ModuleDefFileResolver.getModuleDefFile(moduleDefPath, definitionKeeper, null);
+    assertThat(unparentedModuleDefFile).isNotNull();
+    assertThat(unparentedModuleDefFile.getModuleDefinition().getProduct()).isNull();
+    assertThat(unparentedModuleDefFile.getTopNode()).isSameAs(moduleDefFile.getTopNode());
+
+    // Parsed again after invalidation.
+    ModuleDefFileResolver.invalidate(productDefPath);
+    assertThat(
+            ModuleDefFileResolver.getProductDefFile(productDefPath, definitionKeeper, null)
+                .getTopNode())
+        .isNotSameAs(productDefFile.getTopNode());
+
+    Files.delete(productDefPath);
+    assertThat(ModuleDefFileResolver.getProductDefFile(productDefPath, definitionKeeper, null))
+        .isNull();
+  }
+}
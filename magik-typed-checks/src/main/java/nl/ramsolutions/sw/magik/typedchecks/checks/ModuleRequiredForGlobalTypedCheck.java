@@ -21,8 +21,7 @@ import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import nl.ramsolutions.sw.magik.analysis.typing.reasoner.LocalTypeReasonerState;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.magik.typedchecks.MagikTypedCheck;
-import nl.ramsolutions.sw.moduledef.ModuleDefFile;
-import nl.ramsolutions.sw.moduledef.ModuleDefFileScanner;
+import nl.ramsolutions.sw.moduledef.ModuleDefFileResolver;
 import nl.ramsolutions.sw.moduledef.ModuleDefinition;
 import nl.ramsolutions.sw.moduledef.ModuleUsage;
 import org.slf4j.Logger;
@@ -53,16 +52,13 @@ public class ModuleRequiredForGlobalTypedCheck extends MagikTypedCheck {
   private ModuleDefinition readModuleDefinition() {
     final URI uri = this.getMagikFile().getUri();
     final Path path = Path.of(uri);
-    final Path moduleDefPath = ModuleDefFileScanner.getModuleDefFileForPath(path);
+    final Path moduleDefPath = ModuleDefFileResolver.getModuleDefFileForPath(path);
     if (moduleDefPath == null) {
       return null;
     }
 
-    final ModuleDefFile moduleDefFile;
-    final IDefinitionKeeper definitionKeeper = this.getDefinitionKeeper();
     try {
-      // TODO: Better get this from IDefinitionKeeper, instead of reading this for every file.
-      moduleDefFile = new ModuleDefFile(moduleDefPath, definitionKeeper, null);
+      return ModuleDefFileResolver.getModuleDefinition(moduleDefPath);
     } catch (final RecognitionException exception) {
       LOGGER.warn("Unable to parse module.def");
       return null;
@@ -70,8 +66,6 @@ public class ModuleRequiredForGlobalTypedCheck extends MagikTypedCheck {
       LOGGER.warn("Caught exception", exception);
       return null;
     }
-
-    return moduleDefFile.getModuleDefinition();
   }
 
   private Set<String> getRequiredModules() {
@@ -3,17 +3,15 @@ package nl.ramsolutions.sw.magik.typedlint;
 import java.io.IOException;
 import java.io.Writer;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import nl.ramsolutions.sw.ConfigurationReader;
-import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.MagikToolsProperties;
+import nl.ramsolutions.sw.SourceFileLoader;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
@@ -71,8 +69,7 @@ public class MagikTypedLint {
       final MagikToolsProperties fileProperties =
           ConfigurationReader.readProperties(path, this.properties);
       final URI uri = path.toUri();
-      final Charset charset = FileCharsetDeterminer.determineCharset(path);
-      final String fileContents = Files.readString(path, charset);
+      final String fileContents = SourceFileLoader.readString(path);
       return new MagikTypedFile(fileProperties, uri, fileContents, this.definitionKeeper);
     } catch (final IOException exception) {
       throw new IllegalStateException(exception);
@@ -3,6 +3,7 @@ package nl.ramsolutions.sw.sonar;
 import nl.ramsolutions.sw.sonar.language.Magik;
 import nl.ramsolutions.sw.sonar.sensors.MagikSensor;
 import org.sonar.api.Plugin;
+import org.sonar.api.PropertyType;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
 
@@ -23,6 +24,18 @@ public class MagikPlugin implements Plugin {
             .subCategory("General")
             .onQualifiers(Qualifiers.PROJECT)
             .build());
+    context.addExtension(
+        PropertyDefinition.builder(Magik.ANALYSIS_THREADS_KEY)
+            .defaultValue(Integer.toString(Magik.DEFAULT_ANALYSIS_THREADS))
+            .category(Magik.MAGIK_CATEGORY)
+            .name("Analysis threads")
+            .type(PropertyType.INTEGER)
+            .description(
+                "Number of threads to analyze Magik files with. Use 0 for the number of available"
+                    + " processors.")
+            .subCategory("General")
+            .onQualifiers(Qualifiers.PROJECT)
+            .build());
     context.addExtension(MagikSonarWayProfile.class);
     context.addExtension(MagikRulesDefinition.class);
     context.addExtension(MagikSensor.class);
@@ -23,6 +23,12 @@ public class Magik extends AbstractLanguage {
   /** Default file suffixes. */
   public static final String DEFAULT_FILE_SUFFIXES = ".magik";
 
+  /** Analysis threads key. */
+  public static final String ANALYSIS_THREADS_KEY = "sonar.magik.analysis.threads";
+
+  /** Default number of analysis threads, 0 uses the number of available processors. */
+  public static final int DEFAULT_ANALYSIS_THREADS = 0;
+
   private final Configuration configuration;
 
   /**
@@ -0,0 +1,314 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.checks.MagikIssue;
+import nl.ramsolutions.sw.magik.metrics.FileMetrics;
+import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver.CpdToken;
+import nl.ramsolutions.sw.sonar.visitors.MagikHighlighterVisitor.Highlight;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Result of analyzing a single file: measures, issues, highlights and CPD tokens.
+ *
+ * <p>Holds only plain values, so it can be created on a worker thread, saved from the sensor thread
+ * and (de)serialized to the analysis cache.
+ */
+final class FileAnalysis {
+
+  /** Issue, as saved to SonarQube. */
+  record Issue(RuleKey ruleKey, int line, String message) {}
+
+  private final InputFile inputFile;
+  private final Set<Integer> linesOfCode;
+  private final int commentLineCount;
+  private final int numberOfClasses;
+  private final int numberOfFunctions;
+  private final int numberOfStatements;
+  private final int complexity;
+  private final Set<Integer> executableLines;
+  private final Set<Integer> nosonarLines;
+  private final List<Issue> issues;
+  private final List<Highlight> highlights;
+  private final List<CpdToken> cpdTokens;
+  private final boolean replayed;
+
+  @SuppressWarnings("checkstyle:ParameterNumber")
+  private FileAnalysis(
+      final InputFile inputFile,
+      final Set<Integer> linesOfCode,
+      final int commentLineCount,
+      final int numberOfClasses,
+      final int numberOfFunctions,
+      final int numberOfStatements,
+      final int complexity,
+      final Set<Integer> executableLines,
+      final Set<Integer> nosonarLines,
+      final List<Issue> issues,
+      final List<Highlight> highlights,
+      final List<CpdToken> cpdTokens,
+      final boolean replayed) {
+    this.inputFile = inputFile;
+    this.linesOfCode = Set.copyOf(linesOfCode);
+    this.commentLineCount = commentLineCount;
+    this.numberOfClasses = numberOfClasses;
+    this.numberOfFunctions = numberOfFunctions;
+    this.numberOfStatements = numberOfStatements;
+    this.complexity = complexity;
+    this.executableLines = Set.copyOf(executableLines);
+    this.nosonarLines = Set.copyOf(nosonarLines);
+    this.issues = List.copyOf(issues);
+    this.highlights = List.copyOf(highlights);
+    this.cpdTokens = List.copyOf(cpdTokens);
+    this.replayed = replayed;
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param inputFile Analyzed file.
+   * @param metrics Metrics of file.
+   * @param issues Issues in file.
+   * @param highlights Highlights of file.
+   * @param cpdTokens CPD tokens of file.
+   */
+  FileAnalysis(
+      final InputFile inputFile,
+      final FileMetrics metrics,
+      final List<Issue> issues,
+      final List<Highlight> highlights,
+      final List<CpdToken> cpdTokens) {
+    this(
+        inputFile,
+        metrics.linesOfCode(),
+        metrics.commentLineCount(),
+        metrics.numberOfExemplars(),
+        metrics.numberOfMethods() + metrics.numberOfProcedures(),
+        metrics.numberOfStatements(),
+        metrics.fileComplexity(),
+        metrics.executableLines(),
+        metrics.nosonarLines(),
+        issues,
+        highlights,
+        cpdTokens,
+        false);
+  }
+
+  /**
+   * Convert issues of a check.
+   *
+   * @param ruleKey Rule key of check.
+   * @param magikIssues Issues of check.
+   * @return Issues.
+   */
+  static List<Issue> toIssues(final RuleKey ruleKey, final Collection<MagikIssue> magikIssues) {
+    return magikIssues.stream()
+        .map(magikIssue -> new Issue(ruleKey, magikIssue.startLine(), magikIssue.message()))
+        .toList();
+  }
+
+  InputFile getInputFile() {
+    return this.inputFile;
+  }
+
+  Set<Integer> getLinesOfCode() {
+    return this.linesOfCode;
+  }
+
+  int getCommentLineCount() {
+    return this.commentLineCount;
+  }
+
+  int getNumberOfClasses() {
+    return this.numberOfClasses;
+  }
+
+  int getNumberOfFunctions() {
+    return this.numberOfFunctions;
+  }
+
+  int getNumberOfStatements() {
+    return this.numberOfStatements;
+  }
+
+  int getComplexity() {
+    return this.complexity;
+  }
+
+  Set<Integer> getExecutableLines() {
+    return this.executableLines;
+  }
+
+  Set<Integer> getNosonarLines() {
+    return this.nosonarLines;
+  }
+
+  List<Issue> getIssues() {
+    return this.issues;
+  }
+
+  List<Highlight> getHighlights() {
+    return this.highlights;
+  }
+
+  List<CpdToken> getCpdTokens() {
+    return this.cpdTokens;
+  }
+
+  /**
+   * Test if this analysis is replayed from the analysis cache.
+   *
+   * @return True if read from cache.
+   */
+  boolean isReplayed() {
+    return this.replayed;
+  }
+
+  // region: Serialization
+  /**
+   * Write to a stream.
+   *
+   * @param output Stream to write to.
+   * @throws IOException -
+   */
+  void writeTo(final DataOutputStream output) throws IOException {
+    FileAnalysis.writeLines(output, this.linesOfCode);
+    output.writeInt(this.commentLineCount);
+    output.writeInt(this.numberOfClasses);
+    output.writeInt(this.numberOfFunctions);
+    output.writeInt(this.numberOfStatements);
+    output.writeInt(this.complexity);
+    FileAnalysis.writeLines(output, this.executableLines);
+    FileAnalysis.writeLines(output, this.nosonarLines);
+
+    output.writeInt(this.issues.size());
+    for (final Issue issue : this.issues) {
+      FileAnalysis.writeString(output, issue.ruleKey().toString());
+      output.writeInt(issue.line());
+      FileAnalysis.writeString(output, issue.message());
+    }
+
+    output.writeInt(this.highlights.size());
+    for (final Highlight highlight : this.highlights) {
+      output.writeInt(highlight.line());
+      output.writeInt(highlight.column());
+      output.writeInt(highlight.endLine());
+      output.writeInt(highlight.endColumn());
+      FileAnalysis.writeString(output, highlight.typeOfText().name());
+    }
+
+    output.writeInt(this.cpdTokens.size());
+    for (final CpdToken cpdToken : this.cpdTokens) {
+      output.writeInt(cpdToken.line());
+      output.writeInt(cpdToken.column());
+      output.writeInt(cpdToken.endLine());
+      output.writeInt(cpdToken.endColumn());
+      FileAnalysis.writeString(output, cpdToken.value());
+    }
+  }
+
+  /**
+   * Read from a stream.
+   *
+   * @param inputFile File the analysis belongs to.
+   * @param input Stream to read from.
+   * @return Read {@link FileAnalysis}, marked as replayed.
+   * @throws IOException -
+   */
+  static FileAnalysis readFrom(final InputFile inputFile, final DataInputStream input)
+      throws IOException {
+    final Set<Integer> linesOfCode = FileAnalysis.readLines(input);
+    final int commentLineCount = input.readInt();
+    final int numberOfClasses = input.readInt();
+    final int numberOfFunctions = input.readInt();
+    final int numberOfStatements = input.readInt();
+    final int complexity = input.readInt();
+    final Set<Integer> executableLines = FileAnalysis.readLines(input);
+    final Set<Integer> nosonarLines = FileAnalysis.readLines(input);
+
+    final int issueCount = input.readInt();
+    final List<Issue> issues = new ArrayList<>(issueCount);
+    for (int i = 0; i < issueCount; ++i) {
+      final RuleKey ruleKey = RuleKey.parse(FileAnalysis.readString(input));
+      final int line = input.readInt();
+      final String message = FileAnalysis.readString(input);
+      issues.add(new Issue(ruleKey, line, message));
+    }
+
+    final int highlightCount = input.readInt();
+    final List<Highlight> highlights = new ArrayList<>(highlightCount);
+    for (int i = 0; i < highlightCount; ++i) {
+      final int line = input.readInt();
+      final int column = input.readInt();
+      final int endLine = input.readInt();
+      final int endColumn = input.readInt();
+      final TypeOfText typeOfText = TypeOfText.valueOf(FileAnalysis.readString(input));
+      highlights.add(new Highlight(line, column, endLine, endColumn, typeOfText));
+    }
+
+    final int cpdTokenCount = input.readInt();
+    final List<CpdToken> cpdTokens = new ArrayList<>(cpdTokenCount);
+    for (int i = 0; i < cpdTokenCount; ++i) {
+      final int line = input.readInt();
+      final int column = input.readInt();
+      final int endLine = input.readInt();
+      final int endColumn = input.readInt();
+      final String value = FileAnalysis.readString(input);
+      cpdTokens.add(new CpdToken(line, column, endLine, endColumn, value));
+    }
+
+    return new FileAnalysis(
+        inputFile,
+        linesOfCode,
+        commentLineCount,
+        numberOfClasses,
+        numberOfFunctions,
+        numberOfStatements,
+        complexity,
+        executableLines,
+        nosonarLines,
+        issues,
+        highlights,
+        cpdTokens,
+        true);
+  }
+
+  static void writeString(final DataOutputStream output, final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  static String readString(final DataInputStream input) throws IOException {
+    final byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeLines(final DataOutputStream output, final Set<Integer> lines)
+      throws IOException {
+    output.writeInt(lines.size());
+    for (final int line : lines) {
+      output.writeInt(line);
+    }
+  }
+
+  private static Set<Integer> readLines(final DataInputStream input) throws IOException {
+    final int count = input.readInt();
+    final Set<Integer> lines = new HashSet<>(count * 2);
+    for (int i = 0; i < count; ++i) {
+      lines.add(input.readInt());
+    }
+    return lines;
+  }
+  // endregion
+}
@@ -0,0 +1,217 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.moduledef.LoadListIndex;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+/**
+ * Analysis cache, to replay the analysis of unchanged files from the previous analysis.
+ *
+ * <p>Every entry starts with a fingerprint of the plugin version and the active rules, the MD5 hash
+ * of the file contents, and the MD5 hash of the inputs outside of the file which checks read: the
+ * `load_list.txt` file in the same directory. An entry is only used if all match, otherwise the
+ * file is analyzed again. This means that changing the rules or upgrading the plugin results in a
+ * full analysis, and changing a `load_list.txt` file in the analysis of all files next to it.
+ */
+final class MagikAnalysisCache {
+
+  private static final String KEY_PREFIX = "magik:analysis:";
+  private static final int FORMAT_VERSION = 2;
+  private static final String NO_EXTERNAL_INPUT = "-";
+  private static final String UNREADABLE_EXTERNAL_INPUT = "!";
+
+  private final ReadCache previousCache;
+  private final WriteCache nextCache;
+  private final String fingerprint;
+  private final Map<Path, String> externalHashes = new ConcurrentHashMap<>();
+
+  private MagikAnalysisCache(
+      final ReadCache previousCache, final WriteCache nextCache, final String fingerprint) {
+    this.previousCache = previousCache;
+    this.nextCache = nextCache;
+    this.fingerprint = fingerprint;
+  }
+
+  /**
+   * Create the analysis cache for a context.
+   *
+   * @param context Sensor context.
+   * @return Analysis cache, or null if caching is not enabled.
+   */
+  @CheckForNull
+  static MagikAnalysisCache create(final SensorContext context) {
+    if (!context.isCacheEnabled()) {
+      return null;
+    }
+
+    final String fingerprint = MagikAnalysisCache.fingerprint(context.activeRules());
+    return new MagikAnalysisCache(context.previousCache(), context.nextCache(), fingerprint);
+  }
+
+  /**
+   * Get the fingerprint of the plugin version and the active rules, including their parameters.
+   *
+   * @param activeRules Active rules.
+   * @return Fingerprint.
+   */
+  static String fingerprint(final ActiveRules activeRules) {
+    final String pluginVersion = MagikSensor.class.getPackage().getImplementationVersion();
+    final StringBuilder builder = new StringBuilder();
+    builder.append(FORMAT_VERSION).append('\n');
+    builder.append(pluginVersion != null ? pluginVersion : "unknown").append('\n');
+    activeRules.findByRepository(CheckList.REPOSITORY_KEY).stream()
+        .sorted(Comparator.comparing(activeRule -> activeRule.ruleKey().toString()))
+        .forEach(activeRule -> MagikAnalysisCache.appendRule(builder, activeRule));
+
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      final byte[] hash = digest.digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(hash);
+    } catch (final NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  private static void appendRule(final StringBuilder builder, final ActiveRule activeRule) {
+    builder.append(activeRule.ruleKey()).append(':').append(activeRule.severity());
+    final Map<String, String> params = new TreeMap<>(activeRule.params());
+    params.forEach((key, value) -> builder.append(';').append(key).append('=').append(value));
+    builder.append('\n');
+  }
+
+  /**
+   * Read the cached entry of a file, if the file and rules are unchanged.
+   *
+   * @param inputFile File to read the entry for.
+   * @return Entry, or null if there is no (usable) entry.
+   */
+  @CheckForNull
+  byte[] read(final InputFile inputFile) {
+    final String hash = inputFile.md5Hash();
+    final String key = MagikAnalysisCache.key(inputFile);
+    if (hash == null || !this.previousCache.contains(key)) {
+      return null;
+    }
+
+    try (InputStream inputStream = this.previousCache.read(key)) {
+      final byte[] bytes = inputStream.readAllBytes();
+      final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+      final String entryFingerprint = FileAnalysis.readString(input);
+      final String entryHash = FileAnalysis.readString(input);
+      final String entryExternalHash = FileAnalysis.readString(input);
+      final String externalHash = this.externalHash(inputFile);
+      if (!this.fingerprint.equals(entryFingerprint)
+          || !hash.equals(entryHash)
+          || externalHash.equals(UNREADABLE_EXTERNAL_INPUT)
+          || !externalHash.equals(entryExternalHash)) {
+        return null;
+      }
+      return bytes;
+    } catch (final IOException | RuntimeException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Replay the analysis of a file from a cached entry.
+   *
+   * @param inputFile File.
+   * @param bytes Entry, as read by {@link #read(InputFile)}.
+   * @return Replayed {@link FileAnalysis}.
+   * @throws IOException If the entry is corrupt.
+   */
+  static FileAnalysis replay(final InputFile inputFile, final byte[] bytes) throws IOException {
+    final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+    FileAnalysis.readString(input); // Fingerprint.
+    FileAnalysis.readString(input); // Hash.
+    FileAnalysis.readString(input); // External hash.
+    return FileAnalysis.readFrom(inputFile, input);
+  }
+
+  /**
+   * Store the analysis of a file for the next analysis.
+   *
+   * @param fileAnalysis Analysis to store.
+   */
+  void write(final FileAnalysis fileAnalysis) {
+    final InputFile inputFile = fileAnalysis.getInputFile();
+    final String key = MagikAnalysisCache.key(inputFile);
+    if (fileAnalysis.isReplayed()) {
+      this.nextCache.copyFromPrevious(key);
+      return;
+    }
+
+    final String hash = inputFile.md5Hash();
+    if (hash == null) {
+      return;
+    }
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      FileAnalysis.writeString(output, this.fingerprint);
+      FileAnalysis.writeString(output, hash);
+      FileAnalysis.writeString(output, this.externalHash(inputFile));
+      fileAnalysis.writeTo(output);
+    } catch (final IOException exception) {
+      throw new IllegalStateException(exception);
+    }
+    this.nextCache.write(key, bytes.toByteArray());
+  }
+
+  /**
+   * Get the hash of the inputs outside of the file which checks read, such as {@code
+   * FileNotInLoadListCheck}: the `load_list.txt` file in the same directory. Hashed once per
+   * directory per analysis.
+   */
+  private String externalHash(final InputFile inputFile) {
+    final Path directoryPath = Path.of(inputFile.uri()).getParent();
+    if (directoryPath == null) {
+      return NO_EXTERNAL_INPUT;
+    }
+
+    return this.externalHashes.computeIfAbsent(directoryPath, MagikAnalysisCache::hashLoadList);
+  }
+
+  private static String hashLoadList(final Path directoryPath) {
+    final Path loadListPath = directoryPath.resolve(LoadListIndex.LOAD_LIST_TXT);
+    try {
+      final byte[] bytes = Files.readAllBytes(loadListPath);
+      final MessageDigest digest = MessageDigest.getInstance("MD5");
+      return HexFormat.of().formatHex(digest.digest(bytes));
+    } catch (final NoSuchFileException exception) {
+      return NO_EXTERNAL_INPUT;
+    } catch (final IOException exception) {
+      // Never reuse entries for this directory.
+      return UNREADABLE_EXTERNAL_INPUT;
+    } catch (final NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  private static String key(final InputFile inputFile) {
+    return KEY_PREFIX + inputFile.key();
+  }
+}
@@ -1,18 +1,35 @@
 package nl.ramsolutions.sw.sonar.sensors;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.MagikFile;
-import nl.ramsolutions.sw.magik.MagikVisitor;
 import nl.ramsolutions.sw.magik.checks.CheckList;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
-import nl.ramsolutions.sw.magik.checks.MagikIssue;
 import nl.ramsolutions.sw.magik.metrics.FileMetrics;
 import nl.ramsolutions.sw.sonar.language.Magik;
 import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver;
+import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver.CpdToken;
 import nl.ramsolutions.sw.sonar.visitors.MagikHighlighterVisitor;
+import nl.ramsolutions.sw.sonar.visitors.MagikHighlighterVisitor.Highlight;
+import nl.ramsolutions.sw.sonar.visitors.MagikSensorVisitor;
 import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.FileSystem;
@@ -22,6 +39,7 @@ import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.issue.NoSonarFilter;
@@ -39,6 +57,30 @@ public class MagikSensor implements Sensor {
 
   private static final Logger LOGGER = Loggers.get(MagikSensor.class);
   private static final long SLEEP_PERIOD = 100;
+  private static final int PENDING_PER_THREAD = 4;
+
+  /** Phase of the analysis, for timing. */
+  private enum Phase {
+    READ,
+    PARSE,
+    WALK,
+    CHECKS,
+    REPLAY,
+    SAVE,
+  }
+
+  /** Thread factory for analysis threads. */
+  private static final class AnalysisThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      final Thread thread = new Thread(runnable, "magik-analysis-" + this.count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 
   private final CheckFactory checkFactory;
   private final FileLinesContextFactory fileLinesContextFactory;
@@ -80,18 +122,132 @@ public class MagikSensor implements Sensor {
     final List<String> filenames = inputFiles.stream().map(InputFile::toString).toList();
     progressReport.start(filenames);
 
-    for (final InputFile inputFile : inputFiles) {
-      this.scanMagikFile(context, inputFile);
-      progressReport.nextFile();
+    final int threads = this.getAnalysisThreads(context);
+    final EnumMap<Phase, LongAdder> timings = new EnumMap<>(Phase.class);
+    Arrays.stream(Phase.values()).forEach(phase -> timings.put(phase, new LongAdder()));
+    final long start = System.nanoTime();
+    final MagikAnalysisCache analysisCache = MagikAnalysisCache.create(context);
+    int replayedCount = 0;
+
+    // Analyze files on the workers, save the results from this thread, in order of the input
+    // files to keep the progress report accurate. Only a limited number of results is kept.
+    final ExecutorService executorService =
+        Executors.newFixedThreadPool(threads, new AnalysisThreadFactory());
+    try {
+      final Deque<Future<FileAnalysis>> pending = new ArrayDeque<>();
+      final Iterator<InputFile> inputFileIterator = inputFiles.iterator();
+      while (inputFileIterator.hasNext() || !pending.isEmpty()) {
+        while (inputFileIterator.hasNext() && pending.size() < threads * PENDING_PER_THREAD) {
+          final InputFile inputFile = inputFileIterator.next();
+          final byte[] cacheEntry = analysisCache != null ? analysisCache.read(inputFile) : null;
+          pending.add(
+              executorService.submit(
+                  () -> this.replayOrAnalyzeMagikFile(inputFile, cacheEntry, timings)));
+        }
+
+        final FileAnalysis fileAnalysis = MagikSensor.await(pending.removeFirst());
+        final long saveStart = System.nanoTime();
+        this.saveFileAnalysis(context, fileAnalysis);
+        if (analysisCache != null) {
+          analysisCache.write(fileAnalysis);
+        }
+        if (fileAnalysis.isReplayed()) {
+          replayedCount += 1;
+        }
+        timings.get(Phase.SAVE).add(System.nanoTime() - saveStart);
+        progressReport.nextFile();
+      }
+    } finally {
+      executorService.shutdownNow();
     }
 
     progressReport.stop();
+
+    final long elapsed = System.nanoTime() - start;
+    final String phases =
+        timings.entrySet().stream()
+            .map(
+                entry ->
+                    entry.getKey().name().toLowerCase()
+                        + ": "
+                        + TimeUnit.NANOSECONDS.toMillis(entry.getValue().sum())
+                        + " ms")
+            .collect(Collectors.joining(", "));
+    LOGGER.info(
+        "Analyzed {} Magik files ({} unchanged, from cache) in {} ms using {} threads, "
+            + "time per phase: {}",
+        inputFiles.size(),
+        replayedCount,
+        TimeUnit.NANOSECONDS.toMillis(elapsed),
+        threads,
+        phases);
+  }
+
+  private int getAnalysisThreads(final SensorContext context) {
+    final int threads =
+        context.config().getInt(Magik.ANALYSIS_THREADS_KEY).orElse(Magik.DEFAULT_ANALYSIS_THREADS);
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
   }
 
-  private void scanMagikFile(final SensorContext context, final InputFile inputFile) {
+  /**
+   * Create the checks, for a single file. {@link MagikCheck}s keep their issues, so these cannot be
+   * reused for another file.
+   */
+  private synchronized Checks<MagikCheck> createChecks() {
+    return this.checkFactory
+        .<MagikCheck>create(CheckList.REPOSITORY_KEY)
+        .addAnnotatedChecks(CheckList.getChecks());
+  }
+
+  private static FileAnalysis await(final Future<FileAnalysis> future) {
+    try {
+      return future.get();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(exception);
+    } catch (final ExecutionException exception) {
+      final Throwable cause = exception.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Replay the analysis of a file from the analysis cache, or analyze the file if there is no
+   * (usable) cache entry.
+   */
+  private FileAnalysis replayOrAnalyzeMagikFile(
+      final InputFile inputFile,
+      final @Nullable byte[] cacheEntry,
+      final Map<Phase, LongAdder> timings) {
+    if (cacheEntry != null) {
+      final long replayStart = System.nanoTime();
+      try {
+        final FileAnalysis fileAnalysis = MagikAnalysisCache.replay(inputFile, cacheEntry);
+        MagikSensor.record(timings, Phase.REPLAY, replayStart);
+        return fileAnalysis;
+      } catch (final IOException | RuntimeException exception) {
+        LOGGER.debug("Unable to replay analysis of: {}", inputFile, exception);
+      }
+    }
+
+    return this.analyzeMagikFile(inputFile, this.createChecks(), timings);
+  }
+
+  /**
+   * Analyze a file: parse, metrics, checks, highlighting and CPD tokens. Does not touch the {@link
+   * SensorContext}, so files can be analyzed in parallel.
+   */
+  private FileAnalysis analyzeMagikFile(
+      final InputFile inputFile,
+      final Checks<MagikCheck> checks,
+      final Map<Phase, LongAdder> timings) {
     LOGGER.debug("Scanning magik file: {}", inputFile);
 
     // Read contents.
+    long phaseStart = System.nanoTime();
     final URI uri = inputFile.uri();
     final String fileContent;
     try {
@@ -100,68 +256,92 @@ public class MagikSensor implements Sensor {
       throw new IllegalStateException("Cannot read " + inputFile, ex);
     }
     final MagikFile magikFile = new MagikFile(uri, fileContent);
+    phaseStart = MagikSensor.record(timings, Phase.READ, phaseStart);
 
-    // Save metrics.
-    LOGGER.debug("Save measures");
-    this.saveMetrics(context, inputFile, magikFile);
+    magikFile.getTopNode();
+    phaseStart = MagikSensor.record(timings, Phase.PARSE, phaseStart);
 
-    // Save issues.
+    // Metrics, highlighted tokens and CPD tokens, in a single walk.
+    LOGGER.debug("Computing measures, highlighted tokens and CPD tokens");
+    final MagikSensorVisitor sensorVisitor = new MagikSensorVisitor();
+    sensorVisitor.scanFile(magikFile);
+    final FileMetrics metrics = sensorVisitor.getMetrics();
+    final List<Highlight> highlights = sensorVisitor.getHighlights();
+    final List<CpdToken> cpdTokens = sensorVisitor.getCpdTokens();
+    phaseStart = MagikSensor.record(timings, Phase.WALK, phaseStart);
+
+    // Issues.
     LOGGER.debug("Running checks");
-    final Checks<MagikCheck> checks =
-        checkFactory
-            .<MagikCheck>create(CheckList.REPOSITORY_KEY)
-            .addAnnotatedChecks(CheckList.getChecks());
+    final List<FileAnalysis.Issue> issues = new ArrayList<>();
     for (final MagikCheck check : checks.all()) {
       LOGGER.debug("Running check: {}", check);
-      final List<MagikIssue> issues = check.scanFileForIssues(magikFile);
       final RuleKey ruleKey = checks.ruleKey(check);
       if (ruleKey == null) {
         continue;
       }
 
-      this.saveIssues(context, ruleKey, issues, inputFile);
+      issues.addAll(FileAnalysis.toIssues(ruleKey, check.scanFileForIssues(magikFile)));
     }
+    MagikSensor.record(timings, Phase.CHECKS, phaseStart);
+
+    return new FileAnalysis(inputFile, metrics, issues, highlights, cpdTokens);
+  }
+
+  private static long record(
+      final Map<Phase, LongAdder> timings, final Phase phase, final long start) {
+    final long now = System.nanoTime();
+    timings.get(phase).add(now - start);
+    return now;
+  }
+
+  private void saveFileAnalysis(final SensorContext context, final FileAnalysis fileAnalysis) {
+    final InputFile inputFile = fileAnalysis.getInputFile();
+
+    // Save metrics.
+    LOGGER.debug("Save measures");
+    this.saveMetrics(context, fileAnalysis);
+
+    // Save issues.
+    LOGGER.debug("Saving issues");
+    this.saveIssues(context, fileAnalysis);
 
     // Save highlighted tokens.
     LOGGER.debug("Saving highlighted tokens");
-    final MagikVisitor tokensVisitor = new MagikHighlighterVisitor(context, inputFile);
-    tokensVisitor.scanFile(magikFile);
+    final NewHighlighting newHighlighting = context.newHighlighting().onFile(inputFile);
+    MagikHighlighterVisitor.save(newHighlighting, fileAnalysis.getHighlights());
 
     // Save CPD tokens.
     LOGGER.debug("Saving CPD tokens");
     final CpdTokenSaver cpdTokenSaver = new CpdTokenSaver(context);
-    cpdTokenSaver.saveCpdTokens(inputFile, magikFile);
+    cpdTokenSaver.saveCpdTokens(inputFile, fileAnalysis.getCpdTokens());
   }
 
-  private void saveMetrics(
-      final SensorContext context, final InputFile inputFile, final MagikFile magikFile) {
-    final FileMetrics metrics = new FileMetrics(magikFile, true);
+  private void saveMetrics(final SensorContext context, final FileAnalysis fileAnalysis) {
+    final InputFile inputFile = fileAnalysis.getInputFile();
 
     // Metrics on file.
-    this.saveMetric(context, inputFile, CoreMetrics.NCLOC, metrics.linesOfCode().size());
-    this.saveMetric(context, inputFile, CoreMetrics.COMMENT_LINES, metrics.commentLineCount());
-    this.saveMetric(context, inputFile, CoreMetrics.CLASSES, metrics.numberOfExemplars());
+    this.saveMetric(context, inputFile, CoreMetrics.NCLOC, fileAnalysis.getLinesOfCode().size());
     this.saveMetric(
-        context,
-        inputFile,
-        CoreMetrics.FUNCTIONS,
-        metrics.numberOfMethods() + metrics.numberOfProcedures());
-    this.saveMetric(context, inputFile, CoreMetrics.STATEMENTS, metrics.numberOfStatements());
-    this.saveMetric(context, inputFile, CoreMetrics.COMPLEXITY, metrics.fileComplexity());
+        context, inputFile, CoreMetrics.COMMENT_LINES, fileAnalysis.getCommentLineCount());
+    this.saveMetric(context, inputFile, CoreMetrics.CLASSES, fileAnalysis.getNumberOfClasses());
+    this.saveMetric(context, inputFile, CoreMetrics.FUNCTIONS, fileAnalysis.getNumberOfFunctions());
+    this.saveMetric(
+        context, inputFile, CoreMetrics.STATEMENTS, fileAnalysis.getNumberOfStatements());
+    this.saveMetric(context, inputFile, CoreMetrics.COMPLEXITY, fileAnalysis.getComplexity());
 
     // Metrics on lines.
     final FileLinesContext fileLinesContext = this.fileLinesContextFactory.createFor(inputFile);
-    metrics
-        .linesOfCode()
+    fileAnalysis
+        .getLinesOfCode()
         .forEach(line -> fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1));
-    metrics
-        .executableLines()
+    fileAnalysis
+        .getExecutableLines()
         .forEach(
             line -> fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, 1));
     fileLinesContext.save();
 
     // No sonar filter.
-    this.noSonarFilter.noSonarInFile(inputFile, metrics.nosonarLines());
+    this.noSonarFilter.noSonarInFile(inputFile, fileAnalysis.getNosonarLines());
   }
 
   private void saveMetric(
@@ -174,22 +354,16 @@ public class MagikSensor implements Sensor {
     context.<Integer>newMeasure().withValue(value).forMetric(metric).on(inputFile).save();
   }
 
-  private void saveIssues(
-      final SensorContext context,
-      final RuleKey ruleKey,
-      final List<MagikIssue> magikIssues,
-      final InputFile inputFile) {
-    for (final MagikIssue magikIssue : magikIssues) {
+  private void saveIssues(final SensorContext context, final FileAnalysis fileAnalysis) {
+    final InputFile inputFile = fileAnalysis.getInputFile();
+    for (final FileAnalysis.Issue magikIssue : fileAnalysis.getIssues()) {
       LOGGER.debug("Saving issue, file: {}, issue: {}", inputFile, magikIssue);
 
       final NewIssue issue = context.newIssue();
       final NewIssueLocation location =
           issue.newLocation().on(inputFile).message(magikIssue.message());
-      final Integer line = magikIssue.startLine();
-      if (line != null) {
-        location.at(inputFile.selectLine(line));
-      }
-      issue.at(location).forRule(ruleKey).save();
+      location.at(inputFile.selectLine(magikIssue.line()));
+      issue.at(location).forRule(magikIssue.ruleKey()).save();
     }
   }
 }
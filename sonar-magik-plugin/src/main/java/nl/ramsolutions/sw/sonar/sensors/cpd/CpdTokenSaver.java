@@ -16,6 +16,9 @@ public class CpdTokenSaver {
 
   private static final Logger LOGGER = Loggers.get(CpdTokenSaver.class);
 
+  /** Token for CPD. */
+  public record CpdToken(int line, int column, int endLine, int endColumn, String value) {}
+
   private final SensorContext context;
 
   /**
@@ -34,27 +37,56 @@ public class CpdTokenSaver {
    * @param magikFile Magik file.
    */
   public void saveCpdTokens(final InputFile inputFile, final MagikFile magikFile) {
+    this.saveCpdTokens(inputFile, CpdTokenSaver.collectCpdTokens(magikFile));
+  }
+
+  /**
+   * Save previously collected tokens for CPD.
+   *
+   * @param inputFile Input file.
+   * @param cpdTokens Tokens, collected by {@link #collectCpdTokens(MagikFile)}.
+   */
+  public void saveCpdTokens(final InputFile inputFile, final List<CpdToken> cpdTokens) {
     LOGGER.debug("Saving CPD tokens, file: {}", inputFile);
 
     final NewCpdTokens newCpdTokens = this.context.newCpdTokens().onFile(inputFile);
+    cpdTokens.forEach(
+        cpdToken ->
+            newCpdTokens.addToken(
+                cpdToken.line(),
+                cpdToken.column(),
+                cpdToken.endLine(),
+                cpdToken.endColumn(),
+                cpdToken.value()));
+    newCpdTokens.save();
+  }
+
+  /**
+   * Collect the tokens for CPD. Does not need a {@link SensorContext}, so files can be handled in
+   * parallel.
+   *
+   * @param magikFile Magik file.
+   * @return Tokens for CPD, in order.
+   */
+  public static List<CpdToken> collectCpdTokens(final MagikFile magikFile) {
     final List<Token> tokens = magikFile.getTopNode().getTokens();
 
     // Ensure order of tokens is preserved.
     final Comparator<TokenLocation> byLine = Comparator.comparing(TokenLocation::line);
     final Comparator<TokenLocation> byColumn = Comparator.comparing(TokenLocation::column);
 
-    tokens.stream()
+    return tokens.stream()
         .filter(token -> !token.getValue().trim().isEmpty())
         .map(TokenLocation::new)
         .sorted(byLine.thenComparing(byColumn))
-        .forEach(
+        .map(
             tokenLocation ->
-                newCpdTokens.addToken(
+                new CpdToken(
                     tokenLocation.line(),
                     tokenLocation.column(),
                     tokenLocation.endLine(),
                     tokenLocation.endColumn(),
-                    tokenLocation.getValue()));
-    newCpdTokens.save();
+                    tokenLocation.getValue()))
+        .toList();
   }
 }
@@ -3,30 +3,56 @@ package nl.ramsolutions.sw.sonar.visitors;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.Trivia;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import nl.ramsolutions.sw.magik.MagikVisitor;
 import nl.ramsolutions.sw.magik.api.MagikKeyword;
 import nl.ramsolutions.sw.sonar.TokenLocation;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 
-/** Magik highlighter visitor. */
+/**
+ * Magik highlighter visitor.
+ *
+ * <p>Only collects the highlights, so files can be scanned in parallel. Saving is done through
+ * {@link #save(NewHighlighting, List)}.
+ */
 public class MagikHighlighterVisitor extends MagikVisitor {
 
+  /** Highlighted range. */
+  public record Highlight(
+      int line, int column, int endLine, int endColumn, TypeOfText typeOfText) {}
+
   private static final List<String> KEYWORDS = List.of(MagikKeyword.keywordValues());
 
-  private final NewHighlighting newHighlighting;
+  private final List<Highlight> highlights = new ArrayList<>();
 
-  public MagikHighlighterVisitor(final SensorContext context, final InputFile inputFile) {
-    this.newHighlighting = context.newHighlighting();
-    this.newHighlighting.onFile(inputFile);
+  /**
+   * Get the collected highlights.
+   *
+   * @return Highlights.
+   */
+  public List<Highlight> getHighlights() {
+    return Collections.unmodifiableList(this.highlights);
   }
 
-  @Override
-  protected void walkPostMagik(final AstNode node) {
-    this.newHighlighting.save();
+  /**
+   * Save highlights.
+   *
+   * @param newHighlighting Highlighting to save to, already set on the file.
+   * @param highlights Highlights to save.
+   */
+  public static void save(final NewHighlighting newHighlighting, final List<Highlight> highlights) {
+    highlights.forEach(
+        highlight ->
+            newHighlighting.highlight(
+                highlight.line(),
+                highlight.column(),
+                highlight.endLine(),
+                highlight.endColumn(),
+                highlight.typeOfText()));
+    newHighlighting.save();
   }
 
   @Override
@@ -60,11 +86,12 @@ public class MagikHighlighterVisitor extends MagikVisitor {
 
   private void highlight(final Token token, final TypeOfText typeOfText) {
     final TokenLocation tokenLocation = new TokenLocation(token);
-    this.newHighlighting.highlight(
-        tokenLocation.line(),
-        tokenLocation.column(),
-        tokenLocation.endLine(),
-        tokenLocation.endColumn(),
-        typeOfText);
+    this.highlights.add(
+        new Highlight(
+            tokenLocation.line(),
+            tokenLocation.column(),
+            tokenLocation.endLine(),
+            tokenLocation.endColumn(),
+            typeOfText));
   }
 }
@@ -0,0 +1,102 @@
+package nl.ramsolutions.sw.sonar.visitors;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import nl.ramsolutions.sw.magik.metrics.FileMetrics;
+import nl.ramsolutions.sw.magik.metrics.FileMetricsVisitor;
+import nl.ramsolutions.sw.sonar.TokenLocation;
+import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver.CpdToken;
+import nl.ramsolutions.sw.sonar.visitors.MagikHighlighterVisitor.Highlight;
+
+/**
+ * Visitor gathering the metrics, highlights and CPD tokens of a file in a single walk of the tree.
+ *
+ * <p>Tokens are visited in source order, so the CPD tokens only need to be sorted if a token
+ * happens to be out of order.
+ */
+public class MagikSensorVisitor extends FileMetricsVisitor {
+
+  private static final Comparator<CpdToken> BY_POSITION =
+      Comparator.comparingInt(CpdToken::line).thenComparingInt(CpdToken::column);
+
+  private final MagikHighlighterVisitor highlighterVisitor = new MagikHighlighterVisitor();
+  private final List<CpdToken> cpdTokens = new ArrayList<>();
+  private boolean cpdTokensSorted = true;
+
+  /** Constructor. */
+  public MagikSensorVisitor() {
+    super(true);
+  }
+
+  /**
+   * Get the metrics.
+   *
+   * @return Metrics of file.
+   */
+  public FileMetrics getMetrics() {
+    return new FileMetrics(this);
+  }
+
+  /**
+   * Get the collected highlights.
+   *
+   * @return Highlights.
+   */
+  public List<Highlight> getHighlights() {
+    return this.highlighterVisitor.getHighlights();
+  }
+
+  /**
+   * Get the collected CPD tokens.
+   *
+   * @return Tokens for CPD, in order.
+   */
+  public List<CpdToken> getCpdTokens() {
+    if (!this.cpdTokensSorted) {
+      this.cpdTokens.sort(BY_POSITION);
+      this.cpdTokensSorted = true;
+    }
+    return Collections.unmodifiableList(this.cpdTokens);
+  }
+
+  @Override
+  protected void walkPreString(final AstNode node) {
+    super.walkPreString(node);
+    this.highlighterVisitor.walkPreString(node);
+  }
+
+  @Override
+  protected void walkPreSymbol(final AstNode node) {
+    super.walkPreSymbol(node);
+    this.highlighterVisitor.walkPreSymbol(node);
+  }
+
+  @Override
+  public void walkToken(final Token token) {
+    super.walkToken(token);
+    this.highlighterVisitor.walkToken(token);
+
+    if (token.getValue().trim().isEmpty()) {
+      return;
+    }
+
+    final TokenLocation tokenLocation = new TokenLocation(token);
+    final CpdToken cpdToken =
+        new CpdToken(
+            tokenLocation.line(),
+            tokenLocation.column(),
+            tokenLocation.endLine(),
+            tokenLocation.endColumn(),
+            tokenLocation.getValue());
+    if (this.cpdTokensSorted
+        && !this.cpdTokens.isEmpty()
+        && BY_POSITION.compare(this.cpdTokens.get(this.cpdTokens.size() - 1), cpdToken) > 0) {
+      this.cpdTokensSorted = false;
+    }
+    this.cpdTokens.add(cpdToken);
+  }
+}
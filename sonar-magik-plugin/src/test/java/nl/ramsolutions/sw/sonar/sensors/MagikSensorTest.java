@@ -0,0 +1,287 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.checks.checks.FileNotInLoadListCheck;
+import nl.ramsolutions.sw.magik.checks.checks.TrailingWhitespaceCheck;
+import nl.ramsolutions.sw.magik.checks.checks.UnusedVariableCheck;
+import nl.ramsolutions.sw.moduledef.LoadListIndex;
+import nl.ramsolutions.sw.sonar.language.Magik;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.issue.NoSonarFilter;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.rule.RuleKey;
+
+/** Tests for MagikSensor. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class MagikSensorTest {
+
+  private static final Path BASE_PATH = Path.of("src/test/resources/test_product");
+  private static final int FILE_COUNT = 25;
+
+  private static final FileLinesContext NULL_FILE_LINES_CONTEXT =
+      new FileLinesContext() {
+        @Override
+        public void setIntValue(final String metricKey, final int line, final int value) {
+          // Nothing to do.
+        }
+
+        @Override
+        public void setStringValue(final String metricKey, final int line, final String value) {
+          // Nothing to do.
+        }
+
+        @Override
+        public void save() {
+          // Nothing to do.
+        }
+      };
+
+  private static final NoSonarFilter NULL_NO_SONAR_FILTER =
+      new NoSonarFilter() {
+        @Override
+        public NoSonarFilter noSonarInFile(final InputFile inputFile, final Set<Integer> lines) {
+          return this;
+        }
+      };
+
+  /** In memory analysis cache, for both the previous and next analysis. */
+  private static final class MapCache implements ReadCache, WriteCache {
+
+    private final Map<String, byte[]> previous;
+    private final Map<String, byte[]> next = new HashMap<>();
+    private final Set<String> copied = new HashSet<>();
+
+    MapCache(final Map<String, byte[]> previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public InputStream read(final String key) {
+      return new ByteArrayInputStream(this.previous.get(key));
+    }
+
+    @Override
+    public boolean contains(final String key) {
+      return this.previous.containsKey(key);
+    }
+
+    @Override
+    public void write(final String key, final InputStream data) {
+      try {
+        this.write(key, data.readAllBytes());
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+
+    @Override
+    public void write(final String key, final byte[] data) {
+      this.next.put(key, data);
+    }
+
+    @Override
+    public void copyFromPrevious(final String key) {
+      this.copied.add(key);
+      this.next.put(key, this.previous.get(key));
+    }
+  }
+
+  private static SensorContextTester createContext(
+      final int threads, final ActiveRules activeRules, final int changedFile) {
+    return MagikSensorTest.createContext(BASE_PATH, threads, activeRules, changedFile);
+  }
+
+  private static SensorContextTester createContext(
+      final Path basePath,
+      final int threads,
+      final ActiveRules activeRules,
+      final int changedFile) {
+    final SensorContextTester context = SensorContextTester.create(basePath);
+    context.settings().setProperty(Magik.ANALYSIS_THREADS_KEY, threads);
+    context.setActiveRules(activeRules);
+    for (int i = 0; i < FILE_COUNT; ++i) {
+      final String comment = i == changedFile ? "# Changed.\n" : "";
+      final String contents =
+          "_method a.m"
+              + i
+              + "\n"
+              + "  _local x << 1 \n".repeat(i % 3 + 1)
+              + "_endmethod\n$\n"
+              + comment;
+      @SuppressWarnings("deprecation")
+      final InputFile inputFile =
+          TestInputFileBuilder.create("moduleKey", "file" + i + ".magik")
+              .setModuleBaseDir(basePath)
+              .setCharset(StandardCharsets.ISO_8859_1)
+              .setType(InputFile.Type.MAIN)
+              .setLanguage(Magik.KEY)
+              .setContents(contents)
+              .build();
+      context.fileSystem().add(inputFile);
+    }
+    return context;
+  }
+
+  private static ActiveRules activeRules(final String... checkKeys) {
+    final ActiveRulesBuilder builder = new ActiveRulesBuilder();
+    for (final String checkKey : checkKeys) {
+      builder.addRule(
+          new NewActiveRule.Builder()
+              .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, checkKey))
+              .build());
+    }
+    return builder.build();
+  }
+
+  private static void execute(final SensorContextTester context) {
+    final CheckFactory checkFactory = new CheckFactory(context.activeRules());
+    final MagikSensor sensor =
+        new MagikSensor(checkFactory, inputFile -> NULL_FILE_LINES_CONTEXT, NULL_NO_SONAR_FILTER);
+    sensor.execute(context);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4})
+  void testExecute(final int threads) {
+    final ActiveRules activeRules =
+        MagikSensorTest.activeRules(
+            UnusedVariableCheck.CHECK_KEY, TrailingWhitespaceCheck.CHECK_KEY);
+    final SensorContextTester context = MagikSensorTest.createContext(threads, activeRules, -1);
+    MagikSensorTest.execute(context);
+    MagikSensorTest.assertResults(context);
+  }
+
+  @Test
+  void testExecuteFromCache() {
+    final ActiveRules activeRules =
+        MagikSensorTest.activeRules(
+            UnusedVariableCheck.CHECK_KEY, TrailingWhitespaceCheck.CHECK_KEY);
+
+    // First analysis fills the cache.
+    final SensorContextTester context1 = MagikSensorTest.createContext(4, activeRules, -1);
+    final MapCache cache1 = new MapCache(Map.of());
+    context1.setCacheEnabled(true);
+    context1.setPreviousCache(cache1);
+    context1.setNextCache(cache1);
+    MagikSensorTest.execute(context1);
+    assertThat(cache1.next).hasSize(FILE_COUNT);
+    assertThat(cache1.copied).isEmpty();
+
+    // Second analysis replays all but the changed file.
+    final SensorContextTester context2 = MagikSensorTest.createContext(4, activeRules, 3);
+    final MapCache cache2 = new MapCache(cache1.next);
+    context2.setCacheEnabled(true);
+    context2.setPreviousCache(cache2);
+    context2.setNextCache(cache2);
+    MagikSensorTest.execute(context2);
+    assertThat(cache2.copied)
+        .hasSize(FILE_COUNT - 1)
+        .doesNotContain("magik:analysis:moduleKey:file3.magik");
+    MagikSensorTest.assertResults(context2);
+
+    // Changed rules result in a full analysis.
+    final ActiveRules otherRules = MagikSensorTest.activeRules(UnusedVariableCheck.CHECK_KEY);
+    final SensorContextTester context3 = MagikSensorTest.createContext(4, otherRules, 3);
+    final MapCache cache3 = new MapCache(cache2.next);
+    context3.setCacheEnabled(true);
+    context3.setPreviousCache(cache3);
+    context3.setNextCache(cache3);
+    MagikSensorTest.execute(context3);
+    assertThat(cache3.copied).isEmpty();
+    assertThat(context3.allIssues()).hasSize(FILE_COUNT);
+  }
+
+  @Test
+  void testExecuteFromCacheLoadListChanged(@TempDir final Path basePath) throws IOException {
+    final ActiveRules activeRules = MagikSensorTest.activeRules(FileNotInLoadListCheck.CHECK_KEY);
+    final Path loadListPath = basePath.resolve(LoadListIndex.LOAD_LIST_TXT);
+    Files.writeString(loadListPath, "file0\n");
+
+    // First analysis fills the cache, all but file0 are not in the load list.
+    final SensorContextTester context1 =
+        MagikSensorTest.createContext(basePath, 4, activeRules, -1);
+    final MapCache cache1 = new MapCache(Map.of());
+    context1.setCacheEnabled(true);
+    context1.setPreviousCache(cache1);
+    context1.setNextCache(cache1);
+    MagikSensorTest.execute(context1);
+    assertThat(context1.allIssues()).hasSize(FILE_COUNT - 1);
+
+    // Changed load_list.txt, unchanged files: nothing is replayed.
+    Files.writeString(loadListPath, "file0\nfile1\n");
+    Files.setLastModifiedTime(loadListPath, FileTime.from(Instant.now().plusSeconds(10)));
+    final SensorContextTester context2 =
+        MagikSensorTest.createContext(basePath, 4, activeRules, -1);
+    final MapCache cache2 = new MapCache(cache1.next);
+    context2.setCacheEnabled(true);
+    context2.setPreviousCache(cache2);
+    context2.setNextCache(cache2);
+    MagikSensorTest.execute(context2);
+    assertThat(cache2.copied).isEmpty();
+    assertThat(context2.allIssues())
+        .hasSize(FILE_COUNT - 2)
+        .noneMatch(
+            issue ->
+                issue.primaryLocation().inputComponent().key().equals("moduleKey:file1.magik"));
+
+    // Unchanged load_list.txt: everything is replayed.
+    final SensorContextTester context3 =
+        MagikSensorTest.createContext(basePath, 4, activeRules, -1);
+    final MapCache cache3 = new MapCache(cache2.next);
+    context3.setCacheEnabled(true);
+    context3.setPreviousCache(cache3);
+    context3.setNextCache(cache3);
+    MagikSensorTest.execute(context3);
+    assertThat(cache3.copied).hasSize(FILE_COUNT);
+    assertThat(context3.allIssues()).hasSize(FILE_COUNT - 2);
+  }
+
+  private static void assertResults(final SensorContextTester context) {
+    // Every file: an unused variable, and trailing whitespace on each line declaring it.
+    final Map<String, Integer> issueCounts = new TreeMap<>();
+    for (final Issue issue : context.allIssues()) {
+      issueCounts.merge(issue.primaryLocation().inputComponent().key(), 1, Integer::sum);
+    }
+    assertThat(issueCounts).hasSize(FILE_COUNT);
+    for (int i = 0; i < FILE_COUNT; ++i) {
+      final String key = "moduleKey:file" + i + ".magik";
+      final int lines = i % 3 + 1;
+      assertThat(issueCounts.get(key)).isEqualTo(lines + 1);
+      assertThat(context.measure(key, CoreMetrics.NCLOC).value()).isPositive();
+      assertThat(context.highlightingTypeAt(key, 1, 0)).isEqualTo(List.of(TypeOfText.KEYWORD));
+      assertThat(context.cpdTokens(key)).hasSize(lines + 3);
+    }
+  }
+}
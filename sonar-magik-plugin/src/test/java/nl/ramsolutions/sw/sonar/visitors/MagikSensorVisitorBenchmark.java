@@ -0,0 +1,100 @@
+package nl.ramsolutions.sw.sonar.visitors;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.metrics.FileMetrics;
+import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver;
+
+/**
+ * Benchmark of the single walk of {@link MagikSensorVisitor} against separate walks for metrics,
+ * highlighting and CPD tokens.
+ *
+ * <p>Files are parsed once up front, only the walks are timed. Run from the test classpath,
+ * optionally giving the number of iterations and directories to search for {@code .magik} files:
+ * {@code MagikSensorVisitorBenchmark 50 /path/to/product}.
+ */
+@SuppressWarnings({"checkstyle:MagicNumber", "checkstyle:HideUtilityClassConstructor"})
+public final class MagikSensorVisitorBenchmark {
+
+  private static final Path DEFAULT_PATH = Path.of("src/test/resources");
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final double NANOS_PER_MICRO = 1_000.0;
+
+  private MagikSensorVisitorBenchmark() {}
+
+  /**
+   * Main entry point.
+   *
+   * @param args Number of iterations, followed by directories.
+   * @throws IOException -
+   */
+  public static void main(final String[] args) throws IOException {
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+    final List<Path> paths =
+        args.length > 1 ? Stream.of(args).skip(1).map(Path::of).toList() : List.of(DEFAULT_PATH);
+
+    final List<MagikFile> magikFiles = new ArrayList<>();
+    for (final Path path : paths) {
+      try (Stream<Path> stream = Files.walk(path)) {
+        for (final Path filePath :
+            stream
+                .filter(p -> p.toString().endsWith(".magik") && Files.isRegularFile(p))
+                .toList()) {
+          final String code = Files.readString(filePath, StandardCharsets.ISO_8859_1);
+          final MagikFile magikFile = new MagikFile(filePath.toUri(), code);
+          magikFile.getTopNode();
+          magikFiles.add(magikFile);
+        }
+      }
+    }
+
+    for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+      MagikSensorVisitorBenchmark.time(magikFiles, MagikSensorVisitorBenchmark::separateWalks);
+      MagikSensorVisitorBenchmark.time(magikFiles, MagikSensorVisitorBenchmark::singleWalk);
+    }
+
+    long separateNanos = 0;
+    long singleNanos = 0;
+    for (int i = 0; i < iterations; ++i) {
+      separateNanos +=
+          MagikSensorVisitorBenchmark.time(magikFiles, MagikSensorVisitorBenchmark::separateWalks);
+      singleNanos +=
+          MagikSensorVisitorBenchmark.time(magikFiles, MagikSensorVisitorBenchmark::singleWalk);
+    }
+
+    final PrintStream out = System.out; // NOSONAR
+    final long walks = (long) iterations * Math.max(magikFiles.size(), 1);
+    out.printf("files: %d, iterations: %d%n", magikFiles.size(), iterations);
+    out.printf("%16s %16s%n", "walk", "us/file");
+    out.printf("%16s %16.1f%n", "separate", separateNanos / NANOS_PER_MICRO / walks);
+    out.printf("%16s %16.1f%n", "single", singleNanos / NANOS_PER_MICRO / walks);
+  }
+
+  private static long time(final List<MagikFile> magikFiles, final Consumer<MagikFile> walker) {
+    final long start = System.nanoTime();
+    magikFiles.forEach(walker);
+    return System.nanoTime() - start;
+  }
+
+  private static void separateWalks(final MagikFile magikFile) {
+    new FileMetrics(magikFile, true);
+    final MagikHighlighterVisitor highlighterVisitor = new MagikHighlighterVisitor();
+    highlighterVisitor.scanFile(magikFile);
+    CpdTokenSaver.collectCpdTokens(magikFile);
+  }
+
+  private static void singleWalk(final MagikFile magikFile) {
+    final MagikSensorVisitor visitor = new MagikSensorVisitor();
+    visitor.scanFile(magikFile);
+    visitor.getMetrics();
+    visitor.getCpdTokens();
+  }
+}
@@ -0,0 +1,78 @@
+package nl.ramsolutions.sw.sonar.visitors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.metrics.FileMetrics;
+import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver;
+import org.junit.jupiter.api.Test;
+
+/** Tests for MagikSensorVisitor. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class MagikSensorVisitorTest {
+
+  private static final URI DEFAULT_URI = URI.create("memory://source.magik");
+  private static final Path TEST_FILE_PATH =
+      Path.of("src/test/resources/test_product/test_module/test.magik");
+
+  private static void assertSameAsSeparateWalks(final MagikFile magikFile) {
+    final MagikSensorVisitor visitor = new MagikSensorVisitor();
+    visitor.scanFile(magikFile);
+
+    final FileMetrics expectedMetrics = new FileMetrics(magikFile, true);
+    final FileMetrics metrics = visitor.getMetrics();
+    assertThat(metrics.numberOfStatements()).isEqualTo(expectedMetrics.numberOfStatements());
+    assertThat(metrics.numberOfExemplars()).isEqualTo(expectedMetrics.numberOfExemplars());
+    assertThat(metrics.numberOfMethods()).isEqualTo(expectedMetrics.numberOfMethods());
+    assertThat(metrics.numberOfProcedures()).isEqualTo(expectedMetrics.numberOfProcedures());
+    assertThat(metrics.fileComplexity()).isEqualTo(expectedMetrics.fileComplexity());
+    assertThat(metrics.linesOfCode()).isEqualTo(expectedMetrics.linesOfCode());
+    assertThat(metrics.commentLines()).isEqualTo(expectedMetrics.commentLines());
+    assertThat(metrics.executableLines()).isEqualTo(expectedMetrics.executableLines());
+
+    final MagikHighlighterVisitor highlighterVisitor = new MagikHighlighterVisitor();
+    highlighterVisitor.scanFile(magikFile);
+    assertThat(visitor.getHighlights()).isEqualTo(highlighterVisitor.getHighlights());
+
+    assertThat(visitor.getCpdTokens()).isEqualTo(CpdTokenSaver.collectCpdTokens(magikFile));
+  }
+
+  @Test
+  void testTestFile() throws IOException {
+    final String code = Files.readString(TEST_FILE_PATH, StandardCharsets.ISO_8859_1);
+    final MagikFile magikFile = new MagikFile(DEFAULT_URI, code);
+    MagikSensorVisitorTest.assertSameAsSeparateWalks(magikFile);
+  }
+
+  @Test
+  void testNestedDefinitions() {
+    final String code =
+        """
+        # header
+        _method a.b
+          ## Doc.
+          _if a _andif b _then
+            _proc() _loop _endloop _endproc
+          _endif
+          >> "a", :b
+        _endmethod
+        $
+        _proc()
+          _proc() _if a _orif b _then _endif _endproc
+        _endproc
+        $
+        """;
+    final MagikFile magikFile = new MagikFile(DEFAULT_URI, code);
+    MagikSensorVisitorTest.assertSameAsSeparateWalks(magikFile);
+
+    final MagikSensorVisitor visitor = new MagikSensorVisitor();
+    visitor.scanFile(magikFile);
+    assertThat(visitor.getMethodComplexities()).containsExactly(5);
+    assertThat(visitor.getProcedureComplexities()).containsExactly(5, 4);
+  }
+}